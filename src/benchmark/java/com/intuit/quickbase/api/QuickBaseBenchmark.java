@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseBenchmark.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The class <code>QuickBaseBenchmark</code> is a single benchmarked operation, identified by a
+ * name and a description of its parameters. The operation is executed repeatedly by
+ * {@link QuickBaseBenchmarks}; all expensive preparation (such as generating payloads) must
+ * happen before the benchmark is created, so that {@link #run()} measures only the operation
+ * itself. The result of each {@link #run()} is consumed by the harness to prevent the JIT compiler
+ * from eliminating the operation as dead code.
+ * <p/>
+ * Very cheap operations (such as reading a single field) should perform a batch of operations
+ * per {@link #run()} and report the batch size, so that the harness overhead does not dominate
+ * the measurement; results are always reported per single operation.
+ */
+abstract class QuickBaseBenchmark
+{
+    private String name;
+    private String parameters;
+    private int batchSize;
+
+    /**
+     * Creates a new <code>QuickBaseBenchmark</code>.
+     *
+     * @param name the name of the benchmark (for example, <code>"ContentHandler.parse"</code>)
+     * @param parameters the parameters of this particular case (for example,
+     * <code>"rows=100;width=5"</code>)
+     */
+    QuickBaseBenchmark(String name, String parameters)
+    {
+        this(name, parameters, 1);
+    }
+
+    /**
+     * Creates a new <code>QuickBaseBenchmark</code> that performs several operations per
+     * {@link #run()}.
+     *
+     * @param name the name of the benchmark
+     * @param parameters the parameters of this particular case
+     * @param batchSize the number of operations performed by each {@link #run()}
+     */
+    QuickBaseBenchmark(String name, String parameters, int batchSize)
+    {
+        this.name = name;
+        this.parameters = parameters;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets the name of the benchmark.
+     *
+     * @return the name
+     */
+    String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Gets the parameters of the benchmark case.
+     *
+     * @return the parameter description
+     */
+    String getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Gets the number of operations that are performed by each {@link #run()}.
+     *
+     * @return the batch size
+     */
+    int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Executes the benchmarked operation (or batch of operations) once.
+     *
+     * @return a result of the operation that depends on the work that was done (may be
+     * <code>null</code>)
+     * @throws Exception if the operation failed
+     */
+    abstract Object run() throws Exception;
+}
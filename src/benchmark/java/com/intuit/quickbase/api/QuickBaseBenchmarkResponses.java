@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseBenchmarkResponses.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.UnsupportedEncodingException;
+
+/**
+ * The class <code>QuickBaseBenchmarkResponses</code> generates synthetic
+ * {@link QuickBaseAPICall#API_DoQuery} responses for the benchmarks. The generated responses are
+ * fully deterministic (they only depend on their parameters), so that measurements taken at
+ * different commits operate on identical input.
+ * <p/>
+ * Each record contains a mix of typed values: field 1 is a text, field 2 an integer, field 3 the
+ * record ID, field 4 a decimal number, field 5 a date in milliseconds since the epoch, field 6 a
+ * check box, and field 7 a formatted date; further fields repeat this pattern. In responses with
+ * rich content, every text field also contains a nested <code>&lt;url&gt;</code> element and a
+ * multi-line value with <code>&lt;BR/&gt;</code> elements, as QuickBase returns them for URL and
+ * multi-line text fields.
+ */
+class QuickBaseBenchmarkResponses
+{
+    /** The ID of the text field. **/
+    final static int TEXT = 1;
+
+    /** The ID of the integer field. **/
+    final static int INTEGER = 2;
+
+    /** The ID of the record ID field. **/
+    final static int RECORD_ID = 3;
+
+    /** The ID of the decimal field. **/
+    final static int DECIMAL = 4;
+
+    /** The ID of the date field (in milliseconds since the epoch). **/
+    final static int DATE = 5;
+
+    /** The ID of the check box field. **/
+    final static int CHECKBOX = 6;
+
+    /** The ID of the formatted date field. **/
+    final static int FORMATTED_DATE = 7;
+
+    /** The pattern of the formatted date field. **/
+    final static String DATE_FORMAT = "yyyy-MM-dd"; //$NON-NLS-1$
+
+    private final static int TYPES = 7;
+    private final static long EPOCH = 1230768000000L;
+    private final static long DAY = 86400000L;
+    private final static String UTF_8 = "UTF-8"; //$NON-NLS-1$
+
+    private QuickBaseBenchmarkResponses()
+    {
+        // Static helper class
+    }
+
+    /**
+     * Generates a {@link QuickBaseAPICall#API_DoQuery} response.
+     *
+     * @param rows the number of records
+     * @param width the number of fields per record
+     * @param rich <code>true</code> to include nested <code>&lt;url&gt;</code> and
+     * <code>&lt;BR/&gt;</code> content in text fields
+     * @return the UTF-8 encoded response
+     */
+    static byte[] doQuery(int rows, int width, boolean rich)
+    {
+        StringBuffer xml = new StringBuffer("<?xml version=\"1.0\" ?>\n<qdbapi>\n");
+        xml.append("<action>API_DoQuery</action>\n<errcode>0</errcode>\n<errtext>No error</errtext>\n");
+        xml.append("<dbinfo>\n<name>Benchmark</name>\n<desc></desc>\n</dbinfo>\n");
+        xml.append("<variables>\n</variables>\n<chdbids>\n</chdbids>\n");
+        xml.append("<table>\n<records>\n");
+        for (int row = 0; row < rows; row++)
+        {
+            xml.append("<record>\n");
+            for (int field = 1; field <= width; field++)
+            {
+                xml.append("<f id=\"").append(field).append("\">");
+                value(xml, row, field, rich);
+                xml.append("</f>\n");
+            }
+            xml.append("</record>\n");
+        }
+        xml.append("</records>\n</table>\n</qdbapi>\n");
+        try
+        {
+            return xml.toString().getBytes(UTF_8);
+        }
+        catch (UnsupportedEncodingException unsupportedEncodingException)
+        {
+            throw new IllegalStateException(unsupportedEncodingException);
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private static void value(StringBuffer xml, int row, int field, boolean rich)
+    {
+        switch ((field - 1)%TYPES + 1)
+        {
+            case TEXT:
+                xml.append("Customer &amp; Partner ").append(row%97);
+                if (rich)
+                {
+                    xml.append("<BR/>Line two of ").append(row).append("<BR/>");
+                    xml.append("<url>https://www.quickbase.com/db/bdb5rjd6g?a=dr&amp;rid=");
+                    xml.append(row).append("</url>");
+                }
+                break;
+            case INTEGER:
+                xml.append(row%10007 - 5003);
+                break;
+            case RECORD_ID:
+                xml.append(row + 1);
+                break;
+            case DECIMAL:
+                xml.append(row%1000).append('.').append(row%100 < 10? "0":"").append(row%100);
+                break;
+            case DATE:
+                xml.append(EPOCH + (row%3650)*DAY);
+                break;
+            case CHECKBOX:
+                xml.append(row%2 == 0);
+                break;
+            default:
+                int day = row%28 + 1;
+                xml.append("2009-0").append(row%9 + 1).append(day < 10? "-0":"-").append(day);
+                break;
+        }
+    }
+}
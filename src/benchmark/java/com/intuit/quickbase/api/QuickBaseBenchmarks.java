@@ -0,0 +1,467 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseBenchmarks.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.InputSource;
+import com.intuit.quickbase.api.query.CList;
+import static com.intuit.quickbase.api.QuickBaseBenchmarkResponses.CHECKBOX;
+import static com.intuit.quickbase.api.QuickBaseBenchmarkResponses.DATE;
+import static com.intuit.quickbase.api.QuickBaseBenchmarkResponses.DATE_FORMAT;
+import static com.intuit.quickbase.api.QuickBaseBenchmarkResponses.DECIMAL;
+import static com.intuit.quickbase.api.QuickBaseBenchmarkResponses.FORMATTED_DATE;
+import static com.intuit.quickbase.api.QuickBaseBenchmarkResponses.INTEGER;
+import static com.intuit.quickbase.api.QuickBaseBenchmarkResponses.RECORD_ID;
+import static com.intuit.quickbase.api.QuickBaseBenchmarkResponses.TEXT;
+
+/**
+ * The class <code>QuickBaseBenchmarks</code> runs the SDK's micro-benchmarks and reports the
+ * results as CSV, one line per benchmark case. The benchmarks cover the hot paths of the SDK that
+ * do not involve the network:
+ * <ul>
+ * <li><code>ContentHandler.parse</code>: decoding {@link QuickBaseAPICall#API_DoQuery} responses
+ * of varying row count, width and content with each {@link QuickBaseResponseParser} (and, for
+ * comparison, with a new SAX parser per response),</li>
+ * <li><code>Record.getField</code>: reading fields with each standard resolver (and with the
+ * primitive accessors),</li>
+ * <li><code>CList.toString</code>: formatting column lists, and</li>
+ * <li><code>Table.addRecordXml</code>: populating a {@link QuickBaseRecordBuilder} and building
+ * the XML elements of an {@link QuickBaseAPICall#API_AddRecord} request.</li>
+ * </ul>
+ * Each case is first run for a number of warm-up iterations, which also determine how many
+ * operations fit into one measurement iteration; the measurement iterations then execute that
+ * fixed number of operations without consulting the clock in between. The reported figures are
+ * the mean, standard deviation and minimum time per operation across the measurement iterations.
+ * <p/>
+ * Usage: <code>java com.intuit.quickbase.api.QuickBaseBenchmarks [option=value ...]</code>
+ * (with the SDK classes, commons-httpclient and commons-logging on the class path). Options:
+ * <ul>
+ * <li><code>label</code>: a label for the first CSV column, typically the commit ID, so that
+ * results of several commits can be concatenated and compared (default: <code>local</code>),</li>
+ * <li><code>filter</code>: only run cases whose name or parameters contain this text,</li>
+ * <li><code>warmup</code>: the number of warm-up iterations (default: 5),</li>
+ * <li><code>iterations</code>: the number of measurement iterations (default: 10),</li>
+ * <li><code>time</code>: the duration of each iteration in milliseconds (default: 200), and</li>
+ * <li><code>output</code>: a file that the CSV lines are appended to (default: standard
+ * output); the CSV header is only written if the file is empty.</li>
+ * </ul>
+ * Results are only comparable if they were taken on the same machine and JVM; the JVM version is
+ * reported on standard error.
+ */
+public class QuickBaseBenchmarks
+{
+    private final static String HEADER = "label,benchmark,parameters,iterations,ns_per_op,stddev_ns_per_op,min_ns_per_op"; //$NON-NLS-1$
+    private final static String LABEL = "label"; //$NON-NLS-1$
+    private final static String FILTER = "filter"; //$NON-NLS-1$
+    private final static String WARMUP = "warmup"; //$NON-NLS-1$
+    private final static String ITERATIONS = "iterations"; //$NON-NLS-1$
+    private final static String TIME = "time"; //$NON-NLS-1$
+    private final static String OUTPUT = "output"; //$NON-NLS-1$
+    private final static String PARSE = "ContentHandler.parse"; //$NON-NLS-1$
+    private final static String GET_FIELD = "Record.getField"; //$NON-NLS-1$
+    private final static String CLIST = "CList.toString"; //$NON-NLS-1$
+    private final static String ADD_RECORD = "Table.addRecordXml"; //$NON-NLS-1$
+    private final static int[] ROWS = {1, 100, 10000};
+    private final static int[] WIDTHS = {5, 50};
+    private final static int[] COLUMNS = {3, 20, 100};
+    private final static int RECORDS = 1000;
+    private final static String DECIMAL_FORMAT = "%.2f"; //$NON-NLS-1$
+    private final static long MILLISECOND = 1000000L;
+
+    private static volatile Object sink;
+
+    private String label = "local"; //$NON-NLS-1$
+    private String filter = ""; //$NON-NLS-1$
+    private int warmup = 5;
+    private int iterations = 10;
+    private long time = 200;
+    private PrintStream output = System.out;
+    private boolean header = true;
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param arguments options of the form <code>option=value</code>
+     * @throws Exception if a benchmark failed
+     */
+    public static void main(String[] arguments) throws Exception
+    {
+        QuickBaseBenchmarks benchmarks = new QuickBaseBenchmarks();
+        for (String argument: arguments)
+        {
+            int separator = argument.indexOf('=');
+            if (separator == -1)
+            {
+                throw new IllegalArgumentException(argument);
+            }
+            benchmarks.set(argument.substring(0, separator), argument.substring(separator + 1));
+        }
+        System.err.println(System.getProperty("java.vm.name") + ' ' + System.getProperty("java.version")); //$NON-NLS-1$ //$NON-NLS-2$
+        benchmarks.run(benchmarks.all());
+        benchmarks.output.flush();
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    void set(String option, String value) throws IOException
+    {
+        if (LABEL.equals(option))
+        {
+            label = value;
+        }
+        else if (FILTER.equals(option))
+        {
+            filter = value;
+        }
+        else if (WARMUP.equals(option))
+        {
+            warmup = Integer.parseInt(value);
+        }
+        else if (ITERATIONS.equals(option))
+        {
+            iterations = Integer.parseInt(value);
+        }
+        else if (TIME.equals(option))
+        {
+            time = Long.parseLong(value);
+        }
+        else if (OUTPUT.equals(option))
+        {
+            // When results are appended to an existing file the header is not repeated:
+            //
+            File file = new File(value);
+            header = file.length() == 0;
+            output = new PrintStream(new FileOutputStream(file, true), true);
+        }
+        else
+        {
+            throw new IllegalArgumentException(option);
+        }
+    }
+
+    List<QuickBaseBenchmark> all() throws Exception
+    {
+        List<QuickBaseBenchmark> benchmarks = new ArrayList<QuickBaseBenchmark>();
+        benchmarks.addAll(parse());
+        benchmarks.addAll(getField());
+        benchmarks.addAll(clist());
+        benchmarks.addAll(addRecord());
+        return benchmarks;
+    }
+
+    void run(List<QuickBaseBenchmark> benchmarks) throws Exception
+    {
+        if (header)
+        {
+            output.println(HEADER);
+        }
+        for (QuickBaseBenchmark benchmark: benchmarks)
+        {
+            if (benchmark.getName().indexOf(filter) != -1 || benchmark.getParameters().indexOf(filter) != -1)
+            {
+                System.err.println(benchmark.getName() + ' ' + benchmark.getParameters());
+                output.println(measure(benchmark));
+            }
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private String measure(QuickBaseBenchmark benchmark) throws Exception
+    {
+        // Warm-up iterations are timed by the clock and calibrate the number of runs per iteration:
+        //
+        long runs = 0;
+        long elapsed = 0;
+        for (int iteration = 0; iteration < warmup; iteration++)
+        {
+            long start = System.nanoTime();
+            long end = start + time*MILLISECOND;
+            long now;
+            do
+            {
+                sink = benchmark.run();
+                runs++;
+            }
+            while ((now = System.nanoTime()) < end);
+            elapsed += now - start;
+        }
+        long runsPerIteration = Math.max(1, runs*time*MILLISECOND/Math.max(1, elapsed));
+        long operations = runsPerIteration*benchmark.getBatchSize();
+        double[] nanoseconds = new double[iterations];
+        for (int iteration = 0; iteration < iterations; iteration++)
+        {
+            long start = System.nanoTime();
+            for (long run = 0; run < runsPerIteration; run++)
+            {
+                sink = benchmark.run();
+            }
+            nanoseconds[iteration] = (double)(System.nanoTime() - start)/operations;
+        }
+        double mean = 0;
+        double minimum = Double.MAX_VALUE;
+        for (double value: nanoseconds)
+        {
+            mean += value/iterations;
+            minimum = Math.min(minimum, value);
+        }
+        double variance = 0;
+        for (double value: nanoseconds)
+        {
+            variance += (value - mean)*(value - mean)/Math.max(1, iterations - 1);
+        }
+        StringBuffer line = new StringBuffer();
+        line.append(label).append(',').append(benchmark.getName()).append(',');
+        line.append(benchmark.getParameters()).append(',').append(iterations).append(',');
+        line.append(format(mean)).append(',').append(format(Math.sqrt(variance))).append(',');
+        line.append(format(minimum));
+        return line.toString();
+    }
+
+    private static String format(double nanoseconds)
+    {
+        return String.format(Locale.ROOT, DECIMAL_FORMAT, Double.valueOf(nanoseconds));
+    }
+
+    private static List<QuickBaseBenchmark> parse()
+    {
+        List<QuickBaseBenchmark> benchmarks = new ArrayList<QuickBaseBenchmark>();
+        for (int rows: ROWS)
+        {
+            for (int width: WIDTHS)
+            {
+                for (boolean rich: new boolean[] {false, true})
+                {
+                    byte[] response = QuickBaseBenchmarkResponses.doQuery(rows, width, rich);
+                    String parameters = "rows=" + rows + ";width=" + width + ";content=" + (rich? "rich":"plain"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+                    benchmarks.add(parse(parameters + ";parser=sax", QuickBaseResponseParser.sax(), response)); //$NON-NLS-1$
+                    benchmarks.add(parse(parameters + ";parser=stax", QuickBaseResponseParser.stax(), response)); //$NON-NLS-1$
+                    benchmarks.add(parseWithNewParser(parameters + ";parser=new-sax", response)); //$NON-NLS-1$
+                }
+            }
+        }
+        return benchmarks;
+    }
+
+    private static QuickBaseBenchmark parse(String parameters, final QuickBaseResponseParser parser,
+    final byte[] response)
+    {
+        return new QuickBaseBenchmark(PARSE, parameters)
+        {
+            Object run() throws Exception
+            {
+                RecordingResultHandler handler = new RecordingResultHandler();
+                parser.parse(new InputSource(new ByteArrayInputStream(response)), new QuickBaseContentHandler(handler));
+                return handler;
+            }
+        };
+    }
+
+    private static QuickBaseBenchmark parseWithNewParser(String parameters, final byte[] response)
+    {
+        // This is how responses were parsed before parsers were pooled:
+        //
+        return new QuickBaseBenchmark(PARSE, parameters)
+        {
+            Object run() throws Exception
+            {
+                RecordingResultHandler handler = new RecordingResultHandler();
+                SAXParserFactory.newInstance().newSAXParser().parse(
+                    new InputSource(new ByteArrayInputStream(response)), new QuickBaseContentHandler(handler));
+                return handler;
+            }
+        };
+    }
+
+    private static List<QuickBaseBenchmark> getField() throws Exception
+    {
+        final QuickBaseRecord[] records = records(QuickBaseBenchmarkResponses.doQuery(RECORDS, 7, false));
+        List<QuickBaseBenchmark> benchmarks = new ArrayList<QuickBaseBenchmark>();
+        benchmarks.add(getField("resolver=STRING", new QuickBaseField<String>(TEXT,
+            QuickBaseStandardFieldResolvers.STRING_RESOLVER), records));
+        benchmarks.add(getField("resolver=INTEGER", new QuickBaseField<Integer>(INTEGER,
+            QuickBaseStandardFieldResolvers.INTEGER_RESOLVER), records));
+        benchmarks.add(getField("resolver=LONG", new QuickBaseField<Long>(RECORD_ID,
+            QuickBaseStandardFieldResolvers.LONG_RESOLVER), records));
+        benchmarks.add(getField("resolver=DOUBLE", new QuickBaseField<Double>(DECIMAL,
+            QuickBaseStandardFieldResolvers.DOUBLE_RESOLVER), records));
+        benchmarks.add(getField("resolver=BOOLEAN", new QuickBaseField<Boolean>(CHECKBOX,
+            QuickBaseStandardFieldResolvers.BOOLEAN_RESOLVER), records));
+        benchmarks.add(getField("resolver=DATE", new QuickBaseField<Date>(DATE,
+            QuickBaseStandardFieldResolvers.DATE_RESOLVER), records));
+        benchmarks.add(getField("resolver=DateFieldResolver(" + DATE_FORMAT + ')',
+            new QuickBaseField<Date>(FORMATTED_DATE, new QuickBaseDateFieldResolver(DATE_FORMAT,
+            TimeZone.getTimeZone("UTC"))), records)); //$NON-NLS-1$
+        final QuickBaseField<Integer> integer;
+        integer = new QuickBaseField<Integer>(INTEGER, QuickBaseStandardFieldResolvers.INTEGER_RESOLVER);
+        benchmarks.add(new QuickBaseBenchmark(GET_FIELD, "resolver=INTEGER;accessor=getInt", RECORDS) //$NON-NLS-1$
+        {
+            Object run()
+            {
+                int sum = 0;
+                for (QuickBaseRecord record: records)
+                {
+                    sum += record.getInt(integer);
+                }
+                return Integer.valueOf(sum);
+            }
+        });
+        final QuickBaseField<Long> recordID;
+        recordID = new QuickBaseField<Long>(RECORD_ID, QuickBaseStandardFieldResolvers.LONG_RESOLVER);
+        benchmarks.add(new QuickBaseBenchmark(GET_FIELD, "resolver=LONG;accessor=getLong", RECORDS) //$NON-NLS-1$
+        {
+            Object run()
+            {
+                long sum = 0;
+                for (QuickBaseRecord record: records)
+                {
+                    sum += record.getLong(recordID);
+                }
+                return Long.valueOf(sum);
+            }
+        });
+        final QuickBaseField<Double> decimal;
+        decimal = new QuickBaseField<Double>(DECIMAL, QuickBaseStandardFieldResolvers.DOUBLE_RESOLVER);
+        benchmarks.add(new QuickBaseBenchmark(GET_FIELD, "resolver=DOUBLE;accessor=getDouble", RECORDS) //$NON-NLS-1$
+        {
+            Object run()
+            {
+                double sum = 0;
+                for (QuickBaseRecord record: records)
+                {
+                    sum += record.getDouble(decimal);
+                }
+                return Double.valueOf(sum);
+            }
+        });
+        return benchmarks;
+    }
+
+    private static <$FieldType> QuickBaseBenchmark getField(String parameters,
+    final QuickBaseField<$FieldType> field, final QuickBaseRecord[] records)
+    {
+        return new QuickBaseBenchmark(GET_FIELD, parameters, records.length)
+        {
+            Object run()
+            {
+                int hash = 0;
+                for (QuickBaseRecord record: records)
+                {
+                    Object value = record.getField(field);
+                    hash += value != null? value.hashCode():0;
+                }
+                return Integer.valueOf(hash);
+            }
+        };
+    }
+
+    private static QuickBaseRecord[] records(byte[] response) throws Exception
+    {
+        RecordingResultHandler handler = new RecordingResultHandler();
+        QuickBaseResponseParser.sax().parse(new InputSource(new ByteArrayInputStream(response)),
+            new QuickBaseContentHandler(handler));
+        return handler.records.toArray(new QuickBaseRecord[handler.records.size()]);
+    }
+
+    private static List<QuickBaseBenchmark> clist()
+    {
+        List<QuickBaseBenchmark> benchmarks = new ArrayList<QuickBaseBenchmark>();
+        for (int size: COLUMNS)
+        {
+            int[] columns = new int[size];
+            for (int column = 0; column < size; column++)
+            {
+                columns[column] = 3 + 7*column;
+            }
+            final CList clist = new CList(columns);
+            benchmarks.add(new QuickBaseBenchmark(CLIST, "columns=" + size) //$NON-NLS-1$
+            {
+                Object run()
+                {
+                    return clist.toString();
+                }
+            });
+        }
+        return benchmarks;
+    }
+
+    private static List<QuickBaseBenchmark> addRecord() throws Exception
+    {
+        List<QuickBaseBenchmark> benchmarks = new ArrayList<QuickBaseBenchmark>();
+        for (int width: WIDTHS)
+        {
+            List<QuickBaseFieldDefinition> fields = new ArrayList<QuickBaseFieldDefinition>();
+            final String[] labels = new String[width];
+            for (int field = 0; field < width; field++)
+            {
+                labels[field] = "Field " + (field + 1); //$NON-NLS-1$
+                fields.add(new QuickBaseFieldDefinition(field + 6, labels[field], "text", "text")); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            QuickBaseDatabase database = new QuickBaseDatabase(null, "bdb5rjd6f"); //$NON-NLS-1$
+            final QuickBaseTable table = new QuickBaseTable(database, "bdb5rjd6g", "Benchmark", fields); //$NON-NLS-1$ //$NON-NLS-2$
+            benchmarks.add(new QuickBaseBenchmark(ADD_RECORD, "width=" + width) //$NON-NLS-1$
+            {
+                Object run() throws QuickBaseException
+                {
+                    QuickBaseRecordBuilder builder = new QuickBaseRecordBuilder(table);
+                    for (int field = 0; field < labels.length; field++)
+                    {
+                        if (field%2 == 0)
+                        {
+                            builder.addField(labels[field], "Value & <" + field + '>'); //$NON-NLS-1$
+                        }
+                        else
+                        {
+                            builder.addField(labels[field], Integer.valueOf(field));
+                        }
+                    }
+                    return QuickBaseTable.fieldElements(builder.getFieldValues());
+                }
+            });
+        }
+        return benchmarks;
+    }
+
+    /**
+     * A {@link QuickBaseResultHandler} that keeps the received records.
+     */
+    private static class RecordingResultHandler implements QuickBaseResultHandler
+    {
+        List<QuickBaseRecord> records = new ArrayList<QuickBaseRecord>();
+
+        public void handleRecord(QuickBaseRecord record)
+        {
+            records.add(record);
+        }
+
+        public void handleException(QuickBaseException exception)
+        {
+            throw new IllegalStateException(exception);
+        }
+
+        public void done()
+        {
+            // Nothing to do
+        }
+    }
+}
@@ -0,0 +1,1171 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseStandInServer.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * The class <code>QuickBaseStandInServer</code> is an embeddable stand-in for the QuickBase HTTP
+ * API that allows load and latency tests of the SDK without access to a real QuickBase account.
+ * It implements the subset of the API that is used by {@link QuickBaseConnection},
+ * {@link QuickBaseDatabase} and {@link QuickBaseTable}: {@link QuickBaseAPICall#API_Authenticate},
+ * {@link QuickBaseAPICall#API_FindDBByName}, {@link QuickBaseAPICall#API_GetSchema},
+ * {@link QuickBaseAPICall#API_GetAppDTMInfo}, {@link QuickBaseAPICall#API_DoQuery} (structured
+ * format, with the <code>num-</code>, <code>skp-</code> and <code>sortorder-D</code> options and
+ * sorting by record ID only), {@link QuickBaseAPICall#API_DoQueryCount},
+ * {@link QuickBaseAPICall#API_AddRecord} and {@link QuickBaseAPICall#API_ImportFromCSV}.
+ * Table contents are generated on demand (see {@link QuickBaseStandInTable}), so tables with
+ * millions of rows can be served without holding them in memory; query responses are streamed.
+ * <p/>
+ * To simulate the conditions of a production server, the stand-in can
+ * <ul>
+ * <li>delay every response by a fixed latency plus a random jitter, and occasional responses by
+ * an additional tail latency,</li>
+ * <li>limit the number of requests per second (excess requests receive HTTP status 429) and the
+ * number of response bytes per second,</li>
+ * <li>compress responses with <code>gzip</code> for clients that accept it (request bodies that
+ * are sent with <code>gzip</code> are always accepted),</li>
+ * <li>inject QuickBase errors (a non-zero <code>errcode</code> in an otherwise valid response)
+ * and HTTP errors with configurable probabilities.</li>
+ * </ul>
+ * A typical test starts a server on an ephemeral port and connects to it:
+ * <pre>
+ * QuickBaseStandInServer server = new QuickBaseStandInServer(0);
+ * server.addTable("Benchmark", "Records", 5000000, 20);
+ * server.start();
+ * QuickBaseConnection connection = QuickBase.getConnection(authenticator, transport, server.getBaseURL());
+ * </pre>
+ * All configuration methods can be called while the server is running.
+ * <p/>
+ * Usage: <code>java com.intuit.quickbase.api.QuickBaseStandInServer [port [rows [width]]]</code>
+ * starts a server with a database "Benchmark" and a single table "Records".
+ */
+public class QuickBaseStandInServer
+{
+    /** The error code for invalid or unsupported requests. **/
+    public final static int INVALID_INPUT = 2;
+
+    /** The error code for requests without a valid ticket. **/
+    public final static int BAD_TICKET = 4;
+
+    /** The error code for an unknown user name or a wrong password. **/
+    public final static int UNKNOWN_USER = 20;
+
+    /** The error code for requests to an unknown database or table. **/
+    public final static int NO_SUCH_DATABASE = 32;
+
+    private final static String DB = "/db/"; //$NON-NLS-1$
+    private final static String MAIN = "main"; //$NON-NLS-1$
+    private final static String ACT = "act"; //$NON-NLS-1$
+    private final static String TICKET = "ticket"; //$NON-NLS-1$
+    private final static String TICKET_COOKIE = "TICKET="; //$NON-NLS-1$
+    private final static String USERNAME = "username"; //$NON-NLS-1$
+    private final static String PASSWORD = "password"; //$NON-NLS-1$
+    private final static String DBNAME = "dbname"; //$NON-NLS-1$
+    private final static String DBID = "dbid"; //$NON-NLS-1$
+    private final static String QUERY = "query"; //$NON-NLS-1$
+    private final static String CLIST = "clist"; //$NON-NLS-1$
+    private final static String SLIST = "slist"; //$NON-NLS-1$
+    private final static String OPTIONS = "options"; //$NON-NLS-1$
+    private final static String FIELD = "field"; //$NON-NLS-1$
+    private final static String FID = "fid"; //$NON-NLS-1$
+    private final static String RID = "rid"; //$NON-NLS-1$
+    private final static String RECORDS_CSV = "records_csv"; //$NON-NLS-1$
+    private final static String SKIPFIRST = "skipfirst"; //$NON-NLS-1$
+    private final static String NUM = "num-"; //$NON-NLS-1$
+    private final static String SKP = "skp-"; //$NON-NLS-1$
+    private final static String SORTORDER_D = "sortorder-D"; //$NON-NLS-1$
+    private final static String UTF_8 = "UTF-8"; //$NON-NLS-1$
+    private final static String CONTENT_TYPE = "Content-Type"; //$NON-NLS-1$
+    private final static String TEXT_XML = "text/xml; charset=UTF-8"; //$NON-NLS-1$
+    private final static String RETRY_AFTER = "Retry-After"; //$NON-NLS-1$
+    private final static String SET_COOKIE = "Set-Cookie"; //$NON-NLS-1$
+    private final static String COOKIE = "Cookie"; //$NON-NLS-1$
+    private final static String ACCEPT_ENCODING = "Accept-Encoding"; //$NON-NLS-1$
+    private final static String CONTENT_ENCODING = "Content-Encoding"; //$NON-NLS-1$
+    private final static String GZIP = "gzip"; //$NON-NLS-1$
+    private final static String APPLICATION_PREFIX = "bsa"; //$NON-NLS-1$
+    private final static String TABLE_PREFIX = "bst"; //$NON-NLS-1$
+    private final static int TOO_MANY_REQUESTS = 429;
+    private final static int OK = 200;
+    private final static int CHUNKED = 0;
+    private final static int DEFAULT_WIDTH = 20;
+    private final static int DEFAULT_ROWS = 1000000;
+
+    private int port;
+    private HttpServer server;
+    private ExecutorService executor;
+    private Random random;
+    private Map<String, String> users;
+    private Map<String, String> tickets;
+    private Map<String, Application> applications;
+    private Map<String, QuickBaseStandInTable> tables;
+    private AtomicLong requests;
+    private AtomicLong rejected;
+    private volatile long latency;
+    private volatile long jitter;
+    private volatile double tailRate;
+    private volatile long tailLatency;
+    private volatile int requestsPerSecond;
+    private volatile long bytesPerSecond;
+    private volatile boolean compression;
+    private volatile double errorRate;
+    private volatile int errorCode;
+    private volatile double httpErrorRate;
+    private volatile int httpErrorStatus;
+    private long second;
+    private int requestsInSecond;
+
+    /**
+     * Creates a new <code>QuickBaseStandInServer</code>. The server does not accept requests
+     * before {@link #start()} was called.
+     *
+     * @param port the port to listen on, or <code>0</code> for an ephemeral port
+     */
+    public QuickBaseStandInServer(int port)
+    {
+        this.port = port;
+        this.random = new Random(0);
+        this.users = new ConcurrentHashMap<String, String>();
+        this.tickets = new ConcurrentHashMap<String, String>();
+        this.applications = new ConcurrentHashMap<String, Application>();
+        this.tables = new ConcurrentHashMap<String, QuickBaseStandInTable>();
+        this.requests = new AtomicLong();
+        this.rejected = new AtomicLong();
+    }
+
+    /**
+     * Starts a stand-in server from the command line.
+     *
+     * @param arguments optionally, the port, the number of rows and the number of fields
+     * @throws IOException if the server could not be started
+     */
+    public static void main(String[] arguments) throws IOException
+    {
+        int port = arguments.length > 0? Integer.parseInt(arguments[0]):0;
+        int rows = arguments.length > 1? Integer.parseInt(arguments[1]):DEFAULT_ROWS;
+        int width = arguments.length > 2? Integer.parseInt(arguments[2]):DEFAULT_WIDTH;
+        QuickBaseStandInServer server = new QuickBaseStandInServer(port);
+        String table = server.addTable("Benchmark", "Records", rows, width); //$NON-NLS-1$ //$NON-NLS-2$
+        server.start();
+        System.out.println(server.getBaseURL() + table);
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @throws IOException if the server could not be bound to its port
+     */
+    public synchronized void start() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(DB, new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                try
+                {
+                    QuickBaseStandInServer.this.handle(exchange);
+                }
+                finally
+                {
+                    exchange.close();
+                }
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        port = server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server and waits for requests in progress to complete.
+     */
+    public synchronized void stop()
+    {
+        if (server != null)
+        {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Gets the base URL of the server, which can be passed to
+     * {@link QuickBase#getConnection(QuickBaseAuthenticator, QuickBaseTransport, String)}.
+     *
+     * @return the base URL (for example, <code>http://localhost:8080/db/</code>)
+     */
+    public synchronized String getBaseURL()
+    {
+        return "http://localhost:" + port + DB; //$NON-NLS-1$
+    }
+
+    /**
+     * Adds a user account. As long as no user was added, any user name and password are
+     * accepted.
+     *
+     * @param username the user name
+     * @param password the password
+     */
+    public void addUser(String username, String password)
+    {
+        users.put(username, password);
+    }
+
+    /**
+     * Adds a table with a generated data set. The application (i.e., the database) is created if
+     * it does not exist yet.
+     *
+     * @param database the name of the database (as used by
+     * {@link QuickBaseConnection#findDBByName(String)})
+     * @param name the name of the table
+     * @param rows the number of generated rows
+     * @param width the number of fields (including the five built-in fields)
+     * @return the database ID of the new table
+     */
+    public synchronized String addTable(String database, String name, int rows, int width)
+    {
+        Application application = null;
+        for (Application existing: applications.values())
+        {
+            if (existing.name.equals(database))
+            {
+                application = existing;
+            }
+        }
+        if (application == null)
+        {
+            application = new Application(APPLICATION_PREFIX + applications.size(), database);
+            applications.put(application.dbid, application);
+        }
+        QuickBaseStandInTable table = new QuickBaseStandInTable(TABLE_PREFIX + tables.size(), name, rows, width);
+        tables.put(table.getTableId(), table);
+        application.tables.add(table);
+        return table.getTableId();
+    }
+
+    /**
+     * Sets the latency that is added to every response.
+     *
+     * @param latency the fixed latency
+     * @param jitter the maximum additional random latency
+     * @param unit the {@link TimeUnit} of both values
+     */
+    public void setLatency(long latency, long jitter, TimeUnit unit)
+    {
+        this.latency = unit.toMillis(latency);
+        this.jitter = unit.toMillis(jitter);
+    }
+
+    /**
+     * Sets an additional latency that is added to a random fraction of the responses. This
+     * simulates the long tail of the latency distribution of a production server (caused, for
+     * example, by garbage collection or by a busy database).
+     *
+     * @param probability the fraction of delayed responses (between <code>0</code> and
+     * <code>1</code>)
+     * @param latency the additional latency
+     * @param unit the {@link TimeUnit} of the latency
+     */
+    public void setTailLatency(double probability, long latency, TimeUnit unit)
+    {
+        this.tailRate = probability;
+        this.tailLatency = unit.toMillis(latency);
+    }
+
+    /**
+     * Limits the number of requests that are accepted per second. Excess requests are rejected
+     * with HTTP status 429 and a <code>Retry-After</code> header.
+     *
+     * @param requestsPerSecond the maximum number of requests per second, or <code>0</code> for no
+     * limit
+     */
+    public void setRequestsPerSecond(int requestsPerSecond)
+    {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * Limits the rate at which each response body is written.
+     *
+     * @param bytesPerSecond the maximum number of bytes per second and response, or <code>0</code>
+     * for no limit
+     */
+    public void setBytesPerSecond(long bytesPerSecond)
+    {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Enables or disables the compression of responses. If enabled, responses are compressed with
+     * <code>gzip</code> if the request's <code>Accept-Encoding</code> header allows it; the
+     * limit of {@link #setBytesPerSecond(long)} then applies to the compressed bytes. Responses
+     * are not compressed by default.
+     *
+     * @param compression <code>true</code> to compress responses
+     */
+    public void setCompression(boolean compression)
+    {
+        this.compression = compression;
+    }
+
+    /**
+     * Injects QuickBase errors: with the given probability, a request is answered with a response
+     * that carries the given error code instead of being processed.
+     *
+     * @param probability the probability of an error (between <code>0</code> and <code>1</code>)
+     * @param errorCode the QuickBase error code to be reported
+     */
+    public void setErrorRate(double probability, int errorCode)
+    {
+        this.errorCode = errorCode;
+        this.errorRate = probability;
+    }
+
+    /**
+     * Injects HTTP errors: with the given probability, a request is answered with the given HTTP
+     * status and no body.
+     *
+     * @param probability the probability of an error (between <code>0</code> and <code>1</code>)
+     * @param status the HTTP status code (for example, 503)
+     */
+    public void setHttpErrorRate(double probability, int status)
+    {
+        this.httpErrorStatus = status;
+        this.httpErrorRate = probability;
+    }
+
+    /**
+     * Gets the total number of requests that were received.
+     *
+     * @return the number of requests
+     */
+    public long getRequestCount()
+    {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of requests that were rejected because of the request rate limit.
+     *
+     * @return the number of rejected requests
+     */
+    public long getRejectedCount()
+    {
+        return rejected.get();
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        requests.incrementAndGet();
+        if (!admit())
+        {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().add(RETRY_AFTER, "1"); //$NON-NLS-1$
+            exchange.sendResponseHeaders(TOO_MANY_REQUESTS, -1);
+            return;
+        }
+        delay();
+        if (chance(httpErrorRate))
+        {
+            exchange.sendResponseHeaders(httpErrorStatus, -1);
+            return;
+        }
+        Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+        Element body = null;
+        if ("POST".equals(exchange.getRequestMethod())) //$NON-NLS-1$
+        {
+            InputStream input = exchange.getRequestBody();
+            if (GZIP.equalsIgnoreCase(exchange.getRequestHeaders().getFirst(CONTENT_ENCODING)))
+            {
+                input = new GZIPInputStream(input);
+            }
+            body = body(input);
+        }
+        String target = exchange.getRequestURI().getPath().substring(DB.length());
+        String action = parameters.get(ACT);
+        exchange.getResponseHeaders().add(CONTENT_TYPE, TEXT_XML);
+        boolean gzip = compression && accepts(exchange, GZIP);
+        if (gzip)
+        {
+            exchange.getResponseHeaders().add(CONTENT_ENCODING, GZIP);
+        }
+        Response response;
+        if (QuickBaseAPICall.API_Authenticate.toString().equals(action))
+        {
+            String ticket = authenticate(parameters.get(USERNAME), parameters.get(PASSWORD));
+            if (ticket != null)
+            {
+                exchange.getResponseHeaders().add(SET_COOKIE, TICKET_COOKIE + ticket + "; path=/"); //$NON-NLS-1$
+            }
+            exchange.sendResponseHeaders(OK, CHUNKED);
+            response = new Response(exchange.getResponseBody(), action, gzip);
+            if (ticket == null)
+            {
+                response.error(UNKNOWN_USER, "Unknown username/password"); //$NON-NLS-1$
+            }
+            else
+            {
+                response.ok().element(TICKET, ticket);
+            }
+        }
+        else
+        {
+            exchange.sendResponseHeaders(OK, CHUNKED);
+            response = new Response(exchange.getResponseBody(), action, gzip);
+            if (!tickets.containsKey(ticket(exchange, parameters, body)))
+            {
+                response.error(BAD_TICKET, "Your ticket has expired or is invalid"); //$NON-NLS-1$
+            }
+            else if (chance(errorRate))
+            {
+                response.error(errorCode, "Injected error"); //$NON-NLS-1$
+            }
+            else
+            {
+                dispatch(response, target, action, parameters, body);
+            }
+        }
+        response.close();
+    }
+
+    private void dispatch(Response response, String target, String action, Map<String, String> parameters,
+    Element body) throws IOException
+    {
+        if (QuickBaseAPICall.API_FindDBByName.toString().equals(action) && MAIN.equals(target))
+        {
+            findDBByName(response, parameters.get(DBNAME));
+        }
+        else if (QuickBaseAPICall.API_GetAppDTMInfo.toString().equals(action) && MAIN.equals(target))
+        {
+            getAppDTMInfo(response, applications.get(parameters.get(DBID)));
+        }
+        else if (QuickBaseAPICall.API_GetSchema.toString().equals(action))
+        {
+            getSchema(response, target);
+        }
+        else if (!tables.containsKey(target))
+        {
+            response.error(NO_SUCH_DATABASE, "No such database"); //$NON-NLS-1$
+        }
+        else if (QuickBaseAPICall.API_DoQuery.toString().equals(action))
+        {
+            doQuery(response, tables.get(target), parameters);
+        }
+        else if (QuickBaseAPICall.API_DoQueryCount.toString().equals(action))
+        {
+            doQueryCount(response, tables.get(target), parameters.get(QUERY));
+        }
+        else if (QuickBaseAPICall.API_AddRecord.toString().equals(action) && body != null)
+        {
+            addRecord(response, tables.get(target), body);
+        }
+        else if (QuickBaseAPICall.API_ImportFromCSV.toString().equals(action) && body != null)
+        {
+            importFromCSV(response, tables.get(target), body);
+        }
+        else
+        {
+            response.error(INVALID_INPUT, "Unsupported request"); //$NON-NLS-1$
+        }
+    }
+
+    private String authenticate(String username, String password)
+    {
+        if (username == null || !users.isEmpty() && (password == null || !password.equals(users.get(username))))
+        {
+            return null;
+        }
+        String ticket = UUID.randomUUID().toString();
+        tickets.put(ticket, username);
+        return ticket;
+    }
+
+    private void findDBByName(Response response, String name) throws IOException
+    {
+        for (Application application: applications.values())
+        {
+            if (application.name.equals(name))
+            {
+                response.ok().element(DBID, application.dbid);
+                return;
+            }
+        }
+        response.error(NO_SUCH_DATABASE, "No such database"); //$NON-NLS-1$
+    }
+
+    private void getAppDTMInfo(Response response, Application application) throws IOException
+    {
+        if (application == null)
+        {
+            response.error(NO_SUCH_DATABASE, "No such database"); //$NON-NLS-1$
+            return;
+        }
+        long lastModified = 0;
+        for (QuickBaseStandInTable table: application.tables)
+        {
+            lastModified = Math.max(lastModified, table.getLastModified());
+        }
+        response.ok();
+        response.write("<app id=\"").escape(application.dbid).write("\">"); //$NON-NLS-1$ //$NON-NLS-2$
+        response.element("lastModifiedTime", String.valueOf(lastModified)).write("</app>\n<tables>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+        for (QuickBaseStandInTable table: application.tables)
+        {
+            response.write("<table id=\"").escape(table.getTableId()).write("\">"); //$NON-NLS-1$ //$NON-NLS-2$
+            response.element("lastModifiedTime", String.valueOf(table.getLastModified())).write("</table>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        response.write("</tables>\n"); //$NON-NLS-1$
+    }
+
+    private void getSchema(Response response, String dbid) throws IOException
+    {
+        List<QuickBaseStandInTable> schema = new ArrayList<QuickBaseStandInTable>();
+        if (applications.containsKey(dbid))
+        {
+            schema.addAll(applications.get(dbid).tables);
+        }
+        else if (tables.containsKey(dbid))
+        {
+            schema.add(tables.get(dbid));
+        }
+        else
+        {
+            response.error(NO_SUCH_DATABASE, "No such database"); //$NON-NLS-1$
+            return;
+        }
+        response.ok();
+        for (QuickBaseStandInTable table: schema)
+        {
+            response.write("<table>\n").element("name", table.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+            response.write("<original>").element("table_id", table.getTableId()); //$NON-NLS-1$ //$NON-NLS-2$
+            response.element("app_id", application(table).dbid).write("</original>\n<fields>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            for (int field = 1; field <= table.getWidth(); field++)
+            {
+                response.write("<field id=\"").write(String.valueOf(field)); //$NON-NLS-1$
+                response.write("\" field_type=\"").escape(table.getFieldType(field)); //$NON-NLS-1$
+                response.write("\" base_type=\"").escape(table.getBaseType(field)).write("\">"); //$NON-NLS-1$ //$NON-NLS-2$
+                response.element("label", table.getLabel(field)).write("</field>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            response.write("</fields>\n</table>\n"); //$NON-NLS-1$
+        }
+    }
+
+    private Application application(QuickBaseStandInTable table)
+    {
+        for (Application application: applications.values())
+        {
+            if (application.tables.contains(table))
+            {
+                return application;
+            }
+        }
+        return null;
+    }
+
+    private void doQuery(Response response, QuickBaseStandInTable table, Map<String, String> parameters)
+    throws IOException
+    {
+        List<QuickBaseStandInTable.Condition> conditions;
+        int[] columns;
+        try
+        {
+            conditions = table.parse(parameters.get(QUERY));
+            columns = columns(table, parameters.get(CLIST));
+        }
+        catch (IllegalArgumentException illegalArgumentException)
+        {
+            response.error(INVALID_INPUT, "Invalid query or column list"); //$NON-NLS-1$
+            return;
+        }
+        String slist = parameters.get(SLIST);
+        if (slist != null && slist.length() > 0 && !String.valueOf(QuickBaseStandInTable.RECORD_ID).equals(slist))
+        {
+            response.error(INVALID_INPUT, "Only sorting by record ID is supported"); //$NON-NLS-1$
+            return;
+        }
+        long maximum = Long.MAX_VALUE;
+        long skip = 0;
+        boolean descending = false;
+        String options = parameters.get(OPTIONS);
+        for (String option: options != null? options.split("\\."):new String[0]) //$NON-NLS-1$
+        {
+            try
+            {
+                if (option.startsWith(NUM))
+                {
+                    maximum = Long.parseLong(option.substring(NUM.length()));
+                }
+                else if (option.startsWith(SKP))
+                {
+                    skip = Long.parseLong(option.substring(SKP.length()));
+                }
+                else if (option.equals(SORTORDER_D))
+                {
+                    descending = true;
+                }
+            }
+            catch (NumberFormatException numberFormatException)
+            {
+                response.error(INVALID_INPUT, "Invalid options"); //$NON-NLS-1$
+                return;
+            }
+        }
+        response.ok().write("<table>\n<records>\n"); //$NON-NLS-1$
+        long count = table.getRecordCount();
+        long recordID = descending? count:1;
+        long step = descending? -1:1;
+        if (conditions.isEmpty())
+        {
+            // Without a query, skipped records do not need to be visited:
+            //
+            recordID += step*skip;
+            skip = 0;
+        }
+        for (long written = 0; written < maximum && recordID >= 1 && recordID <= count; recordID += step)
+        {
+            if (table.matches(recordID, conditions))
+            {
+                if (skip > 0)
+                {
+                    skip--;
+                    continue;
+                }
+                response.write("<record>\n"); //$NON-NLS-1$
+                for (int column: columns)
+                {
+                    response.write("<f id=\"").write(String.valueOf(column)).write("\">"); //$NON-NLS-1$ //$NON-NLS-2$
+                    response.escape(table.getValue(recordID, column)).write("</f>\n"); //$NON-NLS-1$
+                }
+                response.write("</record>\n"); //$NON-NLS-1$
+                written++;
+            }
+        }
+        response.write("</records>\n</table>\n"); //$NON-NLS-1$
+    }
+
+    private void doQueryCount(Response response, QuickBaseStandInTable table, String query) throws IOException
+    {
+        List<QuickBaseStandInTable.Condition> conditions;
+        try
+        {
+            conditions = table.parse(query);
+        }
+        catch (IllegalArgumentException illegalArgumentException)
+        {
+            response.error(INVALID_INPUT, "Invalid query"); //$NON-NLS-1$
+            return;
+        }
+        long count = table.getRecordCount();
+        long matches = conditions.isEmpty()? count:0;
+        for (long recordID = 1; !conditions.isEmpty() && recordID <= count; recordID++)
+        {
+            matches += table.matches(recordID, conditions)? 1:0;
+        }
+        response.ok().element("numMatches", String.valueOf(matches)); //$NON-NLS-1$
+    }
+
+    private void addRecord(Response response, QuickBaseStandInTable table, Element body) throws IOException
+    {
+        Map<Integer, String> values = new HashMap<Integer, String>();
+        NodeList fields = body.getElementsByTagName(FIELD);
+        for (int index = 0; index < fields.getLength(); index++)
+        {
+            Element field = (Element)fields.item(index);
+            try
+            {
+                values.put(Integer.valueOf(field.getAttribute(FID)), field.getTextContent());
+            }
+            catch (NumberFormatException numberFormatException)
+            {
+                response.error(INVALID_INPUT, "Invalid field ID"); //$NON-NLS-1$
+                return;
+            }
+        }
+        long recordID = table.write(0, values);
+        response.ok().element(RID, String.valueOf(recordID)).element("update_id", String.valueOf(table.getLastModified())); //$NON-NLS-1$
+    }
+
+    private void importFromCSV(Response response, QuickBaseStandInTable table, Element body) throws IOException
+    {
+        int[] columns;
+        List<List<String>> rows;
+        try
+        {
+            columns = columns(table, text(body, CLIST));
+            rows = csv(text(body, RECORDS_CSV));
+        }
+        catch (IllegalArgumentException illegalArgumentException)
+        {
+            response.error(INVALID_INPUT, "Invalid column list"); //$NON-NLS-1$
+            return;
+        }
+        if ("1".equals(text(body, SKIPFIRST)) && !rows.isEmpty()) //$NON-NLS-1$
+        {
+            rows.remove(0);
+        }
+        List<Long> recordIDs = new ArrayList<Long>(rows.size());
+        int added = 0;
+        int updated = 0;
+        for (List<String> row: rows)
+        {
+            Map<Integer, String> values = new HashMap<Integer, String>();
+            long recordID = 0;
+            for (int column = 0; column < columns.length && column < row.size(); column++)
+            {
+                if (columns[column] == QuickBaseStandInTable.RECORD_ID)
+                {
+                    String rid = row.get(column).trim();
+                    try
+                    {
+                        recordID = rid.length() == 0? 0:Long.parseLong(rid);
+                    }
+                    catch (NumberFormatException numberFormatException)
+                    {
+                        response.error(INVALID_INPUT, "Invalid record ID: " + rid); //$NON-NLS-1$
+                        return;
+                    }
+                }
+                else
+                {
+                    values.put(Integer.valueOf(columns[column]), row.get(column));
+                }
+            }
+            long written = table.write(recordID, values);
+            if (written == -1)
+            {
+                response.error(INVALID_INPUT, "No such record: " + recordID); //$NON-NLS-1$
+                return;
+            }
+            recordIDs.add(Long.valueOf(written));
+            added += recordID == 0? 1:0;
+            updated += recordID == 0? 0:1;
+        }
+        response.ok().element("num_recs_input", String.valueOf(rows.size())); //$NON-NLS-1$
+        response.element("num_recs_added", String.valueOf(added)); //$NON-NLS-1$
+        response.element("num_recs_updated", String.valueOf(updated)).write("<rids>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+        for (Long recordID: recordIDs)
+        {
+            response.element(RID, recordID.toString());
+        }
+        response.write("</rids>\n"); //$NON-NLS-1$
+    }
+
+    private synchronized boolean admit()
+    {
+        if (requestsPerSecond <= 0)
+        {
+            return true;
+        }
+        long now = System.currentTimeMillis()/1000;
+        if (now != second)
+        {
+            second = now;
+            requestsInSecond = 0;
+        }
+        return ++requestsInSecond <= requestsPerSecond;
+    }
+
+    private void delay() throws InterruptedIOException
+    {
+        long delay = latency;
+        if (jitter > 0)
+        {
+            synchronized (random)
+            {
+                delay += (long)(random.nextDouble()*jitter);
+            }
+        }
+        if (chance(tailRate))
+        {
+            delay += tailLatency;
+        }
+        sleep(delay);
+    }
+
+    private boolean chance(double probability)
+    {
+        if (probability <= 0)
+        {
+            return false;
+        }
+        synchronized (random)
+        {
+            return random.nextDouble() < probability;
+        }
+    }
+
+    private String ticket(HttpExchange exchange, Map<String, String> parameters, Element body)
+    {
+        if (parameters.containsKey(TICKET))
+        {
+            return parameters.get(TICKET);
+        }
+        if (body != null && text(body, TICKET) != null)
+        {
+            return text(body, TICKET);
+        }
+        List<String> cookies = exchange.getRequestHeaders().get(COOKIE);
+        for (String header: cookies != null? cookies:new ArrayList<String>())
+        {
+            for (String cookie: header.split(";")) //$NON-NLS-1$
+            {
+                if (cookie.trim().startsWith(TICKET_COOKIE))
+                {
+                    return cookie.trim().substring(TICKET_COOKIE.length());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int[] columns(QuickBaseStandInTable table, String clist)
+    {
+        if (clist == null || clist.length() == 0 || "a".equals(clist)) //$NON-NLS-1$
+        {
+            int[] columns = new int[table.getWidth()];
+            for (int column = 0; column < columns.length; column++)
+            {
+                columns[column] = column + 1;
+            }
+            return columns;
+        }
+        String[] ids = clist.split("\\."); //$NON-NLS-1$
+        int[] columns = new int[ids.length];
+        for (int column = 0; column < ids.length; column++)
+        {
+            columns[column] = Integer.parseInt(ids[column]);
+            if (columns[column] < 1 || columns[column] > table.getWidth())
+            {
+                throw new IllegalArgumentException(clist);
+            }
+        }
+        return columns;
+    }
+
+    private static Map<String, String> parameters(String query) throws UnsupportedEncodingException
+    {
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (query != null)
+        {
+            for (String parameter: query.split("&")) //$NON-NLS-1$
+            {
+                int separator = parameter.indexOf('=');
+                if (separator != -1)
+                {
+                    parameters.put(URLDecoder.decode(parameter.substring(0, separator), UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static boolean accepts(HttpExchange exchange, String encoding)
+    {
+        List<String> headers = exchange.getRequestHeaders().get(ACCEPT_ENCODING);
+        if (headers != null)
+        {
+            for (String header: headers)
+            {
+                for (String coding: header.split(",")) //$NON-NLS-1$
+                {
+                    if (coding.trim().toLowerCase().startsWith(encoding))
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Element body(InputStream input) throws IOException
+    {
+        try
+        {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            Document document = factory.newDocumentBuilder().parse(input);
+            return document.getDocumentElement();
+        }
+        catch (Exception exception)
+        {
+            // Malformed request bodies are reported as unsupported requests:
+            //
+            return null;
+        }
+    }
+
+    private static String text(Element body, String name)
+    {
+        NodeList elements = body.getElementsByTagName(name);
+        return elements.getLength() == 0? null:elements.item(0).getTextContent();
+    }
+
+    private static List<List<String>> csv(String csv)
+    {
+        List<List<String>> rows = new ArrayList<List<String>>();
+        if (csv == null)
+        {
+            return rows;
+        }
+        List<String> row = new ArrayList<String>();
+        StringBuffer value = new StringBuffer();
+        boolean quoted = false;
+        for (int index = 0, length = csv.length(); index < length; index++)
+        {
+            char character = csv.charAt(index);
+            if (quoted)
+            {
+                if (character == '"' && index + 1 < length && csv.charAt(index + 1) == '"')
+                {
+                    value.append('"');
+                    index++;
+                }
+                else if (character == '"')
+                {
+                    quoted = false;
+                }
+                else
+                {
+                    value.append(character);
+                }
+            }
+            else if (character == '"')
+            {
+                quoted = true;
+            }
+            else if (character == ',')
+            {
+                row.add(value.toString());
+                value.setLength(0);
+            }
+            else if (character == '\n')
+            {
+                row.add(value.toString());
+                value.setLength(0);
+                rows.add(row);
+                row = new ArrayList<String>();
+            }
+            else if (character != '\r')
+            {
+                value.append(character);
+            }
+        }
+        if (value.length() > 0 || !row.isEmpty())
+        {
+            row.add(value.toString());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static void sleep(long milliseconds) throws InterruptedIOException
+    {
+        if (milliseconds > 0)
+        {
+            try
+            {
+                Thread.sleep(milliseconds);
+            }
+            catch (InterruptedException interruptedException)
+            {
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    /**
+     * An application (database) of the stand-in server.
+     */
+    private static class Application
+    {
+        final String dbid;
+        final String name;
+        final List<QuickBaseStandInTable> tables;
+
+        Application(String dbid, String name)
+        {
+            this.dbid = dbid;
+            this.name = name;
+            this.tables = new CopyOnWriteArrayList<QuickBaseStandInTable>();
+        }
+    }
+
+    /**
+     * The streamed XML response to a single request.
+     */
+    private class Response
+    {
+        private Writer writer;
+        private String action;
+        private boolean started;
+
+        Response(OutputStream output, String action, boolean gzip) throws IOException
+        {
+            OutputStream body = bytesPerSecond > 0? new ThrottledOutputStream(output, bytesPerSecond):output;
+            if (gzip)
+            {
+                body = new GZIPOutputStream(body);
+            }
+            this.writer = new BufferedWriter(new OutputStreamWriter(body, UTF_8));
+            this.action = action;
+        }
+
+        Response ok() throws IOException
+        {
+            return start(0, "No error"); //$NON-NLS-1$
+        }
+
+        Response error(int code, String text) throws IOException
+        {
+            return start(code, text);
+        }
+
+        Response element(String name, String value) throws IOException
+        {
+            writer.write('<');
+            writer.write(name);
+            writer.write('>');
+            escape(value);
+            writer.write("</"); //$NON-NLS-1$
+            writer.write(name);
+            writer.write(">\n"); //$NON-NLS-1$
+            return this;
+        }
+
+        Response write(String xml) throws IOException
+        {
+            writer.write(xml);
+            return this;
+        }
+
+        Response escape(String text) throws IOException
+        {
+            for (int index = 0, length = text.length(); index < length; index++)
+            {
+                char character = text.charAt(index);
+                switch (character)
+                {
+                    case '<':
+                        writer.write("&lt;"); //$NON-NLS-1$
+                        break;
+                    case '>':
+                        writer.write("&gt;"); //$NON-NLS-1$
+                        break;
+                    case '&':
+                        writer.write("&amp;"); //$NON-NLS-1$
+                        break;
+                    case '"':
+                        writer.write("&quot;"); //$NON-NLS-1$
+                        break;
+                    default:
+                        writer.write(character);
+                        break;
+                }
+            }
+            return this;
+        }
+
+        void close() throws IOException
+        {
+            if (!started)
+            {
+                start(INVALID_INPUT, "Empty response"); //$NON-NLS-1$
+            }
+            writer.write("</qdbapi>\n"); //$NON-NLS-1$
+            writer.close();
+        }
+
+        private Response start(int code, String text) throws IOException
+        {
+            started = true;
+            writer.write("<?xml version=\"1.0\" ?>\n<qdbapi>\n"); //$NON-NLS-1$
+            element("action", action != null? action:"");  //$NON-NLS-1$ //$NON-NLS-2$
+            element("errcode", String.valueOf(code)); //$NON-NLS-1$
+            element("errtext", text); //$NON-NLS-1$
+            return this;
+        }
+    }
+
+    /**
+     * An {@link OutputStream} that limits its throughput.
+     */
+    private static class ThrottledOutputStream extends FilterOutputStream
+    {
+        private long bytesPerSecond;
+        private long start;
+        private long written;
+
+        ThrottledOutputStream(OutputStream output, long bytesPerSecond)
+        {
+            super(output);
+            this.bytesPerSecond = bytesPerSecond;
+            this.start = System.currentTimeMillis();
+        }
+
+        public void write(int data) throws IOException
+        {
+            out.write(data);
+            throttle(1);
+        }
+
+        public void write(byte[] data, int offset, int length) throws IOException
+        {
+            out.write(data, offset, length);
+            throttle(length);
+        }
+
+        private void throttle(int length) throws IOException
+        {
+            written += length;
+            long due = start + written*1000/bytesPerSecond;
+            sleep(due - System.currentTimeMillis());
+        }
+    }
+}
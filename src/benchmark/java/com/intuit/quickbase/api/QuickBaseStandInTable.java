@@ -0,0 +1,458 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseStandInTable.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The class <code>QuickBaseStandInTable</code> is a table of the {@link QuickBaseStandInServer}.
+ * A table starts out with a generated data set of an arbitrary number of rows; generated values
+ * are computed from the record ID and field ID on demand, so that even tables with millions of
+ * rows occupy no memory. Records that are added or updated through the API are kept in memory and
+ * take precedence over the generated values.
+ * <p/>
+ * Like QuickBase tables, every table has the built-in fields 1 (Date Created), 2 (Date Modified),
+ * 3 (Record ID#), 4 (Record Owner) and 5 (Last Modified By). The remaining fields cycle through
+ * the types text, numeric, date and check box.
+ * <p/>
+ * Queries support conjunctions (<code>AND</code>) of the form <code>{fid.OP.'value'}</code>, and
+ * disjunctions (<code>OR</code>) of such conjunctions, with
+ * the operators <code>EX</code>, <code>XEX</code>, <code>CT</code>, <code>XCT</code>,
+ * <code>LT</code>, <code>LTE</code>, <code>GT</code>, <code>GTE</code>, <code>BF</code>,
+ * <code>OBF</code>, <code>AF</code> and <code>OAF</code>; values that are numbers on both sides
+ * are compared numerically.
+ */
+class QuickBaseStandInTable
+{
+    /** The ID of the Date Created field. **/
+    final static int DATE_CREATED = 1;
+
+    /** The ID of the Date Modified field. **/
+    final static int DATE_MODIFIED = 2;
+
+    /** The ID of the Record ID# field. **/
+    final static int RECORD_ID = 3;
+
+    /** The ID of the Record Owner field. **/
+    final static int RECORD_OWNER = 4;
+
+    /** The ID of the Last Modified By field. **/
+    final static int LAST_MODIFIED_BY = 5;
+
+    private final static String[] BUILT_IN_LABELS = {"Date Created", "Date Modified", "Record ID#", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        "Record Owner", "Last Modified By"}; //$NON-NLS-1$ //$NON-NLS-2$
+    private final static String[] BUILT_IN_TYPES = {"timestamp", "timestamp", "recordid", "userid", "userid"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    private final static String[] BUILT_IN_BASE_TYPES = {"int64", "int64", "int32", "text", "text"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    private final static String[] TYPES = {"text", "float", "date", "checkbox"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    private final static String[] BASE_TYPES = {"text", "float", "int64", "bool"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    private final static String FIELD = "Field "; //$NON-NLS-1$
+    private final static String OWNER = "benchmark@example.com"; //$NON-NLS-1$
+    private final static String EMPTY = ""; //$NON-NLS-1$
+    private final static String AND = "AND"; //$NON-NLS-1$
+    private final static String OR = "OR"; //$NON-NLS-1$
+    private final static long EPOCH = 1230768000000L;
+    private final static long MINUTE = 60000L;
+    private final static long DAY = 86400000L;
+
+    private String tableId;
+    private String name;
+    private int rows;
+    private int width;
+    private long nextRecordID;
+    private long lastModified;
+    private ConcurrentMap<Long, Map<Integer, String>> changes;
+
+    /**
+     * Creates a new <code>QuickBaseStandInTable</code>.
+     *
+     * @param tableId the table's database ID
+     * @param name the name of the table
+     * @param rows the number of generated rows
+     * @param width the number of fields (at least the five built-in fields)
+     */
+    QuickBaseStandInTable(String tableId, String name, int rows, int width)
+    {
+        this.tableId = tableId;
+        this.name = name;
+        this.rows = rows;
+        this.width = Math.max(width, LAST_MODIFIED_BY);
+        this.nextRecordID = rows + 1;
+        this.lastModified = EPOCH + rows*MINUTE;
+        this.changes = new ConcurrentHashMap<Long, Map<Integer, String>>();
+    }
+
+    String getTableId()
+    {
+        return tableId;
+    }
+
+    String getName()
+    {
+        return name;
+    }
+
+    int getWidth()
+    {
+        return width;
+    }
+
+    synchronized long getLastModified()
+    {
+        return lastModified;
+    }
+
+    synchronized long getRecordCount()
+    {
+        return nextRecordID - 1;
+    }
+
+    String getLabel(int fieldID)
+    {
+        return fieldID <= LAST_MODIFIED_BY? BUILT_IN_LABELS[fieldID - 1]:FIELD + fieldID;
+    }
+
+    String getFieldType(int fieldID)
+    {
+        return fieldID <= LAST_MODIFIED_BY? BUILT_IN_TYPES[fieldID - 1]:TYPES[(fieldID - 6)%TYPES.length];
+    }
+
+    String getBaseType(int fieldID)
+    {
+        return fieldID <= LAST_MODIFIED_BY? BUILT_IN_BASE_TYPES[fieldID - 1]:BASE_TYPES[(fieldID - 6)%BASE_TYPES.length];
+    }
+
+    /**
+     * Gets the value of a field of a record.
+     *
+     * @param recordID the record ID
+     * @param fieldID the field ID
+     * @return the value (empty if the field has no value)
+     */
+    String getValue(long recordID, int fieldID)
+    {
+        Map<Integer, String> changed = changes.get(Long.valueOf(recordID));
+        if (changed != null)
+        {
+            synchronized (changed)
+            {
+                String value = changed.get(Integer.valueOf(fieldID));
+                if (value != null)
+                {
+                    return value;
+                }
+            }
+        }
+        return recordID <= rows? generate(recordID, fieldID):EMPTY;
+    }
+
+    /**
+     * Adds a new record or updates an existing one.
+     *
+     * @param recordID the ID of the record to update, or <code>0</code> to add a new record
+     * @param values the field values by field ID
+     * @return the ID of the added or updated record, or <code>-1</code> if the record to be
+     * updated does not exist
+     */
+    synchronized long write(long recordID, Map<Integer, String> values)
+    {
+        if (recordID == 0)
+        {
+            recordID = nextRecordID++;
+        }
+        else if (recordID < 0 || recordID >= nextRecordID)
+        {
+            return -1;
+        }
+        long now = lastModified = Math.max(lastModified + 1, System.currentTimeMillis());
+        Long key = Long.valueOf(recordID);
+        Map<Integer, String> changed = changes.get(key);
+        if (changed == null)
+        {
+            changed = new HashMap<Integer, String>();
+            if (recordID > rows)
+            {
+                changed.put(Integer.valueOf(DATE_CREATED), String.valueOf(now));
+                changed.put(Integer.valueOf(RECORD_ID), String.valueOf(recordID));
+                changed.put(Integer.valueOf(RECORD_OWNER), OWNER);
+            }
+            changes.put(key, changed);
+        }
+        synchronized (changed)
+        {
+            for (Map.Entry<Integer, String> value: values.entrySet())
+            {
+                int fieldID = value.getKey().intValue();
+                if (fieldID > LAST_MODIFIED_BY && fieldID <= width)
+                {
+                    changed.put(value.getKey(), value.getValue());
+                }
+            }
+            changed.put(Integer.valueOf(DATE_MODIFIED), String.valueOf(now));
+            changed.put(Integer.valueOf(LAST_MODIFIED_BY), OWNER);
+        }
+        return recordID;
+    }
+
+    /**
+     * Parses a query into a list of conditions.
+     *
+     * @param query the query string (may be <code>null</code> or empty)
+     * @return the conditions
+     * @throws IllegalArgumentException if the query is not supported
+     */
+    List<Condition> parse(String query)
+    {
+        List<Condition> conditions = new ArrayList<Condition>();
+        if (query == null)
+        {
+            return conditions;
+        }
+        boolean alternative = false;
+        int index = 0;
+        int length = query.length();
+        while (index < length)
+        {
+            if (Character.isWhitespace(query.charAt(index)))
+            {
+                index++;
+            }
+            else if (query.startsWith(AND, index))
+            {
+                index += AND.length();
+            }
+            else if (query.startsWith(OR, index) && !conditions.isEmpty())
+            {
+                index += OR.length();
+                alternative = true;
+            }
+            else if (query.charAt(index) == '{')
+            {
+                int end = query.indexOf('}', index);
+                if (end == -1)
+                {
+                    throw new IllegalArgumentException(query);
+                }
+                Condition condition = condition(query.substring(index + 1, end));
+                condition.alternative = alternative;
+                conditions.add(condition);
+                alternative = false;
+                index = end + 1;
+            }
+            else
+            {
+                throw new IllegalArgumentException(query);
+            }
+        }
+        if (alternative)
+        {
+            throw new IllegalArgumentException(query);
+        }
+        return conditions;
+    }
+
+    /**
+     * Checks whether a record matches all conditions of at least one alternative.
+     *
+     * @param recordID the record ID
+     * @param conditions the conditions
+     * @return <code>true</code> if the record matches
+     */
+    boolean matches(long recordID, List<Condition> conditions)
+    {
+        boolean matches = true;
+        for (Condition condition: conditions)
+        {
+            if (condition.alternative)
+            {
+                if (matches)
+                {
+                    return true;
+                }
+                matches = true;
+            }
+            if (matches && !condition.matches(getValue(recordID, condition.fieldID)))
+            {
+                matches = false;
+            }
+        }
+        return matches;
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private Condition condition(String clause)
+    {
+        // Clauses have the form fid.OP.'value' (the value may contain dots):
+        //
+        int first = clause.indexOf('.');
+        int second = first == -1? -1:clause.indexOf('.', first + 1);
+        if (second == -1)
+        {
+            throw new IllegalArgumentException(clause);
+        }
+        String value = clause.substring(second + 1);
+        if (value.length() >= 2 && value.charAt(0) == '\'' && value.charAt(value.length() - 1) == '\'')
+        {
+            value = value.substring(1, value.length() - 1);
+        }
+        try
+        {
+            return new Condition(Integer.parseInt(clause.substring(0, first)), clause.substring(first + 1, second), value);
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            throw new IllegalArgumentException(clause, numberFormatException);
+        }
+    }
+
+    private String generate(long recordID, int fieldID)
+    {
+        switch (fieldID)
+        {
+            case DATE_CREATED:
+                return String.valueOf(EPOCH + recordID*MINUTE);
+            case DATE_MODIFIED:
+                return String.valueOf(EPOCH + recordID*MINUTE + (recordID%7)*MINUTE/7);
+            case RECORD_ID:
+                return String.valueOf(recordID);
+            case RECORD_OWNER:
+            case LAST_MODIFIED_BY:
+                return OWNER;
+            default:
+                switch ((fieldID - 6)%TYPES.length)
+                {
+                    case 0:
+                        return "Item " + recordID%997 + '-' + fieldID; //$NON-NLS-1$
+                    case 1:
+                        return String.valueOf((recordID*fieldID)%100000/100D);
+                    case 2:
+                        return String.valueOf(EPOCH + (recordID%3650)*DAY);
+                    default:
+                        return (recordID + fieldID)%2 == 0? "1":"0"; //$NON-NLS-1$ //$NON-NLS-2$
+                }
+        }
+    }
+
+    /**
+     * A single <code>{fid.OP.'value'}</code> clause of a query.
+     */
+    static class Condition
+    {
+        private final static String EX = "EX"; //$NON-NLS-1$
+        private final static String XEX = "XEX"; //$NON-NLS-1$
+        private final static String CT = "CT"; //$NON-NLS-1$
+        private final static String XCT = "XCT"; //$NON-NLS-1$
+        private final static String LT = "LT"; //$NON-NLS-1$
+        private final static String LTE = "LTE"; //$NON-NLS-1$
+        private final static String GT = "GT"; //$NON-NLS-1$
+        private final static String GTE = "GTE"; //$NON-NLS-1$
+        private final static String BF = "BF"; //$NON-NLS-1$
+        private final static String OBF = "OBF"; //$NON-NLS-1$
+        private final static String AF = "AF"; //$NON-NLS-1$
+        private final static String OAF = "OAF"; //$NON-NLS-1$
+
+        final int fieldID;
+        private boolean alternative;
+        private String operator;
+        private String value;
+        private Double number;
+
+        Condition(int fieldID, String operator, String value)
+        {
+            this.fieldID = fieldID;
+            this.operator = operator.toUpperCase();
+            this.value = value;
+            this.number = number(value);
+            if (!(EX.equals(this.operator) || XEX.equals(this.operator) || CT.equals(this.operator)
+            || XCT.equals(this.operator) || comparison()))
+            {
+                throw new IllegalArgumentException(operator);
+            }
+        }
+
+        boolean matches(String actual)
+        {
+            if (EX.equals(operator))
+            {
+                return compare(actual) == 0;
+            }
+            if (XEX.equals(operator))
+            {
+                return compare(actual) != 0;
+            }
+            if (CT.equals(operator))
+            {
+                return actual.toLowerCase().indexOf(value.toLowerCase()) != -1;
+            }
+            if (XCT.equals(operator))
+            {
+                return actual.toLowerCase().indexOf(value.toLowerCase()) == -1;
+            }
+            if (actual.length() == 0)
+            {
+                return false;
+            }
+            int comparison = compare(actual);
+            if (LT.equals(operator) || BF.equals(operator))
+            {
+                return comparison < 0;
+            }
+            if (LTE.equals(operator) || OBF.equals(operator))
+            {
+                return comparison <= 0;
+            }
+            if (GT.equals(operator) || AF.equals(operator))
+            {
+                return comparison > 0;
+            }
+            return comparison >= 0;
+        }
+
+        private boolean comparison()
+        {
+            return LT.equals(operator) || LTE.equals(operator) || GT.equals(operator)
+                || GTE.equals(operator) || BF.equals(operator) || OBF.equals(operator)
+                || AF.equals(operator) || OAF.equals(operator);
+        }
+
+        private int compare(String actual)
+        {
+            if (number != null)
+            {
+                Double actualNumber = number(actual);
+                if (actualNumber != null)
+                {
+                    return actualNumber.compareTo(number);
+                }
+            }
+            return actual.compareToIgnoreCase(value);
+        }
+
+        private static Double number(String string)
+        {
+            try
+            {
+                return string.length() == 0? null:Double.valueOf(string);
+            }
+            catch (NumberFormatException numberFormatException)
+            {
+                return null;
+            }
+        }
+    }
+}
@@ -13,19 +13,46 @@
 
 package com.intuit.quickbase.api;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * The class {@link QuickBase} can be considered the primary entry point into the QuickBase API.
  * It provides the only way for client code to obtain a {@link QuickBaseConnection} to a database.
  * A {@link QuickBaseAuthenticator} is required to log in to QuickBase. The authenticator can either
  * be set globally in advance, using {@link #setAuthenticator(QuickBaseAuthenticator)}, or it can
  * be supplied when obtaining a connection using {@link #getConnection(QuickBaseAuthenticator)}.
+ * <p/>
+ * All connections share a global {@link QuickBaseTransport} (and, with it, a pool of HTTP
+ * connections) unless a specific transport is supplied via
+ * {@link #getConnection(QuickBaseAuthenticator, QuickBaseTransport)}. By default, the global
+ * transport is a {@link QuickBasePooledTransport} that is created on first use. Similarly, all
+ * connections share a global {@link QuickBaseQueryEngine} unless a connection is configured with
+ * an engine of its own. Likewise, a global {@link QuickBaseListener} (for example, a
+ * {@link QuickBaseMetrics} instance) can be set to observe the API calls of all connections, and a
+ * {@link QuickBaseThrottle} can be set per realm to limit the load of all connections to that
+ * realm. Failed calls are retried according to a global {@link QuickBaseRetryPolicy}.
+ * <p/>
+ * Connections talk to <code>https://www.quickbase.com/db/</code> unless a different base URL is
+ * set with {@link #setBaseURL(String)} or supplied to
+ * {@link #getConnection(QuickBaseAuthenticator, QuickBaseTransport, String)}; this allows the SDK
+ * to be used with other QuickBase hosts or with a local stand-in server for testing.
  *
  * @author Mirko Raner
  * @version $Revision: 13 $ $Change: 714052 $
  */
 public class QuickBase
 {
+    /** The base URL of the QuickBase service. **/
+    public final static String DEFAULT_BASE_URL = "https://www.quickbase.com/db/"; //$NON-NLS-1$
+
+    private static String baseURL = DEFAULT_BASE_URL;
     private static QuickBaseAuthenticator authenticator;
+    private static QuickBaseTransport transport;
+    private static QuickBaseQueryEngine queryEngine;
+    private static QuickBaseListener listener;
+    private static QuickBaseRetryPolicy retryPolicy;
+    private static Map<String, QuickBaseThrottle> throttles = new HashMap<String, QuickBaseThrottle>();
 
     private QuickBase()
     {
@@ -54,12 +81,52 @@ public class QuickBase
      */
     public static QuickBaseConnection getConnection(QuickBaseAuthenticator qba)
     throws QuickBaseException
+    {
+        return getConnection(qba, getTransport());
+    }
+
+    /**
+     * Obtains a new {@link QuickBaseConnection} using the supplied
+     * {@link QuickBaseAuthenticator} and {@link QuickBaseTransport}.
+     *
+     * @param qba the {@link QuickBaseAuthenticator}
+     * @param transport the {@link QuickBaseTransport} that executes the connection's requests
+     * @return a new {@link QuickBaseConnection}
+     * @throws QuickBaseException if the connection to the database could not be established
+     */
+    public static QuickBaseConnection getConnection(QuickBaseAuthenticator qba,
+    QuickBaseTransport transport) throws QuickBaseException
+    {
+        return getConnection(qba, transport, getBaseURL());
+    }
+
+    /**
+     * Obtains a new {@link QuickBaseConnection} to a specific QuickBase server using the supplied
+     * {@link QuickBaseAuthenticator} and {@link QuickBaseTransport}.
+     *
+     * @param qba the {@link QuickBaseAuthenticator}
+     * @param transport the {@link QuickBaseTransport} that executes the connection's requests
+     * @param baseURL the base URL of the server's database resources (for example,
+     * <code>http://localhost:8080/db/</code>)
+     * @return a new {@link QuickBaseConnection}
+     * @throws QuickBaseException if the connection to the database could not be established
+     */
+    public static QuickBaseConnection getConnection(QuickBaseAuthenticator qba,
+    QuickBaseTransport transport, String baseURL) throws QuickBaseException
     {
         if (qba == null)
         {
             throw new QuickBaseException("no QuickBaseAuthenticator specified"); //$NON-NLS-1$
         }
-        return new QuickBaseConnection(qba.login());
+        if (transport == null)
+        {
+            throw new QuickBaseException("no QuickBaseTransport specified"); //$NON-NLS-1$
+        }
+        if (baseURL == null || baseURL.length() == 0)
+        {
+            throw new QuickBaseException("no base URL specified"); //$NON-NLS-1$
+        }
+        return new QuickBaseConnection(qba.login(), transport, baseURL);
     }
 
     /**
@@ -83,4 +150,171 @@ public class QuickBase
     {
         QuickBase.authenticator = authenticator;
     }
+
+    /**
+     * Gets the global base URL that is used for obtaining connections via
+     * {@link #getConnection()}, {@link #getConnection(QuickBaseAuthenticator)} and
+     * {@link #getConnection(QuickBaseAuthenticator, QuickBaseTransport)}.
+     *
+     * @return the global base URL ({@link #DEFAULT_BASE_URL} unless a different URL was set)
+     */
+    public static synchronized String getBaseURL()
+    {
+        return baseURL;
+    }
+
+    /**
+     * Sets the global base URL. Existing connections continue to use the URL they were created
+     * with.
+     *
+     * @param baseURL the base URL, or <code>null</code> to restore {@link #DEFAULT_BASE_URL}
+     */
+    public static synchronized void setBaseURL(String baseURL)
+    {
+        QuickBase.baseURL = baseURL != null? baseURL:DEFAULT_BASE_URL;
+    }
+
+    /**
+     * Gets the global {@link QuickBaseTransport} that is used for obtaining connections via
+     * {@link #getConnection()} and {@link #getConnection(QuickBaseAuthenticator)}. If no transport
+     * was set, a new {@link QuickBasePooledTransport} will be created.
+     *
+     * @return the global {@link QuickBaseTransport}
+     */
+    public static synchronized QuickBaseTransport getTransport()
+    {
+        if (transport == null)
+        {
+            transport = new QuickBasePooledTransport();
+        }
+        return transport;
+    }
+
+    /**
+     * Sets the global {@link QuickBaseTransport}. Existing connections continue to use the
+     * transport they were created with.
+     *
+     * @param transport the global {@link QuickBaseTransport} to be used
+     */
+    public static synchronized void setTransport(QuickBaseTransport transport)
+    {
+        QuickBase.transport = transport;
+    }
+
+    /**
+     * Gets the global {@link QuickBaseQueryEngine} that processes the queries of all connections
+     * that were not configured with a specific engine. If no engine was set, a new
+     * {@link QuickBaseQueryEngine} with default settings will be created.
+     *
+     * @return the global {@link QuickBaseQueryEngine}
+     */
+    public static synchronized QuickBaseQueryEngine getQueryEngine()
+    {
+        if (queryEngine == null)
+        {
+            queryEngine = new QuickBaseQueryEngine();
+        }
+        return queryEngine;
+    }
+
+    /**
+     * Sets the global {@link QuickBaseQueryEngine}. Connections that already use the previous
+     * global engine continue to do so.
+     *
+     * @param queryEngine the global {@link QuickBaseQueryEngine} to be used
+     */
+    public static synchronized void setQueryEngine(QuickBaseQueryEngine queryEngine)
+    {
+        QuickBase.queryEngine = queryEngine;
+    }
+
+    /**
+     * Gets the global {@link QuickBaseListener} that observes the API calls of all connections
+     * that were not configured with a specific listener.
+     *
+     * @return the global {@link QuickBaseListener}, or <code>null</code> if none was set
+     */
+    public static synchronized QuickBaseListener getListener()
+    {
+        return listener;
+    }
+
+    /**
+     * Sets the global {@link QuickBaseListener}. Unlike the other global settings, the listener
+     * also takes effect for existing connections (unless they were configured with a listener of
+     * their own). API calls are not instrumented at all while no listener is set.
+     *
+     * @param listener the global {@link QuickBaseListener}, or <code>null</code> to disable
+     * instrumentation
+     */
+    public static synchronized void setListener(QuickBaseListener listener)
+    {
+        QuickBase.listener = listener;
+    }
+
+    /**
+     * Gets the {@link QuickBaseThrottle} of a realm. The throttle applies to all connections to
+     * that realm that were not configured with a specific throttle.
+     *
+     * @param realm the realm (i.e., the host name, see {@link QuickBaseConnection#getRealm()})
+     * @return the {@link QuickBaseThrottle}, or <code>null</code> if calls to the realm are not
+     * throttled
+     */
+    public static synchronized QuickBaseThrottle getThrottle(String realm)
+    {
+        return throttles.get(realm);
+    }
+
+    /**
+     * Sets the {@link QuickBaseThrottle} of a realm. Like the global listener, the throttle also
+     * takes effect for existing connections. Calls are not throttled by default.
+     *
+     * @param realm the realm (i.e., the host name, see {@link QuickBaseConnection#getRealm()})
+     * @param throttle the {@link QuickBaseThrottle}, or <code>null</code> to stop throttling
+     */
+    public static synchronized void setThrottle(String realm, QuickBaseThrottle throttle)
+    {
+        if (throttle != null)
+        {
+            throttles.put(realm, throttle);
+        }
+        else
+        {
+            throttles.remove(realm);
+        }
+    }
+
+    /**
+     * Gets the global {@link QuickBaseRetryPolicy} of all connections that were not configured
+     * with a specific policy. If no policy was set, a new {@link QuickBaseRetryPolicy} with
+     * default settings will be created.
+     *
+     * @return the global {@link QuickBaseRetryPolicy}
+     */
+    public static synchronized QuickBaseRetryPolicy getRetryPolicy()
+    {
+        if (retryPolicy == null)
+        {
+            retryPolicy = new QuickBaseRetryPolicy();
+        }
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the global {@link QuickBaseRetryPolicy}. The policy also takes effect for existing
+     * connections (unless they were configured with a policy of their own). The previous global
+     * policy is {@link QuickBaseRetryPolicy#shutdown() shut down}.
+     *
+     * @param retryPolicy the global {@link QuickBaseRetryPolicy}, or <code>null</code> to restore
+     * the default policy
+     */
+    public static synchronized void setRetryPolicy(QuickBaseRetryPolicy retryPolicy)
+    {
+        QuickBaseRetryPolicy previous = QuickBase.retryPolicy;
+        QuickBase.retryPolicy = retryPolicy;
+        if (previous != null && previous != retryPolicy)
+        {
+            previous.shutdown();
+        }
+    }
 }
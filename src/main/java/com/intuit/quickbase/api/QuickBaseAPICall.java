@@ -15,7 +15,8 @@ package com.intuit.quickbase.api;
 
 /**
  * The enumeration {@link QuickBaseAPICall} provides a list of all API calls to the QuickBase HTTP
- * API.
+ * API. Calls that only read data (and {@link #API_Authenticate}) are marked as
+ * {@link #isIdempotent() idempotent}, i.e., they can be repeated without changing the outcome.
  *
  * @author Mirko Raner
  * @version $Revision: 13 $ $Change: 714052 $
@@ -26,7 +27,7 @@ public enum QuickBaseAPICall
     /** API_AddRecord. **/ API_AddRecord,
     /** API_AddReplaceDBPage. **/ API_AddReplaceDBPage,
     /** API_AddUserToRole. **/ API_AddUserToRole, 
-    /** API_Authenticate. **/ API_Authenticate,
+    /** API_Authenticate. **/ API_Authenticate(true),
     /** API_ChangeRecordOwner. **/ API_ChangeRecordOwner,
     /** API_ChangeUserRole. **/ API_ChangeUserRole, 
     /** API_CloneDatabase. **/ API_CloneDatabase,
@@ -35,25 +36,26 @@ public enum QuickBaseAPICall
     /** API_DeleteDatabase. **/ API_DeleteDatabase, 
     /** API_DeleteField. **/ API_DeleteField,
     /** API_DeleteRecord. **/ API_DeleteRecord, 
-    /** API_DoQuery. **/ API_DoQuery,
+    /** API_DoQuery. **/ API_DoQuery(true),
+    /** API_DoQueryCount. **/ API_DoQueryCount(true),
     /** API_EditRecord. **/ API_EditRecord, 
     /** API_FieldAddChoices. **/ API_FieldAddChoices,
     /** API_FieldRemoveChoices. **/ API_FieldRemoveChoices,
-    /** API_FindDBByName. **/ API_FindDBByName, 
-    /** API_GenAddRecordForm. **/ API_GenAddRecordForm,
-    /** API_GenResultsTable. **/ API_GenResultsTable, 
-    /** API_GetAppDTMInfo. **/ API_GetAppDTMInfo,
-    /** API_GetDBInfo. **/ API_GetDBInfo, 
-    /** API_GetDBPage. **/ API_GetDBPage,
-    /** API_GetDBvar. **/ API_GetDBvar, 
-    /** API_GetNumRecords. **/ API_GetNumRecords,
-    /** API_GetRecordAsHTML. **/ API_GetRecordAsHTML, 
-    /** API_GetRecordInfo. **/ API_GetRecordInfo,
-    /** API_GetRoleInfo. **/ API_GetRoleInfo, 
-    /** API_GetSchema. **/ API_GetSchema,
-    /** API_GetUserInfo. **/ API_GetUserInfo, 
-    /** API_GetUserRole. **/ API_GetUserRole,
-    /** API_GrantedDBs. **/ API_GrantedDBs, 
+    /** API_FindDBByName. **/ API_FindDBByName(true), 
+    /** API_GenAddRecordForm. **/ API_GenAddRecordForm(true),
+    /** API_GenResultsTable. **/ API_GenResultsTable(true), 
+    /** API_GetAppDTMInfo. **/ API_GetAppDTMInfo(true),
+    /** API_GetDBInfo. **/ API_GetDBInfo(true), 
+    /** API_GetDBPage. **/ API_GetDBPage(true),
+    /** API_GetDBvar. **/ API_GetDBvar(true), 
+    /** API_GetNumRecords. **/ API_GetNumRecords(true),
+    /** API_GetRecordAsHTML. **/ API_GetRecordAsHTML(true), 
+    /** API_GetRecordInfo. **/ API_GetRecordInfo(true),
+    /** API_GetRoleInfo. **/ API_GetRoleInfo(true), 
+    /** API_GetSchema. **/ API_GetSchema(true),
+    /** API_GetUserInfo. **/ API_GetUserInfo(true), 
+    /** API_GetUserRole. **/ API_GetUserRole(true),
+    /** API_GrantedDBs. **/ API_GrantedDBs(true), 
     /** API_ImportFromCSV. **/ API_ImportFromCSV,
     /** API_ProvisionUser. **/ API_ProvisionUser, 
     /** API_PurgeRecords. **/ API_PurgeRecords,
@@ -65,5 +67,29 @@ public enum QuickBaseAPICall
     /** API_SetFieldProperties. **/ API_SetFieldProperties,
     /** API_SignOut. **/ API_SignOut, 
     /** API_UploadFile. **/ API_UploadFile,
-    /** API_UserRoles. **/ API_UserRoles
+    /** API_UserRoles. **/ API_UserRoles(true);
+
+    private boolean idempotent;
+
+    private QuickBaseAPICall()
+    {
+        this(false);
+    }
+
+    private QuickBaseAPICall(boolean idempotent)
+    {
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * Determines whether the call is idempotent. Idempotent calls can safely be sent again if the
+     * outcome of a previous attempt is unknown (for example, because the connection failed while
+     * waiting for the response).
+     *
+     * @return <code>true</code> if the call is idempotent, <code>false</code> otherwise
+     */
+    public boolean isIdempotent()
+    {
+        return idempotent;
+    }
 }
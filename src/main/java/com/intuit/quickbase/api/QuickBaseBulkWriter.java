@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseBulkWriter.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import org.apache.commons.httpclient.NameValuePair;
+
+import static com.intuit.quickbase.api.QuickBaseAPICall.API_ImportFromCSV;
+
+/**
+ * The class {@link QuickBaseBulkWriter} adds or updates large numbers of records in a
+ * {@link QuickBaseTable}. Instead of sending one {@link QuickBaseAPICall#API_AddRecord} request
+ * per record, the writer encodes records as CSV and sends them in chunks via
+ * {@link QuickBaseAPICall#API_ImportFromCSV}. A new chunk is started whenever the current chunk
+ * reaches the configured number of rows or characters, or whenever a record contains a different
+ * set of fields than the previous record (all rows of an import must share the same
+ * <code>clist</code>). Chunks are sent in parallel, but never more than the configured number of
+ * chunks at the same time.
+ * <p/>
+ * Records are consumed from an {@link Iterator}, so the records of a large import do not need to
+ * be held in memory all at once; only the chunks that are currently in flight are.
+ * <p/>
+ * Chunks are sent by the connection's {@link QuickBaseQueryEngine}. If a writer is used from one
+ * of the engine's own threads (for example, from a {@link QuickBaseCallback}), waiting for the
+ * engine could deadlock, so the chunks are sent one after another on the calling thread instead.
+ *
+ * @see QuickBaseTable#importRecords(Iterator)
+ */
+public class QuickBaseBulkWriter
+{
+    /** The default maximum number of rows per chunk. **/
+    public final static int DEFAULT_MAX_ROWS_PER_CHUNK = 1000;
+
+    /** The default maximum number of CSV characters per chunk. **/
+    public final static int DEFAULT_MAX_CHARACTERS_PER_CHUNK = 4*1024*1024;
+
+    /** The default maximum number of chunks that are sent at the same time. **/
+    public final static int DEFAULT_MAX_PARALLEL_CHUNKS = 4;
+
+    private final static String RECORDS_CSV = "records_csv"; //$NON-NLS-1$
+    private final static String CLIST = "clist"; //$NON-NLS-1$
+    private final static String WRONG_TABLE = "RecordBuilder is not setup for use with this table"; //$NON-NLS-1$
+    private final static String INTERRUPTED = "interrupted while waiting for import slot"; //$NON-NLS-1$
+    private final static String EMPTY = ""; //$NON-NLS-1$
+    private final static char QUOTE = '"';
+    private final static char SEPARATOR = ',';
+    private final static char NEWLINE = '\n';
+
+    private QuickBaseTable table;
+    private int maxRowsPerChunk;
+    private int maxCharactersPerChunk;
+    private int maxParallelChunks;
+
+    /**
+     * Creates a new {@link QuickBaseBulkWriter} with default chunk limits.
+     *
+     * @param table the {@link QuickBaseTable} that receives the records
+     */
+    public QuickBaseBulkWriter(QuickBaseTable table)
+    {
+        this.table = table;
+        this.maxRowsPerChunk = DEFAULT_MAX_ROWS_PER_CHUNK;
+        this.maxCharactersPerChunk = DEFAULT_MAX_CHARACTERS_PER_CHUNK;
+        this.maxParallelChunks = DEFAULT_MAX_PARALLEL_CHUNKS;
+    }
+
+    /**
+     * Sets the maximum number of rows per chunk.
+     *
+     * @param maxRowsPerChunk the maximum number of rows
+     */
+    public void setMaxRowsPerChunk(int maxRowsPerChunk)
+    {
+        this.maxRowsPerChunk = maxRowsPerChunk;
+    }
+
+    /**
+     * Sets the maximum number of CSV characters per chunk. A single row that exceeds this limit
+     * is still sent (as a chunk of its own).
+     *
+     * @param maxCharactersPerChunk the maximum number of characters
+     */
+    public void setMaxCharactersPerChunk(int maxCharactersPerChunk)
+    {
+        this.maxCharactersPerChunk = maxCharactersPerChunk;
+    }
+
+    /**
+     * Sets the maximum number of chunks that are sent at the same time.
+     *
+     * @param maxParallelChunks the maximum number of parallel requests
+     */
+    public void setMaxParallelChunks(int maxParallelChunks)
+    {
+        this.maxParallelChunks = maxParallelChunks;
+    }
+
+    /**
+     * Imports all records supplied by an {@link Iterator} and waits until all chunks were
+     * processed. Failed chunks do not stop the import; their failure is reported in the
+     * corresponding {@link QuickBaseImportResult}. When called from a thread of the connection's
+     * {@link QuickBaseQueryEngine}, the chunks are sent sequentially on that thread.
+     *
+     * @param records the {@link QuickBaseRecordBuilder}s of the records to be imported
+     * @return one {@link QuickBaseImportResult} per chunk, in the order of the chunks
+     * @throws QuickBaseException if the import could not be submitted or was interrupted
+     */
+    public List<QuickBaseImportResult> write(Iterator<QuickBaseRecordBuilder> records)
+    throws QuickBaseException
+    {
+        QuickBaseQueryEngine engine = table.getDatabase().getConnection().getQueryEngine();
+        boolean inline = engine.isEngineThread();
+        Semaphore slots = new Semaphore(maxParallelChunks);
+        List<QuickBaseFuture<QuickBaseImportResult>> chunks;
+        chunks = new ArrayList<QuickBaseFuture<QuickBaseImportResult>>();
+        Chunk chunk = null;
+        int row = 0;
+        while (records.hasNext())
+        {
+            QuickBaseRecordBuilder record = records.next();
+            if (!record.getTable().getTableId().equals(table.getTableId()))
+            {
+                throw new IllegalArgumentException(WRONG_TABLE);
+            }
+            List<NameValuePair> fieldValues = record.getFieldValues();
+            String clist = clist(fieldValues);
+            StringBuffer line = csv(fieldValues);
+            if (chunk != null && !chunk.accepts(clist, line))
+            {
+                chunks.add(inline? sendInline(chunk):send(chunk, slots, engine));
+                chunk = null;
+            }
+            if (chunk == null)
+            {
+                chunk = new Chunk(chunks.size(), row, clist);
+            }
+            chunk.add(line);
+            row++;
+        }
+        if (chunk != null)
+        {
+            chunks.add(inline? sendInline(chunk):send(chunk, slots, engine));
+        }
+        List<QuickBaseImportResult> results = new ArrayList<QuickBaseImportResult>(chunks.size());
+        for (QuickBaseFuture<QuickBaseImportResult> result: chunks)
+        {
+            results.add(result.getResult());
+        }
+        return results;
+    }
+
+    /**
+     * Imports all records supplied by an {@link Iterable}.
+     *
+     * @param records the {@link QuickBaseRecordBuilder}s of the records to be imported
+     * @return one {@link QuickBaseImportResult} per chunk, in the order of the chunks
+     * @throws QuickBaseException if the import could not be submitted or was interrupted
+     * @see #write(Iterator)
+     */
+    public List<QuickBaseImportResult> write(Iterable<QuickBaseRecordBuilder> records)
+    throws QuickBaseException
+    {
+        return write(records.iterator());
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private QuickBaseFuture<QuickBaseImportResult> send(final Chunk chunk, final Semaphore slots,
+    QuickBaseQueryEngine engine) throws QuickBaseException
+    {
+        try
+        {
+            slots.acquire();
+        }
+        catch (InterruptedException interrupted)
+        {
+            Thread.currentThread().interrupt();
+            throw new QuickBaseException(INTERRUPTED, interrupted);
+        }
+        Callable<QuickBaseImportResult> importChunk = new Callable<QuickBaseImportResult>()
+        {
+            public QuickBaseImportResult call()
+            {
+                try
+                {
+                    return chunk.send();
+                }
+                finally
+                {
+                    slots.release();
+                }
+            }
+        };
+        try
+        {
+            return engine.submit(importChunk, null);
+        }
+        catch (QuickBaseException exception)
+        {
+            slots.release();
+            throw exception;
+        }
+    }
+
+    private static QuickBaseFuture<QuickBaseImportResult> sendInline(final Chunk chunk)
+    {
+        Callable<QuickBaseImportResult> importChunk = new Callable<QuickBaseImportResult>()
+        {
+            public QuickBaseImportResult call()
+            {
+                return chunk.send();
+            }
+        };
+        QuickBaseFuture<QuickBaseImportResult> result;
+        result = new QuickBaseFuture<QuickBaseImportResult>(importChunk);
+        result.run();
+        return result;
+    }
+
+    private static String clist(List<NameValuePair> fieldValues)
+    {
+        StringBuffer clist = new StringBuffer();
+        for (NameValuePair fieldValue: fieldValues)
+        {
+            if (clist.length() > 0)
+            {
+                clist.append('.');
+            }
+            clist.append(fieldValue.getName());
+        }
+        return clist.toString();
+    }
+
+    private static StringBuffer csv(List<NameValuePair> fieldValues)
+    {
+        StringBuffer line = new StringBuffer();
+        for (NameValuePair fieldValue: fieldValues)
+        {
+            if (line.length() > 0)
+            {
+                line.append(SEPARATOR);
+            }
+            String value = fieldValue.getValue();
+            if (value == null)
+            {
+                value = EMPTY;
+            }
+            if (requiresQuotes(value))
+            {
+                line.append(QUOTE);
+                for (int index = 0, length = value.length(); index < length; index++)
+                {
+                    char character = value.charAt(index);
+                    if (character == QUOTE)
+                    {
+                        line.append(QUOTE);
+                    }
+                    line.append(character);
+                }
+                line.append(QUOTE);
+            }
+            else
+            {
+                line.append(value);
+            }
+        }
+        return line.append(NEWLINE);
+    }
+
+    private static boolean requiresQuotes(String value)
+    {
+        int length = value.length();
+        if (length > 0 && (value.charAt(0) == ' ' || value.charAt(length-1) == ' '))
+        {
+            return true;
+        }
+        for (int index = 0; index < length; index++)
+        {
+            char character = value.charAt(index);
+            if (character == QUOTE || character == SEPARATOR || character == '\r' || character == NEWLINE)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String element(String name, CharSequence content)
+    {
+        StringBuffer element = new StringBuffer(content.length() + 2*name.length() + 5);
+        element.append('<').append(name).append('>');
+        for (int index = 0, length = content.length(); index < length; index++)
+        {
+            char character = content.charAt(index);
+            switch (character)
+            {
+                case '<': element.append("&lt;"); break; //$NON-NLS-1$
+                case '>': element.append("&gt;"); break; //$NON-NLS-1$
+                case '&': element.append("&amp;"); break; //$NON-NLS-1$
+                default: element.append(character);
+            }
+        }
+        return element.append('<').append('/').append(name).append('>').toString();
+    }
+
+    /**
+     * A chunk of CSV rows that share the same <code>clist</code>.
+     */
+    private class Chunk
+    {
+        private int index;
+        private int firstRow;
+        private int rows;
+        private String clist;
+        private StringBuffer csv;
+
+        Chunk(int index, int firstRow, String clist)
+        {
+            this.index = index;
+            this.firstRow = firstRow;
+            this.clist = clist;
+            this.csv = new StringBuffer();
+        }
+
+        boolean accepts(String lineClist, StringBuffer line)
+        {
+            return clist.equals(lineClist) && rows < maxRowsPerChunk
+                && csv.length() + line.length() <= maxCharactersPerChunk;
+        }
+
+        void add(StringBuffer line)
+        {
+            csv.append(line);
+            rows++;
+        }
+
+        QuickBaseImportResult send()
+        {
+            String[] elements = {element(RECORDS_CSV, csv), element(CLIST, clist)};
+            csv = null;
+            try
+            {
+                QuickBaseConnection connection = table.getDatabase().getConnection();
+                QuickBaseEnvelope response = new QuickBaseEnvelope(QuickBaseEnvelope.QDBAPI_NUM_RECS_ADDED,
+                    QuickBaseEnvelope.QDBAPI_NUM_RECS_UPDATED, QuickBaseEnvelope.QDBAPI_RIDS_RID);
+                connection.executeXml(table.getTableId(), API_ImportFromCSV, response, elements);
+                int added = (int)response.getLong(QuickBaseEnvelope.QDBAPI_NUM_RECS_ADDED);
+                int updated = (int)response.getLong(QuickBaseEnvelope.QDBAPI_NUM_RECS_UPDATED);
+                List<String> rids = response.getValues(QuickBaseEnvelope.QDBAPI_RIDS_RID);
+                List<Long> recordIDs = new ArrayList<Long>(rids.size());
+                for (String rid: rids)
+                {
+                    recordIDs.add(Long.valueOf(rid));
+                }
+                return new QuickBaseImportResult(index, firstRow, rows, added, updated, recordIDs);
+            }
+            catch (QuickBaseException exception)
+            {
+                return new QuickBaseImportResult(index, firstRow, rows, exception);
+            }
+            catch (NumberFormatException exception)
+            {
+                return new QuickBaseImportResult(index, firstRow, rows, new QuickBaseException(exception));
+            }
+        }
+    }
+}
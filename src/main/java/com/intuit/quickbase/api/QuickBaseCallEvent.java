@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseCallEvent.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class {@link QuickBaseCallEvent} describes the execution of a single {@link QuickBaseAPICall}
+ * for a {@link QuickBaseListener}. An event is created when the call starts and is completed when
+ * its response was processed (or when the call failed). It records where the time of the call
+ * went:
+ * <ul>
+ * <li>the time spent waiting for the connection's {@link QuickBaseThrottle} (if any),</li>
+ * <li>the time spent waiting for a connection from the transport's pool,</li>
+ * <li>the time spent opening a new connection (not applicable if a pooled connection was
+ * reused),</li>
+ * <li>the time until the response headers were received ("time to first byte", measured from the
+ * start of the call),</li>
+ * <li>the number of request body bytes sent and the number of response bytes received, both
+ * before and after compression,</li>
+ * <li>the time spent parsing the response and the number of records it contained, and</li>
+ * <li>the QuickBase error code, if the call failed.</li>
+ * </ul>
+ * All times are measured in nanoseconds; values that were not measured are reported as
+ * <code>-1</code>. Pool wait and connect times are only available with a
+ * {@link QuickBasePooledTransport}.
+ * <p/>
+ * Every event carries a correlation ID, which is also sent to the server as the
+ * <code>X-Correlation-ID</code> request header. A listener can replace the generated ID in
+ * {@link QuickBaseListener#callStarted(QuickBaseCallEvent)}, for example, with the ID of a trace
+ * that the call is part of.
+ * <p/>
+ * An event is only updated by the thread that executes the call and should only be inspected
+ * from within the listener methods.
+ */
+public class QuickBaseCallEvent
+{
+    /** The name of the HTTP request header that carries the correlation ID. **/
+    public final static String CORRELATION_ID_HEADER = "X-Correlation-ID"; //$NON-NLS-1$
+
+    /** The error code of calls that failed without a QuickBase error code. **/
+    public final static int NO_ERROR_CODE = -1;
+
+    private final static long NOT_MEASURED = -1;
+    private final static double NANOSECONDS_PER_SECOND = 1e9;
+    private final static String PREFIX = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX) + '-';
+    private final static AtomicLong SEQUENCE = new AtomicLong();
+    private final static ThreadLocal<QuickBaseCallEvent> CURRENT = new ThreadLocal<QuickBaseCallEvent>();
+
+    private QuickBaseAPICall call;
+    private QuickBaseListener listener;
+    private QuickBaseThrottle throttle;
+    private QuickBaseThrottle.Permit permit;
+    private String correlationID;
+    private long start;
+    private long throttleWait = NOT_MEASURED;
+    private long poolWait = NOT_MEASURED;
+    private long connect = NOT_MEASURED;
+    private long firstByte = NOT_MEASURED;
+    private long parse = NOT_MEASURED;
+    private long total = NOT_MEASURED;
+    private long bytesSent;
+    private long requestBytes;
+    private long bytesReceived;
+    private long bytesDecoded;
+    private int records;
+    private int errorCode;
+    private QuickBaseException exception;
+    private boolean completed;
+
+    QuickBaseCallEvent(QuickBaseAPICall call, QuickBaseListener listener, QuickBaseThrottle throttle)
+    {
+        this.call = call;
+        this.listener = listener;
+        this.throttle = throttle;
+        this.correlationID = PREFIX + Long.toString(SEQUENCE.incrementAndGet(), Character.MAX_RADIX);
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Gets the {@link QuickBaseAPICall} that was executed.
+     *
+     * @return the {@link QuickBaseAPICall}
+     */
+    public QuickBaseAPICall getCall()
+    {
+        return call;
+    }
+
+    /**
+     * Gets the correlation ID of the call.
+     *
+     * @return the correlation ID
+     */
+    public String getCorrelationID()
+    {
+        return correlationID;
+    }
+
+    /**
+     * Replaces the correlation ID of the call. This only affects the request header if it is
+     * called from {@link QuickBaseListener#callStarted(QuickBaseCallEvent)}.
+     *
+     * @param correlationID the new correlation ID
+     */
+    public void setCorrelationID(String correlationID)
+    {
+        this.correlationID = correlationID;
+    }
+
+    /**
+     * Gets the time that was spent waiting for the rate and concurrency limits of the
+     * connection's {@link QuickBaseThrottle}.
+     *
+     * @return the time in nanoseconds, or <code>-1</code> if the connection has no throttle
+     */
+    public long getThrottleWaitNanos()
+    {
+        return throttleWait;
+    }
+
+    /**
+     * Gets the time that was spent waiting for a pooled connection.
+     *
+     * @return the time in nanoseconds, or <code>-1</code> if it was not measured
+     */
+    public long getPoolWaitNanos()
+    {
+        return poolWait;
+    }
+
+    /**
+     * Gets the time that was spent opening a new connection.
+     *
+     * @return the time in nanoseconds, or <code>-1</code> if no new connection was opened or the
+     * time was not measured
+     */
+    public long getConnectNanos()
+    {
+        return connect;
+    }
+
+    /**
+     * Gets the time from the start of the call until the response headers were received.
+     *
+     * @return the time in nanoseconds, or <code>-1</code> if no response was received
+     */
+    public long getFirstByteNanos()
+    {
+        return firstByte;
+    }
+
+    /**
+     * Gets the number of request body bytes that were sent (after compression, if the request
+     * body was compressed).
+     *
+     * @return the number of bytes
+     */
+    public long getBytesSent()
+    {
+        return bytesSent;
+    }
+
+    /**
+     * Gets the compression ratio of the request body (i.e., the uncompressed size divided by the
+     * number of bytes that were sent).
+     *
+     * @return the compression ratio, or <code>1</code> if the request body was not compressed
+     */
+    public double getRequestCompressionRatio()
+    {
+        return bytesSent > 0? (double)requestBytes/bytesSent:1;
+    }
+
+    /**
+     * Gets the number of response bytes that were received (before decompression, if the
+     * response was compressed).
+     *
+     * @return the number of bytes
+     */
+    public long getBytesReceived()
+    {
+        return bytesReceived;
+    }
+
+    /**
+     * Gets the number of response bytes after decompression. For uncompressed responses, this is
+     * the same as the number of bytes received.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesDecoded()
+    {
+        return bytesDecoded;
+    }
+
+    /**
+     * Gets the compression ratio of the response (i.e., the number of decoded bytes divided by
+     * the number of bytes that were received).
+     *
+     * @return the compression ratio, or <code>1</code> if the response was not compressed
+     */
+    public double getCompressionRatio()
+    {
+        return bytesReceived > 0? (double)bytesDecoded/bytesReceived:1;
+    }
+
+    /**
+     * Gets the time that was spent parsing the response.
+     *
+     * @return the time in nanoseconds, or <code>-1</code> if the response was not parsed by the SDK
+     */
+    public long getParseNanos()
+    {
+        return parse;
+    }
+
+    /**
+     * Gets the number of records that the response contained.
+     *
+     * @return the number of records
+     */
+    public int getRecords()
+    {
+        return records;
+    }
+
+    /**
+     * Gets the parsing throughput in records per second.
+     *
+     * @return the number of records per second, or <code>0</code> if the response did not contain
+     * records
+     */
+    public double getRecordsPerSecond()
+    {
+        return records > 0 && parse > 0? records*NANOSECONDS_PER_SECOND/parse:0;
+    }
+
+    /**
+     * Gets the total time of the call, from its start until its response was processed.
+     *
+     * @return the time in nanoseconds, or <code>-1</code> if the call has not completed yet
+     */
+    public long getTotalNanos()
+    {
+        return total;
+    }
+
+    /**
+     * Gets the QuickBase error code of a failed call.
+     *
+     * @return <code>0</code> if the call succeeded, the QuickBase error code if QuickBase reported
+     * an error, or {@link #NO_ERROR_CODE} if the call failed for another reason (for example, a
+     * network problem)
+     */
+    public int getErrorCode()
+    {
+        return errorCode;
+    }
+
+    /**
+     * Gets the exception of a failed call.
+     *
+     * @return the {@link QuickBaseException}, or <code>null</code> if the call succeeded
+     */
+    public QuickBaseException getException()
+    {
+        return exception;
+    }
+
+    /**
+     * Returns a string representation of the event for logging purposes.
+     *
+     * @return a string representation of the event
+     */
+    public String toString()
+    {
+        StringBuffer string = new StringBuffer(getClass().getName());
+        string.append('[').append(call).append(",id=").append(correlationID); //$NON-NLS-1$
+        string.append(",throttleWait=").append(throttleWait); //$NON-NLS-1$
+        string.append(",poolWait=").append(poolWait).append(",connect=").append(connect); //$NON-NLS-1$ //$NON-NLS-2$
+        string.append(",firstByte=").append(firstByte).append(",sent=").append(bytesSent); //$NON-NLS-1$ //$NON-NLS-2$
+        string.append(",bytes=").append(bytesReceived).append(",decoded=").append(bytesDecoded); //$NON-NLS-1$ //$NON-NLS-2$
+        string.append(",parse=").append(parse).append(",records=").append(records); //$NON-NLS-1$ //$NON-NLS-2$
+        string.append(",total=").append(total).append(",errorCode=").append(errorCode); //$NON-NLS-1$ //$NON-NLS-2$
+        return string.append(']').toString();
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Gets the event of the call that the current thread is executing in its transport.
+     *
+     * @return the current {@link QuickBaseCallEvent}, or <code>null</code> if the current thread
+     * is not executing an instrumented call
+     */
+    static QuickBaseCallEvent current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Records a failure for an event (if the call is instrumented).
+     *
+     * @param event the {@link QuickBaseCallEvent}, or <code>null</code>
+     * @param exception the {@link QuickBaseException} that caused the call to fail
+     * @return the <code>exception</code> (for rethrowing it)
+     */
+    static QuickBaseException report(QuickBaseCallEvent event, QuickBaseException exception)
+    {
+        if (event != null)
+        {
+            event.failed(exception);
+        }
+        return exception;
+    }
+
+    void started()
+    {
+        if (listener != null)
+        {
+            listener.callStarted(this);
+        }
+        CURRENT.set(this);
+    }
+
+    /**
+     * Waits for the call's {@link QuickBaseThrottle} (if any).
+     *
+     * @throws QuickBaseException if the thread was interrupted while waiting
+     */
+    void admit() throws QuickBaseException
+    {
+        if (throttle != null)
+        {
+            long admission = System.nanoTime();
+            permit = throttle.acquire(call);
+            throttleWait = System.nanoTime() - admission;
+        }
+    }
+
+    /**
+     * Records the arrival of the response headers.
+     *
+     * @param statusCode the HTTP status code
+     * @param retryAfter the value of the <code>Retry-After</code> header in seconds, or
+     * <code>0</code> if there was none
+     */
+    void sent(int statusCode, long retryAfter)
+    {
+        CURRENT.remove();
+        firstByte = System.nanoTime() - start;
+        if (permit != null)
+        {
+            throttle.received(permit, statusCode, retryAfter);
+        }
+    }
+
+    void poolWait(long nanoseconds)
+    {
+        poolWait = nanoseconds;
+    }
+
+    void connect(long nanoseconds)
+    {
+        connect = nanoseconds;
+    }
+
+    /**
+     * Records the size of the request body.
+     *
+     * @param uncompressed the size of the uncompressed request body
+     * @param sent the number of bytes that are sent
+     */
+    void requested(long uncompressed, long sent)
+    {
+        requestBytes = uncompressed;
+        bytesSent = sent;
+    }
+
+    void received(int bytes)
+    {
+        bytesReceived += bytes;
+    }
+
+    void decoded(int bytes)
+    {
+        bytesDecoded += bytes;
+    }
+
+    void parsed(long nanoseconds, int numberOfRecords)
+    {
+        parse = nanoseconds;
+        records = numberOfRecords;
+    }
+
+    void failed(QuickBaseException failure)
+    {
+        if (exception == null)
+        {
+            exception = failure;
+            errorCode = failure.getErrorCode() > 0? failure.getErrorCode():NO_ERROR_CODE;
+        }
+    }
+
+    /**
+     * Completes the event and notifies the listener (only once).
+     */
+    void complete()
+    {
+        CURRENT.remove();
+        if (!completed)
+        {
+            completed = true;
+            total = System.nanoTime() - start;
+            if (permit != null)
+            {
+                throttle.completed(permit, exception);
+            }
+            if (listener != null)
+            {
+                try
+                {
+                    listener.callCompleted(this);
+                }
+                catch (RuntimeException ignore)
+                {
+                    // A broken listener must not affect the outcome of the call
+                }
+            }
+        }
+    }
+}
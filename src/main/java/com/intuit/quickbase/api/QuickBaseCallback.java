@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseCallback.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The interface {@link QuickBaseCallback} receives the outcome of an asynchronous QuickBase
+ * operation. Exactly one of the two methods is called for each {@link QuickBaseFuture} that the
+ * callback was registered with.
+ *
+ * @param <$Result> the type of the operation's result
+ * @see QuickBaseFuture#addCallback(QuickBaseCallback)
+ */
+public interface QuickBaseCallback<$Result>
+{
+    /**
+     * Receives the result of a successfully completed operation.
+     *
+     * @param result the result (<code>null</code> for operations without a result)
+     */
+    public abstract void succeeded($Result result);
+
+    /**
+     * Receives the exception of a failed or cancelled operation.
+     *
+     * @param exception the {@link QuickBaseException} describing the failure
+     */
+    public abstract void failed(QuickBaseException exception);
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseChangeHandler.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The {@link QuickBaseChangeHandler} interface receives the changes of a table that were detected
+ * by a {@link QuickBaseSync}. Changes are delivered at least once: if a synchronization fails
+ * before its new {@link QuickBaseWatermark} was saved, the next synchronization delivers the same
+ * changes again. Handlers should therefore apply changes idempotently (for example, as inserts
+ * that replace existing rows).
+ */
+public interface QuickBaseChangeHandler
+{
+    /**
+     * Receives a record that was added to the table.
+     *
+     * @param record the new record
+     */
+    public abstract void recordAdded(QuickBaseRecord record);
+
+    /**
+     * Receives a record that was modified.
+     *
+     * @param record the current contents of the record
+     */
+    public abstract void recordModified(QuickBaseRecord record);
+
+    /**
+     * Provides a notification that a record was deleted.
+     *
+     * @param recordID the ID of the deleted record
+     */
+    public abstract void recordDeleted(long recordID);
+}
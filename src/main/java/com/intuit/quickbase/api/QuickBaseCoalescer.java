@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseCoalescer.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The class <code>QuickBaseCoalescer</code> lets identical queries that run at the same time
+ * share a single HTTP request and a single parsing pass ("single flight"). Queries are identical
+ * if their {@link QuickBaseRequest#getKey() request keys} are equal. The first query for a key
+ * starts a new flight; queries with the same key that start before the flight's response arrives
+ * join the flight instead of sending their own request. The shared request is executed by a
+ * separate <em>pilot</em> query on a thread of the coalescer, which parses the response and
+ * forwards every record (as well as errors and the completion notification) to the
+ * {@link QuickBaseResultHandler}s of all members, while the members' own threads wait for the
+ * flight to land.
+ * <p/>
+ * Because no member executes the shared request itself, each member can leave the flight
+ * individually (for example, when it is cancelled or times out) and return immediately, without
+ * affecting the others; the shared request is only aborted after all members have left.
+ * A result handler that throws a {@link RuntimeException} is likewise removed from the flight, and
+ * the exception is rethrown on its own query's thread.
+ * <p/>
+ * Each pilot holds one of the query engine's pending-query permits while its flight is in the
+ * air, so the shared requests count against the same limit as asynchronous queries. If no permit
+ * is available (or the coalescer was {@link #shutdown() shut down}) a new flight is not started,
+ * and the query sends its own request instead; it never waits for a permit, because the permits
+ * might be held by queries that are themselves waiting for a flight.
+ */
+class QuickBaseCoalescer
+{
+    private final static String INTERRUPTED = "interrupted while waiting for coalesced query"; //$NON-NLS-1$
+    private final static String ABANDONED = "coalesced query has no members left"; //$NON-NLS-1$
+    private final static String PILOT_THREAD_NAME = "QuickBase coalesced query #"; //$NON-NLS-1$
+
+    private Map<Object, Flight> flights = new HashMap<Object, Flight>();
+    private Semaphore permits;
+    private ExecutorService pilots;
+
+    /**
+     * Creates a new {@link QuickBaseCoalescer}.
+     *
+     * @param permits the pending-query permits of the {@link QuickBaseQueryEngine}; the number of
+     * pilot threads is bounded by the number of permits
+     */
+    QuickBaseCoalescer(Semaphore permits)
+    {
+        this.permits = permits;
+        this.pilots = Executors.newCachedThreadPool(
+            new QuickBaseQueryEngine.DaemonThreadFactory(PILOT_THREAD_NAME));
+    }
+
+    /**
+     * Joins the open flight for a key, or starts a new flight for the query's request.
+     *
+     * @param key the {@link QuickBaseRequest#getKey() request key}
+     * @param query the {@link QuickBaseQuery}
+     * @return the {@link Flight}, or <code>null</code> if there is no open flight and a new flight
+     * cannot be started (the query should then send its own request)
+     */
+    Flight join(Object key, QuickBaseQuery query)
+    {
+        synchronized (flights)
+        {
+            Flight flight = flights.get(key);
+            if (flight != null)
+            {
+                flight.board(query);
+                return flight;
+            }
+            if (!permits.tryAcquire())
+            {
+                return null;
+            }
+            flight = new Flight(key, query);
+            try
+            {
+                // The pilot is started while the flight is still private, so that a rejected
+                // flight cannot have any other members:
+                //
+                pilots.execute(flight);
+            }
+            catch (RejectedExecutionException rejected)
+            {
+                permits.release();
+                return null;
+            }
+            flights.put(key, flight);
+            return flight;
+        }
+    }
+
+    /**
+     * Shuts down the coalescer. Flights that are already in the air still land, but no new
+     * flights are started, and the pilot threads terminate when they become idle.
+     */
+    void shutdown()
+    {
+        pilots.shutdown();
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private void close(Flight flight)
+    {
+        synchronized (flights)
+        {
+            if (flights.get(flight.key) == flight)
+            {
+                flights.remove(flight.key);
+            }
+        }
+    }
+
+    /**
+     * A <code>Flight</code> is a shared execution of identical queries. It runs the pilot query
+     * that executes the shared request, acts as the {@link QuickBaseResultHandler} of the pilot's
+     * parsing pass, and forwards all events to the members that are still attached.
+     */
+    class Flight implements QuickBaseResultHandler, Runnable
+    {
+        private Object key;
+        private QuickBaseQuery pilot;
+        private List<Member> members;
+        private Map<QuickBaseQuery, Member> passengers;
+        private boolean landed;
+        private QuickBaseException requestFailure;
+        private QuickBaseException failure;
+
+        Flight(Object key, QuickBaseQuery query)
+        {
+            this.key = key;
+            this.pilot = query.pilot(this);
+            this.members = new CopyOnWriteArrayList<Member>();
+            this.passengers = new HashMap<QuickBaseQuery, Member>();
+            board(query);
+        }
+
+        /**
+         * Executes the shared request and parses the response on behalf of all members.
+         */
+        public void run()
+        {
+            QuickBaseException pilotFailure = null;
+            try
+            {
+                pilot.call();
+            }
+            catch (QuickBaseException quickBaseException)
+            {
+                pilotFailure = quickBaseException;
+            }
+            catch (RuntimeException runtimeException)
+            {
+                pilotFailure = new QuickBaseException(runtimeException);
+            }
+            finally
+            {
+                land(pilotFailure, pilot.getFailure());
+                permits.release();
+            }
+        }
+
+        /**
+         * Registers the arrival of the response. From now on, no more queries can join the
+         * flight, because they would miss the records that are about to be delivered.
+         */
+        void departed()
+        {
+            close(this);
+        }
+
+        /**
+         * Registers the completion of the pilot's request and parsing, and wakes up all waiting
+         * members.
+         *
+         * @param requestFailure the exception that prevented the request from being executed (or
+         * <code>null</code>)
+         * @param failure the exception that was reported while parsing the response (or
+         * <code>null</code>)
+         */
+        void land(QuickBaseException requestFailure, QuickBaseException failure)
+        {
+            close(this);
+            synchronized (this)
+            {
+                this.requestFailure = requestFailure;
+                this.failure = failure;
+                landed = true;
+                notifyAll();
+            }
+        }
+
+        /**
+         * Detaches a query from the flight, so that its result handler does not receive any more
+         * events. This method does not block, even if the pilot is currently delivering an event
+         * to the query's result handler.
+         *
+         * @param query the {@link QuickBaseQuery}
+         */
+        void leave(QuickBaseQuery query)
+        {
+            Member member = member(query);
+            if (member != null)
+            {
+                detach(member);
+            }
+        }
+
+        /**
+         * Waits until the flight has landed (or until the query has left it). When this method
+         * returns, no more events will be delivered to the query's result handler.
+         *
+         * @param query the {@link QuickBaseQuery}
+         * @return <code>true</code> if the query was still attached when the flight landed, or
+         * <code>false</code> if it had left the flight before
+         * @throws QuickBaseException if the shared request failed or the thread was interrupted
+         * @throws RuntimeException if the query's result handler threw an exception
+         */
+        boolean await(QuickBaseQuery query) throws QuickBaseException
+        {
+            Member member = member(query);
+            try
+            {
+                synchronized (this)
+                {
+                    while (!landed && !member.detached)
+                    {
+                        wait();
+                    }
+                }
+            }
+            catch (InterruptedException interrupted)
+            {
+                Thread.currentThread().interrupt();
+                detach(member);
+                synchronized (member)
+                {
+                    throw new QuickBaseException(INTERRUPTED, interrupted);
+                }
+            }
+            synchronized (member)
+            {
+                // Acquiring the lock ensures that the pilot has finished delivering its last
+                // event to this member's result handler:
+                //
+                if (member.exception != null)
+                {
+                    throw member.exception;
+                }
+                if (member.detached)
+                {
+                    return false;
+                }
+            }
+            if (requestFailure != null)
+            {
+                throw requestFailure;
+            }
+            return true;
+        }
+
+        /**
+         * Gets the exception that was reported while parsing the shared response. This is only
+         * available after the flight has landed.
+         *
+         * @return the reported {@link QuickBaseException}, or <code>null</code> if no problem
+         * occurred
+         */
+        synchronized QuickBaseException getFailure()
+        {
+            return failure;
+        }
+
+        /**
+         * Forwards a record to all attached members.
+         *
+         * @param record the record
+         */
+        public void handleRecord(QuickBaseRecord record)
+        {
+            for (Member member: members)
+            {
+                synchronized (member)
+                {
+                    try
+                    {
+                        if (!member.detached)
+                        {
+                            member.resultHandler.handleRecord(record);
+                        }
+                    }
+                    catch (RuntimeException exception)
+                    {
+                        fail(member, exception);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Forwards an exception to all attached members.
+         *
+         * @param exception the {@link QuickBaseException}
+         */
+        public void handleException(QuickBaseException exception)
+        {
+            for (Member member: members)
+            {
+                synchronized (member)
+                {
+                    try
+                    {
+                        if (!member.detached)
+                        {
+                            member.resultHandler.handleException(exception);
+                        }
+                    }
+                    catch (RuntimeException runtimeException)
+                    {
+                        fail(member, runtimeException);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Forwards the completion notification to all attached members.
+         */
+        public void done()
+        {
+            for (Member member: members)
+            {
+                synchronized (member)
+                {
+                    try
+                    {
+                        if (!member.detached)
+                        {
+                            member.resultHandler.done();
+                        }
+                    }
+                    catch (RuntimeException exception)
+                    {
+                        fail(member, exception);
+                    }
+                }
+            }
+        }
+
+        //------------------------------------ PRIVATE SECTION -----------------------------------//
+
+        private synchronized void board(QuickBaseQuery query)
+        {
+            Member member = new Member(query);
+            passengers.put(query, member);
+            members.add(member);
+        }
+
+        private synchronized Member member(QuickBaseQuery query)
+        {
+            return passengers.get(query);
+        }
+
+        private void fail(Member member, RuntimeException exception)
+        {
+            member.exception = exception;
+            detach(member);
+        }
+
+        private void detach(Member member)
+        {
+            boolean abandoned = false;
+            member.detached = true;
+            synchronized (flights)
+            {
+                synchronized (this)
+                {
+                    // The last member closes the flight atomically, so that no other query can
+                    // join a flight whose request is about to be aborted:
+                    //
+                    members.remove(member);
+                    if (members.isEmpty())
+                    {
+                        if (flights.get(key) == this)
+                        {
+                            flights.remove(key);
+                        }
+                        abandoned = true;
+                    }
+                    notifyAll();
+                }
+            }
+            if (abandoned)
+            {
+                pilot.abort(ABANDONED);
+            }
+        }
+    }
+
+    /**
+     * A <code>Member</code> is a query that takes part in a flight.
+     */
+    private static class Member
+    {
+        private QuickBaseResultHandler resultHandler;
+        private volatile boolean detached;
+        private RuntimeException exception;
+
+        Member(QuickBaseQuery query)
+        {
+            this.resultHandler = query.getResultHandler();
+        }
+    }
+}
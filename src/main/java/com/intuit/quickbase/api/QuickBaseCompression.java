@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseCompression.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+
+/**
+ * The class <code>QuickBaseCompression</code> implements the HTTP content codings that are used
+ * by {@link QuickBaseConnection}: responses may be compressed with <code>gzip</code> or
+ * <code>deflate</code>, and large XML request bodies can be sent with <code>gzip</code>.
+ * Responses are decompressed while they are read, so a compressed response is never held in
+ * memory as a whole.
+ */
+final class QuickBaseCompression
+{
+    /** The name of the HTTP request header that lists the accepted content codings. **/
+    final static String ACCEPT_ENCODING_HEADER = "Accept-Encoding"; //$NON-NLS-1$
+
+    /** The name of the HTTP header that specifies the content coding of a message body. **/
+    final static String CONTENT_ENCODING_HEADER = "Content-Encoding"; //$NON-NLS-1$
+
+    /** The content codings that the SDK can decode. **/
+    final static String ACCEPTED_ENCODINGS = "gzip, deflate"; //$NON-NLS-1$
+
+    /** The content coding of compressed request bodies. **/
+    final static String GZIP = "gzip"; //$NON-NLS-1$
+
+    private final static String X_GZIP = "x-gzip"; //$NON-NLS-1$
+    private final static String DEFLATE = "deflate"; //$NON-NLS-1$
+    private final static String IDENTITY = "identity"; //$NON-NLS-1$
+    private final static String UNSUPPORTED = "unsupported content encoding: "; //$NON-NLS-1$
+    private final static int BUFFER_SIZE = 8192;
+    private final static int ZLIB_HEADER = 2;
+    private final static int ZLIB_METHOD_MASK = 0x0f;
+    private final static int ZLIB_DEFLATE = 8;
+    private final static int ZLIB_CHECK = 31;
+    private final static int BYTE = 0xff;
+    private final static int EOF = -1;
+
+    private QuickBaseCompression()
+    {
+        // Static utility methods only
+    }
+
+    /**
+     * Checks whether a content coding leaves the message body unchanged.
+     *
+     * @param encoding the value of a <code>Content-Encoding</code> header, or <code>null</code>
+     * @return <code>true</code> if the body is not encoded
+     */
+    static boolean isIdentity(String encoding)
+    {
+        return encoding == null || encoding.trim().length() == 0
+            || IDENTITY.equalsIgnoreCase(encoding.trim());
+    }
+
+    /**
+     * Wraps an encoded message body into a stream that decodes it. The decoder is only created
+     * when the stream is read for the first time, so wrapping the body does not block and
+     * malformed content is reported by the first read.
+     *
+     * @param encoding the value of the <code>Content-Encoding</code> header
+     * @param body the encoded message body
+     * @return an {@link InputStream} that returns the decoded body
+     */
+    static InputStream decode(String encoding, InputStream body)
+    {
+        return isIdentity(encoding)? body:new DecodingStream(encoding.trim(), body);
+    }
+
+    /**
+     * Compresses a request body with <code>gzip</code>.
+     *
+     * @param content the uncompressed content
+     * @param contentType the content type of the request body
+     * @return a {@link CompressedEntity} with the compressed content
+     * @throws IOException if the content could not be compressed
+     */
+    static CompressedEntity compress(byte[] content, String contentType) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length/4 + 1);
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes, BUFFER_SIZE);
+        gzip.write(content);
+        gzip.close();
+        return new CompressedEntity(bytes.toByteArray(), contentType, content.length);
+    }
+
+    /**
+     * A request entity with <code>gzip</code> compressed content that remembers the length of
+     * the uncompressed content (for the {@link QuickBaseCallEvent} of the call). Like its
+     * superclass, the entity can be sent repeatedly.
+     */
+    static class CompressedEntity extends ByteArrayRequestEntity
+    {
+        private long uncompressedLength;
+
+        CompressedEntity(byte[] content, String contentType, long uncompressedLength)
+        {
+            super(content, contentType);
+            this.uncompressedLength = uncompressedLength;
+        }
+
+        long getUncompressedLength()
+        {
+            return uncompressedLength;
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Creates the decoder for a content coding.
+     */
+    private static InputStream decoder(String encoding, InputStream body) throws IOException
+    {
+        if (GZIP.equalsIgnoreCase(encoding) || X_GZIP.equalsIgnoreCase(encoding))
+        {
+            return new GZIPInputStream(body, BUFFER_SIZE);
+        }
+        if (DEFLATE.equalsIgnoreCase(encoding))
+        {
+            // HTTP "deflate" is supposed to be zlib-wrapped, but some servers send raw deflate
+            // data; the two formats can be told apart by the zlib header:
+            //
+            PushbackInputStream input = new PushbackInputStream(body, ZLIB_HEADER);
+            byte[] header = new byte[ZLIB_HEADER];
+            int length = 0;
+            int count;
+            while (length < ZLIB_HEADER
+            && (count = input.read(header, length, ZLIB_HEADER-length)) != EOF)
+            {
+                length += count;
+            }
+            input.unread(header, 0, length);
+            int first = header[0] & BYTE;
+            int second = header[1] & BYTE;
+            boolean zlib = length == ZLIB_HEADER && (first & ZLIB_METHOD_MASK) == ZLIB_DEFLATE
+                && (first*256 + second)%ZLIB_CHECK == 0;
+            return new InflaterInputStream(input, new Inflater(!zlib), BUFFER_SIZE);
+        }
+        throw new IOException(UNSUPPORTED + encoding);
+    }
+
+    /**
+     * A stream that creates the decoder for its content coding when it is read for the first
+     * time.
+     */
+    private static class DecodingStream extends FilterInputStream
+    {
+        private String encoding;
+
+        DecodingStream(String encoding, InputStream body)
+        {
+            super(body);
+            this.encoding = encoding;
+        }
+
+        public int read() throws IOException
+        {
+            return decoder().read();
+        }
+
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            return decoder().read(buffer, offset, length);
+        }
+
+        public long skip(long count) throws IOException
+        {
+            return decoder().skip(count);
+        }
+
+        public int available() throws IOException
+        {
+            return encoding != null? 0:in.available();
+        }
+
+        public boolean markSupported()
+        {
+            return false;
+        }
+
+        private InputStream decoder() throws IOException
+        {
+            if (encoding != null)
+            {
+                in = QuickBaseCompression.decoder(encoding, in);
+                encoding = null;
+            }
+            return in;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseConcurrencyLimiter.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The class {@link QuickBaseConcurrencyLimiter} limits the number of requests that are in flight
+ * at the same time, and adapts the limit to the server's behavior (additive increase,
+ * multiplicative decrease):
+ * <ul>
+ * <li>for every successful request that completes while the limit is actually being used, the
+ * limit grows by <code>1/limit</code>, i.e., by about one request per "round" of requests;</li>
+ * <li>for a request that was throttled by the server, the limit is halved. Only one decrease
+ * happens per round: requests that were already in flight when the limit was decreased do not
+ * decrease it again.</li>
+ * </ul>
+ * The limit never leaves the configured range. A limiter with equal minimum and maximum is a
+ * fixed (non-adaptive) limit.
+ *
+ * @see QuickBaseThrottle
+ */
+public class QuickBaseConcurrencyLimiter
+{
+    private final static double BACKOFF = 0.5;
+
+    private int minLimit;
+    private int maxLimit;
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    /**
+     * Creates a new {@link QuickBaseConcurrencyLimiter}.
+     *
+     * @param initialLimit the initial number of concurrent requests
+     * @param minLimit the minimum number of concurrent requests (at least <code>1</code>)
+     * @param maxLimit the maximum number of concurrent requests
+     */
+    public QuickBaseConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit)
+    {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit)
+        {
+            throw new IllegalArgumentException(minLimit + "<=" + initialLimit + "<=" + maxLimit); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.lastDecrease = System.nanoTime();
+    }
+
+    /**
+     * Gets the current limit.
+     *
+     * @return the number of requests that may currently be in flight at the same time
+     */
+    public synchronized int getLimit()
+    {
+        return (int)limit;
+    }
+
+    /**
+     * Gets the number of requests that are currently in flight.
+     *
+     * @return the number of requests
+     */
+    public synchronized int getInFlight()
+    {
+        return inFlight;
+    }
+
+    /**
+     * Waits until another request may be sent and registers it as being in flight.
+     *
+     * @return the time at which the request was admitted (as reported by
+     * {@link System#nanoTime()}), which must be passed to {@link #release(long, boolean)}
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public synchronized long acquire() throws InterruptedException
+    {
+        while (inFlight >= (int)limit)
+        {
+            wait();
+        }
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Registers the completion of a request and adapts the limit.
+     *
+     * @param admitted the time that was returned by {@link #acquire()}
+     * @param throttled <code>true</code> if the server throttled the request
+     */
+    public synchronized void release(long admitted, boolean throttled)
+    {
+        if (throttled)
+        {
+            backOff(admitted);
+        }
+        else if (inFlight >= (int)limit/2)
+        {
+            limit = Math.min(maxLimit, limit + 1/limit);
+        }
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Decreases the limit because of a request that was throttled, but whose throttling only
+     * became known after it had been {@link #release(long, boolean) released}.
+     *
+     * @param admitted the time that was returned by {@link #acquire()}
+     */
+    public synchronized void backOff(long admitted)
+    {
+        if (admitted - lastDecrease > 0)
+        {
+            limit = Math.max(minLimit, limit*BACKOFF);
+            lastDecrease = System.nanoTime();
+        }
+    }
+}
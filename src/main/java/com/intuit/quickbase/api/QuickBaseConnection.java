@@ -14,58 +14,122 @@
 package com.intuit.quickbase.api;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.PasswordAuthentication;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.httpclient.Cookie;
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpState;
+import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.URIException;
 import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import com.intuit.quickbase.api.QuickBaseCompression.CompressedEntity;
 import static com.intuit.quickbase.api.QuickBaseAPICall.API_Authenticate;
 import static com.intuit.quickbase.api.QuickBaseAPICall.API_FindDBByName;
+import static com.intuit.quickbase.api.QuickBaseCompression.ACCEPTED_ENCODINGS;
+import static com.intuit.quickbase.api.QuickBaseCompression.ACCEPT_ENCODING_HEADER;
+import static com.intuit.quickbase.api.QuickBaseCompression.CONTENT_ENCODING_HEADER;
+import static com.intuit.quickbase.api.QuickBaseCompression.GZIP;
 
 /**
  * The class {@link QuickBaseConnection} represents an HTTP connection to a QuickBase server.
  * A connection by itself is not specific to a particular database yet. The connection can be used
  * to obtain one or more {@link QuickBaseDatabase} objects. The connection object represents a
  * simulated HTTP "session", which is established by using cookies.
+ * <p/>
+ * The actual HTTP requests are executed by a {@link QuickBaseTransport}, which may be shared with
+ * other connections. The {@link InputSource}s returned by the <code>execute</code> methods hold on
+ * to a connection of the transport until their byte stream was read completely or closed.
+ * <p/>
+ * If a {@link QuickBaseListener} is set (either for the connection or globally), each API call is
+ * reported to the listener as a {@link QuickBaseCallEvent}. For responses returned by the public
+ * <code>execute</code> methods, the event is completed when the caller closes the byte stream.
+ * Similarly, a {@link QuickBaseThrottle} can limit the rate and concurrency of the calls (see
+ * {@link QuickBase#setThrottle(String, QuickBaseThrottle)}). Responses with an HTTP error status
+ * (such as 429 Too Many Requests) are reported as a {@link QuickBaseException} with the
+ * corresponding {@link QuickBaseException#getStatusCode() status code}. Failed calls are retried
+ * (and idempotent calls may be hedged) according to the connection's
+ * {@link QuickBaseRetryPolicy}.
+ * <p/>
+ * By default, the connection asks the server for compressed (<code>gzip</code> or
+ * <code>deflate</code>) responses, which are decompressed transparently while the response is
+ * parsed. XML request bodies (such as bulk imports through
+ * {@link #executeXml(String, QuickBaseAPICall, String...)}) can be compressed as well, once they
+ * exceed a {@link #setRequestCompressionThreshold(int) threshold}. The number of bytes before
+ * and after compression is reported in the {@link QuickBaseCallEvent} of each call.
  *
  * @author Mirko Raner
  * @version $Revision: 13 $ $Change: 714052 $
  */
 public class QuickBaseConnection
 {
+    /** The request compression threshold that disables the compression of request bodies. **/
+    public final static int NO_REQUEST_COMPRESSION = -1;
+
     private final static NameValuePair[] NO_PARAMETERS = {};
-    private final static String HTTPS_QB_MAIN = "https://www.quickbase.com/db/main?"; //$NON-NLS-1$
-    private final static String HTTPS_QB = "https://www.quickbase.com/db/"; //$NON-NLS-1$
+    private final static String MAIN = "main"; //$NON-NLS-1$
     private final static String USERNAME = "username"; //$NON-NLS-1$
     private final static String PASSWORD = "password"; //$NON-NLS-1$
     private final static String DBNAME = "dbname"; //$NON-NLS-1$
     private final static String TICKET = "TICKET"; //$NON-NLS-1$
     private final static String ACT = "act"; //$NON-NLS-1$
-    private final static String OK = "0"; //$NON-NLS-1$
+    private final static String RETRY_AFTER = "Retry-After"; //$NON-NLS-1$
+    private final static String UTF_8 = "UTF-8"; //$NON-NLS-1$
+    private final static String XML_CONTENT_TYPE = "application/xml; charset=UTF-8"; //$NON-NLS-1$
     private final static int FIRST = 0;
     private final static char QUERY = '?';
+    private final static char SLASH = '/';
+    private final static AtomicLong CONNECTIONS = new AtomicLong();
 
-    private HttpClient httpClient;
+    private String baseURL;
+    private String realm;
+    private QuickBaseTransport transport;
+    private QuickBaseQueryEngine queryEngine;
+    private QuickBaseSchemaCache schemaCache;
+    private QuickBaseQueryCache queryCache;
+    private volatile QuickBaseListener listener;
+    private volatile QuickBaseThrottle throttle;
+    private volatile QuickBaseRetryPolicy retryPolicy;
+    private volatile boolean responseCompression = true;
+    private volatile int requestCompressionThreshold = NO_REQUEST_COMPRESSION;
+    private HttpState state;
+    private long id;
 
-    QuickBaseConnection(PasswordAuthentication credentials) throws QuickBaseException
+    QuickBaseConnection(PasswordAuthentication credentials, QuickBaseTransport transport,
+    String baseURL) throws QuickBaseException
     {
-        httpClient = new HttpClient();
-        execute(authenticate(credentials.getUserName(), credentials.getPassword()));
+        this.baseURL = baseURL.charAt(baseURL.length()-1) == SLASH? baseURL:baseURL + SLASH;
+        try
+        {
+            this.realm = new URL(this.baseURL).getHost();
+        }
+        catch (MalformedURLException malformedURLException)
+        {
+            throw new QuickBaseException(malformedURLException);
+        }
+        this.transport = transport;
+        this.state = new HttpState();
+        this.id = CONNECTIONS.incrementAndGet();
+        HttpMethod authenticate = authenticate(credentials.getUserName(), credentials.getPassword());
+        execute(API_Authenticate, authenticate, new QuickBaseEnvelope());
     }
 
     /**
@@ -92,27 +156,13 @@ public class QuickBaseConnection
      */
     public List<QuickBaseDatabase> findDBsByName(String databaseName) throws QuickBaseException
     {
-        Document response = execute(method(API_FindDBByName, dbname(databaseName)));
-        NodeList dbids;
-        try
+        QuickBaseEnvelope response = new QuickBaseEnvelope(QuickBaseEnvelope.QDBAPI_DBID);
+        execute(API_FindDBByName, response, dbname(databaseName));
+        List<String> dbids = response.getValues(QuickBaseEnvelope.QDBAPI_DBID);
+        List<QuickBaseDatabase> databases = new ArrayList<QuickBaseDatabase>(dbids.size());
+        for (String dbid: dbids)
         {
-            dbids = (NodeList)QuickBaseXPath.QDBAPI_DBID.evaluate(response, XPathConstants.NODESET);
-        }
-        catch (XPathExpressionException xpathException)
-        {
-            throw new QuickBaseException(xpathException);
-        }
-
-        // TODO: com.intuit.tcr.utilities.NodeListIterable would come in handy here:
-        //
-        int numberOfChildren = dbids.getLength();
-        List<QuickBaseDatabase> databases = new ArrayList<QuickBaseDatabase>();
-        for (int index = 0; index < numberOfChildren; index++)
-        {
-            Node dbidNode = dbids.item(index);
-            String dbid = dbidNode.getTextContent();
             databases.add(new QuickBaseDatabase(this, dbid));
-            
         }
         return databases;
     }
@@ -125,7 +175,7 @@ public class QuickBaseConnection
      */
     public String getTicket()
     {
-        for (Cookie cookie: httpClient.getState().getCookies())
+        for (Cookie cookie: state.getCookies())
         {
            if (TICKET.equals(cookie.getName()))
            {
@@ -136,6 +186,53 @@ public class QuickBaseConnection
         return null;
     }
 
+    /**
+     * Gets the base URL of the QuickBase server that this connection talks to.
+     *
+     * @return the base URL (for example, <code>https://www.quickbase.com/db/</code>)
+     * @see QuickBase#setBaseURL(String)
+     */
+    public String getBaseURL()
+    {
+        return baseURL;
+    }
+
+    /**
+     * Gets the realm (i.e., the host name) of the QuickBase server that this connection talks to.
+     *
+     * @return the realm (for example, <code>www.quickbase.com</code>)
+     */
+    public String getRealm()
+    {
+        return realm;
+    }
+
+    /**
+     * Gets the {@link QuickBaseQueryEngine} that executes the queries of this connection.
+     * Unless a specific engine was set, the global engine provided by
+     * {@link QuickBase#getQueryEngine()} is used.
+     *
+     * @return the {@link QuickBaseQueryEngine}
+     */
+    public synchronized QuickBaseQueryEngine getQueryEngine()
+    {
+        if (queryEngine == null)
+        {
+            queryEngine = QuickBase.getQueryEngine();
+        }
+        return queryEngine;
+    }
+
+    /**
+     * Sets the {@link QuickBaseQueryEngine} that executes the queries of this connection.
+     *
+     * @param queryEngine the {@link QuickBaseQueryEngine}
+     */
+    public synchronized void setQueryEngine(QuickBaseQueryEngine queryEngine)
+    {
+        this.queryEngine = queryEngine;
+    }
+
     /**
      * Executes a {@link QuickBaseAPICall} for a certain database and returns the database response
      * as a SAX {@link InputSource}.
@@ -149,22 +246,13 @@ public class QuickBaseConnection
     public InputSource execute(String dbid, QuickBaseAPICall call, NameValuePair... parameters)
     throws QuickBaseException
     {
-        HttpMethod method = new GetMethod(HTTPS_QB + dbid + QUERY);
-        NameValuePair[] query = new NameValuePair[parameters.length+1];
-        query[FIRST] = act(call);
-        System.arraycopy(parameters, 0, query, 1, parameters.length);
-        method.setQueryString(query);
         try
         {
-            httpClient.executeMethod(method);
-            //
-            // TODO: evaluate the returned HTTP response code
-
-            return new InputSource(method.getResponseBodyAsStream());
+            return send(getRetryPolicy(), call, method(dbid, call, parameters));
         }
-        catch (IOException exception)
+        finally
         {
-            throw new QuickBaseException(exception);
+            modified(dbid, call);
         }
     }
 
@@ -179,6 +267,303 @@ public class QuickBaseConnection
      */
     public InputSource executeXml(String qbid, QuickBaseAPICall call, String... elements)
     throws QuickBaseException
+    {
+        PostMethod method;
+        try
+        {
+            method = xmlMethod(qbid, call, elements);
+        }
+        catch (IOException exception)
+        {
+            throw new QuickBaseException(exception);
+        }
+        try
+        {
+            return send(getRetryPolicy(), call, method);
+        }
+        finally
+        {
+            modified(qbid, call);
+        }
+    }
+
+    /**
+     * Executes a {@link QuickBaseAPICall} without additional parameters for a certain database and
+     * returns the database response as a SAX {@link InputSource}.
+     *
+     * @param dbid the database ID
+     * @param call the {@link QuickBaseAPICall} to be executed
+     * @return a SAX {@link InputSource} that contains the server's response
+     * @throws QuickBaseException if the execution was unsuccessful
+     */
+    public InputSource execute(String dbid, QuickBaseAPICall call)
+    throws QuickBaseException
+    {
+        return execute(dbid, call, NO_PARAMETERS);
+    }
+
+    /**
+     * Gets the {@link QuickBaseSchemaCache} of this connection.
+     *
+     * @return the {@link QuickBaseSchemaCache}, or <code>null</code> if schemas are not cached
+     */
+    public synchronized QuickBaseSchemaCache getSchemaCache()
+    {
+        return schemaCache;
+    }
+
+    /**
+     * Sets a {@link QuickBaseSchemaCache} for this connection. Once a cache is set,
+     * {@link QuickBaseDatabase#getSchema()} serves schemas from the cache whenever possible.
+     * By default, connections do not cache schemas.
+     *
+     * @param schemaCache the {@link QuickBaseSchemaCache}, or <code>null</code> to disable caching
+     */
+    public synchronized void setSchemaCache(QuickBaseSchemaCache schemaCache)
+    {
+        this.schemaCache = schemaCache;
+    }
+
+    /**
+     * Gets the {@link QuickBaseQueryCache} of this connection.
+     *
+     * @return the {@link QuickBaseQueryCache}, or <code>null</code> if query results are not
+     * cached
+     */
+    public synchronized QuickBaseQueryCache getQueryCache()
+    {
+        return queryCache;
+    }
+
+    /**
+     * Sets a {@link QuickBaseQueryCache} for this connection. Once a cache is set, the results of
+     * {@link QuickBaseAPICall#API_DoQuery} calls are served from the cache whenever possible, and
+     * all non-idempotent calls that are sent through this connection invalidate the cached results
+     * of the table they refer to. By default, connections do not cache query results.
+     *
+     * @param queryCache the {@link QuickBaseQueryCache}, or <code>null</code> to disable caching
+     */
+    public synchronized void setQueryCache(QuickBaseQueryCache queryCache)
+    {
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * Gets the {@link QuickBaseListener} that observes the API calls of this connection.
+     * Unless a specific listener was set, the global listener provided by
+     * {@link QuickBase#getListener()} is used.
+     *
+     * @return the {@link QuickBaseListener}, or <code>null</code> if calls are not instrumented
+     */
+    public QuickBaseListener getListener()
+    {
+        QuickBaseListener connectionListener = listener;
+        return connectionListener != null? connectionListener:QuickBase.getListener();
+    }
+
+    /**
+     * Sets the {@link QuickBaseListener} that observes the API calls of this connection.
+     *
+     * @param listener the {@link QuickBaseListener}, or <code>null</code> to fall back to the
+     * global listener
+     */
+    public void setListener(QuickBaseListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the {@link QuickBaseThrottle} that limits the API calls of this connection. Unless a
+     * specific throttle was set, the throttle of the connection's realm is used (see
+     * {@link QuickBase#getThrottle(String)}).
+     *
+     * @return the {@link QuickBaseThrottle}, or <code>null</code> if calls are not throttled
+     */
+    public QuickBaseThrottle getThrottle()
+    {
+        QuickBaseThrottle connectionThrottle = throttle;
+        return connectionThrottle != null? connectionThrottle:QuickBase.getThrottle(realm);
+    }
+
+    /**
+     * Sets the {@link QuickBaseThrottle} that limits the API calls of this connection.
+     *
+     * @param throttle the {@link QuickBaseThrottle}, or <code>null</code> to fall back to the
+     * throttle of the connection's realm
+     */
+    public void setThrottle(QuickBaseThrottle throttle)
+    {
+        this.throttle = throttle;
+    }
+
+    /**
+     * Gets the {@link QuickBaseRetryPolicy} that decides whether failed API calls of this
+     * connection are retried (and hedged). Unless a specific policy was set, the global policy
+     * provided by {@link QuickBase#getRetryPolicy()} is used.
+     *
+     * @return the {@link QuickBaseRetryPolicy}
+     */
+    public QuickBaseRetryPolicy getRetryPolicy()
+    {
+        QuickBaseRetryPolicy connectionRetryPolicy = retryPolicy;
+        return connectionRetryPolicy != null? connectionRetryPolicy:QuickBase.getRetryPolicy();
+    }
+
+    /**
+     * Sets the {@link QuickBaseRetryPolicy} for the API calls of this connection. The policy that
+     * was previously set for the connection is {@link QuickBaseRetryPolicy#shutdown() shut down}.
+     *
+     * @param retryPolicy the {@link QuickBaseRetryPolicy}, or <code>null</code> to fall back to
+     * the global policy
+     */
+    public void setRetryPolicy(QuickBaseRetryPolicy retryPolicy)
+    {
+        QuickBaseRetryPolicy previous = this.retryPolicy;
+        this.retryPolicy = retryPolicy;
+        if (previous != null && previous != retryPolicy)
+        {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * Checks whether the connection asks the server for compressed responses.
+     *
+     * @return <code>true</code> if responses may be compressed (the default)
+     */
+    public boolean isResponseCompression()
+    {
+        return responseCompression;
+    }
+
+    /**
+     * Enables or disables compressed responses. Compressed responses take considerably less
+     * bandwidth (XML query results typically shrink to a fifth or less of their size) at the cost
+     * of some CPU time for decompression.
+     *
+     * @param responseCompression <code>true</code> to ask the server for compressed responses
+     */
+    public void setResponseCompression(boolean responseCompression)
+    {
+        this.responseCompression = responseCompression;
+    }
+
+    /**
+     * Gets the size from which XML request bodies are sent compressed.
+     *
+     * @return the threshold in characters, or {@link #NO_REQUEST_COMPRESSION}
+     */
+    public int getRequestCompressionThreshold()
+    {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the size from which XML request bodies are sent compressed (with <code>gzip</code>).
+     * Request bodies are not compressed by default, because not every server (or proxy) accepts
+     * compressed requests; if the server does, compression mainly pays off for large imports.
+     *
+     * @param threshold the threshold in characters, or {@link #NO_REQUEST_COMPRESSION} to send all
+     * request bodies uncompressed
+     */
+    public void setRequestCompressionThreshold(int threshold)
+    {
+        this.requestCompressionThreshold = threshold;
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Gets a number that uniquely identifies this connection within the running program. Results
+     * that depend on the permissions of the connection's user (such as cached query results) are
+     * keyed by this number.
+     *
+     * @return the connection's ID
+     */
+    long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Executes a {@link QuickBaseAPICall} that is not specific to a database (i.e., a call that is
+     * sent to <code>db/main</code>) and decodes the response envelope.
+     *
+     * @param call the {@link QuickBaseAPICall} to be executed
+     * @param response the <code>QuickBaseEnvelope</code> that decodes the response
+     * @param parameters {@link NameValuePair}s for additional parameters
+     * @return the decoded response envelope
+     * @throws QuickBaseException if the execution was unsuccessful or QuickBase reported an error
+     */
+    QuickBaseEnvelope execute(QuickBaseAPICall call, QuickBaseEnvelope response,
+    NameValuePair... parameters) throws QuickBaseException
+    {
+        return execute(call, method(call, parameters), response);
+    }
+
+    /**
+     * Executes a database-specific {@link QuickBaseAPICall} and decodes the response envelope.
+     * This is intended for calls with small responses, such as
+     * {@link QuickBaseAPICall#API_DoQueryCount}.
+     *
+     * @param dbid the database ID
+     * @param call the {@link QuickBaseAPICall} to be executed
+     * @param response the <code>QuickBaseEnvelope</code> that decodes the response
+     * @param parameters {@link NameValuePair}s for additional parameters
+     * @return the decoded response envelope
+     * @throws QuickBaseException if the execution was unsuccessful or QuickBase reported an error
+     */
+    QuickBaseEnvelope execute(String dbid, QuickBaseAPICall call, QuickBaseEnvelope response,
+    NameValuePair... parameters) throws QuickBaseException
+    {
+        try
+        {
+            return execute(call, method(dbid, call, parameters), response);
+        }
+        finally
+        {
+            modified(dbid, call);
+        }
+    }
+
+    /**
+     * Executes a {@link QuickBaseAPICall} with an XML payload and decodes the response envelope.
+     * Unlike {@link #executeXml(String, QuickBaseAPICall, String...)} this method reads the
+     * response and checks its error code.
+     *
+     * @param qbid the id of the object the call is acting upon
+     * @param call the {@link QuickBaseAPICall} to be executed
+     * @param response the <code>QuickBaseEnvelope</code> that decodes the response
+     * @param elements the XML elements to put into the payload
+     * @return the decoded response envelope
+     * @throws QuickBaseException if the execution was unsuccessful or QuickBase reported an error
+     */
+    QuickBaseEnvelope executeXml(String qbid, QuickBaseAPICall call, QuickBaseEnvelope response,
+    String... elements) throws QuickBaseException
+    {
+        PostMethod method;
+        try
+        {
+            method = xmlMethod(qbid, call, elements);
+        }
+        catch (IOException exception)
+        {
+            throw new QuickBaseException(exception);
+        }
+        try
+        {
+            return execute(call, method, response);
+        }
+        finally
+        {
+            modified(qbid, call);
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private PostMethod xmlMethod(String qbid, QuickBaseAPICall call, String... elements)
+    throws IOException
     {
     	StringBuffer xml = new StringBuffer();
     	xml.append("<qdbapi>\n");
@@ -194,88 +579,452 @@ public class QuickBaseConnection
     	xml.append("</qdbapi>\n");
     	String payload = xml.toString();
     	
+    	PostMethod method = new PostMethod(baseURL + qbid + QUERY);
+    	NameValuePair[] query = new NameValuePair[1];
+        query[0] = act(call);
+        method.setQueryString(query);
+          
+        int threshold = requestCompressionThreshold;
+        if (threshold != NO_REQUEST_COMPRESSION && payload.length() >= threshold)
+        {
+            byte[] content = payload.getBytes(UTF_8);
+            method.setRequestEntity(QuickBaseCompression.compress(content, XML_CONTENT_TYPE));
+            method.setRequestHeader(CONTENT_ENCODING_HEADER, GZIP);
+            return method;
+        }
+    	StringRequestEntity entity = new StringRequestEntity(payload, "application/xml", "UTF-8");
+		method.setRequestEntity(entity);
+		return method;
+    }
+
+
+    private QuickBaseEnvelope execute(QuickBaseAPICall call, HttpMethod method,
+    QuickBaseEnvelope response) throws QuickBaseException
+    {
+        QuickBaseRetryPolicy policy = getRetryPolicy();
+        for (int attempt = 1;; attempt++)
+        {
+            try
+            {
+                return receive(policy, call, attempt == 1? method:copy(method), response);
+            }
+            catch (QuickBaseException exception)
+            {
+                retry(policy, call, exception, attempt);
+            }
+        }
+    }
+
+    /**
+     * Sends a request (without retrying it) and decodes the response envelope.
+     */
+    private QuickBaseEnvelope receive(QuickBaseRetryPolicy policy, QuickBaseAPICall call,
+    HttpMethod method, QuickBaseEnvelope response) throws QuickBaseException
+    {
+        InputSource input = hedge(policy, call, method);
+        QuickBaseCallEvent event = QuickBaseResponseStream.event(input);
+        long start = System.nanoTime();
         try
         {
-        	PostMethod method = new PostMethod(HTTPS_QB + qbid + QUERY);
-        	NameValuePair[] query = new NameValuePair[1];
-            query[0] = act(call);
-            method.setQueryString(query);
-              
-        	StringRequestEntity entity = new StringRequestEntity(payload, "application/xml", "UTF-8");
-    		method.setRequestEntity(entity);
-            httpClient.executeMethod(method);
-            //
-            // TODO: evaluate the returned HTTP response code
+            QuickBaseResponseParser.getDefault().parse(input, response);
+            if (event != null)
+            {
+                event.parsed(System.nanoTime() - start, 0);
+            }
+            response.check();
+            return response;
+        }
+        catch (QuickBaseException quickBaseException)
+        {
+            throw QuickBaseCallEvent.report(event, quickBaseException);
+        }
+        catch (IOException ioException)
+        {
+            throw QuickBaseCallEvent.report(event, new QuickBaseException(ioException));
+        }
+        catch (SAXException saxException)
+        {
+            throw QuickBaseCallEvent.report(event, new QuickBaseException(saxException));
+        }
+        finally
+        {
+            QuickBaseResponseStream.close(input);
+        }
+    }
 
-            return new InputSource(method.getResponseBodyAsStream());
+    /**
+     * Sends a request and retries it according to a {@link QuickBaseRetryPolicy}. Failures that
+     * occur while the response body is processed are not retried.
+     */
+    private InputSource send(QuickBaseRetryPolicy policy, QuickBaseAPICall call, HttpMethod method)
+    throws QuickBaseException
+    {
+        for (int attempt = 1;; attempt++)
+        {
+            try
+            {
+                return hedge(policy, call, attempt == 1? method:copy(method));
+            }
+            catch (QuickBaseException exception)
+            {
+                retry(policy, call, exception, attempt);
+            }
         }
-        catch (IOException exception)
+    }
+
+    private static void retry(QuickBaseRetryPolicy policy, QuickBaseAPICall call,
+    QuickBaseException exception, int attempt) throws QuickBaseException
+    {
+        if (!policy.isRetryable(call, exception, attempt))
         {
-            throw new QuickBaseException(exception);
+            throw exception;
         }
+        policy.backOff(attempt, exception);
     }
-    
+
     /**
-     * Executes a {@link QuickBaseAPICall} without additional parameters for a certain database and
-     * returns the database response as a SAX {@link InputSource}.
-     *
-     * @param dbid the database ID
-     * @param call the {@link QuickBaseAPICall} to be executed
-     * @return a SAX {@link InputSource} that contains the server's response
-     * @throws QuickBaseException if the execution was unsuccessful
+     * Sends a request, which is hedged if the {@link QuickBaseRetryPolicy} asks for it.
      */
-    public InputSource execute(String dbid, QuickBaseAPICall call)
+    private InputSource hedge(QuickBaseRetryPolicy policy, QuickBaseAPICall call, HttpMethod method)
     throws QuickBaseException
     {
-        return execute(dbid, call, NO_PARAMETERS);
+        if (!policy.isHedging() || !call.isIdempotent())
+        {
+            return send(call, method);
+        }
+        long delay = policy.getHedgingDelay(call);
+        BlockingQueue<Object> outcomes = new LinkedBlockingQueue<Object>();
+        AtomicBoolean decided = new AtomicBoolean();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        ExecutorService executor = policy.getHedgingExecutor();
+        if (delay < 0 || !submit(executor, attempt(policy, call, method, outcomes, decided, abandoned)))
+        {
+            // Not enough latencies were recorded yet, or all hedging threads are busy:
+            //
+            long start = System.nanoTime();
+            InputSource response = send(call, method);
+            policy.recordLatency(call, System.nanoTime() - start);
+            return response;
+        }
+        int pending = 1;
+        try
+        {
+            Object outcome = outcomes.poll(delay, TimeUnit.NANOSECONDS);
+            if (outcome == null)
+            {
+                if (submit(executor, attempt(policy, call, copy(method), outcomes, decided, abandoned)))
+                {
+                    pending++;
+                }
+                outcome = outcomes.take();
+            }
+            pending--;
+            while (outcome instanceof QuickBaseException && pending > 0)
+            {
+                outcome = outcomes.take();
+                pending--;
+            }
+            if (outcome instanceof QuickBaseException)
+            {
+                throw (QuickBaseException)outcome;
+            }
+            return (InputSource)outcome;
+        }
+        catch (InterruptedException interruptedException)
+        {
+            // A response that arrives after this point is aborted by its own attempt, a response
+            // that has already arrived is aborted here:
+            //
+            abandoned.set(true);
+            for (Object outcome = outcomes.poll(); outcome != null; outcome = outcomes.poll())
+            {
+                if (outcome instanceof InputSource)
+                {
+                    QuickBaseResponseStream.abort((InputSource)outcome);
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new QuickBaseException(interruptedException);
+        }
     }
 
-    //------------------------------------- PRIVATE SECTION --------------------------------------//
+    /**
+     * Submits an attempt of a hedged request.
+     *
+     * @return <code>false</code> if the attempt was rejected because all hedging threads are busy
+     * (or the policy was shut down)
+     */
+    private static boolean submit(ExecutorService executor, Runnable attempt)
+    {
+        try
+        {
+            executor.execute(attempt);
+            return true;
+        }
+        catch (RejectedExecutionException rejectedExecutionException)
+        {
+            return false;
+        }
+    }
 
-    private Document execute(HttpMethod authenticate) throws QuickBaseException
+    /**
+     * Creates one attempt of a hedged request. Only the first successful attempt delivers its
+     * response; the responses of all other attempts are aborted.
+     */
+    private Runnable attempt(final QuickBaseRetryPolicy policy, final QuickBaseAPICall call,
+    final HttpMethod method, final BlockingQueue<Object> outcomes, final AtomicBoolean decided,
+    final AtomicBoolean abandoned)
     {
+        return new Runnable()
+        {
+            public void run()
+            {
+                InputSource response;
+                try
+                {
+                    long start = System.nanoTime();
+                    response = send(call, method);
+                    policy.recordLatency(call, System.nanoTime() - start);
+                }
+                catch (QuickBaseException exception)
+                {
+                    outcomes.add(exception);
+                    return;
+                }
+                catch (RuntimeException exception)
+                {
+                    outcomes.add(new QuickBaseException(exception));
+                    return;
+                }
+                if (!decided.compareAndSet(false, true))
+                {
+                    QuickBaseResponseStream.abort(response);
+                    return;
+                }
+                outcomes.add(response);
+                if (abandoned.get() && outcomes.remove(response))
+                {
+                    QuickBaseResponseStream.abort(response);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a fresh copy of an {@link HttpMethod} (which can only be executed once) for another
+     * attempt of the same request.
+     */
+    private static HttpMethod copy(HttpMethod method) throws QuickBaseException
+    {
+        HttpMethod copy;
+        if (method instanceof PostMethod)
+        {
+            PostMethod post = new PostMethod();
+            post.setRequestEntity(((PostMethod)method).getRequestEntity());
+            Header encoding = method.getRequestHeader(CONTENT_ENCODING_HEADER);
+            if (encoding != null)
+            {
+                post.setRequestHeader(encoding);
+            }
+            copy = post;
+        }
+        else
+        {
+            copy = new GetMethod();
+        }
         try
         {
-            httpClient.executeMethod(authenticate);
-            Document response = getResponse(authenticate);
-            String errorCode = QuickBaseXPath.QDBAPI_ERRCODE.evaluate(response);
-            if (OK.equals(errorCode))
+            copy.setURI(method.getURI());
+        }
+        catch (URIException uriException)
+        {
+            throw new QuickBaseException(uriException);
+        }
+        return copy;
+    }
+
+    /**
+     * Sends a request to the transport. If a {@link QuickBaseListener} or a
+     * {@link QuickBaseThrottle} is present, a {@link QuickBaseCallEvent} is created for the call.
+     * The event is completed when the returned response is closed (or immediately, if the request
+     * fails).
+     */
+    private InputSource send(QuickBaseAPICall call, HttpMethod method) throws QuickBaseException
+    {
+        QuickBaseListener currentListener = getListener();
+        QuickBaseThrottle currentThrottle = getThrottle();
+        if (responseCompression)
+        {
+            method.setRequestHeader(ACCEPT_ENCODING_HEADER, ACCEPTED_ENCODINGS);
+        }
+        if (currentListener == null && currentThrottle == null)
+        {
+            try
+            {
+                InputStream body = transport.execute(method, state);
+                return new InputSource(decode(method, checkStatus(method, body)));
+            }
+            catch (IOException exception)
             {
-                return response;
+                throw new QuickBaseException(exception);
             }
-            String errorText = QuickBaseXPath.QDBAPI_ERRTEXT.evaluate(response);
-            errorText += " (error code " + errorCode + ')'; //$NON-NLS-1$
-            throw new QuickBaseException(errorText);
         }
-        catch (IOException ioException)
+        QuickBaseCallEvent event = new QuickBaseCallEvent(call, currentListener, currentThrottle);
+        InputStream response = null;
+        try
         {
-            throw new QuickBaseException(ioException);
+            event.started();
+            method.setRequestHeader(QuickBaseCallEvent.CORRELATION_ID_HEADER, event.getCorrelationID());
+            event.admit();
+            requested(event, method);
+            InputStream body = transport.execute(method, state);
+            event.sent(method.getStatusCode(), retryAfter(method));
+            response = decode(method, checkStatus(method, body));
         }
-        catch (SAXException saxException)
+        catch (QuickBaseException exception)
+        {
+            throw QuickBaseCallEvent.report(event, exception);
+        }
+        catch (IOException exception)
+        {
+            throw QuickBaseCallEvent.report(event, new QuickBaseException(exception));
+        }
+        finally
+        {
+            if (response == null)
+            {
+                event.complete();
+            }
+        }
+        if (response instanceof QuickBaseResponseStream)
+        {
+            ((QuickBaseResponseStream)response).attach(event);
+        }
+        else
+        {
+            event.complete();
+        }
+        return new InputSource(response);
+    }
+
+    /**
+     * Records the size of the request body (if any) for the event of an instrumented call.
+     */
+    private static void requested(QuickBaseCallEvent event, HttpMethod method)
+    {
+        if (method instanceof EntityEnclosingMethod)
         {
-            throw new QuickBaseException(saxException);
+            RequestEntity entity = ((EntityEnclosingMethod)method).getRequestEntity();
+            if (entity != null)
+            {
+                long sent = entity.getContentLength();
+                long uncompressed = sent;
+                if (entity instanceof CompressedEntity)
+                {
+                    uncompressed = ((CompressedEntity)entity).getUncompressedLength();
+                }
+                event.requested(uncompressed, sent);
+            }
         }
-        catch (XPathExpressionException xpathException)
+    }
+
+    /**
+     * Decodes a response body according to its <code>Content-Encoding</code> header. The
+     * response streams of the {@link QuickBasePooledTransport} decode the body themselves, so
+     * that they can still count the transferred bytes; other response bodies are wrapped into a
+     * decoding stream.
+     */
+    private static InputStream decode(HttpMethod method, InputStream body)
+    {
+        Header encoding = method.getResponseHeader(CONTENT_ENCODING_HEADER);
+        if (encoding == null)
         {
-            throw new QuickBaseException(xpathException);
+            return body;
         }
-        catch (ParserConfigurationException parserException)
+        if (body instanceof QuickBaseResponseStream)
         {
-            throw new QuickBaseException(parserException);
+            ((QuickBaseResponseStream)body).decode(encoding.getValue());
+            return body;
         }
+        return QuickBaseCompression.decode(encoding.getValue(), body);
     }
 
-    private static Document getResponse(HttpMethod method)
-    throws IOException, SAXException, ParserConfigurationException
+    /**
+     * Checks the HTTP status of an executed request. QuickBase reports its own errors in the
+     * response body (with HTTP status 200), so any other status means that the response does not
+     * contain a QuickBase response (for example, because the request was rejected by a proxy or
+     * by the server's rate limiting).
+     *
+     * @return the response body, if the status indicates success
+     * @throws QuickBaseException if the status does not indicate success (the body is closed)
+     */
+    private static InputStream checkStatus(HttpMethod method, InputStream body)
+    throws QuickBaseException
     {
-        InputSource inputSource = new InputSource(method.getResponseBodyAsStream());
-        DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        return documentBuilder.parse(inputSource);
+        int statusCode = method.getStatusCode();
+        if (statusCode/100 == HttpStatus.SC_OK/100)
+        {
+            return body;
+        }
+        try
+        {
+            body.close();
+        }
+        catch (IOException ignore)
+        {
+            // The connection was released regardless of the exception
+        }
+        String message = "HTTP status " + statusCode; //$NON-NLS-1$
+        int errorCode = QuickBaseCallEvent.NO_ERROR_CODE;
+        throw new QuickBaseException(message, errorCode, statusCode, retryAfter(method));
+    }
+
+    private static long retryAfter(HttpMethod method)
+    {
+        Header retryAfter = method.getResponseHeader(RETRY_AFTER);
+        if (retryAfter != null)
+        {
+            try
+            {
+                return Long.parseLong(retryAfter.getValue().trim());
+            }
+            catch (NumberFormatException dateOrInvalid)
+            {
+                // HTTP dates are not supported; the request will not pause the rate limiters
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Invalidates the cached query results of a table after a call that may have modified the
+     * table. This also happens if the call failed, because it may have been partially applied.
+     *
+     * @param dbid the database ID of the table
+     * @param call the {@link QuickBaseAPICall} that was executed
+     */
+    private void modified(String dbid, QuickBaseAPICall call)
+    {
+        QuickBaseQueryCache cache = getQueryCache();
+        if (cache != null && !call.isIdempotent())
+        {
+            cache.invalidate(dbid);
+        }
+    }
+
+    private HttpMethod method(QuickBaseAPICall call, NameValuePair... parameters)
+    {
+        HttpMethod method = new GetMethod(baseURL + MAIN + QUERY);
+        NameValuePair[] query = new NameValuePair[parameters.length+1];
+        System.arraycopy(parameters, 0, query, 1, parameters.length);
+        query[FIRST] = act(call);
+        method.setQueryString(query);
+        return method;
     }
 
-    private static HttpMethod method(QuickBaseAPICall call, NameValuePair... parameters)
+    private HttpMethod method(String dbid, QuickBaseAPICall call, NameValuePair... parameters)
     {
-        HttpMethod method = new GetMethod(HTTPS_QB_MAIN);
+        HttpMethod method = new GetMethod(baseURL + dbid + QUERY);
         NameValuePair[] query = new NameValuePair[parameters.length+1];
         System.arraycopy(parameters, 0, query, 1, parameters.length);
         query[FIRST] = act(call);
@@ -283,9 +1032,9 @@ public class QuickBaseConnection
         return method;
     }
 
-    private static HttpMethod authenticate(String username, char[] password)
+    private HttpMethod authenticate(String username, char[] password)
     {
-        GetMethod authenticate = new GetMethod(HTTPS_QB_MAIN);
+        GetMethod authenticate = new GetMethod(baseURL + MAIN + QUERY);
         return query(authenticate, act(API_Authenticate), username(username), password(password));
     }
 
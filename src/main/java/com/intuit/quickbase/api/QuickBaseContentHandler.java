@@ -35,14 +35,24 @@ class QuickBaseContentHandler extends DefaultHandler
     private final static String F = "f"; //$NON-NLS-1$
 
     private QuickBaseResultHandler resultHandler;
+    private QuickBaseRecordLayout layout;
     private QuickBaseRecord currentRecord;
     private StringBuffer currentField;
+    private boolean inField;
+    private int recordLength;
     private StringBuffer error;
+    private String errorCode;
+    private String errorText;
+    private String errorDetail;
+    private QuickBaseException exception;
     private int currentFieldID;
+    private int recordCount;
 
     QuickBaseContentHandler(QuickBaseResultHandler resultHandler)
     {
         this.resultHandler = resultHandler;
+        this.layout = QuickBaseRecordLayout.EMPTY;
+        this.currentField = new StringBuffer();
     }
 
     /**
@@ -62,18 +72,22 @@ class QuickBaseContentHandler extends DefaultHandler
     {
         if (RECORD.equals(name))
         {
-            currentRecord = new QuickBaseRecord();
+            currentRecord = new QuickBaseRecord(layout, recordLength);
         }
         else if (F.equals(name))
         {
-            currentField = new StringBuffer();
+            // The field buffer is reused for all fields; its contents are copied into the
+            // record's packed storage when the field is complete:
+            //
+            currentField.setLength(0);
             currentFieldID = Integer.parseInt(attributes.getValue(ID));
+            inField = true;
         }
         else if (ERRCODE.equals(name) || ERRTEXT.equals(name) || ERRDETAIL.equals(name))
         {
             error = new StringBuffer();
         }
-        else if (currentField != null)
+        else if (inField)
         {
             // Some <f id="..."> elements may contain additional nested elements such as <url> or
             // <BR>; these elements should be incorporated into the field content:
@@ -93,16 +107,12 @@ class QuickBaseContentHandler extends DefaultHandler
      */
     public void characters(char[] characters, int start, int length) throws SAXException
     {
-        if (currentField != null)
+        if (inField)
         {
             currentField.append(characters, start, length);
         }
         if (error != null)
         {
-            if (error.length() > 0)
-            {
-                error.append(' ');
-            }
             error.append(characters, start, length);
         }
     }
@@ -122,15 +132,37 @@ class QuickBaseContentHandler extends DefaultHandler
     {
         if (RECORD.equals(name))
         {
+            // The first record establishes the layout and the expected size of all subsequent
+            // records:
+            //
+            currentRecord.trim();
+            layout = currentRecord.getLayout();
+            recordLength = currentRecord.length();
             resultHandler.handleRecord(currentRecord);
             currentRecord = null;
+            recordCount++;
         }
         else if (F.equals(name))
         {
-            currentRecord.setField(currentFieldID, currentField.toString());
-            currentField = null;
+            currentRecord.setField(currentFieldID, currentField);
+            inField = false;
+        }
+        else if (ERRCODE.equals(name))
+        {
+            errorCode = error.toString().trim();
+            error = null;
+        }
+        else if (ERRTEXT.equals(name))
+        {
+            errorText = error.toString().trim();
+            error = null;
         }
-        else if (currentField != null)
+        else if (ERRDETAIL.equals(name))
+        {
+            errorDetail = error.toString().trim();
+            error = null;
+        }
+        else if (inField)
         {
             // Some <f id="..."> elements may contain additional nested elements such as <url> or
             // <BR>; these elements should be incorporated into the field content:
@@ -147,20 +179,43 @@ class QuickBaseContentHandler extends DefaultHandler
      */
     public void endDocument() throws SAXException
     {
-        if (error != null)
+        exception = QuickBaseEnvelope.exception(errorCode, errorText, errorDetail);
+        if (exception != null)
         {
-            resultHandler.handleException(new QuickBaseException(error.toString()));
+            resultHandler.handleException(exception);
         }
         resultHandler.done();
     }
 
+    /**
+     * Gets the error that QuickBase reported in the response (if any). The error is available
+     * after the document was processed completely.
+     *
+     * @return a {@link QuickBaseException} describing the error, or <code>null</code> if
+     * QuickBase did not report an error
+     */
+    QuickBaseException getException()
+    {
+        return exception;
+    }
+
+    /**
+     * Gets the number of records that were processed so far.
+     *
+     * @return the number of records
+     */
+    int getRecordCount()
+    {
+        return recordCount;
+    }
+
     //------------------------------------- PRIVATE SECTION --------------------------------------//
 
     private void appendNestedTagToCurrentField(String tag, Attributes attributes)
     {
         if (attributes == null)
         {
-            if (currentField.toString().endsWith('<' + tag + '>'))
+            if (endsWithOpeningTag(tag))
             {
                 // Combine adjacent opening and closing tags if possible:
                 //
@@ -187,4 +242,23 @@ class QuickBaseContentHandler extends DefaultHandler
             currentField.append('>');
         }
     }
+
+    private boolean endsWithOpeningTag(String tag)
+    {
+        int length = tag.length();
+        int start = currentField.length() - length - 2;
+        if (start < 0 || currentField.charAt(start) != '<'
+        || currentField.charAt(currentField.length()-1) != '>')
+        {
+            return false;
+        }
+        for (int index = 0; index < length; index++)
+        {
+            if (currentField.charAt(start+1+index) != tag.charAt(index))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
 }
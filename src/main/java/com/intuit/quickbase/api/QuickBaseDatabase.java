@@ -13,15 +13,20 @@
 
 package com.intuit.quickbase.api;
 
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 import org.apache.commons.httpclient.NameValuePair;
-import org.w3c.dom.Node;
+import org.apache.commons.httpclient.util.EncodingUtil;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 import com.intuit.quickbase.api.query.CList;
 import com.intuit.quickbase.api.query.QueryExecutionMode;
 
 import static com.intuit.quickbase.api.QuickBaseAPICall.API_DoQuery;
+import static com.intuit.quickbase.api.QuickBaseAPICall.API_DoQueryCount;
 import static com.intuit.quickbase.api.QuickBaseAPICall.API_GetSchema;
 
 /**
@@ -44,6 +49,7 @@ public class QuickBaseDatabase
     private final static String EMPTY = ""; //$NON-NLS-1$
     private final static String FMT = "fmt"; //$NON-NLS-1$
     private final static String STRUCTURED = "structured"; //$NON-NLS-1$
+    private final static String UTF_8 = "UTF-8"; //$NON-NLS-1$
     private final static NameValuePair FMT_STRUCTURED = new NameValuePair(FMT, STRUCTURED);
 
     private QuickBaseConnection connection;
@@ -64,34 +70,27 @@ public class QuickBaseDatabase
     }
 
     /**
-     * Gets the schema information of the database.
+     * Gets the schema information of the database. If the connection has a
+     * {@link QuickBaseSchemaCache} the schema may be served from the cache.
      *
      * @return the {@link QuickBaseSchema} of the database
      * @throws QuickBaseException if a problem occurred while communicating with the database
+     * @see QuickBaseConnection#setSchemaCache(QuickBaseSchemaCache)
      */
     public QuickBaseSchema getSchema() throws QuickBaseException
     {
-        InputSource response = connection.execute(dbid, API_GetSchema);
-//        InputStream byteStream = response.getByteStream();
-//        int n = 0;
-//        try {
-//			while ((n = byteStream.read()) != -1)
-//			{
-//				System.err.write(n);
-//			}
-//		} catch (IOException e) {
-//			// TODO Auto-generated catch block
-//			e.printStackTrace();
-//		}
-        try
-        {
-            Node qdbapi = (Node)QuickBaseXPath.QDBAPI.evaluate(response, XPathConstants.NODE);
-            return new QuickBaseSchema(this, qdbapi);
-        }
-        catch (XPathExpressionException xpathException)
-        {
-            throw new QuickBaseException(xpathException);
-        }
+        QuickBaseSchemaCache schemaCache = connection.getSchemaCache();
+        return schemaCache != null? schemaCache.getSchema(this):fetchSchema();
+    }
+
+    /**
+     * Gets the database ID.
+     *
+     * @return the database ID
+     */
+    public String getDBID()
+    {
+        return dbid;
     }
 
     /**
@@ -120,38 +119,247 @@ public class QuickBaseDatabase
      * @param resultHandler a {@link QuickBaseResultHandler} that processes the results
      * @param query the query string
      * @param clist a {@link CList} that specifies which fields are included in the results
+     * @param mode {@link QueryExecutionMode#synchronous} to process the results on the calling
+     * thread, or {@link QueryExecutionMode#asynchronous} to process them on a thread of the
+     * connection's {@link QuickBaseQueryEngine}
      * @throws QuickBaseException if a problem occurred while communicating with the database
      */
     public void doQuery(QuickBaseResultHandler resultHandler, String query, CList clist, QueryExecutionMode mode) throws QuickBaseException
     {
-    	InputSource result;
-    	result = connection.execute(dbid, API_DoQuery, FMT_STRUCTURED, query(query), clist(clist));
-//    	InputStream byteStream = result.getByteStream();
-//    	int n = 0;
-//    	try {
-//    		while ((n = byteStream.read()) != -1)
-//    		{
-//    			System.err.write(n);
-//    		}
-//    	} catch (IOException e) {
-//    		// TODO Auto-generated catch block
-//    		e.printStackTrace();
-//    	}
-
-    	QuickBaseSAXParserThread thread = new QuickBaseSAXParserThread(result, resultHandler);
-    	thread.start();
-    	if (mode == QueryExecutionMode.synchronous) {
-    		try {
-    			thread.join();
-    		} catch (InterruptedException e) {
-    		}
-    	}
-    	
+        QuickBaseRequest request = doQueryRequest(query, clist);
+        connection.getQueryEngine().query(request, resultHandler, mode);
+    }
+
+    /**
+     * Determines the number of records that match a query, using
+     * {@link QuickBaseAPICall#API_DoQueryCount}. No records are transferred.
+     *
+     * @param query the query string (an empty string matches all records)
+     * @return the number of matching records
+     * @throws QuickBaseException if a problem occurred while communicating with the database
+     */
+    public int doQueryCount(String query) throws QuickBaseException
+    {
+        QuickBaseEnvelope response = new QuickBaseEnvelope(QuickBaseEnvelope.QDBAPI_NUM_MATCHES);
+        connection.execute(dbid, API_DoQueryCount, response, query(query));
+        return (int)response.getLong(QuickBaseEnvelope.QDBAPI_NUM_MATCHES);
+    }
+
+    /**
+     * Performs a query in pages of a limited size, using the default settings of
+     * {@link QuickBasePagedQuery}. The results are delivered to the
+     * {@link QuickBaseResultHandler} in the order of their record IDs.
+     *
+     * @param resultHandler a {@link QuickBaseResultHandler} that processes the results
+     * @param query the query string
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * @throws QuickBaseException if a problem occurred while communicating with the database
+     * @see QuickBasePagedQuery
+     */
+    public void doQueryPaged(QuickBaseResultHandler resultHandler, String query, CList clist)
+    throws QuickBaseException
+    {
+        new QuickBasePagedQuery(this).execute(resultHandler, query, clist);
+    }
+
+    /**
+     * Retrieves the schema information of the database asynchronously.
+     *
+     * @return a {@link QuickBaseFuture} for the {@link QuickBaseSchema} of the database
+     * @throws QuickBaseException if the operation could not be submitted
+     */
+    public QuickBaseFuture<QuickBaseSchema> getSchemaAsync() throws QuickBaseException
+    {
+        Callable<QuickBaseSchema> getSchema = new Callable<QuickBaseSchema>()
+        {
+            public QuickBaseSchema call() throws QuickBaseException
+            {
+                return getSchema();
+            }
+        };
+        return connection.getQueryEngine().submit(getSchema, null);
+    }
+
+    /**
+     * Performs an asynchronous query and collects all matching records. Because the complete
+     * result set is held in memory this method should only be used for queries that return a
+     * moderate number of records; large result sets should be processed by a
+     * {@link QuickBaseResultHandler} instead.
+     *
+     * @param query the query string
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * @return a {@link QuickBaseFuture} for the list of matching records
+     * @throws QuickBaseException if the query could not be submitted
+     */
+    public QuickBaseFuture<List<QuickBaseRecord>> doQueryAsync(String query, CList clist)
+    throws QuickBaseException
+    {
+        final QuickBaseSimpleResultHandler records = new QuickBaseSimpleResultHandler();
+        QuickBaseQueryEngine engine = connection.getQueryEngine();
+        final QuickBaseQuery doQuery = new QuickBaseQuery(doQueryRequest(query, clist), records,
+            engine.getResponseParser(), engine.getCoalescer());
+        Callable<List<QuickBaseRecord>> collect = new Callable<List<QuickBaseRecord>>()
+        {
+            public List<QuickBaseRecord> call() throws Exception
+            {
+                doQuery.failOnError().call();
+                return records.getRecords();
+            }
+        };
+        return engine.submit(collect, doQuery);
+    }
+
+    /**
+     * Performs an asynchronous query whose results are processed by a
+     * {@link QuickBaseResultHandler}. The returned {@link QuickBaseFuture} completes after the
+     * result handler has received all records (or fails with the same exception that was
+     * reported to the result handler).
+     *
+     * @param resultHandler a {@link QuickBaseResultHandler} that processes the results
+     * @param query the query string
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * @return a {@link QuickBaseFuture} that completes when all results were processed
+     * @throws QuickBaseException if the query could not be submitted
+     */
+    public QuickBaseFuture<Void> doQueryAsync(QuickBaseResultHandler resultHandler, String query,
+    CList clist) throws QuickBaseException
+    {
+        QuickBaseRequest request = doQueryRequest(query, clist);
+        return connection.getQueryEngine().query(request, resultHandler, QueryExecutionMode.asynchronous);
+    }
+
+    /**
+     * Performs a query whose results are retrieved through a {@link QuickBaseRecordIterator}.
+     * The response is parsed in the background while the records are consumed, and parsing pauses
+     * whenever the consumer falls behind by more than
+     * {@link QuickBaseRecordIterator#DEFAULT_BUFFER_SIZE} records. This is the preferred way of
+     * processing large result sets on the calling thread.
+     *
+     * @param query the query string
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * @return a {@link QuickBaseRecordIterator} that must be closed if it is not read to the end
+     * @throws QuickBaseException if the query could not be submitted
+     */
+    public QuickBaseRecordIterator doQueryIterator(String query, CList clist)
+    throws QuickBaseException
+    {
+        return doQueryIterator(query, clist, QuickBaseRecordIterator.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Performs a query whose results are retrieved through a {@link QuickBaseRecordIterator}.
+     *
+     * @param query the query string
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * @param bufferSize the maximum number of parsed records that are buffered ahead of the
+     * consumer
+     * @return a {@link QuickBaseRecordIterator} that must be closed if it is not read to the end
+     * @throws QuickBaseException if the query could not be submitted
+     * @see #doQueryIterator(String, CList)
+     */
+    public QuickBaseRecordIterator doQueryIterator(String query, CList clist, int bufferSize)
+    throws QuickBaseException
+    {
+        QuickBaseRecordIterator records = new QuickBaseRecordIterator(bufferSize);
+        QuickBaseRequest request = doQueryRequest(query, clist);
+        QueryExecutionMode mode = QueryExecutionMode.asynchronous;
+        records.attach(connection.getQueryEngine().query(request, records.getResultHandler(), mode));
+        return records;
+    }
+
+    /**
+     * Retrieves the schema information of the database from QuickBase (bypassing any cache).
+     *
+     * @return the {@link QuickBaseSchema} of the database
+     * @throws QuickBaseException if a problem occurred while communicating with the database
+     */
+    QuickBaseSchema fetchSchema() throws QuickBaseException
+    {
+        InputSource response = connection.execute(dbid, API_GetSchema);
+        QuickBaseCallEvent event = QuickBaseResponseStream.event(response);
+        long start = System.nanoTime();
+        try
+        {
+            QuickBaseSchemaContentHandler schema = new QuickBaseSchemaContentHandler(this);
+            connection.getQueryEngine().getResponseParser().parse(response, schema);
+            if (event != null)
+            {
+                event.parsed(System.nanoTime() - start, 0);
+            }
+            return new QuickBaseSchema(this, schema.getTables(), schema.getApplicationId());
+        }
+        catch (QuickBaseException quickBaseException)
+        {
+            throw QuickBaseCallEvent.report(event, quickBaseException);
+        }
+        catch (SAXException saxException)
+        {
+            throw QuickBaseCallEvent.report(event, new QuickBaseException(saxException));
+        }
+        catch (IOException ioException)
+        {
+            throw QuickBaseCallEvent.report(event, new QuickBaseException(ioException));
+        }
+        finally
+        {
+            QuickBaseResponseStream.close(response);
+        }
     }
 
     QuickBaseConnection getConnection() {
 		return connection;
 	}
+
+    /**
+     * Creates a {@link QuickBaseRequest} for an {@link QuickBaseAPICall#API_DoQuery} call.
+     *
+     * @param query the query string
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * @param options additional parameters (such as <code>slist</code> or <code>options</code>)
+     * @return the {@link QuickBaseRequest}
+     */
+    QuickBaseRequest doQueryRequest(String query, CList clist, NameValuePair... options)
+    {
+        final NameValuePair[] parameters = new NameValuePair[options.length+3];
+        parameters[0] = FMT_STRUCTURED;
+        parameters[1] = query(query);
+        parameters[2] = clist(clist);
+        System.arraycopy(options, 0, parameters, 3, options.length);
+        return new QuickBaseRequest()
+        {
+            public InputSource execute() throws QuickBaseException
+            {
+                return connection.execute(dbid, API_DoQuery, parameters);
+            }
+
+            public Object getKey()
+            {
+                // The connection is part of the key because different connections may belong to
+                // users with different permissions:
+                //
+                List<Object> key = new ArrayList<Object>(parameters.length+3);
+                key.add(connection);
+                key.add(dbid);
+                key.add(API_DoQuery);
+                key.addAll(Arrays.asList(parameters));
+                return key;
+            }
+
+            public QuickBaseQueryCache.Slot getCacheSlot()
+            {
+                QuickBaseQueryCache cache = connection.getQueryCache();
+                if (cache == null)
+                {
+                    return null;
+                }
+                // The parameters are URL-encoded, so that separators in a query string cannot make
+                // different parameters produce the same key:
+                //
+                String key = EncodingUtil.formUrlEncode(parameters, UTF_8);
+                return cache.slot(connection, dbid, key);
+            }
+        };
+    }
     
     //-------------------------------------- PRIVATE SECTION -------------------------------------//
 
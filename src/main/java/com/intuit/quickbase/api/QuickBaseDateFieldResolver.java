@@ -2,38 +2,203 @@ package com.intuit.quickbase.api;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
 
 /**
  * This resolves java Date fields to Strings used by QuickBase.  The client needs to specify
  * a suitable format string to be used for the Dates.
- * 
+ * <p/>
+ * A resolver is immutable and can be shared by any number of threads; each thread uses its own
+ * formatting state.  Purely numeric fixed-width patterns (such as <code>yyyy-MM-dd</code> or
+ * <code>MM/dd/yyyy HH:mm:ss</code>) are parsed directly, without going through
+ * {@link SimpleDateFormat#parse(String)}, and the most recently parsed value is remembered per
+ * thread, so that a date that is repeated in consecutive records is only parsed once.
+ * Dates that QuickBase returns as milliseconds since the epoch do not need a format at all; use
+ * {@link QuickBaseStandardFieldResolvers#DATE_RESOLVER} for those.
+ *
  * @author Brad Brown
  */
 public class QuickBaseDateFieldResolver implements QuickBaseFieldResolver<Date> {
 
-	private SimpleDateFormat simpleDateFormat;
-	
+	private final String formatStr;
+	private final TimeZone timeZone;
+	private final Segment[] segments;
+	private final int length;
+	private final ThreadLocal<State> state = new ThreadLocal<State>() {
+		@Override
+		protected State initialValue() {
+			return new State();
+		}
+	};
+
 	public QuickBaseDateFieldResolver(String formatStr) {
-		simpleDateFormat = new SimpleDateFormat(formatStr);
+		this(formatStr, TimeZone.getDefault());
 	}
-	
+
+	/**
+	 * Creates a resolver for dates in a specific time zone.
+	 *
+	 * @param formatStr the {@link SimpleDateFormat} pattern
+	 * @param timeZone the {@link TimeZone} of the formatted dates
+	 */
+	public QuickBaseDateFieldResolver(String formatStr, TimeZone timeZone) {
+		this.formatStr = formatStr;
+		this.timeZone = (TimeZone)timeZone.clone();
+		new SimpleDateFormat(formatStr); // validates the pattern
+		this.segments = compile(formatStr);
+		this.length = segments == null ? -1 : formatStr.length();
+	}
+
 	@Override
 	public Date resolve(String str) {
-		try 
-		{
-			return simpleDateFormat.parse(str);
-		} catch (ParseException e) {
-			throw new IllegalArgumentException(e);
+		if (str == null) {
+			return null;
+		}
+		State current = state.get();
+		if (!str.equals(current.lastString)) {
+			current.lastTime = parse(str, current);
+			current.lastString = str;
 		}
+		return new Date(current.lastTime);
 	}
-	
+
 	@Override
 	public String toString(Date field) {
 		if (field == null) {
 			return null;
 		}
-		return simpleDateFormat.format(field);
+		return state.get().getFormat().format(field);
+	}
+
+	private long parse(String str, State current) {
+		if (segments != null && str.length() == length) {
+			Calendar calendar = current.getCalendar();
+			calendar.clear();
+			if (parseFixed(str, calendar)) {
+				return calendar.getTimeInMillis();
+			}
+		}
+		try {
+			return current.getFormat().parse(str).getTime();
+		} catch (ParseException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	private boolean parseFixed(String str, Calendar calendar) {
+		int position = 0;
+		for (Segment segment: segments) {
+			int value = 0;
+			for (int index = 0; index < segment.width; index++) {
+				char c = str.charAt(position++);
+				if (segment.field == -1) {
+					if (c != segment.literal) {
+						return false;
+					}
+				} else if (c >= '0' && c <= '9') {
+					value = 10*value + (c - '0');
+				} else {
+					return false;
+				}
+			}
+			if (segment.field == Calendar.MONTH) {
+				value--;
+			}
+			if (segment.field != -1) {
+				calendar.set(segment.field, value);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compiles a pattern into fixed-width segments, or returns <code>null</code> if the pattern
+	 * contains anything other than the numeric fields <code>yyyy</code>, <code>MM</code>,
+	 * <code>dd</code>, <code>HH</code>, <code>mm</code>, <code>ss</code> and <code>SSS</code>
+	 * and single-character separators.
+	 */
+	private static Segment[] compile(String pattern) {
+		List<Segment> segments = new ArrayList<Segment>();
+		int index = 0;
+		while (index < pattern.length()) {
+			char c = pattern.charAt(index);
+			int end = index;
+			while (end < pattern.length() && pattern.charAt(end) == c) {
+				end++;
+			}
+			int width = end - index;
+			if (Character.isLetter(c)) {
+				int field = field(c, width);
+				if (field == -1) {
+					return null;
+				}
+				segments.add(new Segment(field, width, c));
+			} else if (c == '\'') {
+				return null;
+			} else {
+				for (int literal = index; literal < end; literal++) {
+					segments.add(new Segment(-1, 1, c));
+				}
+			}
+			index = end;
+		}
+		return segments.toArray(new Segment[segments.size()]);
+	}
+
+	private static int field(char c, int width) {
+		switch (c) {
+			case 'y': return width == 4 ? Calendar.YEAR : -1;
+			case 'M': return width == 2 ? Calendar.MONTH : -1;
+			case 'd': return width == 2 ? Calendar.DAY_OF_MONTH : -1;
+			case 'H': return width == 2 ? Calendar.HOUR_OF_DAY : -1;
+			case 'm': return width == 2 ? Calendar.MINUTE : -1;
+			case 's': return width == 2 ? Calendar.SECOND : -1;
+			case 'S': return width == 3 ? Calendar.MILLISECOND : -1;
+			default: return -1;
+		}
+	}
+
+	/**
+	 * A fixed-width part of a date pattern: either a numeric calendar field or a literal character.
+	 */
+	private static class Segment {
+		final int field;
+		final int width;
+		final char literal;
+
+		Segment(int field, int width, char literal) {
+			this.field = field;
+			this.width = width;
+			this.literal = literal;
+		}
+	}
+
+	/**
+	 * The per-thread formatting state of a resolver.
+	 */
+	private class State {
+		private SimpleDateFormat format;
+		private Calendar calendar;
+		String lastString;
+		long lastTime;
+
+		SimpleDateFormat getFormat() {
+			if (format == null) {
+				format = new SimpleDateFormat(formatStr);
+				format.setTimeZone(timeZone);
+			}
+			return format;
+		}
+
+		Calendar getCalendar() {
+			if (calendar == null) {
+				calendar = Calendar.getInstance(timeZone);
+			}
+			return calendar;
+		}
 	}
-	
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseDoubleFieldResolver.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The interface {@link QuickBaseDoubleFieldResolver} is a {@link QuickBaseFieldResolver} for numeric fields that
+ * can also decode field contents directly into a <code>double</code>, without creating a {@link String} or
+ * a boxed {@link Double}. {@link QuickBaseRecord#getDouble(QuickBaseField)} takes advantage of
+ * this for fields whose resolver implements this interface.
+ *
+ * @see QuickBaseStandardFieldResolvers
+ */
+public interface QuickBaseDoubleFieldResolver extends QuickBaseFieldResolver<Double>
+{
+    /**
+     * Resolves a sequence of characters to a <code>double</code>.
+     *
+     * @param characters an array containing the field contents (as received from QuickBase)
+     * @param start the index in the array where the field contents begin
+     * @param length the number of characters
+     * @return the decoded value
+     * @throws NumberFormatException if the characters do not represent a valid number
+     */
+    public abstract double resolveDouble(char[] characters, int start, int length);
+}
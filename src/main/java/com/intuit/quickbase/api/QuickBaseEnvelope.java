@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseEnvelope.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * The class <code>QuickBaseEnvelope</code> decodes the <code>&lt;qdbapi&gt;</code> envelope that
+ * is shared by all QuickBase API responses. In a single streaming pass, it collects the
+ * <code>errcode</code>, <code>errtext</code> and <code>errdetail</code> elements as well as the
+ * text of any call-specific payload elements that were requested when the envelope was created.
+ * Payload elements are identified by their path from the root element, for example,
+ * <code>"qdbapi/dbid"</code>; elements that occur repeatedly (such as
+ * <code>"qdbapi/rids/rid"</code>) yield one value per occurrence. Everything else in the response
+ * is skipped without building a DOM.
+ * <p/>
+ * A <code>QuickBaseEnvelope</code> can only be used for a single response.
+ */
+class QuickBaseEnvelope extends DefaultHandler
+{
+    /** The path of the <code>dbid</code> element. **/
+    final static String QDBAPI_DBID = "qdbapi/dbid"; //$NON-NLS-1$
+
+    /** The path of the <code>rid</code> element. **/
+    final static String QDBAPI_RID = "qdbapi/rid"; //$NON-NLS-1$
+
+    /** The path of the <code>numMatches</code> element. **/
+    final static String QDBAPI_NUM_MATCHES = "qdbapi/numMatches"; //$NON-NLS-1$
+
+    /** The path of the <code>num_recs_added</code> element. **/
+    final static String QDBAPI_NUM_RECS_ADDED = "qdbapi/num_recs_added"; //$NON-NLS-1$
+
+    /** The path of the <code>num_recs_updated</code> element. **/
+    final static String QDBAPI_NUM_RECS_UPDATED = "qdbapi/num_recs_updated"; //$NON-NLS-1$
+
+    /** The path of the <code>rid</code> elements of an import. **/
+    final static String QDBAPI_RIDS_RID = "qdbapi/rids/rid"; //$NON-NLS-1$
+
+    /** The path of the application's <code>lastModifiedTime</code> element. **/
+    final static String QDBAPI_APP_LAST_MODIFIED = "qdbapi/app/lastModifiedTime"; //$NON-NLS-1$
+
+    /** The path of the tables' <code>lastModifiedTime</code> elements. **/
+    final static String QDBAPI_TABLES_TABLE_LAST_MODIFIED = "qdbapi/tables/table/lastModifiedTime"; //$NON-NLS-1$
+
+    private final static String QDBAPI_ERRCODE = "qdbapi/errcode"; //$NON-NLS-1$
+    private final static String QDBAPI_ERRTEXT = "qdbapi/errtext"; //$NON-NLS-1$
+    private final static String QDBAPI_ERRDETAIL = "qdbapi/errdetail"; //$NON-NLS-1$
+    private final static String OK = "0"; //$NON-NLS-1$
+    private final static String ERROR_CODE = " (error code "; //$NON-NLS-1$
+    private final static String NO_RESPONSE = "response did not contain an error code"; //$NON-NLS-1$
+
+    private Map<String, List<String>> values;
+    private StringBuffer path;
+    private StringBuffer text;
+    private String errorCode;
+    private String errorText;
+    private String errorDetail;
+
+    /**
+     * Creates a new <code>QuickBaseEnvelope</code>.
+     *
+     * @param payload the paths of the payload elements whose text should be collected
+     */
+    QuickBaseEnvelope(String... payload)
+    {
+        values = new HashMap<String, List<String>>();
+        for (String element: payload)
+        {
+            values.put(element, new ArrayList<String>(1));
+        }
+        path = new StringBuffer();
+    }
+
+    /**
+     * Resets the envelope, so that it can decode another response (for example, when a call is
+     * retried after a failed attempt).
+     *
+     * @throws SAXException if a problem was encountered during XML processing
+     */
+    public void startDocument() throws SAXException
+    {
+        for (List<String> payload: values.values())
+        {
+            payload.clear();
+        }
+        path.setLength(0);
+        text = null;
+        errorCode = null;
+        errorText = null;
+        errorDetail = null;
+    }
+
+    /**
+     * Processes the beginning of an element.
+     *
+     * @param uri the current URI
+     * @param localName the local name of the element (if any)
+     * @param name the qualified name of the element
+     * @param attributes the list of element attributes
+     * @throws SAXException if a problem was encountered during XML processing
+     */
+    public void startElement(String uri, String localName, String name, Attributes attributes)
+    throws SAXException
+    {
+        if (path.length() > 0)
+        {
+            path.append('/');
+        }
+        path.append(name);
+        String current = path.toString();
+        if (values.containsKey(current) || QDBAPI_ERRCODE.equals(current)
+        || QDBAPI_ERRTEXT.equals(current) || QDBAPI_ERRDETAIL.equals(current))
+        {
+            text = new StringBuffer();
+        }
+    }
+
+    /**
+     * Collects the text content of the envelope and payload elements.
+     *
+     * @param characters an array containing the text
+     * @param start the index in the array where the text begins
+     * @param length the length of the text
+     * @throws SAXException if a problem was encountered during XML processing
+     */
+    public void characters(char[] characters, int start, int length) throws SAXException
+    {
+        if (text != null)
+        {
+            text.append(characters, start, length);
+        }
+    }
+
+    /**
+     * Processes the end of an element.
+     *
+     * @param uri the current URI
+     * @param localName the local name of the element (if any)
+     * @param name the qualified name of the element
+     * @throws SAXException if a problem was encountered during XML processing
+     */
+    public void endElement(String uri, String localName, String name) throws SAXException
+    {
+        if (text != null)
+        {
+            String current = path.toString();
+            String value = text.toString().trim();
+            if (QDBAPI_ERRCODE.equals(current))
+            {
+                errorCode = value;
+            }
+            else if (QDBAPI_ERRTEXT.equals(current))
+            {
+                errorText = value;
+            }
+            else if (QDBAPI_ERRDETAIL.equals(current))
+            {
+                errorDetail = value;
+            }
+            else
+            {
+                values.get(current).add(value);
+            }
+            text = null;
+        }
+        int separator = path.lastIndexOf("/"); //$NON-NLS-1$
+        path.setLength(separator == -1? 0:separator);
+    }
+
+    /**
+     * Checks whether QuickBase reported an error in the response.
+     *
+     * @throws QuickBaseException if the response contained a non-zero error code (or no error
+     * code at all)
+     */
+    void check() throws QuickBaseException
+    {
+        if (errorCode == null)
+        {
+            throw new QuickBaseException(NO_RESPONSE);
+        }
+        QuickBaseException exception = exception(errorCode, errorText, errorDetail);
+        if (exception != null)
+        {
+            throw exception;
+        }
+    }
+
+    /**
+     * Gets the first value of a payload element.
+     *
+     * @param element the path of the element
+     * @return the trimmed text of the element, or <code>null</code> if the response did not
+     * contain the element
+     */
+    String getValue(String element)
+    {
+        List<String> list = values.get(element);
+        return list == null || list.isEmpty()? null:list.get(0);
+    }
+
+    /**
+     * Gets all values of a payload element, in document order.
+     *
+     * @param element the path of the element
+     * @return an unmodifiable list of the trimmed texts of all occurrences of the element
+     */
+    List<String> getValues(String element)
+    {
+        List<String> list = values.get(element);
+        return list == null? Collections.<String>emptyList():Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Gets the first value of a numeric payload element.
+     *
+     * @param element the path of the element
+     * @return the numeric value, or <code>0</code> if the response did not contain the element
+     * @throws QuickBaseException if the element's value is not a number
+     */
+    long getLong(String element) throws QuickBaseException
+    {
+        String value = getValue(element);
+        try
+        {
+            return value == null || value.length() == 0? 0:Long.parseLong(value);
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            throw new QuickBaseException(numberFormatException);
+        }
+    }
+
+    /**
+     * Creates a {@link QuickBaseException} for the error information of a QuickBase response.
+     * This is shared by all handlers that decode responses, so that errors are reported uniformly.
+     *
+     * @param errorCode the text of the <code>errcode</code> element
+     * @param errorText the text of the <code>errtext</code> element
+     * @param errorDetail the text of the <code>errdetail</code> element (may be <code>null</code>)
+     * @return a {@link QuickBaseException}, or <code>null</code> if the error code indicates success
+     */
+    static QuickBaseException exception(String errorCode, String errorText, String errorDetail)
+    {
+        if (errorCode == null || OK.equals(errorCode))
+        {
+            return null;
+        }
+        StringBuffer message = new StringBuffer();
+        message.append(errorText).append(ERROR_CODE).append(errorCode).append(')');
+        if (errorDetail != null && errorDetail.length() > 0)
+        {
+            message.append(':').append(' ').append(errorDetail);
+        }
+        int code;
+        try
+        {
+            code = Integer.parseInt(errorCode);
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            code = -1;
+        }
+        return new QuickBaseException(message.toString(), code);
+    }
+}
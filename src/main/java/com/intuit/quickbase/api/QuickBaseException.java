@@ -24,6 +24,10 @@ public class QuickBaseException extends Exception
 {
     final static long serialVersionUID = -6517798552605593430L;
 
+    private int errorCode = -1;
+    private int statusCode;
+    private long retryAfter;
+
     /**
      * Creates a new {@link QuickBaseException} without a specific message or nested exception.
      */
@@ -42,6 +46,49 @@ public class QuickBaseException extends Exception
         super(message);
     }
 
+    /**
+     * Creates a new {@link QuickBaseException} for an error that was reported by QuickBase.
+     *
+     * @param message the exception message
+     * @param errorCode the QuickBase error code (i.e., the <code>errcode</code> of the response)
+     */
+    public QuickBaseException(String message, int errorCode)
+    {
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Creates a new {@link QuickBaseException} for a response with an HTTP error status. Such
+     * responses do not contain a regular QuickBase response (for example, if the server rejected
+     * a request because of rate limiting).
+     *
+     * @param message the exception message
+     * @param errorCode the QuickBase error code, or <code>-1</code> if none was reported
+     * @param statusCode the HTTP status code of the response
+     */
+    public QuickBaseException(String message, int errorCode, int statusCode)
+    {
+        this(message, errorCode, statusCode, 0);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseException} for a response with an HTTP error status and a
+     * <code>Retry-After</code> header.
+     *
+     * @param message the exception message
+     * @param errorCode the QuickBase error code, or <code>-1</code> if none was reported
+     * @param statusCode the HTTP status code of the response
+     * @param retryAfter the number of seconds after which the request may be repeated
+     */
+    public QuickBaseException(String message, int errorCode, int statusCode, long retryAfter)
+    {
+        super(message);
+        this.errorCode = errorCode;
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
     /**
      * Creates a new {@link QuickBaseException} with a nested exception.
      *
@@ -62,4 +109,37 @@ public class QuickBaseException extends Exception
     {
         super(message, exception);
     }
+
+    /**
+     * Gets the error code that QuickBase reported in its response.
+     *
+     * @return the QuickBase error code, or <code>-1</code> if the exception was not caused by an
+     * error response (for example, if the server could not be reached)
+     */
+    public int getErrorCode()
+    {
+        return errorCode;
+    }
+
+    /**
+     * Gets the HTTP status code of a response that was rejected by the server.
+     *
+     * @return the HTTP status code, or <code>0</code> if the exception was not caused by an HTTP
+     * error status
+     */
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    /**
+     * Gets the time after which the server allows the failed request to be repeated.
+     *
+     * @return the value of the response's <code>Retry-After</code> header in seconds, or
+     * <code>0</code> if the response did not have such a header
+     */
+    public long getRetryAfter()
+    {
+        return retryAfter;
+    }
 }
@@ -90,4 +90,16 @@ public final class QuickBaseField<$FieldType>
     {
         return resolver.toString(($FieldType)field);
     }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Gets the {@link QuickBaseFieldResolver} of the field.
+     *
+     * @return the {@link QuickBaseFieldResolver}
+     */
+    QuickBaseFieldResolver<$FieldType> getResolver()
+    {
+        return resolver;
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseFieldDefinition.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The class {@link QuickBaseFieldDefinition} describes a field as declared in the schema of a
+ * {@link QuickBaseTable}. Unlike a {@link QuickBaseField}, which is an accessor for field values
+ * that is bound to a particular Java type, a {@link QuickBaseFieldDefinition} only carries the
+ * schema information: the field ID, its label, and the QuickBase field and base types.
+ * {@link QuickBaseFieldDefinition}s are immutable.
+ *
+ * @see QuickBaseTable#getFieldDefinition(String)
+ */
+public final class QuickBaseFieldDefinition
+{
+    private int id;
+    private String label;
+    private String fieldType;
+    private String baseType;
+
+    QuickBaseFieldDefinition(int id, String label, String fieldType, String baseType)
+    {
+        this.id = id;
+        this.label = label;
+        this.fieldType = fieldType;
+        this.baseType = baseType;
+    }
+
+    /**
+     * Gets the ID of the field.
+     *
+     * @return the field ID
+     */
+    public int getID()
+    {
+        return id;
+    }
+
+    /**
+     * Gets the label (i.e., the display name) of the field.
+     *
+     * @return the field label
+     */
+    public String getLabel()
+    {
+        return label;
+    }
+
+    /**
+     * Gets the QuickBase field type, for example, <code>text</code>, <code>numeric</code>,
+     * <code>date</code>, or <code>checkbox</code>.
+     *
+     * @return the field type (or <code>null</code> if the schema did not specify a type)
+     */
+    public String getFieldType()
+    {
+        return fieldType;
+    }
+
+    /**
+     * Gets the QuickBase base type, which describes how QuickBase stores the field's values, for
+     * example, <code>text</code>, <code>float</code>, <code>int64</code>, or <code>bool</code>.
+     *
+     * @return the base type (or <code>null</code> if the schema did not specify a type)
+     */
+    public String getBaseType()
+    {
+        return baseType;
+    }
+
+    /**
+     * Creates a {@link QuickBaseField} for accessing values of this field.
+     *
+     * @param <$FieldType> the type parameter for the type that represents the field in Java
+     * @param resolver the {@link QuickBaseFieldResolver} for resolving the field's contents
+     * @return a new {@link QuickBaseField}
+     */
+    public <$FieldType> QuickBaseField<$FieldType> getField(QuickBaseFieldResolver<$FieldType> resolver)
+    {
+        return new QuickBaseField<$FieldType>(id, resolver);
+    }
+
+    /**
+     * Converts the {@link QuickBaseFieldDefinition} to a string.
+     *
+     * @return a string representation of the field definition
+     */
+    public String toString()
+    {
+        return getClass().getName() + '[' + id + ',' + label + ',' + fieldType + ']';
+    }
+}
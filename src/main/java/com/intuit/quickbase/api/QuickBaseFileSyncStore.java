@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseFileSyncStore.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.BitSet;
+
+/**
+ * The class {@link QuickBaseFileSyncStore} stores the synchronization state of each table in a
+ * text file in a directory. The first line of the file contains the {@link QuickBaseWatermark};
+ * the second line contains the known record IDs as a comma-separated list of ranges (for example,
+ * <code>1-1000,1002,1005-1010</code>), which is compact for the mostly contiguous IDs of
+ * QuickBase records. A new state is written to a temporary file first, which then replaces the
+ * previous file.
+ */
+public class QuickBaseFileSyncStore implements QuickBaseSyncStore
+{
+    private final static String SUFFIX = ".sync"; //$NON-NLS-1$
+    private final static String TEMPORARY_SUFFIX = ".tmp"; //$NON-NLS-1$
+    private final static String UTF_8 = "UTF-8"; //$NON-NLS-1$
+    private final static String NOT_REPLACED = "could not replace "; //$NON-NLS-1$
+    private final static char RANGES = ',';
+    private final static char RANGE = '-';
+    private final static char NEW_LINE = '\n';
+
+    private File directory;
+
+    /**
+     * Creates a new {@link QuickBaseFileSyncStore}.
+     *
+     * @param directory the directory for the state files (which is created if necessary)
+     */
+    public QuickBaseFileSyncStore(File directory)
+    {
+        this.directory = directory;
+    }
+
+    /**
+     * @see QuickBaseSyncStore#getWatermark(String)
+     */
+    public synchronized QuickBaseWatermark getWatermark(String dbid) throws QuickBaseException
+    {
+        String[] state = read(dbid);
+        try
+        {
+            return state == null? null:QuickBaseWatermark.valueOf(state[0]);
+        }
+        catch (IllegalArgumentException illegalArgumentException)
+        {
+            throw new QuickBaseException(illegalArgumentException);
+        }
+    }
+
+    /**
+     * @see QuickBaseSyncStore#getRecordIDs(String)
+     */
+    public synchronized BitSet getRecordIDs(String dbid) throws QuickBaseException
+    {
+        String[] state = read(dbid);
+        BitSet recordIDs = new BitSet();
+        if (state == null || state.length < 2 || state[1].length() == 0)
+        {
+            return recordIDs;
+        }
+        try
+        {
+            for (String range: state[1].split(String.valueOf(RANGES)))
+            {
+                int separator = range.indexOf(RANGE);
+                if (separator == -1)
+                {
+                    recordIDs.set(Integer.parseInt(range));
+                }
+                else
+                {
+                    int from = Integer.parseInt(range.substring(0, separator));
+                    recordIDs.set(from, Integer.parseInt(range.substring(separator + 1)) + 1);
+                }
+            }
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            throw new QuickBaseException(numberFormatException);
+        }
+        return recordIDs;
+    }
+
+    /**
+     * @see QuickBaseSyncStore#save(String, QuickBaseWatermark, BitSet)
+     */
+    public synchronized void save(String dbid, QuickBaseWatermark watermark, BitSet recordIDs)
+    throws QuickBaseException
+    {
+        File file = file(dbid);
+        File temporary = new File(directory, dbid + SUFFIX + TEMPORARY_SUFFIX);
+        directory.mkdirs();
+        try
+        {
+            Writer output = new OutputStreamWriter(new FileOutputStream(temporary), UTF_8);
+            Writer writer = new BufferedWriter(output);
+            try
+            {
+                writer.write(watermark.toString());
+                writer.write(NEW_LINE);
+                for (int from = recordIDs.nextSetBit(0); from >= 0;)
+                {
+                    int to = recordIDs.nextClearBit(from) - 1;
+                    writer.write(String.valueOf(from));
+                    if (to > from)
+                    {
+                        writer.write(RANGE);
+                        writer.write(String.valueOf(to));
+                    }
+                    from = recordIDs.nextSetBit(to + 1);
+                    if (from >= 0)
+                    {
+                        writer.write(RANGES);
+                    }
+                }
+                writer.write(NEW_LINE);
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+        catch (IOException ioException)
+        {
+            temporary.delete();
+            throw new QuickBaseException(ioException);
+        }
+        if (!temporary.renameTo(file))
+        {
+            // Some platforms do not allow renaming a file to the name of an existing file:
+            //
+            file.delete();
+            if (!temporary.renameTo(file))
+            {
+                throw new QuickBaseException(NOT_REPLACED + file);
+            }
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private File file(String dbid)
+    {
+        return new File(directory, dbid + SUFFIX);
+    }
+
+    /**
+     * Reads the state file of a table.
+     *
+     * @param dbid the database ID of the table
+     * @return the lines of the file, or <code>null</code> if the file does not exist
+     * @throws QuickBaseException if the file could not be read
+     */
+    private String[] read(String dbid) throws QuickBaseException
+    {
+        try
+        {
+            BufferedReader reader;
+            try
+            {
+                Reader input = new InputStreamReader(new FileInputStream(file(dbid)), UTF_8);
+                reader = new BufferedReader(input);
+            }
+            catch (FileNotFoundException fileNotFoundException)
+            {
+                return null;
+            }
+            try
+            {
+                String watermark = reader.readLine();
+                String recordIDs = reader.readLine();
+                if (watermark == null)
+                {
+                    return null;
+                }
+                return new String[] {watermark, recordIDs != null? recordIDs:""}; //$NON-NLS-1$
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (IOException ioException)
+        {
+            throw new QuickBaseException(ioException);
+        }
+    }
+}
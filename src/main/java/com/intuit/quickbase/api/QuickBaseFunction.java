@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseFunction.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The interface {@link QuickBaseFunction} transforms the result of an asynchronous QuickBase
+ * operation into another value.
+ *
+ * @param <$Input> the type of the original result
+ * @param <$Output> the type of the transformed result
+ * @see QuickBaseFuture#then(QuickBaseFunction)
+ */
+public interface QuickBaseFunction<$Input, $Output>
+{
+    /**
+     * Transforms a result.
+     *
+     * @param input the original result
+     * @return the transformed result
+     * @throws QuickBaseException if the transformation failed
+     */
+    public abstract $Output apply($Input input) throws QuickBaseException;
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseFuture.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The class {@link QuickBaseFuture} represents the pending result of an asynchronous QuickBase
+ * operation, such as {@link QuickBaseDatabase#doQueryAsync(String, com.intuit.quickbase.api.query.CList)}.
+ * In addition to the standard {@link java.util.concurrent.Future} methods, a
+ * {@link QuickBaseFuture} provides
+ * <ul>
+ * <li>{@link #getResult()} and {@link #getResult(long, TimeUnit)}, which report failures as the
+ * original {@link QuickBaseException} rather than as an {@link ExecutionException},</li>
+ * <li>{@link #addCallback(QuickBaseCallback)} for reacting to the completion without blocking,</li>
+ * <li>{@link #then(QuickBaseFunction)} for composing a new future from this future's result,
+ * and</li>
+ * <li>{@link #allOf(List)} for joining many operations that were started in parallel.</li>
+ * </ul>
+ *
+ * @param <$Result> the type of the operation's result
+ */
+public class QuickBaseFuture<$Result> extends FutureTask<$Result>
+{
+    private final static String CANCELLED = "operation was cancelled"; //$NON-NLS-1$
+    private final static String TIMED_OUT = "operation did not complete within "; //$NON-NLS-1$
+    private final static String INTERRUPTED = "interrupted while waiting for result"; //$NON-NLS-1$
+
+    private List<QuickBaseCallback<? super $Result>> callbacks;
+    private boolean completed;
+
+    /**
+     * Creates a new {@link QuickBaseFuture} that will run the supplied {@link Callable}.
+     *
+     * @param callable the {@link Callable} that computes the result
+     */
+    QuickBaseFuture(Callable<$Result> callable)
+    {
+        super(callable);
+        callbacks = new ArrayList<QuickBaseCallback<? super $Result>>();
+    }
+
+    /**
+     * Creates a new {@link QuickBaseFuture} that is not backed by a {@link Callable} and can only
+     * be completed via {@link #complete(Object)} or {@link #fail(Throwable)}.
+     */
+    QuickBaseFuture()
+    {
+        this(new Callable<$Result>()
+        {
+            public $Result call()
+            {
+                throw new IllegalStateException();
+            }
+        });
+    }
+
+    /**
+     * Waits for the operation to complete and returns its result.
+     *
+     * @return the result of the operation
+     * @throws QuickBaseException if the operation failed, was cancelled, or if the waiting thread
+     * was interrupted
+     */
+    public $Result getResult() throws QuickBaseException
+    {
+        try
+        {
+            return get();
+        }
+        catch (InterruptedException interrupted)
+        {
+            Thread.currentThread().interrupt();
+            throw new QuickBaseException(INTERRUPTED, interrupted);
+        }
+        catch (ExecutionException execution)
+        {
+            throw unwrap(execution.getCause());
+        }
+        catch (CancellationException cancellation)
+        {
+            throw new QuickBaseException(CANCELLED, cancellation);
+        }
+    }
+
+    /**
+     * Waits a limited time for the operation to complete and returns its result. The operation is
+     * not cancelled if the timeout expires.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the {@link TimeUnit} of the timeout
+     * @return the result of the operation
+     * @throws QuickBaseException if the operation failed, was cancelled, did not complete in time,
+     * or if the waiting thread was interrupted
+     */
+    public $Result getResult(long timeout, TimeUnit unit) throws QuickBaseException
+    {
+        try
+        {
+            return get(timeout, unit);
+        }
+        catch (InterruptedException interrupted)
+        {
+            Thread.currentThread().interrupt();
+            throw new QuickBaseException(INTERRUPTED, interrupted);
+        }
+        catch (ExecutionException execution)
+        {
+            throw unwrap(execution.getCause());
+        }
+        catch (CancellationException cancellation)
+        {
+            throw new QuickBaseException(CANCELLED, cancellation);
+        }
+        catch (TimeoutException timeoutException)
+        {
+            String message = TIMED_OUT + timeout + ' ' + unit.toString().toLowerCase();
+            throw new QuickBaseException(message, timeoutException);
+        }
+    }
+
+    /**
+     * Registers a {@link QuickBaseCallback} that is notified when the operation completes.
+     * If the operation is already complete the callback is notified immediately on the calling
+     * thread; otherwise, it is notified on the thread that completes the operation.
+     *
+     * @param callback the {@link QuickBaseCallback}
+     */
+    public void addCallback(QuickBaseCallback<? super $Result> callback)
+    {
+        synchronized (callbacks)
+        {
+            if (!completed)
+            {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        notifyCallback(callback);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseFuture} whose result is computed from the result of this
+     * future. The {@link QuickBaseFunction} is applied on the thread that completes this future.
+     * If this future fails, or if the function throws an exception, the new future fails with the
+     * same {@link QuickBaseException}.
+     *
+     * @param <$Next> the type of the new future's result
+     * @param function the {@link QuickBaseFunction} that transforms the result
+     * @return a new {@link QuickBaseFuture}
+     */
+    public <$Next> QuickBaseFuture<$Next> then(final QuickBaseFunction<? super $Result, $Next> function)
+    {
+        final QuickBaseFuture<$Next> next = new QuickBaseFuture<$Next>();
+        addCallback(new QuickBaseCallback<$Result>()
+        {
+            public void succeeded($Result result)
+            {
+                try
+                {
+                    next.complete(function.apply(result));
+                }
+                catch (QuickBaseException exception)
+                {
+                    next.fail(exception);
+                }
+                catch (RuntimeException exception)
+                {
+                    next.fail(exception);
+                }
+            }
+
+            public void failed(QuickBaseException exception)
+            {
+                next.fail(exception);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Creates a {@link QuickBaseFuture} that completes when all of the supplied futures have
+     * completed. Its result contains the individual results in the same order as the supplied
+     * futures. If any of the futures fails, the combined future fails with the first reported
+     * {@link QuickBaseException}.
+     *
+     * @param <$Result> the type of the individual results
+     * @param futures the {@link QuickBaseFuture}s to be combined
+     * @return a new {@link QuickBaseFuture} for the combined results
+     */
+    public static <$Result> QuickBaseFuture<List<$Result>> allOf(List<QuickBaseFuture<$Result>> futures)
+    {
+        final QuickBaseFuture<List<$Result>> all = new QuickBaseFuture<List<$Result>>();
+        final int size = futures.size();
+        final List<$Result> results = new ArrayList<$Result>(size);
+        for (int index = 0; index < size; index++)
+        {
+            results.add(null);
+        }
+        if (size == 0)
+        {
+            all.complete(results);
+            return all;
+        }
+        final AtomicInteger remaining = new AtomicInteger(size);
+        for (int index = 0; index < size; index++)
+        {
+            final int position = index;
+            futures.get(index).addCallback(new QuickBaseCallback<$Result>()
+            {
+                public void succeeded($Result result)
+                {
+                    synchronized (results)
+                    {
+                        results.set(position, result);
+                    }
+                    if (remaining.decrementAndGet() == 0)
+                    {
+                        synchronized (results)
+                        {
+                            all.complete(results);
+                        }
+                    }
+                }
+
+                public void failed(QuickBaseException exception)
+                {
+                    all.fail(exception);
+                }
+            });
+        }
+        return all;
+    }
+
+    /**
+     * Notifies all registered {@link QuickBaseCallback}s.
+     *
+     * @see FutureTask#done()
+     */
+    protected void done()
+    {
+        List<QuickBaseCallback<? super $Result>> pending;
+        synchronized (callbacks)
+        {
+            completed = true;
+            pending = new ArrayList<QuickBaseCallback<? super $Result>>(callbacks);
+            callbacks.clear();
+        }
+        for (QuickBaseCallback<? super $Result> callback: pending)
+        {
+            notifyCallback(callback);
+        }
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Completes the future with a result (unless it is already done).
+     *
+     * @param result the result
+     */
+    void complete($Result result)
+    {
+        set(result);
+    }
+
+    /**
+     * Completes the future with an exception (unless it is already done).
+     *
+     * @param throwable the exception
+     */
+    void fail(Throwable throwable)
+    {
+        setException(throwable);
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private void notifyCallback(QuickBaseCallback<? super $Result> callback)
+    {
+        $Result result;
+        try
+        {
+            result = getResult();
+        }
+        catch (QuickBaseException exception)
+        {
+            callback.failed(exception);
+            return;
+        }
+        catch (RuntimeException exception)
+        {
+            callback.failed(new QuickBaseException(exception));
+            return;
+        }
+        callback.succeeded(result);
+    }
+
+    private static QuickBaseException unwrap(Throwable cause)
+    {
+        if (cause instanceof QuickBaseException)
+        {
+            return (QuickBaseException)cause;
+        }
+        if (cause instanceof RuntimeException)
+        {
+            throw (RuntimeException)cause;
+        }
+        if (cause instanceof Error)
+        {
+            throw (Error)cause;
+        }
+        return new QuickBaseException((Exception)cause);
+    }
+}
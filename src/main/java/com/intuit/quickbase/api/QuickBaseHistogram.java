@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseHistogram.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The class {@link QuickBaseHistogram} is a lock-free histogram of non-negative <code>long</code>
+ * values (such as durations in nanoseconds or byte counts). Values are counted in logarithmic
+ * buckets that are subdivided linearly: each power of two is split into eight buckets, so that
+ * reported percentiles are within 12.5% of the actual values, regardless of their magnitude.
+ * The histogram has a fixed size of a few kilobytes and recording a value only involves a few
+ * atomic increments, so it can be updated from many threads without contention.
+ * <p/>
+ * The accessor methods read the histogram without stopping concurrent updates; their results
+ * are therefore only approximately consistent with each other while values are being recorded.
+ */
+public class QuickBaseHistogram
+{
+    private final static int SUB_BUCKET_BITS = 3;
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private final static int SUB_BUCKET_MASK = SUB_BUCKETS - 1;
+    private final static int BUCKETS = (Long.SIZE - 2)*SUB_BUCKETS;
+    private final static double PERCENT = 100.0;
+
+    private AtomicLongArray buckets;
+    private AtomicLong count;
+    private AtomicLong sum;
+    private AtomicLong max;
+
+    /**
+     * Creates a new, empty {@link QuickBaseHistogram}.
+     */
+    public QuickBaseHistogram()
+    {
+        buckets = new AtomicLongArray(BUCKETS);
+        count = new AtomicLong();
+        sum = new AtomicLong();
+        max = new AtomicLong();
+    }
+
+    /**
+     * Records a value. Negative values are ignored.
+     *
+     * @param value the value
+     */
+    public void record(long value)
+    {
+        if (value >= 0)
+        {
+            buckets.incrementAndGet(bucket(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long currentMax = max.get();
+            while (value > currentMax && !max.compareAndSet(currentMax, value))
+            {
+                currentMax = max.get();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * Gets the sum of all recorded values.
+     *
+     * @return the sum
+     */
+    public long getSum()
+    {
+        return sum.get();
+    }
+
+    /**
+     * Gets the mean of all recorded values.
+     *
+     * @return the mean, or <code>0</code> if no values were recorded
+     */
+    public double getMean()
+    {
+        long numberOfValues = count.get();
+        return numberOfValues > 0? (double)sum.get()/numberOfValues:0;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return the maximum, or <code>0</code> if no values were recorded
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Gets the value below which a certain percentage of the recorded values fall. The result is
+     * the upper bound of the bucket that contains the percentile (but never more than the
+     * largest recorded value).
+     *
+     * @param percentile the percentile (between <code>0</code> and <code>100</code>)
+     * @return the value at the percentile, or <code>0</code> if no values were recorded
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++)
+        {
+            snapshot[index] = buckets.get(index);
+            total += snapshot[index];
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(Math.min(percentile, PERCENT)/PERCENT*total));
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++)
+        {
+            seen += snapshot[index];
+            if (seen >= rank)
+            {
+                return Math.min(upperBound(index), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private static int bucket(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int)value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & SUB_BUCKET_MASK;
+        return (exponent - SUB_BUCKET_BITS + 1)*SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int shift = bucket/SUB_BUCKETS - 1;
+        long lowerBound = (long)(SUB_BUCKETS + bucket%SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
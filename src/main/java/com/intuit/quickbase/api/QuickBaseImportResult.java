@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseImportResult.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class {@link QuickBaseImportResult} describes the outcome of importing one chunk of records
+ * with a {@link QuickBaseBulkWriter}. Each chunk corresponds to a single
+ * {@link QuickBaseAPICall#API_ImportFromCSV} request. A chunk either succeeds as a whole, in which
+ * case the result contains the IDs of all added or updated records, or it fails as a whole, in
+ * which case the result contains the {@link QuickBaseException} that caused the failure.
+ */
+public class QuickBaseImportResult
+{
+    private int chunk;
+    private int firstRow;
+    private int rows;
+    private int recordsAdded;
+    private int recordsUpdated;
+    private List<Long> recordIDs;
+    private QuickBaseException exception;
+
+    QuickBaseImportResult(int chunk, int firstRow, int rows, int recordsAdded, int recordsUpdated,
+    List<Long> recordIDs)
+    {
+        this.chunk = chunk;
+        this.firstRow = firstRow;
+        this.rows = rows;
+        this.recordsAdded = recordsAdded;
+        this.recordsUpdated = recordsUpdated;
+        this.recordIDs = Collections.unmodifiableList(recordIDs);
+    }
+
+    QuickBaseImportResult(int chunk, int firstRow, int rows, QuickBaseException exception)
+    {
+        this(chunk, firstRow, rows, 0, 0, Collections.<Long>emptyList());
+        this.exception = exception;
+    }
+
+    /**
+     * Gets the index of the chunk (starting at <code>0</code>).
+     *
+     * @return the chunk index
+     */
+    public int getChunk()
+    {
+        return chunk;
+    }
+
+    /**
+     * Gets the position of the chunk's first record in the imported sequence of records
+     * (starting at <code>0</code>).
+     *
+     * @return the index of the first record
+     */
+    public int getFirstRow()
+    {
+        return firstRow;
+    }
+
+    /**
+     * Gets the number of records that were sent in this chunk.
+     *
+     * @return the number of records
+     */
+    public int getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Gets the number of records that QuickBase added.
+     *
+     * @return the number of added records
+     */
+    public int getRecordsAdded()
+    {
+        return recordsAdded;
+    }
+
+    /**
+     * Gets the number of existing records that QuickBase updated.
+     *
+     * @return the number of updated records
+     */
+    public int getRecordsUpdated()
+    {
+        return recordsUpdated;
+    }
+
+    /**
+     * Gets the IDs of all records that were added or updated, in the order of the imported rows.
+     *
+     * @return an unmodifiable list of record IDs (empty if the chunk failed)
+     */
+    public List<Long> getRecordIDs()
+    {
+        return recordIDs;
+    }
+
+    /**
+     * Gets the exception that caused the chunk to fail.
+     *
+     * @return the {@link QuickBaseException}, or <code>null</code> if the chunk was imported
+     * successfully
+     */
+    public QuickBaseException getException()
+    {
+        return exception;
+    }
+
+    /**
+     * Checks whether the chunk was imported successfully.
+     *
+     * @return <code>true</code> if the chunk was imported, <code>false</code> otherwise
+     */
+    public boolean isSuccessful()
+    {
+        return exception == null;
+    }
+
+    /**
+     * Converts the {@link QuickBaseImportResult} to a string.
+     *
+     * @return a string representation of the result
+     */
+    public String toString()
+    {
+        StringBuffer string = new StringBuffer(getClass().getName());
+        string.append("[chunk=").append(chunk).append(",rows=").append(firstRow); //$NON-NLS-1$ //$NON-NLS-2$
+        string.append('-').append(firstRow+rows-1);
+        if (exception != null)
+        {
+            string.append(",exception=").append(exception.getMessage()); //$NON-NLS-1$
+        }
+        else
+        {
+            string.append(",added=").append(recordsAdded); //$NON-NLS-1$
+            string.append(",updated=").append(recordsUpdated); //$NON-NLS-1$
+        }
+        return string.append(']').toString();
+    }
+}
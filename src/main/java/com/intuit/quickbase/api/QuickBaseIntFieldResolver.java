@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseIntFieldResolver.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The interface {@link QuickBaseIntFieldResolver} is a {@link QuickBaseFieldResolver} for numeric fields that
+ * can also decode field contents directly into an <code>int</code>, without creating a {@link String} or
+ * a boxed {@link Integer}. {@link QuickBaseRecord#getInt(QuickBaseField)} takes advantage of
+ * this for fields whose resolver implements this interface.
+ *
+ * @see QuickBaseStandardFieldResolvers
+ */
+public interface QuickBaseIntFieldResolver extends QuickBaseFieldResolver<Integer>
+{
+    /**
+     * Resolves a sequence of characters to an <code>int</code>.
+     *
+     * @param characters an array containing the field contents (as received from QuickBase)
+     * @param start the index in the array where the field contents begin
+     * @param length the number of characters
+     * @return the decoded value
+     * @throws NumberFormatException if the characters do not represent a valid number
+     */
+    public abstract int resolveInt(char[] characters, int start, int length);
+}
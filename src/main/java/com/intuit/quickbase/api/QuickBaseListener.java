@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseListener.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The interface {@link QuickBaseListener} observes the execution of {@link QuickBaseAPICall}s,
+ * for example, to collect metrics (see {@link QuickBaseMetrics}) or to forward timing information
+ * to a tracing system. Both methods are called on the thread that executes the call, so
+ * implementations should return quickly and must be thread-safe. Runtime exceptions thrown by
+ * {@link #callCompleted(QuickBaseCallEvent)} are ignored.
+ *
+ * @see QuickBase#setListener(QuickBaseListener)
+ * @see QuickBaseConnection#setListener(QuickBaseListener)
+ */
+public interface QuickBaseListener
+{
+    /**
+     * Notifies the listener that a call is about to be sent. At this point, only the call and its
+     * correlation ID are known; the listener may replace the correlation ID.
+     *
+     * @param event the {@link QuickBaseCallEvent} of the call
+     */
+    public abstract void callStarted(QuickBaseCallEvent event);
+
+    /**
+     * Notifies the listener that a call has completed, either because its response was processed
+     * or because it failed. This method is called exactly once for each started call.
+     *
+     * @param event the {@link QuickBaseCallEvent} of the call
+     */
+    public abstract void callCompleted(QuickBaseCallEvent event);
+}
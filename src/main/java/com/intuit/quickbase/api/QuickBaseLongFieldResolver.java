@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseLongFieldResolver.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+/**
+ * The interface {@link QuickBaseLongFieldResolver} is a {@link QuickBaseFieldResolver} for numeric fields that
+ * can also decode field contents directly into a <code>long</code>, without creating a {@link String} or
+ * a boxed {@link Long}. {@link QuickBaseRecord#getLong(QuickBaseField)} takes advantage of
+ * this for fields whose resolver implements this interface.
+ *
+ * @see QuickBaseStandardFieldResolvers
+ */
+public interface QuickBaseLongFieldResolver extends QuickBaseFieldResolver<Long>
+{
+    /**
+     * Resolves a sequence of characters to a <code>long</code>.
+     *
+     * @param characters an array containing the field contents (as received from QuickBase)
+     * @param start the index in the array where the field contents begin
+     * @param length the number of characters
+     * @return the decoded value
+     * @throws NumberFormatException if the characters do not represent a valid number
+     */
+    public abstract long resolveLong(char[] characters, int start, int length);
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseMetrics.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class {@link QuickBaseMetrics} is the default {@link QuickBaseListener}. It aggregates the
+ * {@link QuickBaseCallEvent}s of all calls into one {@link QuickBaseHistogram} per
+ * {@link QuickBaseAPICall} and {@link Metric}, and counts failed calls per QuickBase error code.
+ * All updates are lock-free, so a single instance can be shared by all connections:
+ * <pre>
+ * QuickBaseMetrics metrics = new QuickBaseMetrics();
+ * QuickBase.setListener(metrics);
+ * ...
+ * metrics.export(System.out);
+ * </pre>
+ * Times are recorded in nanoseconds. The histograms can be read at any time, or exported as CSV
+ * using {@link #export(Appendable)}.
+ */
+public class QuickBaseMetrics implements QuickBaseListener
+{
+    /**
+     * The enumeration {@link Metric} lists the values that are recorded for each call.
+     */
+    public static enum Metric
+    {
+        /** The time spent waiting for a {@link QuickBaseThrottle} (in nanoseconds). **/
+        THROTTLE_WAIT,
+
+        /** The time spent waiting for a pooled connection (in nanoseconds). **/
+        POOL_WAIT,
+
+        /** The time spent opening a new connection (in nanoseconds). **/
+        CONNECT,
+
+        /** The time until the response headers were received (in nanoseconds). **/
+        FIRST_BYTE,
+
+        /** The time spent parsing the response (in nanoseconds). **/
+        PARSE,
+
+        /** The total time of the call (in nanoseconds). **/
+        TOTAL,
+
+        /** The number of request body bytes (after compression). **/
+        BYTES_SENT,
+
+        /** The number of response bytes (before decompression). **/
+        BYTES_RECEIVED,
+
+        /** The number of response bytes after decompression. **/
+        BYTES_DECODED,
+
+        /** The parsing throughput of responses with records (in records per second). **/
+        RECORDS_PER_SECOND;
+    }
+
+    private final static String HEADER = "call,metric,count,mean,p50,p90,p99,max"; //$NON-NLS-1$
+    private final static String ERROR = "error_"; //$NON-NLS-1$
+    private final static String NO_STATISTICS = ",,,,,"; //$NON-NLS-1$
+    private final static String NEWLINE = "\n"; //$NON-NLS-1$
+    private final static char COMMA = ',';
+    private final static double P50 = 50;
+    private final static double P90 = 90;
+    private final static double P99 = 99;
+
+    private ConcurrentMap<QuickBaseAPICall, CallMetrics> calls;
+
+    /**
+     * Creates a new, empty {@link QuickBaseMetrics} instance.
+     */
+    public QuickBaseMetrics()
+    {
+        calls = new ConcurrentHashMap<QuickBaseAPICall, CallMetrics>();
+    }
+
+    /**
+     * Does nothing (all metrics are recorded when the call has completed).
+     *
+     * @param event the {@link QuickBaseCallEvent}
+     * @see QuickBaseListener#callStarted(QuickBaseCallEvent)
+     */
+    public void callStarted(QuickBaseCallEvent event)
+    {
+        // Nothing to record yet
+    }
+
+    /**
+     * Records the metrics of a completed call.
+     *
+     * @param event the {@link QuickBaseCallEvent}
+     * @see QuickBaseListener#callCompleted(QuickBaseCallEvent)
+     */
+    public void callCompleted(QuickBaseCallEvent event)
+    {
+        CallMetrics metrics = metrics(event.getCall());
+        metrics.count.incrementAndGet();
+        metrics.record(Metric.THROTTLE_WAIT, event.getThrottleWaitNanos());
+        metrics.record(Metric.POOL_WAIT, event.getPoolWaitNanos());
+        metrics.record(Metric.CONNECT, event.getConnectNanos());
+        metrics.record(Metric.FIRST_BYTE, event.getFirstByteNanos());
+        metrics.record(Metric.PARSE, event.getParseNanos());
+        metrics.record(Metric.TOTAL, event.getTotalNanos());
+        metrics.record(Metric.BYTES_SENT, event.getBytesSent());
+        metrics.record(Metric.BYTES_RECEIVED, event.getBytesReceived());
+        metrics.record(Metric.BYTES_DECODED, event.getBytesDecoded());
+        if (event.getRecords() > 0)
+        {
+            metrics.record(Metric.RECORDS_PER_SECOND, Math.round(event.getRecordsPerSecond()));
+        }
+        if (event.getErrorCode() != 0)
+        {
+            Integer errorCode = Integer.valueOf(event.getErrorCode());
+            AtomicLong errors = metrics.errors.get(errorCode);
+            if (errors == null)
+            {
+                AtomicLong newErrors = new AtomicLong();
+                errors = metrics.errors.putIfAbsent(errorCode, newErrors);
+                if (errors == null)
+                {
+                    errors = newErrors;
+                }
+            }
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of completed calls of a certain type.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @return the number of calls
+     */
+    public long getCallCount(QuickBaseAPICall call)
+    {
+        CallMetrics metrics = calls.get(call);
+        return metrics != null? metrics.count.get():0;
+    }
+
+    /**
+     * Gets the {@link QuickBaseHistogram} of a metric for a certain type of call.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @param metric the {@link Metric}
+     * @return the {@link QuickBaseHistogram} (which is empty if no such calls were completed yet)
+     */
+    public QuickBaseHistogram getHistogram(QuickBaseAPICall call, Metric metric)
+    {
+        return metrics(call).histograms[metric.ordinal()];
+    }
+
+    /**
+     * Gets the number of failed calls of a certain type, per error code. Calls that failed
+     * without a QuickBase error code are counted as {@link QuickBaseCallEvent#NO_ERROR_CODE}.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @return a {@link Map} from error codes to the number of calls that failed with them
+     */
+    public Map<Integer, Long> getErrorCounts(QuickBaseAPICall call)
+    {
+        Map<Integer, Long> errorCounts = new TreeMap<Integer, Long>();
+        CallMetrics metrics = calls.get(call);
+        if (metrics != null)
+        {
+            for (Map.Entry<Integer, AtomicLong> entry: metrics.errors.entrySet())
+            {
+                errorCounts.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+            }
+        }
+        return errorCounts;
+    }
+
+    /**
+     * Discards all recorded metrics.
+     */
+    public void reset()
+    {
+        calls.clear();
+    }
+
+    /**
+     * Exports the recorded metrics in CSV format. For each type of call that was completed at
+     * least once, the output contains a line per {@link Metric} (with its count, mean, 50th, 90th
+     * and 99th percentile and maximum) and a line per error code (with the number of failed
+     * calls).
+     *
+     * @param output the {@link Appendable} that receives the CSV data
+     * @throws IOException if the data could not be written
+     */
+    public void export(Appendable output) throws IOException
+    {
+        output.append(HEADER).append(NEWLINE);
+        for (QuickBaseAPICall call: QuickBaseAPICall.values())
+        {
+            CallMetrics metrics = calls.get(call);
+            if (metrics == null)
+            {
+                continue;
+            }
+            for (Metric metric: Metric.values())
+            {
+                QuickBaseHistogram histogram = metrics.histograms[metric.ordinal()];
+                if (histogram.getCount() > 0)
+                {
+                    output.append(call.name()).append(COMMA).append(metric.name()).append(COMMA);
+                    output.append(String.valueOf(histogram.getCount())).append(COMMA);
+                    output.append(String.valueOf(Math.round(histogram.getMean()))).append(COMMA);
+                    output.append(String.valueOf(histogram.getValueAtPercentile(P50))).append(COMMA);
+                    output.append(String.valueOf(histogram.getValueAtPercentile(P90))).append(COMMA);
+                    output.append(String.valueOf(histogram.getValueAtPercentile(P99))).append(COMMA);
+                    output.append(String.valueOf(histogram.getMax())).append(NEWLINE);
+                }
+            }
+            for (Map.Entry<Integer, Long> entry: getErrorCounts(call).entrySet())
+            {
+                output.append(call.name()).append(COMMA).append(ERROR).append(String.valueOf(entry.getKey()));
+                output.append(COMMA).append(String.valueOf(entry.getValue())).append(NO_STATISTICS);
+                output.append(NEWLINE);
+            }
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private CallMetrics metrics(QuickBaseAPICall call)
+    {
+        CallMetrics metrics = calls.get(call);
+        if (metrics == null)
+        {
+            CallMetrics newMetrics = new CallMetrics();
+            metrics = calls.putIfAbsent(call, newMetrics);
+            if (metrics == null)
+            {
+                metrics = newMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    private static class CallMetrics
+    {
+        final AtomicLong count = new AtomicLong();
+        final QuickBaseHistogram[] histograms = new QuickBaseHistogram[Metric.values().length];
+        final ConcurrentMap<Integer, AtomicLong> errors = new ConcurrentHashMap<Integer, AtomicLong>();
+
+        CallMetrics()
+        {
+            for (int index = 0; index < histograms.length; index++)
+            {
+                histograms[index] = new QuickBaseHistogram();
+            }
+        }
+
+        void record(Metric metric, long value)
+        {
+            histograms[metric.ordinal()].record(value);
+        }
+    }
+}
@@ -0,0 +1,825 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseMirror.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.intuit.quickbase.api.query.CList;
+import com.intuit.quickbase.api.query.QueryExecutionMode;
+
+/**
+ * The class {@link QuickBaseMirror} is a read-only local replica of (a subset of) the records of a
+ * table. A mirror is {@link #download(QuickBaseTable, String, CList, File) downloaded} once into a
+ * file and can then be {@link #open(File) reopened}, also after a restart of the JVM, without
+ * contacting QuickBase again. The file is memory-mapped, so opening a mirror does not read its
+ * contents, and field values are looked up directly in the mapped file.
+ * <p/>
+ * The file is column-oriented: the values of each field are stored together, in a format that
+ * depends on the field's base type in the table's schema. Integer and checkbox fields are stored
+ * as 64-bit integers, numeric fields as 64-bit floating point numbers, and all other fields are
+ * dictionary-encoded, i.e., each distinct string is stored only once and the records refer to it
+ * by its index. A numeric column whose values cannot be restored exactly from their binary form
+ * (for example, <code>1.50</code>) is dictionary-encoded as well, so that
+ * {@link #getField(int, QuickBaseField)} always sees exactly the text that QuickBase returned.
+ * <p/>
+ * The <i>Record ID#</i> (field 3) is always included in a mirror, and the records are stored in
+ * the order of their record IDs, so that {@link #indexOf(long)} can find a record by a binary
+ * search. A mirror file cannot be larger than 2 GB.
+ * <p/>
+ * A {@link QuickBaseMirror} is immutable and safe for use by multiple threads. It does not
+ * reflect changes of the table that happen after the download; to refresh a mirror, download it
+ * again. Mirrors that are already open keep using the previous contents of the file (on platforms
+ * that do not allow replacing a mapped file, the new download will fail instead).
+ */
+public class QuickBaseMirror
+{
+    private final static int MAGIC = 0x51424D52;
+    private final static int VERSION = 1;
+    private final static int LONG = 1;
+    private final static int DOUBLE = 2;
+    private final static int STRING = 3;
+    private final static int RECORD_ID = 3;
+    private final static int ALIGNMENT = 8;
+    private final static int HEADER_SIZE = 32;
+    private final static int COLUMN_HEADER_SIZE = 16;
+    private final static long NULL_LONG = Long.MIN_VALUE;
+    private final static long EMPTY_LONG = Long.MIN_VALUE + 1;
+    private final static long NULL_DOUBLE = 0x7FF0DEAD00000001L;
+    private final static long EMPTY_DOUBLE = 0x7FF0DEAD00000002L;
+    private final static double MAX_INTEGRAL = 1e15;
+    private final static String INT64 = "int64"; //$NON-NLS-1$
+    private final static String INT32 = "int32"; //$NON-NLS-1$
+    private final static String BOOL = "bool"; //$NON-NLS-1$
+    private final static String FLOAT = "float"; //$NON-NLS-1$
+    private final static String EMPTY = ""; //$NON-NLS-1$
+    private final static String TEMPORARY_SUFFIX = ".tmp"; //$NON-NLS-1$
+    private final static String READ = "r"; //$NON-NLS-1$
+    private final static String READ_WRITE = "rw"; //$NON-NLS-1$
+    private final static String INVALID_FILE = "not a QuickBase mirror: "; //$NON-NLS-1$
+    private final static String TOO_LARGE = "mirror exceeds 2 GB: "; //$NON-NLS-1$
+    private final static String NOT_REPLACED = "could not replace "; //$NON-NLS-1$
+    private final static String NOT_SET = " is not set"; //$NON-NLS-1$
+    private final static String FIELD = "Field "; //$NON-NLS-1$
+
+    private ByteBuffer buffer;
+    private String tableId;
+    private long created;
+    private int size;
+    private boolean sorted;
+    private QuickBaseRecordLayout layout;
+    private int[] kinds;
+    private int[] offsets;
+    private int[] dictionaries;
+    private String[][] strings;
+
+    /**
+     * Creates a {@link QuickBaseMirror} for a mapped mirror file. The header of the file is read
+     * and all offsets that it contains are checked against the size of the file, so that a
+     * truncated or damaged file is rejected here rather than failing on a later lookup.
+     *
+     * @param file the mirror file (for error messages)
+     * @param buffer the mapped contents of the file
+     * @throws QuickBaseException if the file is not a valid mirror file
+     */
+    private QuickBaseMirror(File file, ByteBuffer buffer) throws QuickBaseException
+    {
+        this.buffer = buffer;
+        long capacity = buffer.capacity();
+        validate(capacity >= HEADER_SIZE && buffer.getInt(0) == MAGIC
+            && buffer.getInt(4) == VERSION, file);
+        created = buffer.getLong(8);
+        size = buffer.getInt(16);
+        sorted = buffer.getInt(20) != 0;
+        int columns = buffer.getInt(24);
+        int length = buffer.getInt(28);
+        long header = align(HEADER_SIZE + 2L*length);
+        validate(size >= 0 && columns >= 0 && length >= 0
+            && header + (long)COLUMN_HEADER_SIZE*columns <= capacity, file);
+        char[] dbid = new char[length];
+        for (int index = 0; index < length; index++)
+        {
+            dbid[index] = buffer.getChar(HEADER_SIZE + 2*index);
+        }
+        tableId = new String(dbid);
+        layout = QuickBaseRecordLayout.EMPTY;
+        kinds = new int[columns];
+        offsets = new int[columns];
+        dictionaries = new int[columns];
+        strings = new String[columns][];
+        for (int column = 0; column < columns; column++)
+        {
+            int position = (int)header + COLUMN_HEADER_SIZE*column;
+            layout = layout.extend(buffer.getInt(position));
+            kinds[column] = buffer.getInt(position + 4);
+            offsets[column] = buffer.getInt(position + 8);
+            dictionaries[column] = buffer.getInt(position + 12);
+            long width = kinds[column] == STRING? 4:8;
+            validate((kinds[column] == LONG || kinds[column] == DOUBLE || kinds[column] == STRING)
+                && offsets[column] >= 0 && offsets[column] + width*size <= capacity, file);
+            if (kinds[column] == STRING)
+            {
+                // The dictionary must hold its string count, the start and end indexes, and
+                // the characters up to the end index of the last string:
+                //
+                long dictionary = dictionaries[column];
+                validate(dictionary >= 0 && dictionary + 4 <= capacity, file);
+                int count = buffer.getInt(dictionaries[column]);
+                long characters = dictionary + 4 + 4L*(count + 1);
+                validate(count >= 0 && characters <= capacity, file);
+                int end = buffer.getInt((int)characters - 4);
+                validate(end >= 0 && characters + 2L*end <= capacity, file);
+                strings[column] = new String[count];
+            }
+        }
+        int recordID = layout.slot(RECORD_ID);
+        validate(recordID != -1 && (!sorted || kinds[recordID] == LONG), file);
+    }
+
+    /**
+     * Downloads the records of a table into a mirror file. An existing file is replaced.
+     *
+     * @param table the {@link QuickBaseTable}
+     * @param query the query that selects the mirrored records (empty for all records)
+     * @param clist a {@link CList} that specifies the mirrored fields (<code>null</code> for all
+     * fields of the table; field 3 is always included)
+     * @param file the mirror file
+     * @return the new {@link QuickBaseMirror}
+     * @throws QuickBaseException if the query failed or the file could not be written
+     */
+    public static QuickBaseMirror download(QuickBaseTable table, String query, CList clist,
+    File file) throws QuickBaseException
+    {
+        Set<Integer> ids = new LinkedHashSet<Integer>();
+        ids.add(Integer.valueOf(RECORD_ID));
+        int[] requested = clist != null? clist.getColumns():new int[0];
+        for (int column: requested)
+        {
+            ids.add(Integer.valueOf(column));
+        }
+        if (requested.length == 0)
+        {
+            for (QuickBaseFieldDefinition field: table.getFieldDefinitions())
+            {
+                ids.add(Integer.valueOf(field.getID()));
+            }
+        }
+        int[] columns = new int[ids.size()];
+        int index = 0;
+        for (Integer id: ids)
+        {
+            columns[index++] = id.intValue();
+        }
+        QuickBaseConnection connection = table.getDatabase().getConnection();
+        QuickBaseDatabase database = new QuickBaseDatabase(connection, table.getTableId());
+        QuickBaseSimpleResultHandler records = new QuickBaseSimpleResultHandler();
+        database.doQuery(records, query, new CList(columns), QueryExecutionMode.synchronous);
+        if (records.getException() != null)
+        {
+            throw records.getException();
+        }
+        write(table, columns, records.getRecords(), file);
+        return open(file);
+    }
+
+    /**
+     * Opens an existing mirror file.
+     *
+     * @param file the mirror file
+     * @return the {@link QuickBaseMirror}
+     * @throws QuickBaseException if the file could not be opened or is not a mirror file
+     */
+    public static QuickBaseMirror open(File file) throws QuickBaseException
+    {
+        try
+        {
+            ByteBuffer buffer;
+            RandomAccessFile input = new RandomAccessFile(file, READ);
+            try
+            {
+                // The mapping remains valid after the file was closed:
+                //
+                FileChannel channel = input.getChannel();
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            finally
+            {
+                input.close();
+            }
+            return new QuickBaseMirror(file, buffer);
+        }
+        catch (IOException ioException)
+        {
+            throw new QuickBaseException(ioException);
+        }
+    }
+
+    /**
+     * Gets the database ID of the mirrored table.
+     *
+     * @return the table's database ID
+     */
+    public String getTableId()
+    {
+        return tableId;
+    }
+
+    /**
+     * Gets the time when the mirror was downloaded.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getCreated()
+    {
+        return created;
+    }
+
+    /**
+     * Gets the number of records in the mirror.
+     *
+     * @return the number of records
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Finds a record by its record ID.
+     *
+     * @param recordID the record ID
+     * @return the index of the record, or <code>-1</code> if the mirror does not contain the record
+     */
+    public int indexOf(long recordID)
+    {
+        int column = layout.slot(RECORD_ID);
+        if (sorted)
+        {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high)
+            {
+                int middle = (low + high) >>> 1;
+                long value = buffer.getLong(offsets[column] + 8*middle);
+                if (value < recordID)
+                {
+                    low = middle + 1;
+                }
+                else if (value > recordID)
+                {
+                    high = middle - 1;
+                }
+                else
+                {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+        String value = String.valueOf(recordID);
+        for (int index = 0; index < size; index++)
+        {
+            if (value.equals(columnValue(index, column)))
+            {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets a field of a record.
+     *
+     * @param <$FieldType> the type parameter specifying the type that represents the field in Java
+     * @param index the index of the record
+     * @param field the {@link QuickBaseField} reference that specifies which field to extract
+     * @return the field value as a proper Java object
+     * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+     * @see QuickBaseRecord#getField(QuickBaseField)
+     */
+    public <$FieldType> $FieldType getField(int index, QuickBaseField<$FieldType> field)
+    {
+        check(index);
+        int column = layout.slot(field.getID());
+        return field.get(column != -1? columnValue(index, column):null);
+    }
+
+    /**
+     * Gets the value of a long integer field. If the field is stored as an integer and its
+     * resolver is a {@link QuickBaseLongFieldResolver} the value is read directly from the file.
+     *
+     * @param index the index of the record
+     * @param field the {@link QuickBaseField}
+     * @return the field value
+     * @throws NumberFormatException if the field is missing, empty, or not a valid integer
+     * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+     * @see QuickBaseRecord#getLong(QuickBaseField)
+     */
+    public long getLong(int index, QuickBaseField<Long> field)
+    {
+        check(index);
+        int column = layout.slot(field.getID());
+        if (column != -1 && kinds[column] == LONG
+        && field.getResolver() instanceof QuickBaseLongFieldResolver)
+        {
+            long value = buffer.getLong(offsets[column] + 8*index);
+            if (value > EMPTY_LONG)
+            {
+                return value;
+            }
+        }
+        return value(getField(index, field), field);
+    }
+
+    /**
+     * Gets the value of a numeric field. If the field is stored as a floating point number and
+     * its resolver is a {@link QuickBaseDoubleFieldResolver} the value is read directly from the
+     * file.
+     *
+     * @param index the index of the record
+     * @param field the {@link QuickBaseField}
+     * @return the field value
+     * @throws NumberFormatException if the field is missing, empty, or not a valid number
+     * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+     * @see QuickBaseRecord#getDouble(QuickBaseField)
+     */
+    public double getDouble(int index, QuickBaseField<Double> field)
+    {
+        check(index);
+        int column = layout.slot(field.getID());
+        if (column != -1 && kinds[column] == DOUBLE
+        && field.getResolver() instanceof QuickBaseDoubleFieldResolver)
+        {
+            long bits = buffer.getLong(offsets[column] + 8*index);
+            if (bits != NULL_DOUBLE && bits != EMPTY_DOUBLE)
+            {
+                return Double.longBitsToDouble(bits);
+            }
+        }
+        return value(getField(index, field), field);
+    }
+
+    /**
+     * Creates a {@link QuickBaseRecord} that contains all mirrored fields of a record.
+     *
+     * @param index the index of the record
+     * @return a new {@link QuickBaseRecord}
+     * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+     */
+    public QuickBaseRecord getRecord(int index)
+    {
+        check(index);
+        QuickBaseRecord record = new QuickBaseRecord(layout, 0);
+        for (int column = 0; column < layout.size(); column++)
+        {
+            String value = columnValue(index, column);
+            if (value != null)
+            {
+                record.setField(layout.fieldID(column), value);
+            }
+        }
+        record.trim();
+        return record;
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Gets the plain string value of a field.
+     *
+     * @param index the index of the record
+     * @param fieldID the field ID
+     * @return the string value, or <code>null</code> if the field is not mirrored or the record
+     * did not contain the field
+     */
+    String getValue(int index, int fieldID)
+    {
+        int column = layout.slot(fieldID);
+        return column != -1? columnValue(index, column):null;
+    }
+
+    /**
+     * Writes the records of a table to a mirror file. The file is first written to a temporary
+     * file, which then replaces the previous file.
+     *
+     * @param table the {@link QuickBaseTable} (for the field types)
+     * @param columns the IDs of the mirrored fields
+     * @param records the {@link QuickBaseRecord}s
+     * @param file the mirror file
+     * @throws QuickBaseException if the file could not be written
+     */
+    static void write(QuickBaseTable table, int[] columns, List<QuickBaseRecord> records,
+    File file) throws QuickBaseException
+    {
+        records = new ArrayList<QuickBaseRecord>(records);
+        boolean sorted = sort(records);
+        List<Column> encoded = new ArrayList<Column>(columns.length);
+        String tableId = table.getTableId();
+        long length = align(HEADER_SIZE + 2*tableId.length()) + COLUMN_HEADER_SIZE*columns.length;
+        for (int fieldID: columns)
+        {
+            Column column = new Column(fieldID, kind(table, fieldID), records);
+            column.offset = length;
+            length = align(length + column.getDataSize());
+            column.dictionary = length;
+            length = align(length + column.getDictionarySize());
+            encoded.add(column);
+        }
+
+        // Records can only be found by a binary search if their IDs are stored as numbers:
+        //
+        sorted &= encoded.get(0).kind == LONG;
+        if (length > Integer.MAX_VALUE)
+        {
+            throw new QuickBaseException(TOO_LARGE + file);
+        }
+        File temporary = new File(file.getPath() + TEMPORARY_SUFFIX);
+        try
+        {
+            RandomAccessFile output = new RandomAccessFile(temporary, READ_WRITE);
+            try
+            {
+                output.setLength(length);
+                FileChannel channel = output.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+                buffer.putInt(records.size()).putInt(sorted? 1:0).putInt(columns.length);
+                buffer.putInt(tableId.length());
+                for (int index = 0; index < tableId.length(); index++)
+                {
+                    buffer.putChar(tableId.charAt(index));
+                }
+                buffer.position(align(buffer.position()));
+                for (Column column: encoded)
+                {
+                    buffer.putInt(column.fieldID).putInt(column.kind);
+                    buffer.putInt((int)column.offset).putInt((int)column.dictionary);
+                }
+                for (Column column: encoded)
+                {
+                    buffer.position((int)column.offset);
+                    column.write(buffer);
+                }
+                buffer.force();
+            }
+            finally
+            {
+                output.close();
+            }
+        }
+        catch (IOException ioException)
+        {
+            temporary.delete();
+            throw new QuickBaseException(ioException);
+        }
+        if (!temporary.renameTo(file))
+        {
+            // Some platforms do not allow renaming a file to the name of an existing file:
+            //
+            file.delete();
+            if (!temporary.renameTo(file))
+            {
+                temporary.delete();
+                throw new QuickBaseException(NOT_REPLACED + file);
+            }
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private void check(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+
+    private static void validate(boolean valid, File file) throws QuickBaseException
+    {
+        if (!valid)
+        {
+            throw new QuickBaseException(INVALID_FILE + file);
+        }
+    }
+
+    /**
+     * Gets the plain string value of a field, as it was received from QuickBase.
+     *
+     * @param index the index of the record
+     * @param column the column index
+     * @return the string value, or <code>null</code> if the record did not contain the field
+     */
+    private String columnValue(int index, int column)
+    {
+        if (kinds[column] == STRING)
+        {
+            int code = buffer.getInt(offsets[column] + 4*index);
+            return code == -1? null:string(column, code);
+        }
+        long value = buffer.getLong(offsets[column] + 8*index);
+        if (kinds[column] == LONG)
+        {
+            return value == NULL_LONG? null:value == EMPTY_LONG? EMPTY:String.valueOf(value);
+        }
+        if (value == NULL_DOUBLE || value == EMPTY_DOUBLE)
+        {
+            return value == NULL_DOUBLE? null:EMPTY;
+        }
+        return format(Double.longBitsToDouble(value));
+    }
+
+    /**
+     * Gets a string from the dictionary of a column. Strings are decoded on first use and then
+     * kept in memory.
+     *
+     * @param column the column index
+     * @param code the index of the string in the dictionary
+     * @return the string
+     */
+    private String string(int column, int code)
+    {
+        String string = strings[column][code];
+        if (string == null)
+        {
+            // The dictionary consists of the number of strings, the start index of each string
+            // (plus the end index of the last string) and the characters of all strings:
+            //
+            int dictionary = dictionaries[column];
+            int count = buffer.getInt(dictionary);
+            int start = buffer.getInt(dictionary + 4 + 4*code);
+            int end = buffer.getInt(dictionary + 8 + 4*code);
+            int characters = dictionary + 4 + 4*(count + 1);
+            char[] value = new char[end - start];
+            for (int index = 0; index < value.length; index++)
+            {
+                value[index] = buffer.getChar(characters + 2*(start + index));
+            }
+            strings[column][code] = string = new String(value);
+        }
+        return string;
+    }
+
+    /**
+     * Sorts records by their record IDs.
+     *
+     * @param records the {@link QuickBaseRecord}s
+     * @return <code>true</code> if the records were sorted, <code>false</code> if not all records
+     * had a valid record ID
+     */
+    private static boolean sort(List<QuickBaseRecord> records)
+    {
+        final Map<QuickBaseRecord, Long> recordIDs = new HashMap<QuickBaseRecord, Long>();
+        for (QuickBaseRecord record: records)
+        {
+            String value = record.getValue(RECORD_ID);
+            long recordID = value != null? encodeLong(value):NULL_LONG;
+            if (recordID <= EMPTY_LONG)
+            {
+                return false;
+            }
+            recordIDs.put(record, Long.valueOf(recordID));
+        }
+        Collections.sort(records, new Comparator<QuickBaseRecord>()
+        {
+            public int compare(QuickBaseRecord first, QuickBaseRecord second)
+            {
+                return recordIDs.get(first).compareTo(recordIDs.get(second));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Determines the storage format of a field from its base type.
+     *
+     * @param table the {@link QuickBaseTable}
+     * @param fieldID the field ID
+     * @return {@link #LONG}, {@link #DOUBLE} or {@link #STRING}
+     */
+    private static int kind(QuickBaseTable table, int fieldID)
+    {
+        String baseType;
+        try
+        {
+            baseType = table.getFieldDefinition(fieldID).getBaseType();
+        }
+        catch (QuickBaseException quickBaseException)
+        {
+            return STRING;
+        }
+        if (INT64.equals(baseType) || INT32.equals(baseType) || BOOL.equals(baseType))
+        {
+            return LONG;
+        }
+        return FLOAT.equals(baseType)? DOUBLE:STRING;
+    }
+
+    /**
+     * Encodes an integer value.
+     *
+     * @param value the string value
+     * @return the value, or {@link #NULL_LONG} if the string cannot be restored exactly from the
+     * value
+     */
+    private static long encodeLong(String value)
+    {
+        if (value.length() == 0)
+        {
+            return EMPTY_LONG;
+        }
+        try
+        {
+            long number = Long.parseLong(value);
+            return number > EMPTY_LONG && String.valueOf(number).equals(value)? number:NULL_LONG;
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            return NULL_LONG;
+        }
+    }
+
+    /**
+     * Encodes a floating point value.
+     *
+     * @param value the string value
+     * @return the bits of the value, or {@link #NULL_DOUBLE} if the string cannot be restored
+     * exactly from the value
+     */
+    private static long encodeDouble(String value)
+    {
+        if (value.length() == 0)
+        {
+            return EMPTY_DOUBLE;
+        }
+        try
+        {
+            double number = Double.parseDouble(value);
+            return format(number).equals(value)? Double.doubleToLongBits(number):NULL_DOUBLE;
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            return NULL_DOUBLE;
+        }
+    }
+
+    /**
+     * Formats a floating point number the way QuickBase does: integral numbers have no fraction.
+     *
+     * @param number the number
+     * @return the formatted number
+     */
+    private static String format(double number)
+    {
+        if (number == Math.rint(number) && Math.abs(number) < MAX_INTEGRAL)
+        {
+            return String.valueOf((long)number);
+        }
+        return String.valueOf(number);
+    }
+
+    private static int align(int position)
+    {
+        return (position + ALIGNMENT - 1)/ALIGNMENT*ALIGNMENT;
+    }
+
+    private static long align(long position)
+    {
+        return (position + ALIGNMENT - 1)/ALIGNMENT*ALIGNMENT;
+    }
+
+    private static <$Number extends Number> $Number value($Number value, QuickBaseField<$Number> field)
+    {
+        if (value == null)
+        {
+            throw new NumberFormatException(FIELD + field.getID() + NOT_SET);
+        }
+        return value;
+    }
+
+    /**
+     * The encoded values of a field. Numeric fields whose values cannot all be stored as numbers
+     * fall back to dictionary encoding.
+     */
+    private static class Column
+    {
+        final int fieldID;
+        int kind;
+        long offset;
+        long dictionary;
+        private long[] numbers;
+        private int[] codes;
+        private List<String> values;
+        private long characters;
+
+        Column(int fieldID, int kind, List<QuickBaseRecord> records)
+        {
+            this.fieldID = fieldID;
+            this.kind = kind;
+            if (kind != STRING)
+            {
+                numbers = new long[records.size()];
+                for (int index = 0; numbers != null && index < numbers.length; index++)
+                {
+                    String value = records.get(index).getValue(fieldID);
+                    long number = kind == LONG? NULL_LONG:NULL_DOUBLE;
+                    if (value != null)
+                    {
+                        number = kind == LONG? encodeLong(value):encodeDouble(value);
+                        if (number == (kind == LONG? NULL_LONG:NULL_DOUBLE))
+                        {
+                            numbers = null;
+                            this.kind = STRING;
+                        }
+                    }
+                    if (numbers != null)
+                    {
+                        numbers[index] = number;
+                    }
+                }
+            }
+            if (this.kind == STRING)
+            {
+                Map<String, Integer> dictionary = new HashMap<String, Integer>();
+                values = new ArrayList<String>();
+                codes = new int[records.size()];
+                for (int index = 0; index < codes.length; index++)
+                {
+                    String value = records.get(index).getValue(fieldID);
+                    Integer code = value != null? dictionary.get(value):Integer.valueOf(-1);
+                    if (code == null)
+                    {
+                        code = Integer.valueOf(values.size());
+                        dictionary.put(value, code);
+                        values.add(value);
+                        characters += value.length();
+                    }
+                    codes[index] = code.intValue();
+                }
+            }
+        }
+
+        long getDataSize()
+        {
+            return numbers != null? 8L*numbers.length:4L*codes.length;
+        }
+
+        long getDictionarySize()
+        {
+            return values != null? 4L*(values.size() + 2) + 2*characters:0;
+        }
+
+        void write(ByteBuffer buffer)
+        {
+            if (numbers != null)
+            {
+                for (long number: numbers)
+                {
+                    buffer.putLong(number);
+                }
+                return;
+            }
+            for (int code: codes)
+            {
+                buffer.putInt(code);
+            }
+            buffer.position((int)dictionary);
+            buffer.putInt(values.size());
+            int start = 0;
+            for (String value: values)
+            {
+                buffer.putInt(start);
+                start += value.length();
+            }
+            buffer.putInt(start);
+            for (String value: values)
+            {
+                for (int index = 0; index < value.length(); index++)
+                {
+                    buffer.putChar(value.charAt(index));
+                }
+            }
+        }
+    }
+}
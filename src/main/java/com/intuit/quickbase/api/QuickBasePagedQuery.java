@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBasePagedQuery.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import org.apache.commons.httpclient.NameValuePair;
+import com.intuit.quickbase.api.query.CList;
+
+/**
+ * The class {@link QuickBasePagedQuery} retrieves the results of a query in pages of a limited
+ * size instead of a single large {@link QuickBaseAPICall#API_DoQuery} response. The number of
+ * matching records is determined first (via {@link QuickBaseAPICall#API_DoQueryCount}); the pages
+ * are then requested with <code>options=num-</code><i>n</i><code>.skp-</code><i>m</i> and
+ * fetched in parallel, but never more than the configured number of pages at the same time.
+ * All pages are sorted by record ID, so that page boundaries are stable.
+ * <p/>
+ * Records can be delivered to the {@link QuickBaseResultHandler} in one of two ways:
+ * <ul>
+ * <li><b>ordered</b> (the default): the records of each page are buffered and delivered on the
+ * calling thread, in the order of the record IDs; at most the pages that are currently in flight
+ * are held in memory, and</li>
+ * <li><b>unordered</b>: records are delivered as soon as they are parsed, on the threads of the
+ * connection's {@link QuickBaseQueryEngine}; calls to the result handler are serialized, but the
+ * records of different pages are interleaved.</li>
+ * </ul>
+ * The result handler's {@link QuickBaseResultHandler#done()} method is called once, after the
+ * last page was processed. Records that are added or deleted while a paged query is in progress
+ * may cause records to be skipped or delivered twice.
+ *
+ * @see QuickBaseDatabase#doQueryPaged(QuickBaseResultHandler, String, CList)
+ */
+public class QuickBasePagedQuery
+{
+    /** The default number of records per page. **/
+    public final static int DEFAULT_PAGE_SIZE = 1000;
+
+    /** The default maximum number of pages that are fetched at the same time. **/
+    public final static int DEFAULT_MAX_PARALLEL_PAGES = 4;
+
+    private final static String SLIST = "slist"; //$NON-NLS-1$
+    private final static String RECORD_ID = "3"; //$NON-NLS-1$
+    private final static String OPTIONS = "options"; //$NON-NLS-1$
+    private final static String NUM = "num-"; //$NON-NLS-1$
+    private final static String SKP = ".skp-"; //$NON-NLS-1$
+    private final static String INTERRUPTED = "interrupted while waiting for page slot"; //$NON-NLS-1$
+    private final static NameValuePair SLIST_RECORD_ID = new NameValuePair(SLIST, RECORD_ID);
+
+    private QuickBaseDatabase database;
+    private int pageSize;
+    private int maxParallelPages;
+    private boolean ordered;
+
+    /**
+     * Creates a new {@link QuickBasePagedQuery} with default page size and parallelism that
+     * delivers records in order.
+     *
+     * @param database the {@link QuickBaseDatabase} to be queried
+     */
+    public QuickBasePagedQuery(QuickBaseDatabase database)
+    {
+        this.database = database;
+        this.pageSize = DEFAULT_PAGE_SIZE;
+        this.maxParallelPages = DEFAULT_MAX_PARALLEL_PAGES;
+        this.ordered = true;
+    }
+
+    /**
+     * Sets the number of records per page.
+     *
+     * @param pageSize the maximum number of records in a single response
+     */
+    public void setPageSize(int pageSize)
+    {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Sets the maximum number of pages that are fetched at the same time.
+     *
+     * @param maxParallelPages the maximum number of parallel requests
+     */
+    public void setMaxParallelPages(int maxParallelPages)
+    {
+        this.maxParallelPages = maxParallelPages;
+    }
+
+    /**
+     * Determines whether records are delivered in order (on the calling thread) or as soon as
+     * they become available (on the threads of the query engine).
+     *
+     * @param ordered <code>true</code> for ordered delivery, <code>false</code> for unordered
+     * delivery
+     */
+    public void setOrdered(boolean ordered)
+    {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Executes the paged query and waits until all pages were processed. If a page cannot be
+     * retrieved, the remaining pages are cancelled and the problem is reported to the
+     * {@link QuickBaseResultHandler} as well as thrown.
+     *
+     * @param resultHandler a {@link QuickBaseResultHandler} that processes the results
+     * @param query the query string
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * @throws QuickBaseException if the query failed
+     */
+    public void execute(QuickBaseResultHandler resultHandler, String query, CList clist)
+    throws QuickBaseException
+    {
+        int pages;
+        try
+        {
+            int records = database.doQueryCount(query);
+            pages = (records + pageSize - 1)/pageSize;
+        }
+        catch (QuickBaseException exception)
+        {
+            resultHandler.handleException(exception);
+            throw exception;
+        }
+        if (ordered)
+        {
+            executeOrdered(resultHandler, query, clist, pages);
+        }
+        else
+        {
+            executeUnordered(resultHandler, query, clist, pages);
+        }
+        resultHandler.done();
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Fetches the pages through a sliding window: whenever the oldest page in the window was
+     * delivered, the next page is requested.
+     */
+    private void executeOrdered(QuickBaseResultHandler resultHandler, String query, CList clist,
+    int pages) throws QuickBaseException
+    {
+        LinkedList<QuickBaseFuture<List<QuickBaseRecord>>> window;
+        window = new LinkedList<QuickBaseFuture<List<QuickBaseRecord>>>();
+        int next = 0;
+        try
+        {
+            while (next < pages && window.size() < maxParallelPages)
+            {
+                window.add(fetch(query, clist, next++));
+            }
+            while (!window.isEmpty())
+            {
+                for (QuickBaseRecord record: window.removeFirst().getResult())
+                {
+                    resultHandler.handleRecord(record);
+                }
+                if (next < pages)
+                {
+                    window.add(fetch(query, clist, next++));
+                }
+            }
+        }
+        catch (QuickBaseException exception)
+        {
+            cancel(window);
+            resultHandler.handleException(exception);
+            throw exception;
+        }
+    }
+
+    private void executeUnordered(QuickBaseResultHandler resultHandler, String query, CList clist,
+    int pages) throws QuickBaseException
+    {
+        final Semaphore slots = new Semaphore(maxParallelPages);
+        final QuickBaseResultHandler forward = new SerializedResultHandler(resultHandler);
+        List<QuickBaseFuture<Void>> futures = new ArrayList<QuickBaseFuture<Void>>(pages);
+        try
+        {
+            for (int page = 0; page < pages; page++)
+            {
+                try
+                {
+                    slots.acquire();
+                }
+                catch (InterruptedException interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new QuickBaseException(INTERRUPTED, interrupted);
+                }
+                final QuickBaseQuery pageQuery;
+                pageQuery = new QuickBaseQuery(request(query, clist, page), forward, parser(),
+                    engine().getCoalescer());
+                Callable<Void> fetchPage = new Callable<Void>()
+                {
+                    public Void call() throws Exception
+                    {
+                        try
+                        {
+                            return pageQuery.failOnError().call();
+                        }
+                        finally
+                        {
+                            slots.release();
+                        }
+                    }
+                };
+                try
+                {
+                    futures.add(engine().submit(fetchPage, pageQuery));
+                }
+                catch (QuickBaseException exception)
+                {
+                    slots.release();
+                    throw exception;
+                }
+            }
+            for (QuickBaseFuture<Void> future: futures)
+            {
+                future.getResult();
+            }
+        }
+        catch (QuickBaseException exception)
+        {
+            cancel(futures);
+            resultHandler.handleException(exception);
+            throw exception;
+        }
+    }
+
+    private QuickBaseFuture<List<QuickBaseRecord>> fetch(String query, CList clist, int page)
+    throws QuickBaseException
+    {
+        final QuickBaseSimpleResultHandler records = new QuickBaseSimpleResultHandler();
+        final QuickBaseQuery pageQuery;
+        pageQuery = new QuickBaseQuery(request(query, clist, page), records, parser(),
+            engine().getCoalescer());
+        Callable<List<QuickBaseRecord>> collect = new Callable<List<QuickBaseRecord>>()
+        {
+            public List<QuickBaseRecord> call() throws Exception
+            {
+                pageQuery.failOnError().call();
+                return records.getRecords();
+            }
+        };
+        return engine().submit(collect, pageQuery);
+    }
+
+    private QuickBaseRequest request(String query, CList clist, int page)
+    {
+        String options = NUM + pageSize + SKP + ((long)page*pageSize);
+        return database.doQueryRequest(query, clist, SLIST_RECORD_ID, new NameValuePair(OPTIONS, options));
+    }
+
+    private QuickBaseQueryEngine engine()
+    {
+        return database.getConnection().getQueryEngine();
+    }
+
+    private QuickBaseResponseParser parser()
+    {
+        return engine().getResponseParser();
+    }
+
+    private static void cancel(List<? extends QuickBaseFuture<?>> futures)
+    {
+        for (QuickBaseFuture<?> future: futures)
+        {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * A {@link QuickBaseResultHandler} that forwards records from several pages to a single
+     * client-supplied result handler, one call at a time. Exceptions and completion of individual
+     * pages are not forwarded; they are reported once for the whole query.
+     */
+    private static class SerializedResultHandler implements QuickBaseResultHandler
+    {
+        private QuickBaseResultHandler resultHandler;
+
+        SerializedResultHandler(QuickBaseResultHandler resultHandler)
+        {
+            this.resultHandler = resultHandler;
+        }
+
+        public void handleRecord(QuickBaseRecord record)
+        {
+            synchronized (resultHandler)
+            {
+                resultHandler.handleRecord(record);
+            }
+        }
+
+        public void handleException(QuickBaseException exception)
+        {
+            // Reported by the QuickBasePagedQuery
+        }
+
+        public void done()
+        {
+            // Reported by the QuickBasePagedQuery
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBasePooledTransport.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpState;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.params.HttpConnectionParams;
+import org.apache.commons.httpclient.protocol.Protocol;
+import org.apache.commons.httpclient.protocol.ProtocolSocketFactory;
+import org.apache.commons.httpclient.protocol.SecureProtocolSocketFactory;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+
+/**
+ * The class {@link QuickBasePooledTransport} is the default {@link QuickBaseTransport}. It keeps a
+ * bounded pool of persistent (keep-alive) connections that can be used by multiple threads at the
+ * same time. The number of connections is limited per host as well as in total; threads that
+ * request a connection from an exhausted pool wait until another request releases its connection.
+ * Connections that stay idle for longer than the configured idle timeout are closed by a
+ * background thread.
+ * <p/>
+ * Because pooled HTTPS connections stay open between requests, consecutive requests to the same
+ * QuickBase server do not pay for a new TLS handshake. New connections to the same server can
+ * still resume previously negotiated TLS sessions from the JSSE session cache.
+ * <p/>
+ * For instrumented calls (see {@link QuickBaseListener}), the transport measures the time spent
+ * waiting for a pooled connection and the time spent opening a new connection. The connect time
+ * is measured by the socket factory while the HTTP library opens the connection, so failed
+ * connects are retried and reported by the library as usual. For HTTPS connections through a
+ * proxy, the connect time is not reported.
+ *
+ * @see QuickBase#setTransport(QuickBaseTransport)
+ */
+public class QuickBasePooledTransport implements QuickBaseTransport
+{
+    /** The default maximum number of connections per host. **/
+    public final static int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+
+    /** The default maximum number of connections for all hosts. **/
+    public final static int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+
+    /** The default time (in milliseconds) after which idle connections are closed. **/
+    public final static long DEFAULT_IDLE_TIMEOUT = 30000L;
+
+    private final static byte[] NO_CONTENT = {};
+    private final static long MINIMUM_EVICTION_INTERVAL = 1000L;
+    private final static String IDLE_THREAD_NAME = "QuickBase idle connection eviction"; //$NON-NLS-1$
+
+    private MultiThreadedHttpConnectionManager connectionManager;
+    private IdleConnectionTimeoutThread idleConnectionEviction;
+    private HttpClient httpClient;
+
+    /**
+     * Creates a new {@link QuickBasePooledTransport} with the default pool limits and idle
+     * timeout.
+     */
+    public QuickBasePooledTransport()
+    {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_TOTAL_CONNECTIONS, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Creates a new {@link QuickBasePooledTransport} with specific pool limits.
+     *
+     * @param maxConnectionsPerHost the maximum number of connections to a single host
+     * @param maxTotalConnections the maximum number of connections to all hosts
+     * @param idleTimeout the time (in milliseconds) after which an idle connection is closed
+     */
+    public QuickBasePooledTransport(int maxConnectionsPerHost, int maxTotalConnections,
+    long idleTimeout)
+    {
+        connectionManager = new InstrumentedConnectionManager();
+        HttpConnectionManagerParams parameters = connectionManager.getParams();
+        parameters.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+        parameters.setMaxTotalConnections(maxTotalConnections);
+        parameters.setStaleCheckingEnabled(true);
+        httpClient = new HttpClient(connectionManager);
+        idleConnectionEviction = new IdleConnectionTimeoutThread();
+        idleConnectionEviction.setName(IDLE_THREAD_NAME);
+        idleConnectionEviction.setConnectionTimeout(idleTimeout);
+        idleConnectionEviction.setTimeoutInterval(Math.max(MINIMUM_EVICTION_INTERVAL, idleTimeout/2));
+        idleConnectionEviction.addConnectionManager(connectionManager);
+        idleConnectionEviction.start();
+    }
+
+    /**
+     * Sets the time to wait for establishing a new connection.
+     *
+     * @param timeout the timeout in milliseconds (<code>0</code> means no timeout)
+     */
+    public void setConnectTimeout(int timeout)
+    {
+        connectionManager.getParams().setConnectionTimeout(timeout);
+    }
+
+    /**
+     * Sets the time to wait for response data on an established connection.
+     *
+     * @param timeout the timeout in milliseconds (<code>0</code> means no timeout)
+     */
+    public void setReadTimeout(int timeout)
+    {
+        connectionManager.getParams().setSoTimeout(timeout);
+    }
+
+    /**
+     * Sets the time to wait for a connection to become available if the pool is exhausted.
+     *
+     * @param timeout the timeout in milliseconds (<code>0</code> means no timeout)
+     */
+    public void setPoolTimeout(long timeout)
+    {
+        httpClient.getParams().setConnectionManagerTimeout(timeout);
+    }
+
+    /**
+     * Gets the number of connections that are currently open (in use or idle).
+     *
+     * @return the number of pooled connections
+     */
+    public int getConnectionsInPool()
+    {
+        return connectionManager.getConnectionsInPool();
+    }
+
+    /**
+     * Executes an {@link HttpMethod} using a pooled connection.
+     *
+     * @param method the {@link HttpMethod} to be executed
+     * @param state the {@link HttpState} (i.e., cookies) to be used for the request
+     * @return the response body; the connection is released when the stream is read to its end or
+     * closed
+     * @throws IOException if the request could not be executed
+     */
+    public InputStream execute(HttpMethod method, HttpState state) throws IOException
+    {
+        InputStream body;
+        try
+        {
+            httpClient.executeMethod(null, method, state);
+            body = method.getResponseBodyAsStream();
+        }
+        catch (IOException exception)
+        {
+            method.releaseConnection();
+            throw exception;
+        }
+        catch (RuntimeException exception)
+        {
+            method.releaseConnection();
+            throw exception;
+        }
+        if (body == null)
+        {
+            // Responses without a body (e.g., HEAD or 204) do not hold on to their connection:
+            //
+            method.releaseConnection();
+            body = new ByteArrayInputStream(NO_CONTENT);
+        }
+        return new QuickBaseResponseStream(method, body);
+    }
+
+    /**
+     * Shuts down the transport by stopping the idle connection eviction and closing all pooled
+     * connections.
+     */
+    public void shutdown()
+    {
+        idleConnectionEviction.shutdown();
+        connectionManager.shutdown();
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * A connection manager that reports pool wait and connect times to the
+     * {@link QuickBaseCallEvent} of the current call. For calls that are not instrumented it
+     * behaves exactly like its superclass.
+     * <p/>
+     * To measure connect times, the manager replaces the {@link Protocol} of every
+     * {@link HostConfiguration} with an equivalent protocol whose socket factory is timed. All
+     * connections of the pool are created with the timed protocols, so connections are pooled
+     * and released under the same keys.
+     */
+    private static class InstrumentedConnectionManager extends MultiThreadedHttpConnectionManager
+    {
+        private ConcurrentMap<Protocol, Protocol> timedProtocols =
+            new ConcurrentHashMap<Protocol, Protocol>();
+
+        InstrumentedConnectionManager()
+        {
+            super();
+        }
+
+        public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration,
+        long timeout) throws ConnectionPoolTimeoutException
+        {
+            HostConfiguration timedConfiguration = timed(hostConfiguration);
+            QuickBaseCallEvent event = QuickBaseCallEvent.current();
+            if (event == null)
+            {
+                return super.getConnectionWithTimeout(timedConfiguration, timeout);
+            }
+            long start = System.nanoTime();
+            HttpConnection connection = super.getConnectionWithTimeout(timedConfiguration, timeout);
+            event.poolWait(System.nanoTime() - start);
+            return connection;
+        }
+
+        private HostConfiguration timed(HostConfiguration hostConfiguration)
+        {
+            Protocol protocol = hostConfiguration.getProtocol();
+            if (protocol == null || protocol.getSocketFactory() instanceof TimedSocketFactory)
+            {
+                return hostConfiguration;
+            }
+            Protocol timedProtocol = timedProtocols.get(protocol);
+            if (timedProtocol == null)
+            {
+                ProtocolSocketFactory factory = protocol.getSocketFactory();
+                timedProtocol = new Protocol(protocol.getScheme(),
+                    factory instanceof SecureProtocolSocketFactory?
+                    new TimedSecureSocketFactory((SecureProtocolSocketFactory)factory):
+                    new TimedSocketFactory(factory), protocol.getDefaultPort());
+                Protocol previous = timedProtocols.putIfAbsent(protocol, timedProtocol);
+                timedProtocol = previous != null? previous:timedProtocol;
+            }
+            HostConfiguration timedConfiguration = (HostConfiguration)hostConfiguration.clone();
+            timedConfiguration.setHost(hostConfiguration.getHost(), hostConfiguration.getPort(),
+                timedProtocol);
+            return timedConfiguration;
+        }
+    }
+
+    /**
+     * A {@link ProtocolSocketFactory} that reports the time for opening a socket to the
+     * {@link QuickBaseCallEvent} of the current call. Factories are equal if the factories that
+     * they wrap are equal.
+     */
+    private static class TimedSocketFactory implements ProtocolSocketFactory
+    {
+        private ProtocolSocketFactory factory;
+
+        TimedSocketFactory(ProtocolSocketFactory factory)
+        {
+            this.factory = factory;
+        }
+
+        public Socket createSocket(String host, int port, InetAddress localAddress, int localPort)
+        throws IOException
+        {
+            long start = System.nanoTime();
+            Socket socket = factory.createSocket(host, port, localAddress, localPort);
+            connected(start);
+            return socket;
+        }
+
+        public Socket createSocket(String host, int port, InetAddress localAddress, int localPort,
+        HttpConnectionParams parameters) throws IOException
+        {
+            long start = System.nanoTime();
+            Socket socket = factory.createSocket(host, port, localAddress, localPort, parameters);
+            connected(start);
+            return socket;
+        }
+
+        public Socket createSocket(String host, int port) throws IOException
+        {
+            long start = System.nanoTime();
+            Socket socket = factory.createSocket(host, port);
+            connected(start);
+            return socket;
+        }
+
+        public boolean equals(Object object)
+        {
+            return object != null && object.getClass() == getClass()
+                && factory.equals(((TimedSocketFactory)object).factory);
+        }
+
+        public int hashCode()
+        {
+            return factory.hashCode();
+        }
+
+        private static void connected(long start)
+        {
+            QuickBaseCallEvent event = QuickBaseCallEvent.current();
+            if (event != null)
+            {
+                event.connect(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * A {@link TimedSocketFactory} for secure protocols. Sockets that are layered over a proxy
+     * tunnel are not timed.
+     */
+    private static class TimedSecureSocketFactory extends TimedSocketFactory
+    implements SecureProtocolSocketFactory
+    {
+        private SecureProtocolSocketFactory factory;
+
+        TimedSecureSocketFactory(SecureProtocolSocketFactory factory)
+        {
+            super(factory);
+            this.factory = factory;
+        }
+
+        public Socket createSocket(Socket socket, String host, int port, boolean autoClose)
+        throws IOException
+        {
+            return factory.createSocket(socket, host, port, autoClose);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseQuery.java
+ * Created on : Jan 7, 2009
+ * @author Mirko Raner
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * The class <code>QuickBaseQuery</code> executes a {@link QuickBaseRequest} and parses the
+ * {@link InputSource} of the resulting QuickBase result set. The individual XML records are sent
+ * to a <code>QuickBaseContentHandler</code>, which in turn forwards them to a client-supplied
+ * {@link QuickBaseResultHandler}. A <code>QuickBaseQuery</code> does not have a thread of its own;
+ * it is run by the {@link QuickBaseQueryEngine}, either on the calling thread or on a worker
+ * thread.
+ * <p/>
+ * Problems that occur while parsing the response are reported to the
+ * {@link QuickBaseResultHandler}. A query can be {@link #abort(String) aborted} from any thread,
+ * which closes the underlying HTTP connection and causes the parsing to stop.
+ * <p/>
+ * If the query was created with a {@link QuickBaseCoalescer}, it shares its request and parsing
+ * pass with identical queries that run at the same time. In this case, the records may be
+ * delivered to the {@link QuickBaseResultHandler} on the thread that executes the shared request,
+ * and aborting the query only detaches it from that request. If the connection has a
+ * {@link QuickBaseQueryCache}, a cached result is delivered without executing the request at all.
+ *
+ * @author Mirko Raner
+ * @version $Revision: 13 $ $Change: 714052 $
+ */
+class QuickBaseQuery implements Callable<Void>
+{
+    private final static ThreadLocal<QuickBaseQuery> EXECUTING = new ThreadLocal<QuickBaseQuery>();
+
+    private QuickBaseRequest request;
+    private QuickBaseResultHandler resultHandler;
+    private QuickBaseResponseParser parser;
+    private QuickBaseCoalescer coalescer;
+    private volatile QuickBaseCoalescer.Flight flight;
+    private QuickBaseCoalescer.Flight piloted;
+    private volatile InputSource response;
+    private volatile String abortReason;
+    private volatile QuickBaseException failure;
+
+    /**
+     * Creates a new {@link QuickBaseQuery}.
+     *
+     * @param request the {@link QuickBaseRequest} that produces the QuickBase response
+     * @param resultHandler the client-supplied {@link QuickBaseResultHandler}
+     * @param parser the {@link QuickBaseResponseParser} for parsing the response
+     */
+    QuickBaseQuery(QuickBaseRequest request, QuickBaseResultHandler resultHandler,
+    QuickBaseResponseParser parser)
+    {
+        this(request, resultHandler, parser, null);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseQuery} that may be coalesced with identical queries.
+     *
+     * @param request the {@link QuickBaseRequest} that produces the QuickBase response
+     * @param resultHandler the client-supplied {@link QuickBaseResultHandler}
+     * @param parser the {@link QuickBaseResponseParser} for parsing the response
+     * @param coalescer the {@link QuickBaseCoalescer}, or <code>null</code> if the query should
+     * always send its own request
+     */
+    QuickBaseQuery(QuickBaseRequest request, QuickBaseResultHandler resultHandler,
+    QuickBaseResponseParser parser, QuickBaseCoalescer coalescer)
+    {
+        this.request = request;
+        this.resultHandler = resultHandler;
+        this.parser = parser;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Executes the request and performs the parsing.
+     *
+     * @return always <code>null</code>
+     * @throws QuickBaseException if the request could not be executed (parsing problems are
+     * reported to the {@link QuickBaseResultHandler} instead)
+     * @see Callable#call()
+     */
+    public Void call() throws QuickBaseException
+    {
+        if (abortReason != null)
+        {
+            throw new QuickBaseException(abortReason);
+        }
+        QuickBaseQueryCache.Slot slot = request.getCacheSlot();
+        if (slot != null)
+        {
+            List<QuickBaseRecord> records = slot.get();
+            if (records != null)
+            {
+                replay(records);
+                return null;
+            }
+        }
+        Object key = coalescer != null? request.getKey():null;
+        QuickBaseCoalescer.Flight currentFlight = key != null? coalescer.join(key, this):null;
+        if (currentFlight == null)
+        {
+            execute(slot);
+            return null;
+        }
+        flight = currentFlight;
+        if (abortReason != null)
+        {
+            currentFlight.leave(this);
+        }
+        if (currentFlight.await(this))
+        {
+            failure = currentFlight.getFailure();
+        }
+        else
+        {
+            report(resultHandler, new QuickBaseException(abortReason));
+        }
+        return null;
+    }
+
+    /**
+     * Aborts the query. If the request was already executed its HTTP connection is closed, which
+     * will cause the parser to fail with the supplied reason. A coalesced query is only detached
+     * from its flight; the shared request is aborted when no members are left.
+     *
+     * @param reason the reason for aborting the query (for example, a timeout)
+     */
+    void abort(String reason)
+    {
+        abortReason = reason;
+        QuickBaseCoalescer.Flight currentFlight = flight;
+        if (currentFlight != null)
+        {
+            currentFlight.leave(this);
+            return;
+        }
+        InputSource currentResponse = response;
+        if (currentResponse != null)
+        {
+            InputStream stream = currentResponse.getByteStream();
+            if (stream instanceof QuickBaseResponseStream)
+            {
+                ((QuickBaseResponseStream)stream).abort();
+            }
+        }
+    }
+
+    /**
+     * Creates the query that executes the shared request of a {@link QuickBaseCoalescer.Flight}
+     * on behalf of its members. The pilot query delivers the results to the flight, which
+     * forwards them to the members' result handlers.
+     *
+     * @param currentFlight the {@link QuickBaseCoalescer.Flight}
+     * @return the pilot {@link QuickBaseQuery}
+     */
+    QuickBaseQuery pilot(QuickBaseCoalescer.Flight currentFlight)
+    {
+        QuickBaseQuery pilot = new QuickBaseQuery(request, currentFlight, parser);
+        pilot.piloted = currentFlight;
+        return pilot;
+    }
+
+    /**
+     * Checks whether the request that is currently executed on the calling thread belongs to a
+     * query that was aborted. The {@link QuickBaseRetryPolicy} uses this to avoid sending the
+     * request of a cancelled or timed-out query again.
+     *
+     * @return <code>true</code> if the calling thread executes the request of an aborted query
+     */
+    static boolean isAborted()
+    {
+        QuickBaseQuery query = EXECUTING.get();
+        return query != null && query.abortReason != null;
+    }
+
+    /**
+     * Gets the client-supplied {@link QuickBaseResultHandler}.
+     *
+     * @return the {@link QuickBaseResultHandler}
+     */
+    QuickBaseResultHandler getResultHandler()
+    {
+        return resultHandler;
+    }
+
+    /**
+     * Gets the exception that was reported to the {@link QuickBaseResultHandler} while parsing
+     * the response.
+     *
+     * @return the reported {@link QuickBaseException}, or <code>null</code> if no problem occurred
+     */
+    QuickBaseException getFailure()
+    {
+        return failure;
+    }
+
+    /**
+     * Returns a {@link Callable} that runs this query and, unlike {@link #call()}, also throws any
+     * exception that was reported to the {@link QuickBaseResultHandler}. This allows a
+     * {@link QuickBaseFuture} to fail if the results could not be processed completely.
+     *
+     * @return a {@link Callable} for this query
+     */
+    Callable<Void> failOnError()
+    {
+        return new Callable<Void>()
+        {
+            public Void call() throws QuickBaseException
+            {
+                QuickBaseQuery.this.call();
+                if (failure != null)
+                {
+                    throw failure;
+                }
+                return null;
+            }
+        };
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Executes the request and parses the response.
+     *
+     * @param slot the {@link QuickBaseQueryCache.Slot} for the result (or <code>null</code> if the
+     * result is not cached)
+     * @throws QuickBaseException if the request could not be executed
+     */
+    private void execute(QuickBaseQueryCache.Slot slot) throws QuickBaseException
+    {
+        QuickBaseQuery previous = EXECUTING.get();
+        EXECUTING.set(this);
+        try
+        {
+            response = request.execute();
+        }
+        finally
+        {
+            EXECUTING.set(previous);
+        }
+        if (piloted != null)
+        {
+            piloted.departed();
+        }
+        if (abortReason != null)
+        {
+            abort(abortReason);
+        }
+        QuickBaseResultHandler handler = resultHandler;
+        QuickBaseCallEvent event = QuickBaseResponseStream.event(response);
+        QuickBaseContentHandler contentHandler;
+        contentHandler = new QuickBaseContentHandler(slot != null? slot.fill(handler):handler);
+        long start = System.nanoTime();
+        try
+        {
+            parser.parse(response, contentHandler);
+            if (contentHandler.getException() != null)
+            {
+                failure = contentHandler.getException();
+            }
+        }
+        catch (SAXException saxException)
+        {
+            report(handler, exception(saxException));
+        }
+        catch (IOException ioException)
+        {
+            report(handler, exception(ioException));
+        }
+        finally
+        {
+            if (event != null)
+            {
+                event.parsed(System.nanoTime() - start, contentHandler.getRecordCount());
+                if (failure != null)
+                {
+                    event.failed(failure);
+                }
+            }
+            QuickBaseResponseStream.close(response);
+        }
+    }
+
+    /**
+     * Delivers a cached result to the {@link QuickBaseResultHandler}.
+     *
+     * @param records the cached records
+     */
+    private void replay(List<QuickBaseRecord> records)
+    {
+        for (QuickBaseRecord record: records)
+        {
+            if (abortReason != null)
+            {
+                report(resultHandler, new QuickBaseException(abortReason));
+                return;
+            }
+            resultHandler.handleRecord(record);
+        }
+        resultHandler.done();
+    }
+
+    private void report(QuickBaseResultHandler handler, QuickBaseException exception)
+    {
+        failure = exception;
+        handler.handleException(exception);
+    }
+
+    private QuickBaseException exception(Exception cause)
+    {
+        String reason = abortReason;
+        return reason != null? new QuickBaseException(reason, cause):new QuickBaseException(cause);
+    }
+}
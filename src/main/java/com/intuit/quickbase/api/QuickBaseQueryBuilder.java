@@ -0,0 +1,466 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseQueryBuilder.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import com.intuit.quickbase.api.query.CList;
+import com.intuit.quickbase.api.query.Query;
+import com.intuit.quickbase.api.query.QueryClause;
+import com.intuit.quickbase.api.query.QueryExecutionMode;
+import com.intuit.quickbase.api.query.QueryJunction;
+import com.intuit.quickbase.api.query.QueryOperator;
+
+/**
+ * The class {@link QuickBaseQueryBuilder} composes the parameters of an
+ * {@link QuickBaseAPICall#API_DoQuery} call from {@link QuickBaseField}s, so that filtering,
+ * sorting and limiting the number of records can be left to QuickBase instead of being done on
+ * the client after a broad result set was transferred. For example:
+ * <small><pre>
+ * new QuickBaseQueryBuilder(database)
+ *     .where(STATUS, QueryOperator.EX, "open")
+ *     .where(PRIORITY, QueryOperator.GTE, 2)
+ *     .select(TITLE, PRIORITY)
+ *     .orderBy(PRIORITY, true)
+ *     .limit(50)
+ *     .doQuery(resultHandler, QueryExecutionMode.synchronous);
+ * </pre></small>
+ * Values are converted to strings by the {@link QuickBaseField}'s resolver. The conditions of all
+ * {@link #where(QuickBaseField, QueryOperator, Object) where} calls must be met; alternatives can
+ * be expressed with {@link #anyOf(Query...)}. The query, <code>clist</code>, <code>slist</code>
+ * and <code>options</code> parameters are compiled once and reused until the builder is modified.
+ * <p/>
+ * The records of a builder's queries only contain the {@link #select(QuickBaseField...)
+ * selected} fields. Reading any other field from such a record returns <code>null</code> (as
+ * for any field that a record does not contain), and the first such access of each field is
+ * logged as a warning, since it usually means that a field is missing from the selection.
+ * <p/>
+ * {@link QuickBaseQueryBuilder}s are not thread-safe, but a builder that is no longer modified can
+ * be used to perform queries from multiple threads.
+ */
+public class QuickBaseQueryBuilder
+{
+    private final static String QUERY = "query"; //$NON-NLS-1$
+    private final static String CLIST = "clist"; //$NON-NLS-1$
+    private final static String SLIST = "slist"; //$NON-NLS-1$
+    private final static String OPTIONS = "options"; //$NON-NLS-1$
+    private final static String NUM = "num-"; //$NON-NLS-1$
+    private final static String SKP = "skp-"; //$NON-NLS-1$
+    private final static String SORTORDER = "sortorder-"; //$NON-NLS-1$
+    private final static String EMPTY = ""; //$NON-NLS-1$
+    private final static String NOT_SELECTED = "field %d is not selected by query %s"; //$NON-NLS-1$
+    private final static char ASCENDING = 'A';
+    private final static char DESCENDING = 'D';
+    private final static char SEPARATOR = '.';
+    private final static Log LOG = LogFactory.getLog(QuickBaseQueryBuilder.class);
+
+    private QuickBaseDatabase database;
+    private List<Query> conditions;
+    private Set<Integer> columns;
+    private List<Integer> sortFields;
+    private StringBuffer sortOrder;
+    private int limit;
+    private int skip;
+    private volatile Compiled compiled;
+
+    /**
+     * Creates a new {@link QuickBaseQueryBuilder} that selects all records of a table.
+     *
+     * @param database the {@link QuickBaseDatabase} of the queried table
+     */
+    public QuickBaseQueryBuilder(QuickBaseDatabase database)
+    {
+        this.database = database;
+        this.conditions = new ArrayList<Query>();
+        this.columns = new LinkedHashSet<Integer>();
+        this.sortFields = new ArrayList<Integer>();
+        this.sortOrder = new StringBuffer();
+    }
+
+    /**
+     * Creates a condition for a field.
+     *
+     * @param <$FieldType> the type parameter specifying the type that represents the field in Java
+     * @param field the compared {@link QuickBaseField}
+     * @param operator the {@link QueryOperator}
+     * @param value the value that the field is compared with
+     * @return the condition as a {@link Query}
+     */
+    public static <$FieldType> Query condition(QuickBaseField<$FieldType> field,
+    QueryOperator operator, $FieldType value)
+    {
+        return new QueryClause(field.getID(), operator, value != null? field.toString(value):EMPTY);
+    }
+
+    /**
+     * Combines conditions so that at least one of them must be met.
+     *
+     * @param alternatives the alternative conditions
+     * @return the combined condition
+     */
+    public static Query anyOf(Query... alternatives)
+    {
+        return new QueryJunction(false, Arrays.asList(alternatives));
+    }
+
+    /**
+     * Adds a condition that the selected records must meet.
+     *
+     * @param <$FieldType> the type parameter specifying the type that represents the field in Java
+     * @param field the compared {@link QuickBaseField}
+     * @param operator the {@link QueryOperator}
+     * @param value the value that the field is compared with
+     * @return the {@link QuickBaseQueryBuilder} itself
+     */
+    public <$FieldType> QuickBaseQueryBuilder where(QuickBaseField<$FieldType> field,
+    QueryOperator operator, $FieldType value)
+    {
+        return where(condition(field, operator, value));
+    }
+
+    /**
+     * Adds a condition that the selected records must meet.
+     *
+     * @param condition the condition (for example, a combination created by
+     * {@link #anyOf(Query...)} or a parsed {@link Query})
+     * @return the {@link QuickBaseQueryBuilder} itself
+     */
+    public QuickBaseQueryBuilder where(Query condition)
+    {
+        conditions.add(condition);
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Adds fields to the results. If no fields are selected, QuickBase returns the table's
+     * default columns.
+     *
+     * @param fields the {@link QuickBaseField}s
+     * @return the {@link QuickBaseQueryBuilder} itself
+     */
+    public QuickBaseQueryBuilder select(QuickBaseField<?>... fields)
+    {
+        for (QuickBaseField<?> field: fields)
+        {
+            columns.add(Integer.valueOf(field.getID()));
+        }
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Adds a field by which the records are sorted. The first field is the primary sort key.
+     *
+     * @param field the {@link QuickBaseField}
+     * @param descending <code>true</code> to sort in descending order
+     * @return the {@link QuickBaseQueryBuilder} itself
+     */
+    public QuickBaseQueryBuilder orderBy(QuickBaseField<?> field, boolean descending)
+    {
+        sortFields.add(Integer.valueOf(field.getID()));
+        sortOrder.append(descending? DESCENDING:ASCENDING);
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Limits the number of returned records.
+     *
+     * @param limit the maximum number of records (<code>0</code> for no limit)
+     * @return the {@link QuickBaseQueryBuilder} itself
+     */
+    public QuickBaseQueryBuilder limit(int limit)
+    {
+        this.limit = limit;
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Skips a number of matching records (usually in combination with {@link #orderBy} and
+     * {@link #limit(int)}).
+     *
+     * @param skip the number of records to skip
+     * @return the {@link QuickBaseQueryBuilder} itself
+     */
+    public QuickBaseQueryBuilder skip(int skip)
+    {
+        this.skip = skip;
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Gets the combined condition of the query, which can also be evaluated locally by a
+     * {@link QuickBaseQueryEvaluator}.
+     *
+     * @return the {@link Query}, or <code>null</code> if all records are selected
+     */
+    public Query getCondition()
+    {
+        return compile().condition;
+    }
+
+    /**
+     * Gets the <code>query</code> parameter.
+     *
+     * @return the query string (empty if all records are selected)
+     */
+    public String getQuery()
+    {
+        return compile().query;
+    }
+
+    /**
+     * Gets the <code>clist</code> parameter.
+     *
+     * @return the {@link CList}
+     */
+    public CList getCList()
+    {
+        return compile().clist;
+    }
+
+    /**
+     * Gets the <code>slist</code> parameter.
+     *
+     * @return the sort fields separated by dots (empty if the records are not sorted)
+     */
+    public String getSList()
+    {
+        return compile().slist;
+    }
+
+    /**
+     * Gets the <code>options</code> parameter.
+     *
+     * @return the options separated by dots (for example, <code>num-50.sortorder-D</code>)
+     */
+    public String getOptions()
+    {
+        return compile().options;
+    }
+
+    /**
+     * Performs the query.
+     *
+     * @param resultHandler a {@link QuickBaseResultHandler} that processes the results
+     * @param mode {@link QueryExecutionMode#synchronous} to process the results on the calling
+     * thread, or {@link QueryExecutionMode#asynchronous} to process them on a thread of the
+     * connection's {@link QuickBaseQueryEngine}
+     * @return a {@link QuickBaseFuture} that completes when all results were processed
+     * @throws QuickBaseException if a problem occurred while communicating with the database
+     * @see QuickBaseDatabase#doQuery(QuickBaseResultHandler, String, CList, QueryExecutionMode)
+     */
+    public QuickBaseFuture<Void> doQuery(QuickBaseResultHandler resultHandler,
+    QueryExecutionMode mode) throws QuickBaseException
+    {
+        Compiled compiled = compile();
+        QuickBaseRequest request = database.doQueryRequest(compiled.query, compiled.clist,
+            compiled.parameters);
+        QuickBaseResultHandler monitored = compiled.monitor(resultHandler);
+        return database.getConnection().getQueryEngine().query(request, monitored, mode);
+    }
+
+    /**
+     * Counts the records that match the query's conditions (regardless of {@link #limit(int)}
+     * and {@link #skip(int)}).
+     *
+     * @return the number of matching records
+     * @throws QuickBaseException if a problem occurred while communicating with the database
+     */
+    public int doQueryCount() throws QuickBaseException
+    {
+        return database.doQueryCount(getQuery());
+    }
+
+    /**
+     * Converts the {@link QuickBaseQueryBuilder} to a string.
+     *
+     * @return the query parameters in URL form
+     */
+    public String toString()
+    {
+        return compile().toString();
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private Compiled compile()
+    {
+        Compiled query = compiled;
+        if (query == null)
+        {
+            compiled = query = new Compiled();
+        }
+        return query;
+    }
+
+    private static String join(List<?> elements, char separator)
+    {
+        StringBuffer string = new StringBuffer();
+        for (Object element: elements)
+        {
+            if (string.length() > 0)
+            {
+                string.append(separator);
+            }
+            string.append(element);
+        }
+        return string.toString();
+    }
+
+    /**
+     * The compiled parameters of the builder's current state, which also keep track of the
+     * fields that were accessed although they were not selected.
+     */
+    private class Compiled implements QuickBaseRecordLayout.Monitor
+    {
+        final Query condition;
+        final String query;
+        final CList clist;
+        final String slist;
+        final String options;
+        final NameValuePair[] parameters;
+        private Set<Integer> reported;
+
+        // Layouts do not override equals(), so they are compared by identity:
+        //
+        private Map<QuickBaseRecordLayout, QuickBaseRecordLayout> layouts;
+
+        Compiled()
+        {
+            condition = conditions.isEmpty()? null:conditions.size() == 1? conditions.get(0)
+                :new QueryJunction(true, conditions);
+            query = condition != null? condition.toString():EMPTY;
+            int[] ids = new int[columns.size()];
+            int index = 0;
+            for (Integer column: columns)
+            {
+                ids[index++] = column.intValue();
+            }
+            clist = new CList(ids);
+            slist = join(sortFields, SEPARATOR);
+            List<String> optionList = new ArrayList<String>();
+            if (limit > 0)
+            {
+                optionList.add(NUM + limit);
+            }
+            if (skip > 0)
+            {
+                optionList.add(SKP + skip);
+            }
+            if (sortOrder.length() > 0)
+            {
+                optionList.add(SORTORDER + sortOrder);
+            }
+            options = join(optionList, SEPARATOR);
+            List<NameValuePair> pairs = new ArrayList<NameValuePair>();
+            if (slist.length() > 0)
+            {
+                pairs.add(new NameValuePair(SLIST, slist));
+            }
+            if (options.length() > 0)
+            {
+                pairs.add(new NameValuePair(OPTIONS, options));
+            }
+            parameters = pairs.toArray(new NameValuePair[pairs.size()]);
+            reported = Collections.synchronizedSet(new HashSet<Integer>());
+            layouts = new WeakHashMap<QuickBaseRecordLayout, QuickBaseRecordLayout>();
+        }
+
+        /**
+         * Creates a {@link QuickBaseResultHandler} that monitors access to unselected fields of
+         * the records before forwarding them. Without a selection, QuickBase returns the default
+         * columns, so the records are not monitored. The result handler receives monitored views
+         * of the records; the records themselves may be shared with other queries and are not
+         * modified.
+         *
+         * @param resultHandler the {@link QuickBaseResultHandler} that receives the records
+         * @return the monitoring {@link QuickBaseResultHandler}
+         */
+        QuickBaseResultHandler monitor(final QuickBaseResultHandler resultHandler)
+        {
+            if (clist.getColumns().length == 0)
+            {
+                return resultHandler;
+            }
+            return new QuickBaseResultHandler()
+            {
+                public void handleRecord(QuickBaseRecord record)
+                {
+                    resultHandler.handleRecord(record.view(monitored(record.getLayout())));
+                }
+
+                public void handleException(QuickBaseException exception)
+                {
+                    resultHandler.handleException(exception);
+                }
+
+                public void done()
+                {
+                    resultHandler.done();
+                }
+            };
+        }
+
+        public void missing(int fieldID)
+        {
+            if (reported.add(Integer.valueOf(fieldID)))
+            {
+                LOG.warn(String.format(NOT_SELECTED, Integer.valueOf(fieldID), this));
+            }
+        }
+
+        /**
+         * Converts the compiled parameters to a string.
+         *
+         * @return the query parameters in URL form
+         */
+        public String toString()
+        {
+            StringBuffer string = new StringBuffer(database.getDBID());
+            string.append('?').append(QUERY).append('=').append(query);
+            string.append('&').append(CLIST).append('=').append(clist);
+            for (NameValuePair parameter: parameters)
+            {
+                string.append('&').append(parameter.getName()).append('=').append(parameter.getValue());
+            }
+            return string.toString();
+        }
+
+        private QuickBaseRecordLayout monitored(QuickBaseRecordLayout layout)
+        {
+            synchronized (layouts)
+            {
+                QuickBaseRecordLayout monitored = layouts.get(layout);
+                if (monitored == null)
+                {
+                    layouts.put(layout, monitored = layout.monitor(this));
+                }
+                return monitored;
+            }
+        }
+    }
+}
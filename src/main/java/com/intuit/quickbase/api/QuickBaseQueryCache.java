@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseQueryCache.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class {@link QuickBaseQueryCache} is a read-through cache for the results of
+ * {@link QuickBaseAPICall#API_DoQuery} calls. Results are cached as the already parsed (and
+ * compactly stored) {@link QuickBaseRecord}s, keyed by the connection, the database ID, the query
+ * string, the column list and any additional query options. Because the connection is part of
+ * the key, a cache that is shared by connections of different users never answers the query of
+ * one user with records that were retrieved with the permissions of another. A query whose result is in the cache and has not
+ * expired is answered without contacting QuickBase; its records are delivered to the
+ * {@link QuickBaseResultHandler} as if they had been received from the server.
+ * <p/>
+ * The total size of all cached results is bounded by a number of bytes (estimated from the
+ * records' contents). When the bound is exceeded, results are evicted either in least recently
+ * used or in least frequently used order. Results that would occupy more than a quarter of the
+ * cache are not cached at all.
+ * <p/>
+ * Whenever the connection that owns the cache sends a non-idempotent call for a table (for
+ * example, {@link QuickBaseTable#addRecord(QuickBaseRecordBuilder)} or a
+ * {@link QuickBaseBulkWriter bulk import}), all cached results of that table are invalidated.
+ * Queries that were already running when the table was modified do not store their (possibly
+ * outdated) results. Changes that are made by other connections or other clients only become
+ * visible after the cached results have expired.
+ * <p/>
+ * A {@link QuickBaseQueryCache} is associated with a connection via
+ * {@link QuickBaseConnection#setQueryCache(QuickBaseQueryCache)} and is safe for use by multiple
+ * threads. The cached {@link QuickBaseRecord}s are shared by all queries that are answered from
+ * the cache.
+ */
+public class QuickBaseQueryCache
+{
+    /** The default time-to-live of a cached result (1 minute). **/
+    public final static long DEFAULT_TIME_TO_LIVE = 60*1000L;
+
+    /** The default maximum size of all cached results (32 MB). **/
+    public final static long DEFAULT_MAX_BYTES = 32*1024*1024L;
+
+    /**
+     * The order in which cached results are evicted when the cache is full.
+     */
+    public static enum Eviction
+    {
+        /** Evicts the result that was used least recently. **/
+        LEAST_RECENTLY_USED,
+
+        /** Evicts the result that was used least often (or, among those, least recently). **/
+        LEAST_FREQUENTLY_USED
+    }
+
+    private final static int MAX_ENTRY_FRACTION = 4;
+    private final static int ENTRY_OVERHEAD = 96;
+    private final static int REFERENCE_SIZE = 8;
+
+    private long timeToLive;
+    private long maxBytes;
+    private Eviction eviction;
+    private LinkedHashMap<String, CachedResult> entries;
+    private Map<String, Long> generations;
+    private long modifications;
+    private long cleared;
+    private long bytes;
+    private AtomicLong hits;
+    private AtomicLong misses;
+    private AtomicLong evictions;
+
+    /**
+     * Creates a new {@link QuickBaseQueryCache} with default time-to-live and size, which evicts
+     * the least recently used results first.
+     */
+    public QuickBaseQueryCache()
+    {
+        this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_BYTES, Eviction.LEAST_RECENTLY_USED);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseQueryCache}.
+     *
+     * @param timeToLive the time (in milliseconds) for which a cached result is used
+     * @param maxBytes the maximum (estimated) size of all cached results in bytes
+     * @param eviction the {@link Eviction} order
+     */
+    public QuickBaseQueryCache(long timeToLive, long maxBytes, Eviction eviction)
+    {
+        if (timeToLive <= 0 || maxBytes <= 0)
+        {
+            throw new IllegalArgumentException(timeToLive + "/" + maxBytes); //$NON-NLS-1$
+        }
+        this.timeToLive = timeToLive;
+        this.maxBytes = maxBytes;
+        this.eviction = eviction;
+        this.entries = new LinkedHashMap<String, CachedResult>(16, 0.75F, true);
+        this.generations = new HashMap<String, Long>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+    }
+
+    /**
+     * Removes all cached results of a table.
+     *
+     * @param dbid the database ID of the table
+     */
+    public void invalidate(String dbid)
+    {
+        synchronized (entries)
+        {
+            generations.put(dbid, Long.valueOf(++modifications));
+            for (Iterator<CachedResult> iterator = entries.values().iterator(); iterator.hasNext();)
+            {
+                CachedResult entry = iterator.next();
+                if (entry.dbid.equals(dbid))
+                {
+                    bytes -= entry.size;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            cleared = ++modifications;
+            generations.clear();
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Gets the number of queries that were answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of queries that had to be sent to QuickBase.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of results that were evicted because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the estimated size of all cached results.
+     *
+     * @return the size in bytes
+     */
+    public long getSize()
+    {
+        synchronized (entries)
+        {
+            return bytes;
+        }
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Creates a {@link Slot} for the result of a query. The slot must be created before the query
+     * is executed, so that modifications of the table during the query can be detected.
+     *
+     * @param connection the {@link QuickBaseConnection} that executes the query
+     * @param dbid the database ID of the queried table
+     * @param key a key that uniquely identifies the query within the table
+     * @return the {@link Slot}
+     */
+    Slot slot(QuickBaseConnection connection, String dbid, String key)
+    {
+        synchronized (entries)
+        {
+            String slotKey = dbid + '@' + connection.getId() + '?' + key;
+            return new Slot(dbid, slotKey, generation(dbid));
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private List<QuickBaseRecord> get(String key)
+    {
+        synchronized (entries)
+        {
+            CachedResult entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() >= entry.expires)
+            {
+                bytes -= entry.size;
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null)
+            {
+                misses.incrementAndGet();
+                return null;
+            }
+            entry.uses++;
+            hits.incrementAndGet();
+            return entry.records;
+        }
+    }
+
+    private void put(String dbid, String key, long generation, List<QuickBaseRecord> records,
+    long size)
+    {
+        synchronized (entries)
+        {
+            if (generation(dbid) != generation)
+            {
+                // The table was modified while the query was running:
+                //
+                return;
+            }
+            CachedResult entry = new CachedResult(dbid, records, size,
+                System.currentTimeMillis() + timeToLive);
+            CachedResult previous = entries.put(key, entry);
+            if (previous != null)
+            {
+                bytes -= previous.size;
+            }
+            bytes += size;
+            while (bytes > maxBytes)
+            {
+                evict(entry);
+            }
+        }
+    }
+
+    /**
+     * Evicts a cached result (other than the one that was just added).
+     *
+     * @param added the most recently added result
+     */
+    private void evict(CachedResult added)
+    {
+        Map.Entry<String, CachedResult> victim = null;
+        for (Map.Entry<String, CachedResult> entry: entries.entrySet())
+        {
+            // Entries are iterated in least recently used order:
+            //
+            if (entry.getValue() != added && (victim == null
+            || entry.getValue().uses < victim.getValue().uses))
+            {
+                victim = entry;
+                if (eviction == Eviction.LEAST_RECENTLY_USED)
+                {
+                    break;
+                }
+            }
+        }
+        bytes -= victim.getValue().size;
+        entries.remove(victim.getKey());
+        evictions.incrementAndGet();
+    }
+
+    /**
+     * Gets the generation of a table's results. The generation changes whenever the table's
+     * results are invalidated (or the whole cache is cleared).
+     *
+     * @param dbid the database ID of the table
+     * @return the generation
+     */
+    private long generation(String dbid)
+    {
+        Long generation = generations.get(dbid);
+        return generation == null? cleared:generation.longValue();
+    }
+
+    /**
+     * A <code>Slot</code> is the place in the cache where the result of a particular query is
+     * stored.
+     */
+    class Slot
+    {
+        private String dbid;
+        private String key;
+        private long generation;
+
+        Slot(String dbid, String key, long generation)
+        {
+            this.dbid = dbid;
+            this.key = key;
+            this.generation = generation;
+        }
+
+        /**
+         * Gets the cached result.
+         *
+         * @return an unmodifiable list of the cached records, or <code>null</code> if the result
+         * is not cached (or has expired)
+         */
+        List<QuickBaseRecord> get()
+        {
+            return QuickBaseQueryCache.this.get(key);
+        }
+
+        /**
+         * Creates a {@link QuickBaseResultHandler} that forwards all results to another handler
+         * and stores the result in the cache once it is complete. Results that were accompanied
+         * by an error are not stored, and neither are results of a table that was modified after
+         * the slot was created.
+         *
+         * @param resultHandler the {@link QuickBaseResultHandler} that receives the results
+         * @return the filling {@link QuickBaseResultHandler}
+         */
+        QuickBaseResultHandler fill(final QuickBaseResultHandler resultHandler)
+        {
+            final long maxSize = maxBytes/MAX_ENTRY_FRACTION;
+            return new QuickBaseResultHandler()
+            {
+                private List<QuickBaseRecord> records = new ArrayList<QuickBaseRecord>();
+                private long size = ENTRY_OVERHEAD + 2*key.length();
+
+                public void handleRecord(QuickBaseRecord record)
+                {
+                    if (records != null)
+                    {
+                        records.add(record);
+                        size += record.getSize() + REFERENCE_SIZE;
+                        if (size > maxSize)
+                        {
+                            records = null;
+                        }
+                    }
+                    resultHandler.handleRecord(record);
+                }
+
+                public void handleException(QuickBaseException exception)
+                {
+                    records = null;
+                    resultHandler.handleException(exception);
+                }
+
+                public void done()
+                {
+                    if (records != null)
+                    {
+                        put(dbid, key, generation, Collections.unmodifiableList(records), size);
+                        records = null;
+                    }
+                    resultHandler.done();
+                }
+            };
+        }
+    }
+
+    /**
+     * A cached query result.
+     */
+    private static class CachedResult
+    {
+        final String dbid;
+        final List<QuickBaseRecord> records;
+        final long size;
+        final long expires;
+        int uses;
+
+        CachedResult(String dbid, List<QuickBaseRecord> records, long size, long expires)
+        {
+            this.dbid = dbid;
+            this.records = records;
+            this.size = size;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseQueryEngine.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.intuit.quickbase.api.query.QueryExecutionMode;
+
+/**
+ * The class {@link QuickBaseQueryEngine} executes queries and parses their results. Synchronous
+ * queries are executed and parsed directly on the calling thread. Asynchronous queries are run by
+ * an {@link ExecutorService}, which by default is a fixed pool of daemon threads. Any other
+ * {@link ExecutorService} can be supplied instead (for example, a pool that is shared with other
+ * parts of the application).
+ * <p/>
+ * The number of asynchronous queries that are queued or running at the same time is bounded.
+ * A thread that submits a query while the engine is saturated blocks until a previously submitted
+ * query has finished (or until the admission timeout expires). This back-pressure keeps the number
+ * of pending responses, and thereby the number of busy HTTP connections, under control.
+ * <p/>
+ * All queries can be cancelled via the {@link QuickBaseFuture} that is returned on submission. Cancelling
+ * a query (or exceeding the query timeout) closes its HTTP connection and causes a
+ * {@link QuickBaseException} to be reported to the query's {@link QuickBaseResultHandler}.
+ * <p/>
+ * Optionally, the engine can {@link #setCoalescing(boolean) coalesce} identical queries (i.e.,
+ * queries of the same connection with the same DBID, query string, column list and options)
+ * that run at the same time, so that they share a single HTTP request and parsing pass.
+ *
+ * @see QuickBaseConnection#setQueryEngine(QuickBaseQueryEngine)
+ */
+public class QuickBaseQueryEngine
+{
+    /** The default number of threads for parsing asynchronous query results. **/
+    public final static int DEFAULT_THREADS = 4;
+
+    /** The default maximum number of asynchronous queries that are queued or running. **/
+    public final static int DEFAULT_MAX_PENDING_QUERIES = 64;
+
+    private final static String THREAD_NAME = "QuickBase query engine #"; //$NON-NLS-1$
+    private final static String WATCHDOG_NAME = "QuickBase query timeout #"; //$NON-NLS-1$
+    private final static String SATURATED = "query engine is saturated"; //$NON-NLS-1$
+    private final static String INTERRUPTED = "interrupted while waiting for query engine"; //$NON-NLS-1$
+    private final static String REJECTED = "query was rejected by the executor"; //$NON-NLS-1$
+    private final static String TIMED_OUT = "query timed out after "; //$NON-NLS-1$
+    private final static String MILLISECONDS = " ms"; //$NON-NLS-1$
+    private final static String CANCELLED = "query was cancelled"; //$NON-NLS-1$
+    private final static ThreadLocal<QuickBaseQueryEngine> RUNNING = new ThreadLocal<QuickBaseQueryEngine>();
+
+    private ExecutorService executor;
+    private Semaphore pendingQueries;
+    private ScheduledExecutorService watchdog;
+    private volatile long admissionTimeout;
+    private volatile long queryTimeout;
+    private volatile QuickBaseResponseParser responseParser;
+    private volatile QuickBaseCoalescer coalescer;
+
+    /**
+     * Creates a new {@link QuickBaseQueryEngine} with the default number of threads and the
+     * default limit for pending queries.
+     */
+    public QuickBaseQueryEngine()
+    {
+        this(DEFAULT_THREADS, DEFAULT_MAX_PENDING_QUERIES);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseQueryEngine} that uses a fixed number of daemon threads.
+     *
+     * @param threads the number of threads for processing asynchronous queries
+     * @param maxPendingQueries the maximum number of asynchronous queries that can be queued or
+     * running at the same time
+     */
+    public QuickBaseQueryEngine(int threads, int maxPendingQueries)
+    {
+        this(Executors.newFixedThreadPool(threads, new DaemonThreadFactory(THREAD_NAME)),
+            maxPendingQueries);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseQueryEngine} that uses the supplied {@link ExecutorService}.
+     *
+     * @param executor the {@link ExecutorService} for processing asynchronous queries
+     * @param maxPendingQueries the maximum number of asynchronous queries that can be queued or
+     * running at the same time
+     */
+    public QuickBaseQueryEngine(ExecutorService executor, int maxPendingQueries)
+    {
+        this.executor = executor;
+        this.pendingQueries = new Semaphore(maxPendingQueries, true);
+        this.responseParser = QuickBaseResponseParser.getDefault();
+    }
+
+    /**
+     * Sets the maximum time to wait for a saturated engine to accept a new asynchronous query.
+     * If the timeout expires the submission fails with a {@link QuickBaseException}.
+     *
+     * @param timeout the timeout in milliseconds (<code>0</code> means wait indefinitely)
+     */
+    public void setAdmissionTimeout(long timeout)
+    {
+        admissionTimeout = timeout;
+    }
+
+    /**
+     * Sets the maximum duration of a query, including the HTTP request and the parsing of the
+     * complete result set. Queries that take longer are aborted.
+     *
+     * @param timeout the timeout in milliseconds (<code>0</code> means no timeout)
+     */
+    public void setQueryTimeout(long timeout)
+    {
+        queryTimeout = timeout;
+    }
+
+    /**
+     * Gets the {@link QuickBaseResponseParser} that is used for parsing query results.
+     *
+     * @return the {@link QuickBaseResponseParser}
+     */
+    public QuickBaseResponseParser getResponseParser()
+    {
+        return responseParser;
+    }
+
+    /**
+     * Sets the {@link QuickBaseResponseParser} that is used for parsing query results. By default,
+     * all engines share a {@link QuickBaseResponseParser#sax() SAX-based} parser.
+     *
+     * @param responseParser the {@link QuickBaseResponseParser}
+     */
+    public void setResponseParser(QuickBaseResponseParser responseParser)
+    {
+        this.responseParser = responseParser;
+    }
+
+    /**
+     * Determines whether identical concurrent queries are coalesced.
+     *
+     * @return <code>true</code> if coalescing is enabled
+     */
+    public boolean isCoalescing()
+    {
+        return coalescer != null;
+    }
+
+    /**
+     * Enables or disables the coalescing of identical concurrent queries. If coalescing is
+     * enabled, a query that is submitted while an identical query is still waiting for its
+     * response does not send a request of its own; instead, the records of the shared response
+     * are delivered to the result handlers of both queries, in the same order and as the same
+     * {@link QuickBaseRecord} objects. The shared request is executed on a separate thread, which
+     * also delivers all records, even for synchronous queries; each query can still be cancelled
+     * or time out on its own. The shared requests count against the limit for pending queries;
+     * while that limit is reached, identical queries are not coalesced. Coalescing is disabled by
+     * default.
+     *
+     * @param coalescing <code>true</code> to enable coalescing
+     */
+    public synchronized void setCoalescing(boolean coalescing)
+    {
+        if (!coalescing)
+        {
+            if (coalescer != null)
+            {
+                coalescer.shutdown();
+                coalescer = null;
+            }
+        }
+        else if (coalescer == null)
+        {
+            coalescer = new QuickBaseCoalescer(pendingQueries);
+        }
+    }
+
+    /**
+     * Gets the number of additional asynchronous queries that can currently be submitted
+     * without blocking.
+     *
+     * @return the number of available query slots
+     */
+    public int getAvailableSlots()
+    {
+        return pendingQueries.availablePermits();
+    }
+
+    /**
+     * Shuts down the engine. Queries that were already submitted will still be processed.
+     */
+    public void shutdown()
+    {
+        executor.shutdown();
+        synchronized (this)
+        {
+            if (watchdog != null)
+            {
+                watchdog.shutdown();
+            }
+            if (coalescer != null)
+            {
+                coalescer.shutdown();
+            }
+        }
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Gets the {@link QuickBaseCoalescer} for queries that are run by this engine.
+     *
+     * @return the {@link QuickBaseCoalescer}, or <code>null</code> if coalescing is disabled
+     */
+    QuickBaseCoalescer getCoalescer()
+    {
+        return coalescer;
+    }
+
+    /**
+     * Executes a {@link QuickBaseRequest} and parses its response.
+     *
+     * @param request the {@link QuickBaseRequest} that produces the response
+     * @param resultHandler the {@link QuickBaseResultHandler} that receives the results
+     * @param mode the {@link QueryExecutionMode}
+     * @return a {@link QuickBaseFuture} for monitoring or cancelling the query; for synchronous
+     * queries the returned future is already done
+     * @throws QuickBaseException if a synchronous request failed or if an asynchronous query could
+     * not be submitted
+     */
+    QuickBaseFuture<Void> query(QuickBaseRequest request, QuickBaseResultHandler resultHandler,
+    QueryExecutionMode mode) throws QuickBaseException
+    {
+        QuickBaseQuery query = new QuickBaseQuery(request, resultHandler, responseParser, coalescer);
+        if (mode == QueryExecutionMode.synchronous)
+        {
+            QueryTask<Void> task = new QueryTask<Void>(query, query, null);
+            runInline(task);
+            return task;
+        }
+        QueryTask<Void> task = new QueryTask<Void>(query.failOnError(), query, resultHandler);
+        admit(task);
+        return task;
+    }
+
+    /**
+     * Submits an arbitrary asynchronous operation.
+     *
+     * @param <$Result> the type of the operation's result
+     * @param operation the operation
+     * @param query the {@link QuickBaseQuery} that is performed by the operation, or
+     * <code>null</code> if the operation cannot be aborted
+     * @return a {@link QuickBaseFuture} for the operation's result
+     * @throws QuickBaseException if the operation could not be submitted
+     */
+    <$Result> QuickBaseFuture<$Result> submit(Callable<$Result> operation, QuickBaseQuery query)
+    throws QuickBaseException
+    {
+        QueryTask<$Result> task = new QueryTask<$Result>(operation, query, null);
+        admit(task);
+        return task;
+    }
+
+    /**
+     * Checks whether the current thread is executing an asynchronous query or operation of this
+     * engine. Code that runs on such a thread (for example, a {@link QuickBaseCallback}) must not
+     * block on other asynchronous operations of the same engine, because these operations might
+     * never get a thread.
+     *
+     * @return <code>true</code> if the current thread is an engine thread of this engine
+     */
+    boolean isEngineThread()
+    {
+        return RUNNING.get() == this;
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private void runInline(QueryTask<?> task) throws QuickBaseException
+    {
+        ScheduledFuture<?> timeout = scheduleTimeout(task);
+        try
+        {
+            task.run();
+            task.get();
+        }
+        catch (InterruptedException interrupted)
+        {
+            Thread.currentThread().interrupt();
+            throw new QuickBaseException(interrupted);
+        }
+        catch (ExecutionException execution)
+        {
+            Throwable cause = execution.getCause();
+            if (cause instanceof QuickBaseException)
+            {
+                throw (QuickBaseException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw (Error)cause;
+        }
+        finally
+        {
+            if (timeout != null)
+            {
+                timeout.cancel(false);
+            }
+        }
+    }
+
+    private void admit(QueryTask<?> task) throws QuickBaseException
+    {
+        try
+        {
+            long timeout = admissionTimeout;
+            if (timeout <= 0)
+            {
+                pendingQueries.acquire();
+            }
+            else if (!pendingQueries.tryAcquire(timeout, TimeUnit.MILLISECONDS))
+            {
+                throw new QuickBaseException(SATURATED);
+            }
+        }
+        catch (InterruptedException interrupted)
+        {
+            Thread.currentThread().interrupt();
+            throw new QuickBaseException(INTERRUPTED, interrupted);
+        }
+        task.permit = pendingQueries;
+        try
+        {
+            executor.execute(running(task));
+        }
+        catch (RejectedExecutionException rejected)
+        {
+            task.permit = null;
+            pendingQueries.release();
+            throw new QuickBaseException(REJECTED, rejected);
+        }
+        task.timeout = scheduleTimeout(task);
+        if (task.isDone() && task.timeout != null)
+        {
+            task.timeout.cancel(false);
+        }
+    }
+
+    /**
+     * Wraps a task so that {@link #isEngineThread()} can tell that the executing thread belongs to
+     * this engine.
+     */
+    private Runnable running(final QueryTask<?> task)
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                QuickBaseQueryEngine previous = RUNNING.get();
+                RUNNING.set(QuickBaseQueryEngine.this);
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    if (previous != null)
+                    {
+                        RUNNING.set(previous);
+                    }
+                    else
+                    {
+                        RUNNING.remove();
+                    }
+                }
+            }
+        };
+    }
+
+    private ScheduledFuture<?> scheduleTimeout(final QueryTask<?> task)
+    {
+        final long timeout = queryTimeout;
+        if (timeout <= 0 || task.query == null)
+        {
+            return null;
+        }
+        Runnable abort = new Runnable()
+        {
+            public void run()
+            {
+                task.query.abort(TIMED_OUT + timeout + MILLISECONDS);
+            }
+        };
+        return getWatchdog().schedule(abort, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService getWatchdog()
+    {
+        if (watchdog == null)
+        {
+            watchdog = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory(WATCHDOG_NAME));
+        }
+        return watchdog;
+    }
+
+    /**
+     * A {@link QuickBaseFuture} that aborts its query on cancellation, reports request failures
+     * of asynchronous queries to the {@link QuickBaseResultHandler}, and releases its slot on
+     * completion.
+     */
+    private static class QueryTask<$Result> extends QuickBaseFuture<$Result>
+    {
+        private QuickBaseQuery query;
+        private QuickBaseResultHandler resultHandler;
+        private volatile Semaphore permit;
+        private volatile ScheduledFuture<?> timeout;
+
+        QueryTask(Callable<$Result> operation, QuickBaseQuery query,
+        QuickBaseResultHandler resultHandler)
+        {
+            super(operation);
+            this.query = query;
+            this.resultHandler = resultHandler;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            if (query != null)
+            {
+                query.abort(CANCELLED);
+            }
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        protected void setException(Throwable throwable)
+        {
+            // Exceptions that occurred during parsing were already reported by the query itself:
+            //
+            if (resultHandler != null && throwable != query.getFailure())
+            {
+                if (throwable instanceof QuickBaseException)
+                {
+                    resultHandler.handleException((QuickBaseException)throwable);
+                }
+                else if (throwable instanceof Exception)
+                {
+                    resultHandler.handleException(new QuickBaseException((Exception)throwable));
+                }
+            }
+            super.setException(throwable);
+        }
+
+        protected void done()
+        {
+            ScheduledFuture<?> currentTimeout = timeout;
+            if (currentTimeout != null)
+            {
+                currentTimeout.cancel(false);
+            }
+            Semaphore currentPermit = permit;
+            if (currentPermit != null)
+            {
+                permit = null;
+                currentPermit.release();
+            }
+            super.done();
+        }
+    }
+
+    /**
+     * A {@link ThreadFactory} for numbered daemon threads. It is also used for the pilot threads
+     * of the {@link QuickBaseCoalescer}.
+     */
+    static class DaemonThreadFactory implements ThreadFactory
+    {
+        private String name;
+        private AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String name)
+        {
+            this.name = name;
+        }
+
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, name + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,591 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseQueryEvaluator.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import com.intuit.quickbase.api.query.CList;
+import com.intuit.quickbase.api.query.Query;
+import com.intuit.quickbase.api.query.QueryClause;
+import com.intuit.quickbase.api.query.QueryJunction;
+import com.intuit.quickbase.api.query.QueryOperator;
+
+/**
+ * The class {@link QuickBaseQueryEvaluator} evaluates QuickBase queries locally, against records
+ * that were already retrieved: the records of a {@link QuickBaseMirror}, or a list of
+ * {@link QuickBaseRecord}s (for example, the result of
+ * {@link QuickBaseDatabase#doQueryAsync(String, CList)}). The matching records are delivered to a
+ * {@link QuickBaseResultHandler}, just like the results of
+ * {@link QuickBaseDatabase#doQuery(QuickBaseResultHandler, String, CList,
+ * com.intuit.quickbase.api.query.QueryExecutionMode)}, but without contacting QuickBase.
+ * <p/>
+ * To answer repeated queries quickly, the evaluator creates secondary indexes on demand: the
+ * first {@link QueryOperator#EX} clause for a field creates a hash index of the field's values,
+ * and the first range or {@link QueryOperator#SW} clause creates a sorted index. Indexes are kept
+ * for the lifetime of the evaluator; the other operators are evaluated by scanning the records.
+ * <p/>
+ * Values are compared like QuickBase compares them: numerically if the value in the query is a
+ * number (or a date in the form <code>MM-DD-YYYY</code>, which is compared with the field's
+ * value in milliseconds since the epoch, UTC), and as case-insensitive text otherwise. Empty
+ * values never match a range operator. An evaluator is safe for use by multiple threads.
+ *
+ * @see Query#parse(String)
+ */
+public class QuickBaseQueryEvaluator
+{
+    private final static String DATE_FORMAT = "(\\d{1,2})-(\\d{1,2})-(\\d{4})"; //$NON-NLS-1$
+    private final static Pattern DATE = Pattern.compile(DATE_FORMAT);
+    private final static TimeZone UTC = TimeZone.getTimeZone("UTC"); //$NON-NLS-1$
+    private final static String NUMBER_CHARACTERS = "0123456789+-.eE"; //$NON-NLS-1$
+    private final static String LIST_SEPARATOR = ";"; //$NON-NLS-1$
+    private final static String EMPTY = ""; //$NON-NLS-1$
+    private final static char MAX_CHARACTER = '\uffff';
+
+    private Rows rows;
+    private Map<Integer, Map<Object, int[]>> hashIndexes;
+    private Map<Integer, SortedIndex> sortedIndexes;
+
+    /**
+     * Creates a new {@link QuickBaseQueryEvaluator} for the records of a {@link QuickBaseMirror}.
+     *
+     * @param mirror the {@link QuickBaseMirror}
+     */
+    public QuickBaseQueryEvaluator(final QuickBaseMirror mirror)
+    {
+        this(new Rows()
+        {
+            public int size()
+            {
+                return mirror.size();
+            }
+
+            public String getValue(int row, int fieldID)
+            {
+                return mirror.getValue(row, fieldID);
+            }
+
+            public QuickBaseRecord getRecord(int row)
+            {
+                return mirror.getRecord(row);
+            }
+        });
+    }
+
+    /**
+     * Creates a new {@link QuickBaseQueryEvaluator} for a list of records. The list is copied;
+     * later changes of the list do not affect the evaluator.
+     *
+     * @param records the {@link QuickBaseRecord}s
+     */
+    public QuickBaseQueryEvaluator(List<QuickBaseRecord> records)
+    {
+        this(new RecordRows(new ArrayList<QuickBaseRecord>(records)));
+    }
+
+    private QuickBaseQueryEvaluator(Rows rows)
+    {
+        this.rows = rows;
+        this.hashIndexes = new HashMap<Integer, Map<Object, int[]>>();
+        this.sortedIndexes = new HashMap<Integer, SortedIndex>();
+    }
+
+    /**
+     * Performs a query. The matching records are delivered to the result handler on the calling
+     * thread, followed by a call of {@link QuickBaseResultHandler#done()}.
+     *
+     * @param resultHandler the {@link QuickBaseResultHandler} that receives the records
+     * @param query the query string (an empty string selects all records)
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * (<code>null</code> for all available fields)
+     * @throws QuickBaseException if the query string is not a valid query
+     */
+    public void doQuery(QuickBaseResultHandler resultHandler, String query, CList clist)
+    throws QuickBaseException
+    {
+        doQuery(resultHandler, Query.parse(query), clist);
+    }
+
+    /**
+     * Performs a parsed query. The matching records are delivered to the result handler on the
+     * calling thread, followed by a call of {@link QuickBaseResultHandler#done()}.
+     *
+     * @param resultHandler the {@link QuickBaseResultHandler} that receives the records
+     * @param query the {@link Query} (<code>null</code> selects all records)
+     * @param clist a {@link CList} that specifies which fields are included in the results
+     * (<code>null</code> for all available fields)
+     */
+    public void doQuery(QuickBaseResultHandler resultHandler, Query query, CList clist)
+    {
+        BitSet matches = evaluate(query);
+        int[] columns = clist != null? clist.getColumns():null;
+        QuickBaseRecordLayout layout = QuickBaseRecordLayout.EMPTY;
+        for (int column = 0; columns != null && column < columns.length; column++)
+        {
+            if (layout.slot(columns[column]) == -1)
+            {
+                layout = layout.extend(columns[column]);
+            }
+        }
+        for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row+1))
+        {
+            if (columns == null)
+            {
+                resultHandler.handleRecord(rows.getRecord(row));
+                continue;
+            }
+            QuickBaseRecord record = new QuickBaseRecord(layout, 0);
+            for (int slot = 0; slot < layout.size(); slot++)
+            {
+                String value = rows.getValue(row, layout.fieldID(slot));
+                if (value != null)
+                {
+                    record.setField(layout.fieldID(slot), value);
+                }
+            }
+            record.trim();
+            resultHandler.handleRecord(record);
+        }
+        resultHandler.done();
+    }
+
+    /**
+     * Counts the records that match a query.
+     *
+     * @param query the query string (an empty string counts all records)
+     * @return the number of matching records
+     * @throws QuickBaseException if the query string is not a valid query
+     */
+    public int doQueryCount(String query) throws QuickBaseException
+    {
+        return evaluate(Query.parse(query)).cardinality();
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private BitSet evaluate(Query query)
+    {
+        int size = rows.size();
+        if (query == null)
+        {
+            BitSet all = new BitSet(size);
+            all.set(0, size);
+            return all;
+        }
+        if (query instanceof QueryJunction)
+        {
+            QueryJunction junction = (QueryJunction)query;
+            BitSet result = null;
+            for (Query operand: junction.getOperands())
+            {
+                BitSet matches = evaluate(operand);
+                if (result == null)
+                {
+                    result = matches;
+                }
+                else if (junction.isConjunction())
+                {
+                    result.and(matches);
+                }
+                else
+                {
+                    result.or(matches);
+                }
+            }
+            return result;
+        }
+        QueryClause clause = (QueryClause)query;
+        QueryOperator operator = clause.getOperator();
+        BitSet matches = evaluate(clause.getFieldID(), operator.positive(), clause.getValue());
+        if (operator.isNegated())
+        {
+            matches.flip(0, size);
+        }
+        return matches;
+    }
+
+    /**
+     * Evaluates a clause with a non-negated operator.
+     *
+     * @param fieldID the field ID
+     * @param operator the {@link QueryOperator}
+     * @param value the value in the query
+     * @return the matching rows
+     */
+    private BitSet evaluate(int fieldID, QueryOperator operator, String value)
+    {
+        BitSet matches = new BitSet(rows.size());
+        if (operator == QueryOperator.EX)
+        {
+            Double number = operand(value);
+            int[] matching = hashIndex(fieldID).get(number != null? number:key(value));
+            for (int index = 0; matching != null && index < matching.length; index++)
+            {
+                matches.set(matching[index]);
+            }
+        }
+        else if (operator.isRange() || operator == QueryOperator.SW && value.length() > 0)
+        {
+            sortedIndex(fieldID).select(operator, value, matches);
+        }
+        else
+        {
+            String lowerCase = value.toLowerCase();
+            for (int row = 0, size = rows.size(); row < size; row++)
+            {
+                String actual = rows.getValue(row, fieldID);
+                if (matches(operator, actual != null? actual.toLowerCase():EMPTY, lowerCase))
+                {
+                    matches.set(row);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static boolean matches(QueryOperator operator, String actual, String value)
+    {
+        if (operator == QueryOperator.CT)
+        {
+            return actual.indexOf(value) != -1;
+        }
+        if (operator == QueryOperator.HAS)
+        {
+            for (String element: actual.split(LIST_SEPARATOR))
+            {
+                if (element.trim().equals(value))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return actual.startsWith(value);
+    }
+
+    private Map<Object, int[]> hashIndex(int fieldID)
+    {
+        synchronized (hashIndexes)
+        {
+            Map<Object, int[]> index = hashIndexes.get(Integer.valueOf(fieldID));
+            if (index == null)
+            {
+                Map<Object, List<Integer>> lists = new HashMap<Object, List<Integer>>();
+                for (int row = 0, size = rows.size(); row < size; row++)
+                {
+                    Object key = key(rows.getValue(row, fieldID));
+                    List<Integer> list = lists.get(key);
+                    if (list == null)
+                    {
+                        lists.put(key, list = new ArrayList<Integer>());
+                    }
+                    list.add(Integer.valueOf(row));
+                }
+                index = new HashMap<Object, int[]>(2*lists.size());
+                for (Map.Entry<Object, List<Integer>> entry: lists.entrySet())
+                {
+                    index.put(entry.getKey(), toArray(entry.getValue()));
+                }
+                hashIndexes.put(Integer.valueOf(fieldID), index);
+            }
+            return index;
+        }
+    }
+
+    private SortedIndex sortedIndex(int fieldID)
+    {
+        synchronized (sortedIndexes)
+        {
+            SortedIndex index = sortedIndexes.get(Integer.valueOf(fieldID));
+            if (index == null)
+            {
+                sortedIndexes.put(Integer.valueOf(fieldID), index = new SortedIndex(rows, fieldID));
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Gets the key under which a value is stored in a hash index. Numbers are represented by
+     * their numeric value (so that, for example, <code>5</code> and <code>5.0</code> are equal)
+     * and text by its lower-case form. Missing values are treated as empty values.
+     *
+     * @param value the value
+     * @return a {@link Double} or a {@link String}
+     */
+    private static Object key(String value)
+    {
+        if (value == null)
+        {
+            return EMPTY;
+        }
+        Double number = number(value);
+        return number != null? (Object)number:value.toLowerCase();
+    }
+
+    /**
+     * Converts the value in a query to a number, if possible. Dates are converted to
+     * milliseconds since the epoch.
+     *
+     * @param value the value
+     * @return the number, or <code>null</code> if the value is neither a number nor a date
+     */
+    private static Double operand(String value)
+    {
+        Matcher date = DATE.matcher(value);
+        if (date.matches())
+        {
+            Calendar calendar = Calendar.getInstance(UTC);
+            calendar.clear();
+            calendar.set(Integer.parseInt(date.group(3)), Integer.parseInt(date.group(1)) - 1,
+                Integer.parseInt(date.group(2)));
+            return Double.valueOf(calendar.getTimeInMillis());
+        }
+        return number(value);
+    }
+
+    private static Double number(String value)
+    {
+        if (value.length() == 0)
+        {
+            return null;
+        }
+        for (int index = 0; index < value.length(); index++)
+        {
+            if (NUMBER_CHARACTERS.indexOf(value.charAt(index)) == -1)
+            {
+                return null;
+            }
+        }
+        try
+        {
+            return Double.valueOf(value);
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            return null;
+        }
+    }
+
+    private static int[] toArray(List<Integer> list)
+    {
+        int[] array = new int[list.size()];
+        for (int index = 0; index < array.length; index++)
+        {
+            array[index] = list.get(index).intValue();
+        }
+        return array;
+    }
+
+    /**
+     * The records that a query is evaluated against.
+     */
+    private static interface Rows
+    {
+        public abstract int size();
+
+        public abstract String getValue(int row, int fieldID);
+
+        public abstract QuickBaseRecord getRecord(int row);
+    }
+
+    private static class RecordRows implements Rows
+    {
+        private List<QuickBaseRecord> records;
+
+        RecordRows(List<QuickBaseRecord> records)
+        {
+            this.records = records;
+        }
+
+        public int size()
+        {
+            return records.size();
+        }
+
+        public String getValue(int row, int fieldID)
+        {
+            return records.get(row).getValue(fieldID);
+        }
+
+        public QuickBaseRecord getRecord(int row)
+        {
+            return records.get(row);
+        }
+    }
+
+    /**
+     * A sorted index of the non-empty values of a field. Numeric values are sorted by their
+     * numeric value, and all values are also sorted by their lower-case text.
+     */
+    private static class SortedIndex
+    {
+        private int[] numberRows;
+        private double[] numbers;
+        private int[] textRows;
+        private String[] texts;
+
+        SortedIndex(Rows rows, int fieldID)
+        {
+            List<Integer> numbered = new ArrayList<Integer>();
+            List<Integer> texted = new ArrayList<Integer>();
+            final double[] numberByRow = new double[rows.size()];
+            final String[] textByRow = new String[rows.size()];
+            for (int row = 0; row < textByRow.length; row++)
+            {
+                String value = rows.getValue(row, fieldID);
+                if (value != null && value.length() > 0)
+                {
+                    Double number = number(value);
+                    if (number != null)
+                    {
+                        numberByRow[row] = number.doubleValue();
+                        numbered.add(Integer.valueOf(row));
+                    }
+                    textByRow[row] = value.toLowerCase();
+                    texted.add(Integer.valueOf(row));
+                }
+            }
+            Integer[] order = numbered.toArray(new Integer[numbered.size()]);
+            Arrays.sort(order, new Comparator<Integer>()
+            {
+                public int compare(Integer first, Integer second)
+                {
+                    double firstNumber = numberByRow[first.intValue()];
+                    return Double.compare(firstNumber, numberByRow[second.intValue()]);
+                }
+            });
+            numberRows = new int[order.length];
+            numbers = new double[order.length];
+            for (int index = 0; index < order.length; index++)
+            {
+                numberRows[index] = order[index].intValue();
+                numbers[index] = numberByRow[numberRows[index]];
+            }
+            order = texted.toArray(new Integer[texted.size()]);
+            Arrays.sort(order, new Comparator<Integer>()
+            {
+                public int compare(Integer first, Integer second)
+                {
+                    return textByRow[first.intValue()].compareTo(textByRow[second.intValue()]);
+                }
+            });
+            textRows = new int[order.length];
+            texts = new String[order.length];
+            for (int index = 0; index < order.length; index++)
+            {
+                textRows[index] = order[index].intValue();
+                texts[index] = textByRow[textRows[index]];
+            }
+        }
+
+        /**
+         * Selects the rows whose values match a range operator or {@link QueryOperator#SW}.
+         *
+         * @param operator the {@link QueryOperator}
+         * @param value the value in the query
+         * @param matches the {@link BitSet} in which the matching rows are set
+         */
+        void select(QueryOperator operator, String value, BitSet matches)
+        {
+            int from;
+            int to;
+            int[] selected;
+            Double number = operand(value);
+            boolean exclusive = operator.isBelow() == operator.isInclusive();
+            if (operator == QueryOperator.SW)
+            {
+                String prefix = value.toLowerCase();
+                selected = textRows;
+                from = lowerBound(texts, prefix, false);
+                to = lowerBound(texts, prefix + MAX_CHARACTER, false);
+            }
+            else if (number != null)
+            {
+                double operand = number.doubleValue();
+                selected = numberRows;
+                int bound = lowerBound(numbers, operand, exclusive);
+                from = operator.isBelow()? 0:bound;
+                to = operator.isBelow()? bound:numbers.length;
+            }
+            else
+            {
+                String operand = value.toLowerCase();
+                selected = textRows;
+                int bound = lowerBound(texts, operand, exclusive);
+                from = operator.isBelow()? 0:bound;
+                to = operator.isBelow()? bound:texts.length;
+            }
+            for (int index = from; index < to; index++)
+            {
+                matches.set(selected[index]);
+            }
+        }
+
+        /**
+         * Finds the first index whose value is greater than (or equal to) a given value.
+         *
+         * @param values the sorted values
+         * @param value the value
+         * @param exclusive <code>true</code> to find the first greater value, <code>false</code>
+         * to find the first value that is greater or equal
+         * @return the index (<code>values.length</code> if there is no such value)
+         */
+        private static int lowerBound(double[] values, double value, boolean exclusive)
+        {
+            int low = 0;
+            int high = values.length;
+            while (low < high)
+            {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < value || exclusive && values[middle] == value)
+                {
+                    low = middle + 1;
+                }
+                else
+                {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static int lowerBound(String[] values, String value, boolean exclusive)
+        {
+            int low = 0;
+            int high = values.length;
+            while (low < high)
+            {
+                int middle = (low + high) >>> 1;
+                int comparison = values[middle].compareTo(value);
+                if (comparison < 0 || exclusive && comparison == 0)
+                {
+                    low = middle + 1;
+                }
+                else
+                {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseRateLimiter.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class {@link QuickBaseRateLimiter} is a token bucket that limits the rate at which
+ * requests are sent. The bucket is refilled continuously at the configured rate and holds at
+ * most a configured number of tokens, which allows short bursts after idle periods. Each request
+ * takes one token; if the bucket is empty, the requesting thread waits until its token becomes
+ * available. Waiting threads are served in the order of their arrival, because each of them
+ * reserves its token in advance.
+ *
+ * @see QuickBaseThrottle
+ */
+public class QuickBaseRateLimiter
+{
+    private final static double NANOSECONDS_PER_SECOND = 1e9;
+
+    private double permitsPerSecond;
+    private double burst;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Creates a new {@link QuickBaseRateLimiter}.
+     *
+     * @param permitsPerSecond the sustained number of requests per second
+     * @param burst the maximum number of requests that can be sent at once after an idle period
+     * (at least <code>1</code>)
+     */
+    public QuickBaseRateLimiter(double permitsPerSecond, int burst)
+    {
+        if (permitsPerSecond <= 0 || burst < 1)
+        {
+            throw new IllegalArgumentException(permitsPerSecond + "/" + burst); //$NON-NLS-1$
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Gets the sustained number of requests per second.
+     *
+     * @return the number of requests per second
+     */
+    public synchronized double getPermitsPerSecond()
+    {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Changes the sustained number of requests per second. Tokens that were already reserved by
+     * waiting threads are not affected.
+     *
+     * @param permitsPerSecond the new number of requests per second
+     */
+    public synchronized void setPermitsPerSecond(double permitsPerSecond)
+    {
+        if (permitsPerSecond <= 0)
+        {
+            throw new IllegalArgumentException(String.valueOf(permitsPerSecond));
+        }
+        refill(System.nanoTime());
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Takes a token from the bucket, waiting for it if necessary.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public void acquire() throws InterruptedException
+    {
+        long wait = reserve();
+        if (wait > 0)
+        {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket if one is available immediately.
+     *
+     * @return <code>true</code> if a token was taken, <code>false</code> otherwise
+     */
+    public synchronized boolean tryAcquire()
+    {
+        refill(System.nanoTime());
+        if (tokens >= 1)
+        {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Reserves a token and calculates how long the caller has to wait for it.
+     *
+     * @return the waiting time in nanoseconds
+     */
+    private synchronized long reserve()
+    {
+        refill(System.nanoTime());
+        tokens--;
+        return tokens >= 0? 0:(long)(-tokens*NANOSECONDS_PER_SECOND/permitsPerSecond);
+    }
+
+    private void refill(long now)
+    {
+        tokens = Math.min(burst, tokens + (now - lastRefill)*permitsPerSecond/NANOSECONDS_PER_SECOND);
+        lastRefill = now;
+    }
+}
@@ -13,26 +13,73 @@
 
 package com.intuit.quickbase.api;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * The class {@link QuickBaseRecord} represents an individual record that was received in response
  * to a QuickBase query. The QuickBase API framework (or, more specifically, the
  * <code>QuickBaseContentHandler</code>) will create the {@link QuickBaseRecord} and set the
  * individual fields using the {@link #setField(int, String)} method. Client code can access the
  * fields as proper Java objects using the {@link #getField(QuickBaseField)} method.
+ * <p/>
+ * All field values of a record are packed into a single character array; only the boundaries of
+ * each value are recorded. The mapping from field IDs to value slots is a
+ * <code>QuickBaseRecordLayout</code> that is shared by all records of the same query result, so
+ * that a record does not carry any per-field objects. Strings are only created when a field is
+ * accessed via {@link #getField(QuickBaseField)}; numeric fields can be decoded without creating
+ * any objects using {@link #getInt(QuickBaseField)}, {@link #getLong(QuickBaseField)} and
+ * {@link #getDouble(QuickBaseField)}.
  *
  * @author Mirko Raner
  * @version $Revision: 13 $ $Change: 714052 $
  */
 public class QuickBaseRecord
 {
-    private Map<Integer, String> recordData;
+    private final static int[] NO_BOUNDS = {};
+    private final static int DEFAULT_CAPACITY = 64;
+    private final static int OBJECT_SIZE = 24;
+    private final static int ARRAY_SIZE = 16;
+
+    private QuickBaseRecordLayout layout;
+    private char[] text;
+    private int length;
+
+    /**
+     * The value boundaries: <code>bounds[2*slot]</code> is the start index of a value in the
+     * character array, and <code>bounds[2*slot+1]</code> is its length plus one. A slot that
+     * was never set is all zeros.
+     */
+    private int[] bounds;
 
     QuickBaseRecord()
     {
-        recordData = new HashMap<Integer, String>();
+        this(QuickBaseRecordLayout.EMPTY, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseRecord} that uses a shared layout.
+     *
+     * @param layout the <code>QuickBaseRecordLayout</code> of the query result
+     * @param capacity the expected total number of characters of all field values
+     */
+    QuickBaseRecord(QuickBaseRecordLayout layout, int capacity)
+    {
+        this.layout = layout;
+        this.text = new char[Math.max(capacity, 1)];
+        this.bounds = layout.size() == 0? NO_BOUNDS:new int[2*layout.size()];
+    }
+
+    /**
+     * Creates a view of a record that has a different but equivalent layout. The view shares the
+     * record's values instead of copying them.
+     *
+     * @param layout the <code>QuickBaseRecordLayout</code> of the view
+     * @param record the viewed {@link QuickBaseRecord}
+     */
+    private QuickBaseRecord(QuickBaseRecordLayout layout, QuickBaseRecord record)
+    {
+        this.layout = layout;
+        this.text = record.text;
+        this.length = record.length;
+        this.bounds = record.bounds;
     }
 
     /**
@@ -43,7 +90,17 @@ public class QuickBaseRecord
      */
     protected void setField(int fieldID, String value)
     {
-        recordData.put(fieldID, value);
+        if (value == null)
+        {
+            int slot = layout.slot(fieldID);
+            if (slot != -1 && 2*slot < bounds.length)
+            {
+                bounds[2*slot] = bounds[2*slot+1] = 0;
+            }
+            return;
+        }
+        int start = allocate(fieldID, value.length());
+        value.getChars(0, value.length(), text, start);
     }
 
     /**
@@ -55,7 +112,70 @@ public class QuickBaseRecord
      */
     public <$FieldType> $FieldType getField(QuickBaseField<$FieldType> field)
     {
-        return field.get(recordData.get(field.getID()));
+        return field.get(getValue(field.getID()));
+    }
+
+    /**
+     * Gets the value of an integer field without boxing. If the field's resolver is a
+     * {@link QuickBaseIntFieldResolver} the value is decoded directly from the record's internal
+     * storage.
+     *
+     * @param field the {@link QuickBaseField}
+     * @return the field value
+     * @throws NumberFormatException if the field is missing, empty, or not a valid integer
+     */
+    public int getInt(QuickBaseField<Integer> field)
+    {
+        QuickBaseFieldResolver<Integer> resolver = field.getResolver();
+        int slot = slot(field.getID());
+        if (slot != -1 && resolver instanceof QuickBaseIntFieldResolver)
+        {
+            int start = bounds[2*slot];
+            return ((QuickBaseIntFieldResolver)resolver).resolveInt(text, start, bounds[2*slot+1]-1);
+        }
+        return value(getField(field), field);
+    }
+
+    /**
+     * Gets the value of a long integer field without boxing. If the field's resolver is a
+     * {@link QuickBaseLongFieldResolver} the value is decoded directly from the record's internal
+     * storage.
+     *
+     * @param field the {@link QuickBaseField}
+     * @return the field value
+     * @throws NumberFormatException if the field is missing, empty, or not a valid integer
+     */
+    public long getLong(QuickBaseField<Long> field)
+    {
+        QuickBaseFieldResolver<Long> resolver = field.getResolver();
+        int slot = slot(field.getID());
+        if (slot != -1 && resolver instanceof QuickBaseLongFieldResolver)
+        {
+            int start = bounds[2*slot];
+            return ((QuickBaseLongFieldResolver)resolver).resolveLong(text, start, bounds[2*slot+1]-1);
+        }
+        return value(getField(field), field);
+    }
+
+    /**
+     * Gets the value of a numeric field without boxing. If the field's resolver is a
+     * {@link QuickBaseDoubleFieldResolver} the value is decoded directly from the record's
+     * internal storage.
+     *
+     * @param field the {@link QuickBaseField}
+     * @return the field value
+     * @throws NumberFormatException if the field is missing, empty, or not a valid number
+     */
+    public double getDouble(QuickBaseField<Double> field)
+    {
+        QuickBaseFieldResolver<Double> resolver = field.getResolver();
+        int slot = slot(field.getID());
+        if (slot != -1 && resolver instanceof QuickBaseDoubleFieldResolver)
+        {
+            int start = bounds[2*slot];
+            return ((QuickBaseDoubleFieldResolver)resolver).resolveDouble(text, start, bounds[2*slot+1]-1);
+        }
+        return value(getField(field), field);
     }
 
     /**
@@ -65,6 +185,169 @@ public class QuickBaseRecord
      */
     public String toString()
     {
-        return getClass().getName() + recordData;
+        StringBuffer string = new StringBuffer(getClass().getName()).append('{');
+        for (int slot = 0; 2*slot < bounds.length; slot++)
+        {
+            if (bounds[2*slot+1] == 0)
+            {
+                continue;
+            }
+            if (string.charAt(string.length()-1) != '{')
+            {
+                string.append(',').append(' ');
+            }
+            string.append(layout.fieldID(slot)).append('=');
+            string.append(text, bounds[2*slot], bounds[2*slot+1]-1);
+        }
+        return string.append('}').toString();
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Sets a field in the record by copying its contents from a {@link StringBuffer}. This avoids
+     * creating an intermediate {@link String}.
+     *
+     * @param fieldID the ID of the field
+     * @param value the field contents
+     */
+    void setField(int fieldID, StringBuffer value)
+    {
+        int start = allocate(fieldID, value.length());
+        value.getChars(0, value.length(), text, start);
+    }
+
+    /**
+     * Releases unused storage if the record's character array is considerably larger than the
+     * field values. This is called once all fields were set.
+     */
+    void trim()
+    {
+        if (text.length - length > text.length/4)
+        {
+            char[] trimmed = new char[length];
+            System.arraycopy(text, 0, trimmed, 0, length);
+            text = trimmed;
+        }
+    }
+
+    /**
+     * Gets the total number of characters of all field values.
+     *
+     * @return the number of characters
+     */
+    int length()
+    {
+        return length;
+    }
+
+    /**
+     * Estimates the memory that is occupied by the record (not including its shared layout).
+     *
+     * @return the estimated size in bytes
+     */
+    int getSize()
+    {
+        return OBJECT_SIZE + ARRAY_SIZE + 2*text.length + ARRAY_SIZE + 4*bounds.length;
+    }
+
+    /**
+     * Gets the layout of the record. If fields were added that were not part of the layout that
+     * the record was created with, the returned layout will be an extended layout.
+     *
+     * @return the <code>QuickBaseRecordLayout</code>
+     */
+    QuickBaseRecordLayout getLayout()
+    {
+        return layout;
+    }
+
+    /**
+     * Creates a view of the record with an equivalent layout, for example, with a monitored
+     * version of the record's current layout. The record itself is not modified, because it may
+     * be shared with other result handlers (through a {@link QuickBaseQueryCache} or a coalesced
+     * query).
+     *
+     * @param view the <code>QuickBaseRecordLayout</code> of the view, which must have the same
+     * slots as the record's current layout
+     * @return a {@link QuickBaseRecord} that shares the values of this record
+     */
+    QuickBaseRecord view(QuickBaseRecordLayout view)
+    {
+        return new QuickBaseRecord(view, this);
+    }
+
+    /**
+     * Gets the plain string value of a field.
+     *
+     * @param fieldID the field ID
+     * @return the string value, or <code>null</code> if the record does not contain the field
+     */
+    String getValue(int fieldID)
+    {
+        int slot = slot(fieldID);
+        return slot != -1? new String(text, bounds[2*slot], bounds[2*slot+1]-1):null;
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Gets the slot of a field that is set in this record.
+     *
+     * @param fieldID the field ID
+     * @return the slot index, or <code>-1</code> if the field is not set
+     */
+    private int slot(int fieldID)
+    {
+        int slot = layout.slot(fieldID);
+        if (slot == -1)
+        {
+            layout.missing(fieldID);
+        }
+        return slot != -1 && 2*slot < bounds.length && bounds[2*slot+1] != 0? slot:-1;
+    }
+
+    /**
+     * Reserves space for a field value at the end of the character array. If the field was set
+     * before, its previous value is abandoned.
+     *
+     * @param fieldID the ID of the field
+     * @param size the number of characters of the value
+     * @return the start index of the reserved space
+     */
+    private int allocate(int fieldID, int size)
+    {
+        int slot = layout.slot(fieldID);
+        if (slot == -1)
+        {
+            layout = layout.extend(fieldID);
+            slot = layout.slot(fieldID);
+        }
+        if (2*slot >= bounds.length)
+        {
+            int[] extended = new int[2*layout.size()];
+            System.arraycopy(bounds, 0, extended, 0, bounds.length);
+            bounds = extended;
+        }
+        if (length + size > text.length)
+        {
+            char[] extended = new char[Math.max(length + size, 2*text.length)];
+            System.arraycopy(text, 0, extended, 0, length);
+            text = extended;
+        }
+        int start = length;
+        bounds[2*slot] = start;
+        bounds[2*slot+1] = size+1;
+        length += size;
+        return start;
+    }
+
+    private static <$Number extends Number> $Number value($Number value, QuickBaseField<$Number> field)
+    {
+        if (value == null)
+        {
+            throw new NumberFormatException("Field " + field.getID() + " is not set"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return value;
     }
 }
@@ -26,8 +26,9 @@ public class QuickBaseRecordBuilder {
 	}
 	
 	public <$FieldType> void addField(String name, $FieldType value, QuickBaseFieldResolver<$FieldType> resolver) throws QuickBaseException {
-		QuickBaseField<$FieldType> field = table.getField(name, resolver);
-		String strValue = field.toString(value);
+		// The field definition is a plain hash lookup in the table's schema model:
+		QuickBaseFieldDefinition field = table.getFieldDefinition(name);
+		String strValue = resolver.toString(value);
 		NameValuePair pair = new NameValuePair(String.valueOf(field.getID()), strValue);
 		fieldValues.add(pair);
 	}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseRecordIterator.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class {@link QuickBaseRecordIterator} provides pull-based access to the results of a query.
+ * The response is parsed on a thread of the connection's {@link QuickBaseQueryEngine} and the
+ * parsed records are handed over to the consuming thread through a small bounded buffer. When the
+ * buffer is full, parsing pauses until the consumer has caught up, so that the memory consumption
+ * does not depend on the size of the result set (as it would with a
+ * {@link QuickBaseSimpleResultHandler}).
+ * <p/>
+ * An iterator that is not consumed completely should be {@link #close() closed}; closing the
+ * iterator aborts the HTTP response and releases the parsing thread. If the query fails, the
+ * {@link QuickBaseException} is thrown by {@link #hasNext()} or {@link #next()} wrapped in an
+ * {@link IllegalStateException}, after all records that were received before the failure have been
+ * returned.
+ *
+ * @see QuickBaseDatabase#doQueryIterator(String, com.intuit.quickbase.api.query.CList)
+ */
+public class QuickBaseRecordIterator implements Iterator<QuickBaseRecord>, Closeable
+{
+    /** The default number of parsed records that are buffered ahead of the consumer. **/
+    public final static int DEFAULT_BUFFER_SIZE = 256;
+
+    private final static long POLL_INTERVAL = 100;
+    private final static Object END = new Object();
+    private final static String INTERRUPTED = "interrupted while waiting for records"; //$NON-NLS-1$
+    private final static String READ_ONLY = "query results cannot be removed"; //$NON-NLS-1$
+
+    private BlockingQueue<Object> buffer;
+    private QuickBaseFuture<Void> query;
+    private volatile boolean closed;
+    private Object next;
+
+    QuickBaseRecordIterator(int bufferSize)
+    {
+        buffer = new ArrayBlockingQueue<Object>(bufferSize);
+    }
+
+    /**
+     * Checks whether more records are available. This method blocks until the next record was
+     * parsed or until the end of the result set was reached.
+     *
+     * @return <code>true</code> if there is another record, <code>false</code> otherwise
+     * @throws IllegalStateException if the query failed or the waiting thread was interrupted
+     * (the cause is a {@link QuickBaseException})
+     */
+    public boolean hasNext()
+    {
+        if (next == null)
+        {
+            if (closed)
+            {
+                return false;
+            }
+            try
+            {
+                next = buffer.take();
+            }
+            catch (InterruptedException interrupted)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(INTERRUPTED, new QuickBaseException(interrupted));
+            }
+        }
+        if (next instanceof QuickBaseException)
+        {
+            QuickBaseException exception = (QuickBaseException)next;
+            throw new IllegalStateException(exception.getMessage(), exception);
+        }
+        return next != END;
+    }
+
+    /**
+     * Returns the next record.
+     *
+     * @return the next {@link QuickBaseRecord}
+     * @throws NoSuchElementException if there are no more records
+     * @throws IllegalStateException if the query failed or the waiting thread was interrupted
+     */
+    public QuickBaseRecord next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        QuickBaseRecord record = (QuickBaseRecord)next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * Not supported; query results are read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public void remove()
+    {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    /**
+     * Closes the iterator. If the result set was not consumed completely the HTTP response is
+     * aborted. Closing an iterator more than once has no effect.
+     */
+    public void close()
+    {
+        if (!closed)
+        {
+            closed = true;
+            next = null;
+            query.cancel(false);
+            buffer.clear();
+            buffer.offer(END);
+        }
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Gets the {@link QuickBaseResultHandler} that transfers parsed records into the buffer.
+     *
+     * @return the {@link QuickBaseResultHandler}
+     */
+    QuickBaseResultHandler getResultHandler()
+    {
+        return new QuickBaseResultHandler()
+        {
+            public void handleRecord(QuickBaseRecord record)
+            {
+                transfer(record);
+            }
+
+            public void handleException(QuickBaseException exception)
+            {
+                // Failures are reported through the query's QuickBaseFuture
+            }
+
+            public void done()
+            {
+                // Completion is reported through the query's QuickBaseFuture
+            }
+        };
+    }
+
+    /**
+     * Attaches the iterator to the {@link QuickBaseFuture} of the running query. The end of the
+     * result set (or the query's failure) is signaled when the future completes.
+     *
+     * @param query the {@link QuickBaseFuture} of the query
+     */
+    void attach(QuickBaseFuture<Void> query)
+    {
+        this.query = query;
+        query.addCallback(new QuickBaseCallback<Void>()
+        {
+            public void succeeded(Void result)
+            {
+                transfer(END);
+            }
+
+            public void failed(QuickBaseException exception)
+            {
+                transfer(exception);
+            }
+        });
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Puts an element into the buffer. The parsing thread is blocked while the buffer is full,
+     * but it gives up (and drops the element) once the iterator was closed.
+     *
+     * @param element a {@link QuickBaseRecord}, a {@link QuickBaseException} or the end marker
+     */
+    private void transfer(Object element)
+    {
+        try
+        {
+            while (!closed && !buffer.offer(element, POLL_INTERVAL, TimeUnit.MILLISECONDS))
+            {
+                continue;
+            }
+        }
+        catch (InterruptedException interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
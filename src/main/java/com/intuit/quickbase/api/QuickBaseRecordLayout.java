@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseRecordLayout.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.Arrays;
+
+/**
+ * The class <code>QuickBaseRecordLayout</code> maps field IDs to slot indices in the value array
+ * of a {@link QuickBaseRecord}. All records of a query result share the same layout (the fields
+ * of a result set are fixed by the query's <code>clist</code>), so that the per-record storage is
+ * reduced to a flat array of values, and looking up a field is a simple array access.
+ * <p/>
+ * Layouts are immutable. If a record contains a field that is not part of its layout, a new
+ * layout that includes the additional field is created with {@link #extend(int)}; records that
+ * were created with the original layout are not affected.
+ */
+final class QuickBaseRecordLayout
+{
+    private final static int NONE = -1;
+    private final static int[] NO_SLOTS = {};
+
+    /** The empty layout, which does not contain any fields. **/
+    final static QuickBaseRecordLayout EMPTY = new QuickBaseRecordLayout(NO_SLOTS, NO_SLOTS);
+
+    private int[] slotByID;
+    private int[] idBySlot;
+    private Monitor monitor;
+
+    private QuickBaseRecordLayout(int[] slotByID, int[] idBySlot)
+    {
+        this(slotByID, idBySlot, null);
+    }
+
+    private QuickBaseRecordLayout(int[] slotByID, int[] idBySlot, Monitor monitor)
+    {
+        this.slotByID = slotByID;
+        this.idBySlot = idBySlot;
+        this.monitor = monitor;
+    }
+
+    /**
+     * Gets the slot index of a field.
+     *
+     * @param fieldID the field ID
+     * @return the slot index, or <code>-1</code> if the field is not part of the layout
+     */
+    int slot(int fieldID)
+    {
+        return fieldID >= 0 && fieldID < slotByID.length? slotByID[fieldID]:NONE;
+    }
+
+    /**
+     * Gets the ID of the field that is stored in a particular slot.
+     *
+     * @param slot the slot index
+     * @return the field ID
+     */
+    int fieldID(int slot)
+    {
+        return idBySlot[slot];
+    }
+
+    /**
+     * Gets the number of slots (i.e., fields) in the layout.
+     *
+     * @return the number of slots
+     */
+    int size()
+    {
+        return idBySlot.length;
+    }
+
+    /**
+     * Creates a layout that contains an additional field. The new field is assigned the next
+     * free slot, so that the slot indices of existing fields remain unchanged.
+     *
+     * @param fieldID the ID of the additional field
+     * @return the extended {@link QuickBaseRecordLayout}
+     * @throws IllegalArgumentException if the field ID is negative
+     */
+    QuickBaseRecordLayout extend(int fieldID)
+    {
+        if (fieldID < 0)
+        {
+            throw new IllegalArgumentException(String.valueOf(fieldID));
+        }
+        int size = idBySlot.length;
+        int[] slots = slotByID;
+        if (fieldID >= slots.length)
+        {
+            slots = new int[Math.max(fieldID+1, 2*slotByID.length)];
+            Arrays.fill(slots, NONE);
+            System.arraycopy(slotByID, 0, slots, 0, slotByID.length);
+        }
+        else
+        {
+            slots = slots.clone();
+        }
+        slots[fieldID] = size;
+        int[] ids = new int[size+1];
+        System.arraycopy(idBySlot, 0, ids, 0, size);
+        ids[size] = fieldID;
+        return new QuickBaseRecordLayout(slots, ids, monitor);
+    }
+
+    /**
+     * Creates a layout with the same slots that reports attempts to access fields that are not
+     * part of the layout.
+     *
+     * @param monitor the {@link Monitor} that receives the reports
+     * @return the monitored {@link QuickBaseRecordLayout}
+     */
+    QuickBaseRecordLayout monitor(Monitor monitor)
+    {
+        return new QuickBaseRecordLayout(slotByID, idBySlot, monitor);
+    }
+
+    /**
+     * Reports an attempt to access a field that is not part of the layout (if the layout is
+     * monitored).
+     *
+     * @param fieldID the ID of the accessed field
+     */
+    void missing(int fieldID)
+    {
+        if (monitor != null)
+        {
+            monitor.missing(fieldID);
+        }
+    }
+
+    /**
+     * A <code>Monitor</code> is notified when a field is accessed that is not part of a record's
+     * layout, which usually means that the field was not included in the query's column list.
+     */
+    static interface Monitor
+    {
+        /**
+         * Notifies the monitor that a field that is not part of the layout was accessed.
+         *
+         * @param fieldID the ID of the accessed field
+         */
+        public abstract void missing(int fieldID);
+    }
+}
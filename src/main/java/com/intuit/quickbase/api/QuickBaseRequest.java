@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseRequest.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import org.xml.sax.InputSource;
+
+/**
+ * The interface <code>QuickBaseRequest</code> represents a prepared but not yet executed request
+ * to QuickBase. It allows the {@link QuickBaseQueryEngine} to decide on which thread (and at what
+ * time) the HTTP request is actually sent.
+ */
+interface QuickBaseRequest
+{
+    /**
+     * Executes the request.
+     *
+     * @return the server's response
+     * @throws QuickBaseException if the request could not be executed
+     */
+    public abstract InputSource execute() throws QuickBaseException;
+
+    /**
+     * Gets a key that identifies the request's response. Two requests with equal keys are
+     * expected to produce the same response if they are executed at the same time, which allows
+     * the {@link QuickBaseQueryEngine} to {@link QuickBaseQueryEngine#setCoalescing(boolean)
+     * coalesce} them.
+     *
+     * @return the key, or <code>null</code> if the request must not be coalesced
+     */
+    public abstract Object getKey();
+
+    /**
+     * Gets the place in the connection's {@link QuickBaseQueryCache} where the request's parsed
+     * response is cached.
+     *
+     * @return the {@link QuickBaseQueryCache.Slot}, or <code>null</code> if the response is not
+     * cached
+     */
+    public abstract QuickBaseQueryCache.Slot getCacheSlot();
+}
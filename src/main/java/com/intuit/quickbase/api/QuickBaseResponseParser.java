@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseResponseParser.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * The class {@link QuickBaseResponseParser} turns QuickBase XML responses into the SAX events that
+ * the SDK's internal content handlers consume. Parser instances are expensive to create (every
+ * call to <code>SAXParserFactory.newInstance()</code> involves a service lookup, and every new
+ * parser allocates its internal buffers), so a {@link QuickBaseResponseParser} creates its factory
+ * once and keeps a pool of parsers that are reset and reused for subsequent responses.
+ * <p/>
+ * Two implementations are available:
+ * <ul>
+ * <li>{@link #sax()} (the default) parses responses with a pooled {@link SAXParser}, and</li>
+ * <li>{@link #stax()} pulls events from an {@link XMLStreamReader} and forwards them to the
+ * content handler.</li>
+ * </ul>
+ * Alternative XML tokenizers can be plugged in by supplying their {@link SAXParserFactory} or
+ * {@link XMLInputFactory} to {@link #sax(SAXParserFactory)} or {@link #stax(XMLInputFactory)}.
+ * All {@link QuickBaseResponseParser}s are safe for use by multiple threads.
+ *
+ * @see QuickBaseQueryEngine#setResponseParser(QuickBaseResponseParser)
+ */
+public abstract class QuickBaseResponseParser
+{
+    private final static QuickBaseResponseParser DEFAULT = sax();
+
+    QuickBaseResponseParser()
+    {
+        // Only the built-in implementations can be instantiated
+    }
+
+    /**
+     * Creates a {@link QuickBaseResponseParser} that uses pooled SAX parsers of the platform's
+     * default {@link SAXParserFactory}.
+     *
+     * @return a new {@link QuickBaseResponseParser}
+     */
+    public static QuickBaseResponseParser sax()
+    {
+        return sax(SAXParserFactory.newInstance());
+    }
+
+    /**
+     * Creates a {@link QuickBaseResponseParser} that uses pooled SAX parsers of a particular
+     * {@link SAXParserFactory}. The factory must not be modified after it was passed to this
+     * method.
+     *
+     * @param factory the {@link SAXParserFactory}
+     * @return a new {@link QuickBaseResponseParser}
+     */
+    public static QuickBaseResponseParser sax(SAXParserFactory factory)
+    {
+        return new SAX(factory);
+    }
+
+    /**
+     * Creates a {@link QuickBaseResponseParser} that uses the platform's default
+     * {@link XMLInputFactory}.
+     *
+     * @return a new {@link QuickBaseResponseParser}
+     */
+    public static QuickBaseResponseParser stax()
+    {
+        return stax(XMLInputFactory.newInstance());
+    }
+
+    /**
+     * Creates a {@link QuickBaseResponseParser} that uses a particular {@link XMLInputFactory}.
+     * The factory must not be modified after it was passed to this method.
+     *
+     * @param factory the {@link XMLInputFactory}
+     * @return a new {@link QuickBaseResponseParser}
+     */
+    public static QuickBaseResponseParser stax(XMLInputFactory factory)
+    {
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return new StAX(factory);
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Gets the shared default {@link QuickBaseResponseParser}.
+     *
+     * @return the default parser
+     */
+    static QuickBaseResponseParser getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * Parses a response and forwards its contents to a SAX content handler.
+     *
+     * @param response the {@link InputSource} of the response
+     * @param handler the {@link DefaultHandler} that receives the parsing events
+     * @throws IOException if the response could not be read
+     * @throws SAXException if the response is not well-formed or the handler failed
+     */
+    abstract void parse(InputSource response, DefaultHandler handler)
+    throws IOException, SAXException;
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * A {@link QuickBaseResponseParser} backed by a pool of {@link SAXParser}s.
+     */
+    private static class SAX extends QuickBaseResponseParser
+    {
+        private SAXParserFactory factory;
+        private Queue<SAXParser> pool;
+
+        SAX(SAXParserFactory factory)
+        {
+            this.factory = factory;
+            this.pool = new ConcurrentLinkedQueue<SAXParser>();
+        }
+
+        void parse(InputSource response, DefaultHandler handler) throws IOException, SAXException
+        {
+            SAXParser parser = pool.poll();
+            if (parser == null)
+            {
+                try
+                {
+                    parser = factory.newSAXParser();
+                }
+                catch (ParserConfigurationException parserConfigurationException)
+                {
+                    throw new SAXException(parserConfigurationException);
+                }
+            }
+            boolean reusable = false;
+            try
+            {
+                parser.parse(response, handler);
+                reusable = true;
+            }
+            finally
+            {
+                // A parser that failed is discarded because it may be left in an undefined state:
+                //
+                if (reusable)
+                {
+                    parser.reset();
+                    pool.offer(parser);
+                }
+            }
+        }
+    }
+
+    /**
+     * A {@link QuickBaseResponseParser} that pulls events from an {@link XMLStreamReader}.
+     * Stream readers are lightweight and cannot be reset, so only the factory is reused.
+     */
+    private static class StAX extends QuickBaseResponseParser
+    {
+        private final static String EMPTY = ""; //$NON-NLS-1$
+        private final static String CDATA = "CDATA"; //$NON-NLS-1$
+
+        private XMLInputFactory factory;
+
+        StAX(XMLInputFactory factory)
+        {
+            this.factory = factory;
+        }
+
+        void parse(InputSource response, DefaultHandler handler) throws IOException, SAXException
+        {
+            XMLStreamReader reader = null;
+            try
+            {
+                if (response.getByteStream() != null && response.getEncoding() != null)
+                {
+                    reader = factory.createXMLStreamReader(response.getByteStream(), response.getEncoding());
+                }
+                else if (response.getByteStream() != null)
+                {
+                    reader = factory.createXMLStreamReader(response.getByteStream());
+                }
+                else
+                {
+                    reader = factory.createXMLStreamReader(response.getCharacterStream());
+                }
+                AttributesImpl attributes = new AttributesImpl();
+                handler.startDocument();
+                while (reader.hasNext())
+                {
+                    switch (reader.next())
+                    {
+                        case XMLStreamConstants.START_ELEMENT:
+                            attributes.clear();
+                            for (int index = 0, count = reader.getAttributeCount(); index < count; index++)
+                            {
+                                String name = reader.getAttributeLocalName(index);
+                                String qName = name(reader.getAttributePrefix(index), name);
+                                String namespace = reader.getAttributeNamespace(index);
+                                attributes.addAttribute(namespace != null? namespace:EMPTY, name,
+                                    qName, CDATA, reader.getAttributeValue(index));
+                            }
+                            handler.startElement(namespace(reader), reader.getLocalName(),
+                                name(reader.getPrefix(), reader.getLocalName()), attributes);
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            handler.endElement(namespace(reader), reader.getLocalName(),
+                                name(reader.getPrefix(), reader.getLocalName()));
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                        case XMLStreamConstants.SPACE:
+                            handler.characters(reader.getTextCharacters(), reader.getTextStart(),
+                                reader.getTextLength());
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                handler.endDocument();
+            }
+            catch (XMLStreamException xmlStreamException)
+            {
+                throw new SAXException(xmlStreamException);
+            }
+            finally
+            {
+                if (reader != null)
+                {
+                    try
+                    {
+                        reader.close();
+                    }
+                    catch (XMLStreamException ignore)
+                    {
+                        // The underlying response is closed by the caller
+                    }
+                }
+            }
+        }
+
+        private static String namespace(XMLStreamReader reader)
+        {
+            String namespace = reader.getNamespaceURI();
+            return namespace != null? namespace:EMPTY;
+        }
+
+        private static String name(String prefix, String localName)
+        {
+            return prefix == null || prefix.length() == 0? localName:prefix + ':' + localName;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseResponseStream.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.httpclient.HttpMethod;
+import org.xml.sax.InputSource;
+
+/**
+ * The class <code>QuickBaseResponseStream</code> wraps the response body of an executed
+ * {@link HttpMethod} and releases the method's connection exactly once, either when the end of the
+ * stream was reached or when the stream was closed. A response that is no longer needed can also
+ * be {@link #abort() aborted}, which discards the underlying connection instead of reading the
+ * remaining response body.
+ * <p/>
+ * If the response has a content coding (see {@link #decode(String)}), the stream returns the
+ * decoded content. If the call is instrumented, the stream also counts the received bytes (as
+ * transferred and as decoded) for the call's {@link QuickBaseCallEvent} and completes the event
+ * when it is closed. Because XML parsers close
+ * their input at the end of the document, code that still needs to record parsing results must
+ * obtain the event through {@link #event(InputSource)}; the event is then only completed by
+ * {@link #close(InputSource)}.
+ */
+class QuickBaseResponseStream extends FilterInputStream
+{
+    private final static int EOF = -1;
+
+    private HttpMethod method;
+    private AtomicBoolean released;
+    private QuickBaseCallEvent event;
+    private boolean completeOnClose;
+    private boolean encoded;
+
+    QuickBaseResponseStream(HttpMethod method, InputStream body)
+    {
+        super(body);
+        this.method = method;
+        this.released = new AtomicBoolean();
+    }
+
+    /**
+     * Reads a single byte and releases the connection if the end of the stream was reached.
+     *
+     * @return the next byte, or <code>-1</code> at the end of the stream
+     * @throws IOException if the stream could not be read
+     */
+    public int read() throws IOException
+    {
+        int data = super.read();
+        if (data == EOF)
+        {
+            release();
+        }
+        else
+        {
+            counted(1);
+        }
+        return data;
+    }
+
+    /**
+     * Reads a number of bytes and releases the connection if the end of the stream was reached.
+     *
+     * @param buffer the buffer into which the data is read
+     * @param offset the start offset in the buffer
+     * @param length the maximum number of bytes to be read
+     * @return the number of bytes read, or <code>-1</code> at the end of the stream
+     * @throws IOException if the stream could not be read
+     */
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+        int count = super.read(buffer, offset, length);
+        if (count == EOF)
+        {
+            release();
+        }
+        else
+        {
+            counted(count);
+        }
+        return count;
+    }
+
+    /**
+     * Closes the stream and releases the connection. Unread response content is consumed by the
+     * underlying HTTP library so that the connection can be reused. Closing the stream also
+     * completes the {@link QuickBaseCallEvent} of an instrumented call, unless the event was
+     * obtained through {@link #event(InputSource)}.
+     *
+     * @throws IOException if the stream could not be closed
+     */
+    public void close() throws IOException
+    {
+        try
+        {
+            super.close();
+        }
+        finally
+        {
+            release();
+            if (completeOnClose)
+            {
+                event.complete();
+            }
+        }
+    }
+
+    /**
+     * Aborts the response. The underlying connection is closed rather than returned to the pool,
+     * which is the fastest way of getting rid of a large response that is no longer needed.
+     */
+    void abort()
+    {
+        if (!released.get())
+        {
+            method.abort();
+            release();
+        }
+    }
+
+    /**
+     * Decodes the response body according to its content coding. The received bytes are still
+     * counted as they are transferred, whereas the stream returns (and counts) the decoded bytes.
+     *
+     * @param encoding the value of the <code>Content-Encoding</code> response header
+     */
+    void decode(String encoding)
+    {
+        if (!QuickBaseCompression.isIdentity(encoding))
+        {
+            in = QuickBaseCompression.decode(encoding, new TransferredStream(in));
+            encoded = true;
+        }
+    }
+
+    /**
+     * Attaches the {@link QuickBaseCallEvent} of an instrumented call to this stream.
+     *
+     * @param event the {@link QuickBaseCallEvent}
+     */
+    void attach(QuickBaseCallEvent event)
+    {
+        this.event = event;
+        this.completeOnClose = true;
+    }
+
+    /**
+     * Gets the {@link QuickBaseCallEvent} that is attached to the byte stream of an
+     * {@link InputSource}. The caller takes over the responsibility for completing the event,
+     * which happens when the response is closed with {@link #close(InputSource)}.
+     *
+     * @param response the {@link InputSource}
+     * @return the {@link QuickBaseCallEvent}, or <code>null</code> if the call is not instrumented
+     */
+    static QuickBaseCallEvent event(InputSource response)
+    {
+        InputStream stream = response.getByteStream();
+        if (stream instanceof QuickBaseResponseStream)
+        {
+            QuickBaseResponseStream responseStream = (QuickBaseResponseStream)stream;
+            responseStream.completeOnClose = false;
+            return responseStream.event;
+        }
+        return null;
+    }
+
+    /**
+     * Aborts the response of an {@link InputSource} (if its byte stream is a
+     * <code>QuickBaseResponseStream</code>) and closes it.
+     *
+     * @param response the {@link InputSource}
+     */
+    static void abort(InputSource response)
+    {
+        InputStream stream = response.getByteStream();
+        if (stream instanceof QuickBaseResponseStream)
+        {
+            ((QuickBaseResponseStream)stream).abort();
+        }
+        close(response);
+    }
+
+    /**
+     * Closes the byte stream of an {@link InputSource} (if any) and ignores all errors. This is
+     * used for releasing connections after a response was processed. The
+     * {@link QuickBaseCallEvent} of an instrumented call is completed as well.
+     *
+     * @param response the {@link InputSource}
+     */
+    static void close(InputSource response)
+    {
+        InputStream stream = response.getByteStream();
+        if (stream != null)
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException ignore)
+            {
+                // The connection was released regardless of the exception
+            }
+            finally
+            {
+                if (stream instanceof QuickBaseResponseStream)
+                {
+                    QuickBaseCallEvent event = ((QuickBaseResponseStream)stream).event;
+                    if (event != null)
+                    {
+                        event.complete();
+                    }
+                }
+            }
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private void release()
+    {
+        if (released.compareAndSet(false, true))
+        {
+            method.releaseConnection();
+        }
+    }
+
+    private void counted(int bytes)
+    {
+        if (event != null)
+        {
+            event.decoded(bytes);
+            if (!encoded)
+            {
+                event.received(bytes);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes of an encoded response body as they are transferred.
+     */
+    private class TransferredStream extends FilterInputStream
+    {
+        TransferredStream(InputStream body)
+        {
+            super(body);
+        }
+
+        public int read() throws IOException
+        {
+            int data = super.read();
+            if (data != EOF && event != null)
+            {
+                event.received(1);
+            }
+            return data;
+        }
+
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            int count = super.read(buffer, offset, length);
+            if (count != EOF && event != null)
+            {
+                event.received(count);
+            }
+            return count;
+        }
+    }
+}
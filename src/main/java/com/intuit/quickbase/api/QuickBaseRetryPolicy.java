@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseRetryPolicy.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The class {@link QuickBaseRetryPolicy} decides whether a failed {@link QuickBaseAPICall} is
+ * sent again, and how long to wait before the next attempt. Whether a call can be retried depends
+ * on its {@link QuickBaseAPICall#isIdempotent() idempotency}:
+ * <ul>
+ * <li>all calls are retried if the server rejected them without processing them (HTTP status
+ * 429 or 503), or if the connection to the server could not be established;</li>
+ * <li>idempotent calls are also retried after network errors (such as a connection that was
+ * reset while waiting for the response), after other HTTP 5xx responses, and after QuickBase
+ * errors that were declared as {@link #addRetryableErrorCode(int) retryable}.</li>
+ * </ul>
+ * No call is retried after a timeout (an {@link InterruptedIOException}, such as a socket
+ * timeout), if the calling thread was interrupted, or if the query that sent the call was
+ * cancelled or timed out while the request was executed.
+ * Non-idempotent calls (such as {@link QuickBaseAPICall#API_AddRecord}) are never retried if
+ * the request might have reached QuickBase, because repeating them could duplicate data.
+ * <p/>
+ * The waiting time grows exponentially with the number of attempts and is randomized ("full
+ * jitter"), so that clients that failed at the same time do not retry at the same time. A
+ * <code>Retry-After</code> header sent by the server is respected. Retries only cover the
+ * request itself and the response headers; a response that fails while its body is being
+ * processed is only retried for calls whose response is decoded by the SDK as a whole (i.e., not
+ * for queries that stream records to a {@link QuickBaseResultHandler}).
+ * <p/>
+ * Idempotent calls can optionally be <em>hedged</em>: if the response headers of a call have not
+ * arrived after a certain percentile of the call's recent latencies (by default, the 95th), a
+ * second, identical request is sent, and whichever response arrives first is used. The other
+ * request is aborted. Hedging cuts the tail latency of read calls at the cost of a few percent of
+ * additional requests. The requests of hedged calls are sent by a bounded pool of daemon threads
+ * (see {@link #setMaxHedgingThreads(int)}); while all of its threads are busy, calls are sent
+ * without hedging. The threads are released by {@link #shutdown()}, which also happens when the
+ * policy is replaced by {@link QuickBase#setRetryPolicy(QuickBaseRetryPolicy)} or
+ * {@link QuickBaseConnection#setRetryPolicy(QuickBaseRetryPolicy)}.
+ *
+ * @see QuickBase#setRetryPolicy(QuickBaseRetryPolicy)
+ */
+public class QuickBaseRetryPolicy
+{
+    /** The default maximum number of attempts per call (including the first one). **/
+    public final static int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** The default waiting time (in milliseconds) before the second attempt. **/
+    public final static long DEFAULT_INITIAL_BACKOFF = 100L;
+
+    /** The default maximum waiting time (in milliseconds) between two attempts. **/
+    public final static long DEFAULT_MAX_BACKOFF = 10000L;
+
+    /** The default latency percentile after which a hedged request is sent. **/
+    public final static double DEFAULT_HEDGING_PERCENTILE = 95;
+
+    /** The default maximum number of threads that send the requests of hedged calls. **/
+    public final static int DEFAULT_MAX_HEDGING_THREADS = 16;
+
+    private final static int TOO_MANY_REQUESTS = 429;
+    private final static int SERVICE_UNAVAILABLE = 503;
+    private final static int SERVER_ERROR = 500;
+    private final static int MIN_HEDGING_SAMPLES = 20;
+    private final static long MILLISECONDS_PER_SECOND = 1000L;
+    private final static long HEDGING_THREAD_KEEP_ALIVE = 60L;
+    private final static String HEDGING_THREAD_NAME = "QuickBase hedged request "; //$NON-NLS-1$
+
+    private int maxAttempts;
+    private long initialBackoff;
+    private long maxBackoff;
+    private Set<Integer> retryableErrorCodes;
+    private Random random;
+    private volatile boolean hedging;
+    private volatile double hedgingPercentile;
+    private int maxHedgingThreads;
+    private ConcurrentMap<QuickBaseAPICall, QuickBaseHistogram> latencies;
+    private ThreadPoolExecutor hedgingExecutor;
+
+    /**
+     * Creates a new {@link QuickBaseRetryPolicy} with the default settings. Hedging is disabled.
+     */
+    public QuickBaseRetryPolicy()
+    {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseRetryPolicy}. Hedging is disabled.
+     *
+     * @param maxAttempts the maximum number of attempts per call (<code>1</code> disables
+     * retries)
+     * @param initialBackoff the waiting time (in milliseconds) before the second attempt
+     * @param maxBackoff the maximum waiting time (in milliseconds) between two attempts
+     */
+    public QuickBaseRetryPolicy(int maxAttempts, long initialBackoff, long maxBackoff)
+    {
+        if (maxAttempts < 1 || initialBackoff < 0 || maxBackoff < initialBackoff)
+        {
+            throw new IllegalArgumentException(maxAttempts + "/" + initialBackoff + "/" + maxBackoff); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retryableErrorCodes = new CopyOnWriteArraySet<Integer>();
+        this.random = new Random();
+        this.hedgingPercentile = DEFAULT_HEDGING_PERCENTILE;
+        this.maxHedgingThreads = DEFAULT_MAX_HEDGING_THREADS;
+        this.latencies = new ConcurrentHashMap<QuickBaseAPICall, QuickBaseHistogram>();
+    }
+
+    /**
+     * Gets the maximum number of attempts per call.
+     *
+     * @return the maximum number of attempts (including the first one)
+     */
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    /**
+     * Declares a QuickBase error code as retryable. Idempotent calls that fail with this error
+     * code are retried (for example, for error codes that indicate a temporary condition).
+     *
+     * @param errorCode the QuickBase error code
+     */
+    public void addRetryableErrorCode(int errorCode)
+    {
+        retryableErrorCodes.add(Integer.valueOf(errorCode));
+    }
+
+    /**
+     * Determines whether idempotent calls are hedged.
+     *
+     * @return <code>true</code> if hedging is enabled
+     */
+    public boolean isHedging()
+    {
+        return hedging;
+    }
+
+    /**
+     * Enables or disables hedging of idempotent calls.
+     *
+     * @param hedging <code>true</code> to enable hedging
+     */
+    public void setHedging(boolean hedging)
+    {
+        this.hedging = hedging;
+    }
+
+    /**
+     * Sets the latency percentile after which a hedged request is sent.
+     *
+     * @param hedgingPercentile the percentile (between <code>50</code> and <code>100</code>)
+     */
+    public void setHedgingPercentile(double hedgingPercentile)
+    {
+        this.hedgingPercentile = hedgingPercentile;
+    }
+
+    /**
+     * Sets the maximum number of threads that send the requests of hedged calls. Each hedged
+     * call occupies up to two threads while it waits for its response.
+     *
+     * @param maxHedgingThreads the maximum number of threads (at least <code>1</code>)
+     */
+    public synchronized void setMaxHedgingThreads(int maxHedgingThreads)
+    {
+        if (maxHedgingThreads < 1)
+        {
+            throw new IllegalArgumentException(String.valueOf(maxHedgingThreads));
+        }
+        this.maxHedgingThreads = maxHedgingThreads;
+        if (hedgingExecutor != null)
+        {
+            hedgingExecutor.setMaximumPoolSize(maxHedgingThreads);
+        }
+    }
+
+    /**
+     * Releases the threads that send the requests of hedged calls. Requests that are already
+     * being sent are completed. If the policy is used again afterwards, new threads are created
+     * as needed.
+     */
+    public synchronized void shutdown()
+    {
+        if (hedgingExecutor != null)
+        {
+            hedgingExecutor.shutdown();
+            hedgingExecutor = null;
+        }
+    }
+
+    /**
+     * Determines whether a failed attempt of a call should be followed by another attempt.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @param exception the {@link QuickBaseException} of the failed attempt
+     * @param attempt the number of the failed attempt (starting at <code>1</code>)
+     * @return <code>true</code> if the call should be sent again
+     */
+    public boolean isRetryable(QuickBaseAPICall call, QuickBaseException exception, int attempt)
+    {
+        Throwable cause = exception.getCause();
+        if (attempt >= maxAttempts || cause instanceof InterruptedIOException
+        || Thread.currentThread().isInterrupted() || QuickBaseQuery.isAborted())
+        {
+            // Timeouts and cancelled calls are not retried; the caller has given up on them:
+            //
+            return false;
+        }
+        int statusCode = exception.getStatusCode();
+        if (statusCode == TOO_MANY_REQUESTS || statusCode == SERVICE_UNAVAILABLE
+        || cause instanceof ConnectException)
+        {
+            return true;
+        }
+        if (!call.isIdempotent())
+        {
+            return false;
+        }
+        return statusCode >= SERVER_ERROR || cause instanceof IOException
+            || retryableErrorCodes.contains(Integer.valueOf(exception.getErrorCode()));
+    }
+
+    /**
+     * Calculates the waiting time after a failed attempt.
+     *
+     * @param attempt the number of the failed attempt (starting at <code>1</code>)
+     * @param exception the {@link QuickBaseException} of the failed attempt
+     * @return the waiting time in milliseconds
+     */
+    public long getBackoff(int attempt, QuickBaseException exception)
+    {
+        long ceiling = initialBackoff << Math.min(attempt - 1, Long.SIZE - 2);
+        if (ceiling <= 0 || ceiling > maxBackoff)
+        {
+            ceiling = maxBackoff;
+        }
+        long backoff;
+        synchronized (random)
+        {
+            backoff = (long)(random.nextDouble()*ceiling);
+        }
+        return Math.max(backoff, exception.getRetryAfter()*MILLISECONDS_PER_SECOND);
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Calculates the time after which a hedged request should be sent for a call.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @return the delay in nanoseconds, or <code>-1</code> if the call should not be hedged (because
+     * hedging is disabled, the call is not idempotent, or too few latencies were recorded yet)
+     */
+    long getHedgingDelay(QuickBaseAPICall call)
+    {
+        if (!hedging || !call.isIdempotent())
+        {
+            return -1;
+        }
+        QuickBaseHistogram histogram = latencies.get(call);
+        if (histogram == null || histogram.getCount() < MIN_HEDGING_SAMPLES)
+        {
+            return -1;
+        }
+        return histogram.getValueAtPercentile(hedgingPercentile);
+    }
+
+    /**
+     * Records the latency (i.e., the time until the response headers arrived) of a request.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @param nanoseconds the latency in nanoseconds
+     */
+    void recordLatency(QuickBaseAPICall call, long nanoseconds)
+    {
+        QuickBaseHistogram histogram = latencies.get(call);
+        if (histogram == null)
+        {
+            QuickBaseHistogram newHistogram = new QuickBaseHistogram();
+            histogram = latencies.putIfAbsent(call, newHistogram);
+            if (histogram == null)
+            {
+                histogram = newHistogram;
+            }
+        }
+        histogram.record(nanoseconds);
+    }
+
+    /**
+     * Gets the {@link ExecutorService} that runs the requests of hedged calls.
+     *
+     * @return the {@link ExecutorService} (with daemon threads that are created on demand); it
+     * rejects requests while all of its threads are busy
+     */
+    synchronized ExecutorService getHedgingExecutor()
+    {
+        if (hedgingExecutor == null)
+        {
+            final AtomicInteger count = new AtomicInteger();
+            hedgingExecutor = new ThreadPoolExecutor(0, maxHedgingThreads,
+                HEDGING_THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new ThreadFactory()
+                {
+                    public Thread newThread(Runnable runnable)
+                    {
+                        Thread thread = new Thread(runnable, HEDGING_THREAD_NAME + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        }
+        return hedgingExecutor;
+    }
+
+    /**
+     * Waits for the backoff time of a failed attempt.
+     *
+     * @param attempt the number of the failed attempt
+     * @param exception the {@link QuickBaseException} of the failed attempt
+     * @throws QuickBaseException the original exception, if the thread was interrupted while
+     * waiting
+     */
+    void backOff(int attempt, QuickBaseException exception) throws QuickBaseException
+    {
+        try
+        {
+            TimeUnit.MILLISECONDS.sleep(getBackoff(attempt, exception));
+        }
+        catch (InterruptedException interruptedException)
+        {
+            Thread.currentThread().interrupt();
+            throw exception;
+        }
+    }
+}
@@ -13,17 +13,17 @@
 
 package com.intuit.quickbase.api;
 
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-
-import org.w3c.dom.Node;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The class {@link QuickBaseSchema} represents the database schema of a QuickBase database.
  * The schema can be used to find tables and meta-information of a given {@link QuickBaseDatabase}.
- *
- * TODO: add more schema-related methods beside just getTable(...)
+ * The schema is parsed from the {@link QuickBaseAPICall#API_GetSchema} response once and is then
+ * held as an immutable model in which tables are indexed by name and by table ID. No part of the
+ * original XML response is retained.
  *
  * @see QuickBaseDatabase#getSchema()
  *
@@ -33,12 +33,26 @@ import org.w3c.dom.Node;
 public class QuickBaseSchema
 {
 	private QuickBaseDatabase database;
-    private Node schema;
+    private List<QuickBaseTable> tables;
+    private Map<String, QuickBaseTable> tablesByName;
+    private Map<String, QuickBaseTable> tablesByID;
+    private String applicationId;
 
-    QuickBaseSchema(QuickBaseDatabase database, Node schema)
+    QuickBaseSchema(QuickBaseDatabase database, List<QuickBaseTable> tables, String applicationId)
     {
     	this.database = database;
-        this.schema = schema;
+        this.applicationId = applicationId;
+        this.tables = Collections.unmodifiableList(tables);
+        this.tablesByName = new HashMap<String, QuickBaseTable>(2*tables.size());
+        this.tablesByID = new HashMap<String, QuickBaseTable>(2*tables.size());
+        for (QuickBaseTable table: tables)
+        {
+            if (!tablesByName.containsKey(table.getName()))
+            {
+                tablesByName.put(table.getName(), table);
+            }
+            tablesByID.put(table.getTableId(), table);
+        }
     }
 
     /**
@@ -46,28 +60,44 @@ public class QuickBaseSchema
      *
      * @param tableName the name of the table
      * @return the corresponding {@link QuickBaseTable} object
-     * @throws QuickBaseException if an error occurred while processing the QuickBase response
+     * @throws QuickBaseException if the schema does not contain a table of that name
      */
     public QuickBaseTable getTable(String tableName) throws QuickBaseException
     {
-        try
+        QuickBaseTable table = tablesByName.get(tableName);
+        if (table == null)
         {
-            XPathExpression xpath = QuickBaseXPath.compile(QuickBaseXPath.TABLE_NAME, tableName);
-            Node table = (Node)xpath.evaluate(schema, XPathConstants.NODE);
-            
-            String tableId = (String)QuickBaseXPath.TABLE_ID.evaluate(schema, XPathConstants.STRING);
-            if (tableId == null) {
-            	throw new QuickBaseException("Unable to determine table id for table " + tableName);
-            }
-            
-            return new QuickBaseTable(database, table, tableId);
+            throw new QuickBaseException("Table " + tableName + " was not found"); //$NON-NLS-1$ //$NON-NLS-2$
         }
-        catch (XPathExpressionException xpathException)
+        return table;
+    }
+
+    /**
+     * Gets a {@link QuickBaseTable} with the specified table ID.
+     *
+     * @param tableId the database ID of the table
+     * @return the corresponding {@link QuickBaseTable} object
+     * @throws QuickBaseException if the schema does not contain a table with that ID
+     */
+    public QuickBaseTable getTableByID(String tableId) throws QuickBaseException
+    {
+        QuickBaseTable table = tablesByID.get(tableId);
+        if (table == null)
         {
-            throw new QuickBaseException(xpathException);
+            throw new QuickBaseException("Table " + tableId + " was not found"); //$NON-NLS-1$ //$NON-NLS-2$
         }
+        return table;
     }
 
+    /**
+     * Gets all tables that are described by the schema.
+     *
+     * @return an unmodifiable list of {@link QuickBaseTable}s
+     */
+    public List<QuickBaseTable> getTables()
+    {
+        return tables;
+    }
 
     /**
      * Returns the {@link QuickBaseDatabase} that owns this schema.
@@ -75,6 +105,16 @@ public class QuickBaseSchema
 	public QuickBaseDatabase getDatabase() {
 		return database;
 	}
-    
-    
+
+    /**
+     * Gets the ID of the application that the schema belongs to. For the schema of an
+     * application this is the database ID of the application itself; for the schema of a table
+     * it is the ID of the application that contains the table.
+     *
+     * @return the application's database ID, or <code>null</code> if QuickBase did not report it
+     */
+    public String getApplicationId()
+    {
+        return applicationId;
+    }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseSchemaCache.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.httpclient.NameValuePair;
+
+import static com.intuit.quickbase.api.QuickBaseAPICall.API_GetAppDTMInfo;
+
+/**
+ * The class {@link QuickBaseSchemaCache} caches {@link QuickBaseSchema}s by database ID.
+ * A cached schema is returned without contacting QuickBase for as long as its time-to-live has
+ * not expired. Once it has expired, the cache revalidates the schema with a (cheap)
+ * {@link QuickBaseAPICall#API_GetAppDTMInfo} call; only if the modification time of the
+ * application or of one of its tables has changed since the last revalidation is the complete
+ * schema fetched again. Because <code>API_GetAppDTMInfo</code> only accepts application IDs,
+ * the call is made for the application that the schema belongs to (see
+ * {@link QuickBaseSchema#getApplicationId()}), even if the schema is that of a single table.
+ * <p/>
+ * The modification times are not retrieved when a schema is loaded for the first time, so that a
+ * cold cache does not cost an additional request. Consequently, the first expiration of a schema
+ * always fetches the complete schema (together with the modification times); only later
+ * expirations can be revalidated. Schemas for which QuickBase does not report an application ID
+ * or the modification times are simply fetched again whenever they expire. The number of cached schemas is bounded; when the bound is exceeded, the
+ * least recently used schema is evicted.
+ * <p/>
+ * A {@link QuickBaseSchemaCache} is associated with a connection via
+ * {@link QuickBaseConnection#setSchemaCache(QuickBaseSchemaCache)} and is safe for use by multiple
+ * threads.
+ */
+public class QuickBaseSchemaCache
+{
+    /** The default time-to-live of a cached schema (5 minutes). **/
+    public final static long DEFAULT_TIME_TO_LIVE = 5*60*1000L;
+
+    /** The default maximum number of cached schemas. **/
+    public final static int DEFAULT_MAX_ENTRIES = 100;
+
+    private final static String DBID = "dbid"; //$NON-NLS-1$
+
+    private long timeToLive;
+    private Map<String, CachedSchema> entries;
+    private AtomicLong hits;
+    private AtomicLong misses;
+    private AtomicLong revalidations;
+
+    /**
+     * Creates a new {@link QuickBaseSchemaCache} with default time-to-live and size.
+     */
+    public QuickBaseSchemaCache()
+    {
+        this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a new {@link QuickBaseSchemaCache}.
+     *
+     * @param timeToLive the time (in milliseconds) for which a schema is used without revalidation
+     * @param maxEntries the maximum number of cached schemas
+     */
+    public QuickBaseSchemaCache(long timeToLive, final int maxEntries)
+    {
+        this.timeToLive = timeToLive;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.revalidations = new AtomicLong();
+        this.entries = new LinkedHashMap<String, CachedSchema>(16, 0.75F, true)
+        {
+            private final static long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSchema> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the schema of a database, either from the cache or from QuickBase.
+     *
+     * @param database the {@link QuickBaseDatabase}
+     * @return the {@link QuickBaseSchema} of the database
+     * @throws QuickBaseException if the schema could not be retrieved
+     */
+    public QuickBaseSchema getSchema(QuickBaseDatabase database) throws QuickBaseException
+    {
+        String dbid = database.getDBID();
+        CachedSchema entry;
+        synchronized (entries)
+        {
+            entry = entries.get(dbid);
+        }
+        long now = System.currentTimeMillis();
+        if (entry == null)
+        {
+            misses.incrementAndGet();
+            QuickBaseSchema schema = database.fetchSchema();
+            put(dbid, new CachedSchema(schema, null, now + timeToLive));
+            return schema;
+        }
+        if (now < entry.expires)
+        {
+            hits.incrementAndGet();
+            return entry.schema;
+        }
+        String modified = lastModified(database, entry.schema.getApplicationId());
+        if (modified != null && modified.equals(entry.modified))
+        {
+            // The application has not changed since the schema was last revalidated:
+            //
+            revalidations.incrementAndGet();
+            hits.incrementAndGet();
+            put(dbid, new CachedSchema(entry.schema, modified, now + timeToLive));
+            return entry.schema;
+        }
+        misses.incrementAndGet();
+        QuickBaseSchema schema = database.fetchSchema();
+        put(dbid, new CachedSchema(schema, modified, now + timeToLive));
+        return schema;
+    }
+
+    /**
+     * Removes the cached schema of a database.
+     *
+     * @param dbid the database ID
+     */
+    public void invalidate(String dbid)
+    {
+        synchronized (entries)
+        {
+            entries.remove(dbid);
+        }
+    }
+
+    /**
+     * Removes all cached schemas.
+     */
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Gets the number of schema requests that were answered from the cache (including
+     * requests that required a revalidation).
+     *
+     * @return the number of cache hits
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of schema requests that required fetching the full schema.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of expired schemas that were found to be unchanged and were reused.
+     *
+     * @return the number of successful revalidations
+     */
+    public long getRevalidations()
+    {
+        return revalidations.get();
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private void put(String dbid, CachedSchema entry)
+    {
+        synchronized (entries)
+        {
+            entries.put(dbid, entry);
+        }
+    }
+
+    /**
+     * Retrieves a fingerprint of the modification times of an application and its tables. The
+     * fingerprint is retrieved before the schema itself is fetched again, so a change that happens
+     * in between causes another fetch rather than a stale schema.
+     *
+     * @param database the {@link QuickBaseDatabase}
+     * @param applicationId the ID of the application that the database belongs to, or
+     * <code>null</code> if it is not known
+     * @return the fingerprint, or <code>null</code> if the modification times could not be
+     * retrieved (in which case the schema is always fetched again)
+     */
+    private static String lastModified(QuickBaseDatabase database, String applicationId)
+    {
+        if (applicationId == null)
+        {
+            return null;
+        }
+        NameValuePair dbid = new NameValuePair(DBID, applicationId);
+        QuickBaseEnvelope info = new QuickBaseEnvelope(QuickBaseEnvelope.QDBAPI_APP_LAST_MODIFIED,
+            QuickBaseEnvelope.QDBAPI_TABLES_TABLE_LAST_MODIFIED);
+        try
+        {
+            database.getConnection().execute(API_GetAppDTMInfo, info, dbid);
+        }
+        catch (QuickBaseException exception)
+        {
+            return null;
+        }
+        StringBuffer modified = new StringBuffer();
+        modified.append(info.getValue(QuickBaseEnvelope.QDBAPI_APP_LAST_MODIFIED));
+        for (String table: info.getValues(QuickBaseEnvelope.QDBAPI_TABLES_TABLE_LAST_MODIFIED))
+        {
+            modified.append(',').append(table);
+        }
+        return modified.toString();
+    }
+
+    /**
+     * A cached schema together with the modification times it corresponds to (<code>null</code>
+     * if they are not known).
+     */
+    private static class CachedSchema
+    {
+        final QuickBaseSchema schema;
+        final String modified;
+        final long expires;
+
+        CachedSchema(QuickBaseSchema schema, String modified, long expires)
+        {
+            this.schema = schema;
+            this.modified = modified;
+            this.expires = expires;
+        }
+    }
+}
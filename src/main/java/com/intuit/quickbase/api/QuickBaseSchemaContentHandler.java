@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseSchemaContentHandler.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * The class <code>QuickBaseSchemaContentHandler</code> is a SAX content handler that builds the
+ * in-memory model of an {@link QuickBaseAPICall#API_GetSchema} response in a single pass. Only
+ * the information that is needed for the {@link QuickBaseSchema} model is retained: table names,
+ * table IDs, the application ID, and the ID, label and types of each field. Everything else in the response (queries,
+ * variables, field properties, etc.) is skipped.
+ */
+class QuickBaseSchemaContentHandler extends DefaultHandler
+{
+    private final static String QDBAPI_ERRCODE = "qdbapi/errcode"; //$NON-NLS-1$
+    private final static String QDBAPI_ERRTEXT = "qdbapi/errtext"; //$NON-NLS-1$
+    private final static String TABLE = "qdbapi/table"; //$NON-NLS-1$
+    private final static String TABLE_NAME = "qdbapi/table/name"; //$NON-NLS-1$
+    private final static String TABLE_ID = "qdbapi/table/original/table_id"; //$NON-NLS-1$
+    private final static String APP_ID = "qdbapi/table/original/app_id"; //$NON-NLS-1$
+    private final static String FIELD = "qdbapi/table/fields/field"; //$NON-NLS-1$
+    private final static String FIELD_LABEL = "qdbapi/table/fields/field/label"; //$NON-NLS-1$
+    private final static String ID = "id"; //$NON-NLS-1$
+    private final static String FIELD_TYPE = "field_type"; //$NON-NLS-1$
+    private final static String BASE_TYPE = "base_type"; //$NON-NLS-1$
+
+    private QuickBaseDatabase database;
+    private List<QuickBaseTable> tables;
+    private StringBuffer path;
+    private StringBuffer text;
+    private String errorCode;
+    private String errorText;
+    private String tableName;
+    private String tableId;
+    private String applicationId;
+    private List<QuickBaseFieldDefinition> fields;
+    private int fieldId;
+    private String fieldLabel;
+    private String fieldType;
+    private String baseType;
+
+    QuickBaseSchemaContentHandler(QuickBaseDatabase database)
+    {
+        this.database = database;
+        this.tables = new ArrayList<QuickBaseTable>();
+        this.path = new StringBuffer();
+    }
+
+    /**
+     * Processes the beginning of a new element.
+     *
+     * @param uri the current URI
+     * @param localName the local name of the element (if any)
+     * @param name the qualified name of the element
+     * @param attributes the list of element attributes (can be empty but never <code>null</code>)
+     * @throws SAXException if a problem was encountered during XML processing
+     */
+    public void startElement(String uri, String localName, String name, Attributes attributes)
+    throws SAXException
+    {
+        if (path.length() > 0)
+        {
+            path.append('/');
+        }
+        path.append(name);
+        String current = path.toString();
+        if (TABLE.equals(current))
+        {
+            tableName = null;
+            tableId = null;
+            fields = new ArrayList<QuickBaseFieldDefinition>();
+        }
+        else if (FIELD.equals(current))
+        {
+            try
+            {
+                fieldId = Integer.parseInt(attributes.getValue(ID));
+            }
+            catch (NumberFormatException numberFormatException)
+            {
+                throw new SAXException(numberFormatException);
+            }
+            fieldLabel = null;
+            fieldType = attributes.getValue(FIELD_TYPE);
+            baseType = attributes.getValue(BASE_TYPE);
+        }
+        else if (TABLE_NAME.equals(current) || TABLE_ID.equals(current) || APP_ID.equals(current)
+        || FIELD_LABEL.equals(current) || QDBAPI_ERRCODE.equals(current)
+        || QDBAPI_ERRTEXT.equals(current))
+        {
+            text = new StringBuffer();
+        }
+    }
+
+    /**
+     * Collects the text content of the elements that are part of the schema model.
+     *
+     * @param characters an array containing the text
+     * @param start the index in the array where the text begins
+     * @param length the length of the text
+     * @throws SAXException if a problem was encountered during XML processing
+     */
+    public void characters(char[] characters, int start, int length) throws SAXException
+    {
+        if (text != null)
+        {
+            text.append(characters, start, length);
+        }
+    }
+
+    /**
+     * Processes the end of an element.
+     *
+     * @param uri the current URI
+     * @param localName the local name of the element (if any)
+     * @param name the qualified name of the element
+     * @throws SAXException if a problem was encountered during XML processing
+     */
+    public void endElement(String uri, String localName, String name) throws SAXException
+    {
+        String current = path.toString();
+        if (TABLE.equals(current))
+        {
+            tables.add(new QuickBaseTable(database, tableId, tableName, fields));
+        }
+        else if (FIELD.equals(current))
+        {
+            fields.add(new QuickBaseFieldDefinition(fieldId, fieldLabel, fieldType, baseType));
+        }
+        else if (text != null)
+        {
+            String value = text.toString().trim();
+            if (TABLE_NAME.equals(current))
+            {
+                tableName = value;
+            }
+            else if (TABLE_ID.equals(current))
+            {
+                tableId = value;
+            }
+            else if (APP_ID.equals(current))
+            {
+                applicationId = value;
+            }
+            else if (FIELD_LABEL.equals(current))
+            {
+                fieldLabel = value;
+            }
+            else if (QDBAPI_ERRCODE.equals(current))
+            {
+                errorCode = value;
+            }
+            else if (QDBAPI_ERRTEXT.equals(current))
+            {
+                errorText = value;
+            }
+            text = null;
+        }
+        int separator = path.lastIndexOf("/"); //$NON-NLS-1$
+        path.setLength(separator == -1? 0:separator);
+    }
+
+    /**
+     * Gets the tables of the schema after the response was processed.
+     *
+     * @return the list of {@link QuickBaseTable}s
+     * @throws QuickBaseException if QuickBase reported an error instead of the schema
+     */
+    List<QuickBaseTable> getTables() throws QuickBaseException
+    {
+        QuickBaseException exception = QuickBaseEnvelope.exception(errorCode, errorText, null);
+        if (exception != null)
+        {
+            throw exception;
+        }
+        return tables;
+    }
+
+    /**
+     * Gets the ID of the application that the schema belongs to.
+     *
+     * @return the application's database ID, or <code>null</code> if the response did not
+     * contain it
+     */
+    String getApplicationId()
+    {
+        return applicationId;
+    }
+}
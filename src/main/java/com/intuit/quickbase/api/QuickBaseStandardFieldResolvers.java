@@ -1,5 +1,7 @@
 package com.intuit.quickbase.api;
 
+import java.util.Date;
+
 /**
  * The class {@link QuickBaseStandardFieldResolvers} predefines some instances of {@link QuickBaseFieldResolver}
  * for commonly used primitive java datatypes.
@@ -23,30 +25,94 @@ public class QuickBaseStandardFieldResolvers {
 		}
 	};
 	
-	public static QuickBaseFieldResolver<Integer> INTEGER_RESOLVER = new QuickBaseFieldResolver<Integer>() {
+	/**
+	 * Resolves <code>Integer</code> fields. The resolver is a {@link QuickBaseIntFieldResolver}, so
+	 * {@link QuickBaseRecord#getInt(QuickBaseField)} decodes such fields without boxing.
+	 */
+	public static QuickBaseFieldResolver<Integer> INTEGER_RESOLVER = new QuickBaseIntFieldResolver() {
 		@Override
 		public Integer resolve(String str) {
 			return Integer.valueOf(str);
 		}
 		
+		@Override
+		public int resolveInt(char[] chars, int start, int length) {
+			long value = parseLong(chars, start, length);
+			if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+				throw numberFormatException(chars, start, length);
+			}
+			return (int)value;
+		}
+		
 		@Override
 		public String toString(Integer field) {
 			return field.toString();
 		}
 	};
 	
-	public static QuickBaseFieldResolver<Long> LONG_RESOLVER = new QuickBaseFieldResolver<Long>() {
+	/**
+	 * Resolves <code>Long</code> fields. The resolver is a {@link QuickBaseLongFieldResolver}, so
+	 * {@link QuickBaseRecord#getLong(QuickBaseField)} decodes such fields without boxing.
+	 */
+	public static QuickBaseFieldResolver<Long> LONG_RESOLVER = new QuickBaseLongFieldResolver() {
 		@Override
 		public Long resolve(String str) {
 			return Long.valueOf(str);
 		}
 		
+		@Override
+		public long resolveLong(char[] chars, int start, int length) {
+			return parseLong(chars, start, length);
+		}
+		
 		@Override
 		public String toString(Long field) {
 			return field.toString();
 		}
 	};
 	
+	/**
+	 * Resolves <code>Double</code> fields (QuickBase numeric, currency and percent fields). The
+	 * resolver is a {@link QuickBaseDoubleFieldResolver}, so
+	 * {@link QuickBaseRecord#getDouble(QuickBaseField)} decodes such fields without boxing.
+	 */
+	public static QuickBaseFieldResolver<Double> DOUBLE_RESOLVER = new QuickBaseDoubleFieldResolver() {
+		@Override
+		public Double resolve(String str) {
+			return Double.valueOf(str);
+		}
+		
+		@Override
+		public double resolveDouble(char[] chars, int start, int length) {
+			return parseDouble(chars, start, length);
+		}
+		
+		@Override
+		public String toString(Double field) {
+			return field.toString();
+		}
+	};
+	
+	/**
+	 * Resolves date and date/time fields that QuickBase returns as milliseconds since the
+	 * epoch (which is the case for all query results). No text formats are involved, and the
+	 * resolver is safe for use by multiple threads. Empty fields resolve to <code>null</code>.
+	 */
+	public static QuickBaseFieldResolver<Date> DATE_RESOLVER = new QuickBaseFieldResolver<Date>() {
+		@Override
+		public Date resolve(String str) {
+			if (str == null || str.length() == 0) {
+				return null;
+			}
+			return new Date(Long.parseLong(str));
+		}
+		
+		@Override
+		public String toString(Date field) {
+			return field == null ? null : String.valueOf(field.getTime());
+		}
+	};
+	
 	public static QuickBaseFieldResolver<Boolean> BOOLEAN_RESOLVER = new QuickBaseFieldResolver<Boolean>() {
 		@Override
 		public Boolean resolve(String str) {
@@ -59,4 +125,88 @@ public class QuickBaseStandardFieldResolvers {
 		}
 	};
 	
+	/**
+	 * Largest power of ten that is exactly representable as a <code>double</code>, and largest
+	 * mantissa for which decimal-to-binary conversion by a single division or multiplication is
+	 * correctly rounded.
+	 */
+	private static final int MAX_EXACT_POWER = 22;
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER+1];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int power = 1; power <= MAX_EXACT_POWER; power++) {
+			POWERS_OF_TEN[power] = 10*POWERS_OF_TEN[power-1];
+		}
+	}
+	
+	private static long parseLong(char[] chars, int start, int length) {
+		int index = start;
+		int end = start + length;
+		boolean negative = false;
+		if (index < end && (chars[index] == '-' || chars[index] == '+')) {
+			negative = chars[index++] == '-';
+		}
+		if (index == end) {
+			throw numberFormatException(chars, start, length);
+		}
+		// Accumulate negatively so that Long.MIN_VALUE can be represented:
+		//
+		long value = 0;
+		for (; index < end; index++) {
+			int digit = chars[index] - '0';
+			if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit)/10) {
+				throw numberFormatException(chars, start, length);
+			}
+			value = 10*value - digit;
+		}
+		if (!negative) {
+			if (value == Long.MIN_VALUE) {
+				throw numberFormatException(chars, start, length);
+			}
+			value = -value;
+		}
+		return value;
+	}
+	
+	/**
+	 * Parses plain decimal numbers such as <code>-1234.56</code> directly if the result can be
+	 * computed exactly; everything else (exponents, very long mantissas, etc.) is handed over
+	 * to {@link Double#parseDouble(String)}.
+	 */
+	private static double parseDouble(char[] chars, int start, int length) {
+		int index = start;
+		int end = start + length;
+		boolean negative = false;
+		if (index < end && (chars[index] == '-' || chars[index] == '+')) {
+			negative = chars[index++] == '-';
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int fraction = -1;
+		for (; index < end; index++) {
+			char character = chars[index];
+			if (character == '.' && fraction == -1) {
+				fraction = 0;
+			} else if (character >= '0' && character <= '9' && mantissa < MAX_EXACT_MANTISSA) {
+				mantissa = 10*mantissa + (character - '0');
+				digits++;
+				if (fraction != -1) {
+					fraction++;
+				}
+			} else {
+				break;
+			}
+		}
+		if (index == end && digits > 0 && mantissa <= MAX_EXACT_MANTISSA
+		&& fraction <= MAX_EXACT_POWER) {
+			double value = fraction > 0? mantissa/POWERS_OF_TEN[fraction]:mantissa;
+			return negative? -value:value;
+		}
+		return Double.parseDouble(new String(chars, start, length));
+	}
+	
+	private static NumberFormatException numberFormatException(char[] chars, int start, int length) {
+		return new NumberFormatException("For input string: \"" + new String(chars, start, length) + '"');
+	}
 }
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseSync.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.xml.sax.InputSource;
+import com.intuit.quickbase.api.query.CList;
+import com.intuit.quickbase.api.query.QueryExecutionMode;
+
+/**
+ * The class {@link QuickBaseSync} incrementally synchronizes the contents of a table. Instead of
+ * extracting the complete table every time, each {@link #sync(QuickBaseChangeHandler)} only
+ * queries the records whose <i>Date Modified</i> (field 2) is after the table's
+ * {@link QuickBaseWatermark}, and reports them to a {@link QuickBaseChangeHandler} as added or
+ * modified records. The first synchronization of a table reports all of its records as added.
+ * <p/>
+ * Record modifications do not necessarily become visible in the order of their modification
+ * times: several records can share the same modification time, and a modification can become
+ * visible only after modifications with later timestamps. Each query therefore looks back by a
+ * configurable {@link #setOverlap(long) overlap}. The watermark remembers which versions of the
+ * records within the overlap were already reported, so that re-queried records are not reported
+ * again.
+ * <p/>
+ * Deleted records cannot be detected by their modification time. Periodically (by default, once
+ * a day) a synchronization therefore also retrieves the IDs of all records of the table and
+ * reconciles them with the IDs of all records that were reported so far; records that have
+ * disappeared are reported as deleted. The watermark and the known record IDs are kept in a
+ * {@link QuickBaseSyncStore} and are only saved after the handler has processed all changes, so
+ * that changes are reported at least once even if a synchronization fails.
+ * <p/>
+ * Synchronization queries always go to QuickBase, bypassing the connection's
+ * {@link QuickBaseQueryCache}.
+ */
+public class QuickBaseSync
+{
+    /** The default look-back of each synchronization (5 minutes). **/
+    public final static long DEFAULT_OVERLAP = 5*60*1000L;
+
+    /** The default time between two reconciliations of the known record IDs (1 day). **/
+    public final static long DEFAULT_RECONCILIATION_INTERVAL = 24*60*60*1000L;
+
+    private final static int DATE_MODIFIED = 2;
+    private final static int RECORD_ID = 3;
+    private final static String MODIFIED_AFTER = "{2.AF.'"; //$NON-NLS-1$
+    private final static String RECORD = "{3.EX.'"; //$NON-NLS-1$
+    private final static String END = "'}"; //$NON-NLS-1$
+    private final static String OR = "OR"; //$NON-NLS-1$
+    private final static int RECORDS_PER_QUERY = 100;
+    private final static String ALL = ""; //$NON-NLS-1$
+    private final static String MISSING_FIELD = "record does not contain field "; //$NON-NLS-1$
+
+    private QuickBaseDatabase table;
+    private QuickBaseSyncStore store;
+    private CList clist;
+    private volatile long overlap;
+    private volatile long reconciliationInterval;
+
+    /**
+     * Creates a new {@link QuickBaseSync}.
+     *
+     * @param table the {@link QuickBaseDatabase} of the table
+     * @param store the {@link QuickBaseSyncStore} for the table's synchronization state
+     * @param clist a {@link CList} that specifies which fields are reported (fields 2 and 3 are
+     * always included)
+     */
+    public QuickBaseSync(QuickBaseDatabase table, QuickBaseSyncStore store, CList clist)
+    {
+        Set<Integer> columns = new LinkedHashSet<Integer>();
+        for (int column: clist.getColumns())
+        {
+            columns.add(Integer.valueOf(column));
+        }
+        columns.add(Integer.valueOf(DATE_MODIFIED));
+        columns.add(Integer.valueOf(RECORD_ID));
+        int[] ids = new int[columns.size()];
+        int index = 0;
+        for (Integer column: columns)
+        {
+            ids[index++] = column.intValue();
+        }
+        this.table = table;
+        this.store = store;
+        this.clist = new CList(ids);
+        this.overlap = DEFAULT_OVERLAP;
+        this.reconciliationInterval = DEFAULT_RECONCILIATION_INTERVAL;
+    }
+
+    /**
+     * Sets the look-back of each synchronization. Modifications that become visible later than
+     * this after their modification time (for example, because of clock differences between
+     * QuickBase servers) may be missed until the next reconciliation.
+     *
+     * @param overlap the look-back in milliseconds
+     */
+    public void setOverlap(long overlap)
+    {
+        this.overlap = overlap;
+    }
+
+    /**
+     * Sets the time between two reconciliations of the known record IDs.
+     *
+     * @param reconciliationInterval the time in milliseconds (<code>0</code> to reconcile on every
+     * synchronization)
+     */
+    public void setReconciliationInterval(long reconciliationInterval)
+    {
+        this.reconciliationInterval = reconciliationInterval;
+    }
+
+    /**
+     * Reports all changes of the table since the last synchronization.
+     *
+     * @param handler the {@link QuickBaseChangeHandler} that receives the changes
+     * @return the new {@link QuickBaseWatermark} (which was saved in the store)
+     * @throws QuickBaseException if the changes could not be retrieved or the state could not be
+     * saved
+     */
+    public synchronized QuickBaseWatermark sync(QuickBaseChangeHandler handler)
+    throws QuickBaseException
+    {
+        return sync(handler, false);
+    }
+
+    /**
+     * Reports all changes of the table since the last synchronization, and reconciles the known
+     * record IDs regardless of the reconciliation interval.
+     *
+     * @param handler the {@link QuickBaseChangeHandler} that receives the changes
+     * @return the new {@link QuickBaseWatermark} (which was saved in the store)
+     * @throws QuickBaseException if the changes could not be retrieved or the state could not be
+     * saved
+     */
+    public synchronized QuickBaseWatermark reconcile(QuickBaseChangeHandler handler)
+    throws QuickBaseException
+    {
+        return sync(handler, true);
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private QuickBaseWatermark sync(QuickBaseChangeHandler handler, boolean reconcile)
+    throws QuickBaseException
+    {
+        String dbid = table.getDBID();
+        QuickBaseWatermark watermark = store.getWatermark(dbid);
+        BitSet recordIDs = store.getRecordIDs(dbid);
+        Changes changes = new Changes(watermark, recordIDs, handler);
+        long lookBack = overlap;
+        long after = watermark == null? 0:Math.max(0, watermark.getDateModified() - lookBack - 1);
+        query(MODIFIED_AFTER + after + END, clist, changes);
+        long now = System.currentTimeMillis();
+        long reconciled = watermark == null? now:watermark.getReconciled();
+        if (reconcile || now - reconciled >= reconciliationInterval)
+        {
+            reconcile(changes);
+            reconciled = now;
+        }
+        QuickBaseWatermark next = changes.watermark(reconciled, lookBack);
+        store.save(dbid, next, recordIDs);
+        return next;
+    }
+
+    /**
+     * Reconciles the known record IDs with the IDs of all records of the table. Records that
+     * have disappeared are reported as deleted. Records that were never reported (because their
+     * modification became visible too late) are retrieved and reported as added; they are
+     * retrieved with one query per {@value #RECORDS_PER_QUERY} records.
+     *
+     * @param changes the {@link Changes} of the current synchronization
+     * @throws QuickBaseException if the record IDs could not be retrieved
+     */
+    private void reconcile(Changes changes) throws QuickBaseException
+    {
+        final BitSet current = new BitSet();
+        query(ALL, new CList(RECORD_ID), new Collector()
+        {
+            void collect(QuickBaseRecord record) throws QuickBaseException
+            {
+                current.set((int)value(record, RECORD_ID));
+            }
+        });
+        BitSet deleted = (BitSet)changes.recordIDs.clone();
+        deleted.andNot(current);
+        for (int recordID = deleted.nextSetBit(0); recordID >= 0;
+        recordID = deleted.nextSetBit(recordID+1))
+        {
+            changes.deleted(recordID);
+        }
+        BitSet missing = (BitSet)current.clone();
+        missing.andNot(changes.recordIDs);
+        StringBuffer query = new StringBuffer();
+        int records = 0;
+        for (int recordID = missing.nextSetBit(0); recordID >= 0;
+        recordID = missing.nextSetBit(recordID+1))
+        {
+            if (records > 0)
+            {
+                query.append(OR);
+            }
+            query.append(RECORD).append(recordID).append(END);
+            if (++records == RECORDS_PER_QUERY)
+            {
+                query(query.toString(), clist, changes);
+                query.setLength(0);
+                records = 0;
+            }
+        }
+        if (records > 0)
+        {
+            query(query.toString(), clist, changes);
+        }
+    }
+
+    /**
+     * Performs a query (bypassing the query cache) on the calling thread.
+     *
+     * @param query the query string
+     * @param columns the {@link CList}
+     * @param collector the {@link Collector} that receives the records
+     * @throws QuickBaseException if the query failed
+     */
+    private void query(String query, CList columns, Collector collector) throws QuickBaseException
+    {
+        final QuickBaseRequest request = table.doQueryRequest(query, columns);
+        QuickBaseRequest uncached = new QuickBaseRequest()
+        {
+            public InputSource execute() throws QuickBaseException
+            {
+                return request.execute();
+            }
+
+            public Object getKey()
+            {
+                return request.getKey();
+            }
+
+            public QuickBaseQueryCache.Slot getCacheSlot()
+            {
+                return null;
+            }
+        };
+        QuickBaseQueryEngine engine = table.getConnection().getQueryEngine();
+        engine.query(uncached, collector, QueryExecutionMode.synchronous);
+        if (collector.exception != null)
+        {
+            throw collector.exception;
+        }
+    }
+
+    private static long value(QuickBaseRecord record, int fieldID) throws QuickBaseException
+    {
+        String value = record.getValue(fieldID);
+        try
+        {
+            if (value != null)
+            {
+                return Long.parseLong(value);
+            }
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            throw new QuickBaseException(numberFormatException);
+        }
+        throw new QuickBaseException(MISSING_FIELD + fieldID);
+    }
+
+    /**
+     * A {@link QuickBaseResultHandler} that processes the records of a synchronization query on
+     * the query's thread and keeps the first reported exception.
+     */
+    private abstract static class Collector implements QuickBaseResultHandler
+    {
+        QuickBaseException exception;
+
+        abstract void collect(QuickBaseRecord record) throws QuickBaseException;
+
+        public void handleRecord(QuickBaseRecord record)
+        {
+            if (exception == null)
+            {
+                try
+                {
+                    collect(record);
+                }
+                catch (QuickBaseException quickBaseException)
+                {
+                    exception = quickBaseException;
+                }
+            }
+        }
+
+        public void handleException(QuickBaseException quickBaseException)
+        {
+            if (exception == null)
+            {
+                exception = quickBaseException;
+            }
+        }
+
+        public void done()
+        {
+            // Completion is detected by the end of the synchronous query
+        }
+    }
+
+    /**
+     * The changes that were found by a synchronization. Records whose current version was
+     * already reported are skipped; all others are reported to the {@link QuickBaseChangeHandler}.
+     */
+    private static class Changes extends Collector
+    {
+        private BitSet recordIDs;
+        private QuickBaseChangeHandler handler;
+        private Map<Long, Long> versions;
+        private long dateModified;
+        private long recordID;
+
+        Changes(QuickBaseWatermark watermark, BitSet recordIDs, QuickBaseChangeHandler handler)
+        {
+            this.recordIDs = recordIDs;
+            this.handler = handler;
+            this.versions = new HashMap<Long, Long>();
+            if (watermark != null)
+            {
+                versions.putAll(watermark.getVersions());
+                dateModified = watermark.getDateModified();
+                recordID = watermark.getRecordID();
+            }
+        }
+
+        void collect(QuickBaseRecord record) throws QuickBaseException
+        {
+            long modified = value(record, DATE_MODIFIED);
+            long id = value(record, RECORD_ID);
+            Long key = Long.valueOf(id);
+            Long reported = versions.get(key);
+            if (reported != null && reported.longValue() == modified)
+            {
+                return;
+            }
+            versions.put(key, Long.valueOf(modified));
+            if (recordIDs.get((int)id))
+            {
+                handler.recordModified(record);
+            }
+            else
+            {
+                recordIDs.set((int)id);
+                handler.recordAdded(record);
+            }
+            if (modified > dateModified || modified == dateModified && id > recordID)
+            {
+                dateModified = modified;
+                recordID = id;
+            }
+        }
+
+        void deleted(int id)
+        {
+            recordIDs.clear(id);
+            versions.remove(Long.valueOf(id));
+            handler.recordDeleted(id);
+        }
+
+        /**
+         * Creates the watermark after all changes were reported. Only the versions of records
+         * that the next synchronization will query again need to be remembered.
+         *
+         * @param reconciled the time of the last reconciliation
+         * @param lookBack the look-back of the next synchronization
+         * @return the new {@link QuickBaseWatermark}
+         */
+        QuickBaseWatermark watermark(long reconciled, long lookBack)
+        {
+            long threshold = dateModified - lookBack;
+            for (Iterator<Long> iterator = versions.values().iterator(); iterator.hasNext();)
+            {
+                if (iterator.next().longValue() < threshold)
+                {
+                    iterator.remove();
+                }
+            }
+            return new QuickBaseWatermark(dateModified, recordID, reconciled, versions);
+        }
+    }
+}
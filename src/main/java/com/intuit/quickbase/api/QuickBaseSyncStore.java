@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseSyncStore.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.BitSet;
+
+/**
+ * The {@link QuickBaseSyncStore} interface defines the durable storage of the synchronization
+ * state of tables. For each table, a {@link QuickBaseSync} stores its {@link QuickBaseWatermark}
+ * together with the IDs of all records it has seen, which it needs to detect deleted records.
+ * A store should save the two atomically.
+ *
+ * @see QuickBaseFileSyncStore
+ */
+public interface QuickBaseSyncStore
+{
+    /**
+     * Loads the watermark of a table.
+     *
+     * @param dbid the database ID of the table
+     * @return the {@link QuickBaseWatermark}, or <code>null</code> if the table was never
+     * synchronized
+     * @throws QuickBaseException if the state could not be loaded
+     */
+    public abstract QuickBaseWatermark getWatermark(String dbid) throws QuickBaseException;
+
+    /**
+     * Loads the IDs of all records of a table that were seen by previous synchronizations.
+     *
+     * @param dbid the database ID of the table
+     * @return a {@link BitSet} in which the bits of all known record IDs are set (empty if the
+     * table was never synchronized)
+     * @throws QuickBaseException if the state could not be loaded
+     */
+    public abstract BitSet getRecordIDs(String dbid) throws QuickBaseException;
+
+    /**
+     * Saves the synchronization state of a table.
+     *
+     * @param dbid the database ID of the table
+     * @param watermark the new {@link QuickBaseWatermark}
+     * @param recordIDs the IDs of all known records
+     * @throws QuickBaseException if the state could not be saved
+     */
+    public abstract void save(String dbid, QuickBaseWatermark watermark, BitSet recordIDs)
+    throws QuickBaseException;
+}
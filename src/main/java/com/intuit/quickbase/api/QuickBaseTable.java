@@ -13,34 +13,55 @@
 
 package com.intuit.quickbase.api;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import org.apache.commons.httpclient.NameValuePair;
-import org.w3c.dom.Node;
 
 /**
  * The class {@link QuickBaseTable} represents a table in a QuickBase database.
  * The {@link #getField(String, QuickBaseFieldResolver)} method allows client code to create
  * {@link QuickBaseField}s that can be used to access individual fields in the table's records.
+ * A {@link QuickBaseTable} is part of the immutable {@link QuickBaseSchema} model; its field
+ * definitions are indexed by label and by ID, so that looking up a field does not require any
+ * processing of the original schema response.
  *
  * @author Mirko Raner
  * @version $Revision: 13 $ $Change: 714052 $
  */
 public class QuickBaseTable
 {
-    private final static String ID = "id"; //$NON-NLS-1$
-
     private QuickBaseDatabase database;
-    private Node table;
     private String tableId;
+    private String name;
+    private List<QuickBaseFieldDefinition> fields;
+    private Map<String, QuickBaseFieldDefinition> fieldsByLabel;
+    private Map<Integer, QuickBaseFieldDefinition> fieldsByID;
 
-    QuickBaseTable(QuickBaseDatabase database, Node table, String tableId)
+    QuickBaseTable(QuickBaseDatabase database, String tableId, String name,
+    List<QuickBaseFieldDefinition> fields)
     {
     	this.database = database;
-        this.table = table;
         this.tableId = tableId;
+        this.name = name;
+        this.fields = Collections.unmodifiableList(new ArrayList<QuickBaseFieldDefinition>(fields));
+        int capacity = 2*fields.size();
+        fieldsByLabel = new HashMap<String, QuickBaseFieldDefinition>(capacity);
+        fieldsByID = new HashMap<Integer, QuickBaseFieldDefinition>(capacity);
+        for (QuickBaseFieldDefinition field: fields)
+        {
+            // If labels are not unique the first field with a given label takes precedence:
+            //
+            if (!fieldsByLabel.containsKey(field.getLabel()))
+            {
+                fieldsByLabel.put(field.getLabel(), field);
+            }
+            fieldsByID.put(field.getID(), field);
+        }
     }
 
     /**
@@ -50,30 +71,68 @@ public class QuickBaseTable
      * @param resolver the {@link QuickBaseFieldResolver} for resolving the field's contents
      * @param <$FieldType> the type parameter for the type that represents the field in Java
      * @return a {@link QuickBaseField} object representing the requested field
-     * @throws QuickBaseException if a problem occurred during processing
+     * @throws QuickBaseException if no field with that label exists in the table
      */
     public <$FieldType> QuickBaseField<$FieldType> getField(String name,
     QuickBaseFieldResolver<$FieldType> resolver) throws QuickBaseException
     {
-        Node node = null;
-        try
-        {
-            XPathExpression xpath = QuickBaseXPath.compile(QuickBaseXPath.FIELDS_FIELD_LABEL, name);
-            node = (Node)xpath.evaluate(table, XPathConstants.NODE);
-            if (node == null) {
-            	throw new QuickBaseException("Field " + name + " was not found in table " + tableId);
-            }
-        }
-        catch (XPathExpressionException xpathException)
-        {
-            throw new QuickBaseException(xpathException);
+        return getFieldDefinition(name).getField(resolver);
+    }
+
+    /**
+     * Gets the {@link QuickBaseFieldDefinition} of a field with a given label.
+     *
+     * @param label the field label
+     * @return the {@link QuickBaseFieldDefinition}
+     * @throws QuickBaseException if no field with that label exists in the table
+     */
+    public QuickBaseFieldDefinition getFieldDefinition(String label) throws QuickBaseException
+    {
+        QuickBaseFieldDefinition field = fieldsByLabel.get(label);
+        if (field == null) {
+        	throw new QuickBaseException("Field " + label + " was not found in table " + tableId);
         }
-        Node idAttribute = node.getAttributes().getNamedItem(ID);
-        if (idAttribute == null || idAttribute.getNodeValue() == null) {
-        	throw new QuickBaseException("Field " + name + " was not found in table " + tableId);
+        return field;
+    }
+
+    /**
+     * Gets the {@link QuickBaseFieldDefinition} of a field with a given ID.
+     *
+     * @param id the field ID
+     * @return the {@link QuickBaseFieldDefinition}
+     * @throws QuickBaseException if no field with that ID exists in the table
+     */
+    public QuickBaseFieldDefinition getFieldDefinition(int id) throws QuickBaseException
+    {
+        QuickBaseFieldDefinition field = fieldsByID.get(id);
+        if (field == null) {
+        	throw new QuickBaseException("Field " + id + " was not found in table " + tableId);
         }
-		int id = Integer.parseInt(idAttribute.getNodeValue());
-        return new QuickBaseField<$FieldType>(id, resolver);
+        return field;
+    }
+
+    /**
+     * Gets the definitions of all fields of the table, in the order of the schema.
+     *
+     * @return an unmodifiable list of {@link QuickBaseFieldDefinition}s
+     */
+    public List<QuickBaseFieldDefinition> getFieldDefinitions()
+    {
+        return fields;
+    }
+
+    /**
+     * Returns the name of this table.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the database ID of this table.
+     */
+    public String getTableId() {
+        return tableId;
     }
 
     /**
@@ -88,14 +147,42 @@ public class QuickBaseTable
 	 * this table.
 	 * 
 	 * @param recordBuilder
-	 * @throws QuickBaseException if an error occurrs communicating with QuickBase.
+	 * @throws QuickBaseException if an error occurrs communicating with QuickBase, or if QuickBase
+	 * rejected the record.
+	 * @see #addRecordAndGetID(QuickBaseRecordBuilder)
 	 */
 	public void addRecord(QuickBaseRecordBuilder recordBuilder) throws QuickBaseException {
+		addRecordAndGetID(recordBuilder);
+	}
+
+	/**
+	 * Adds a record whose field values are specified in a {@link QuickBaseRecordBuilder} to
+	 * this table and returns the ID of the new record.
+	 * 
+	 * @param recordBuilder the {@link QuickBaseRecordBuilder} that specifies the field values
+	 * @return the record ID of the new record
+	 * @throws QuickBaseException if an error occurrs communicating with QuickBase, or if QuickBase
+	 * rejected the record.
+	 */
+	public long addRecordAndGetID(QuickBaseRecordBuilder recordBuilder) throws QuickBaseException {
 		
 		if (!recordBuilder.getTable().tableId.equals(tableId)) {
 			throw new IllegalArgumentException("RecordBuilder is not setup for use with this table");
 		}
-		List<NameValuePair> fieldValues = recordBuilder.getFieldValues();
+		String[] elements = fieldElements(recordBuilder.getFieldValues());
+		QuickBaseEnvelope response = new QuickBaseEnvelope(QuickBaseEnvelope.QDBAPI_RID);
+		database.getConnection().executeXml(tableId, QuickBaseAPICall.API_AddRecord, response, elements);
+		return response.getLong(QuickBaseEnvelope.QDBAPI_RID);
+	}
+
+	/**
+	 * Builds the <code>&lt;field&gt;</code> elements of an {@link QuickBaseAPICall#API_AddRecord}
+	 * request. Field values are XML-escaped.
+	 * 
+	 * @param fieldValues the <field id, value> pairs of the record
+	 * @return one XML element per field
+	 */
+	static String[] fieldElements(List<NameValuePair> fieldValues) {
 		String[] elements = new String[fieldValues.size()];
 		for (int i = 0; i < fieldValues.size(); i++) {
 			NameValuePair fieldValue = fieldValues.get(i);
@@ -104,28 +191,56 @@ public class QuickBaseTable
 			b.append("<field fid=\"");
 			b.append(fieldValue.getName());
 			b.append("\">");
-			b.append(fieldValue.getValue());
+			String value = fieldValue.getValue();
+			for (int c = 0; value != null && c < value.length(); c++) {
+				char ch = value.charAt(c);
+				switch (ch) {
+					case '<': b.append("&lt;"); break;
+					case '>': b.append("&gt;"); break;
+					case '&': b.append("&amp;"); break;
+					default: b.append(ch);
+				}
+			}
 			b.append("</field>");
 			
 			elements[i] = b.toString();
 		}
-		
-//		InputSource result;
-//		result = 
-		database.getConnection().executeXml(tableId, QuickBaseAPICall.API_AddRecord, elements);
-
-//    	InputStream byteStream = result.getByteStream();
-//    	int n = 0;
-//    	try {
-//    		while ((n = byteStream.read()) != -1)
-//    		{
-//    			System.err.write(n);
-//    		}
-//    	} catch (IOException e) {
-//    		// TODO Auto-generated catch block
-//    		e.printStackTrace();
-//    	}
+		return elements;
 	}
-	   
-    
+
+    /**
+     * Adds or updates a potentially large number of records using
+     * {@link QuickBaseAPICall#API_ImportFromCSV}. The records are sent in chunks, using a
+     * {@link QuickBaseBulkWriter} with default settings; a {@link QuickBaseBulkWriter} can also be
+     * created directly to customize chunk sizes and parallelism.
+     *
+     * @param records the {@link QuickBaseRecordBuilder}s of the records to be imported
+     * @return one {@link QuickBaseImportResult} per chunk
+     * @throws QuickBaseException if the import could not be submitted or was interrupted
+     */
+    public List<QuickBaseImportResult> importRecords(Iterator<QuickBaseRecordBuilder> records)
+    throws QuickBaseException
+    {
+        return new QuickBaseBulkWriter(this).write(records);
+    }
+
+    /**
+     * Adds a record to this table asynchronously.
+     *
+     * @param recordBuilder the {@link QuickBaseRecordBuilder} that specifies the field values
+     * @return a {@link QuickBaseFuture} that provides the record ID of the new record
+     * @throws QuickBaseException if the operation could not be submitted
+     */
+    public QuickBaseFuture<Long> addRecordAsync(final QuickBaseRecordBuilder recordBuilder)
+    throws QuickBaseException
+    {
+        Callable<Long> addRecord = new Callable<Long>()
+        {
+            public Long call() throws QuickBaseException
+            {
+                return Long.valueOf(addRecordAndGetID(recordBuilder));
+            }
+        };
+        return database.getConnection().getQueryEngine().submit(addRecord, null);
+    }
 }
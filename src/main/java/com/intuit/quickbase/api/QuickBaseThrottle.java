@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseThrottle.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class {@link QuickBaseThrottle} controls the load that a client puts on a QuickBase realm.
+ * It combines a {@link QuickBaseRateLimiter} (requests per second) with an adaptive
+ * {@link QuickBaseConcurrencyLimiter} (requests in flight). Both can be configured for the realm
+ * as a whole and, additionally, for individual {@link QuickBaseAPICall}s; a call must satisfy the
+ * limits of the realm as well as its own limits. A request occupies its concurrency slots until
+ * the response headers were received; slots are not held while the response body is processed
+ * by the client, so that client code that issues further requests while it is still reading a
+ * response cannot deadlock.
+ * <p/>
+ * A request counts as throttled if the server rejected it with HTTP status 429 (Too Many
+ * Requests) or 503 (Service Unavailable), or if QuickBase reported one of the
+ * {@link #addThrottlingErrorCode(int) throttling error codes} (the error codes that indicate
+ * throttling depend on the realm's configuration, so none are registered by default). Throttled
+ * requests shrink the concurrency limits, successful requests let them grow again. A
+ * <code>Retry-After</code> header pauses the whole throttle (i.e., all calls to the realm) for the
+ * indicated time.
+ * <p/>
+ * A new throttle has an adaptive realm-wide concurrency limit (starting at
+ * {@link #DEFAULT_INITIAL_CONCURRENCY} and ranging from 1 to
+ * {@link QuickBasePooledTransport#DEFAULT_MAX_CONNECTIONS_PER_HOST}) and no rate limit. Throttles
+ * are shared by all connections to the same realm (see {@link QuickBase#setThrottle(String,
+ * QuickBaseThrottle)}).
+ */
+public class QuickBaseThrottle
+{
+    /** The default initial number of concurrent requests per realm. **/
+    public final static int DEFAULT_INITIAL_CONCURRENCY = 4;
+
+    private final static int TOO_MANY_REQUESTS = 429;
+    private final static int SERVICE_UNAVAILABLE = 503;
+
+    private volatile QuickBaseRateLimiter rateLimiter;
+    private volatile QuickBaseConcurrencyLimiter concurrencyLimiter;
+    private ConcurrentMap<QuickBaseAPICall, QuickBaseRateLimiter> callRateLimiters;
+    private ConcurrentMap<QuickBaseAPICall, QuickBaseConcurrencyLimiter> callConcurrencyLimiters;
+    private Set<Integer> throttlingErrorCodes;
+    private AtomicLong pausedUntil;
+
+    /**
+     * Creates a new {@link QuickBaseThrottle} with the default settings.
+     */
+    public QuickBaseThrottle()
+    {
+        int maxConcurrency = QuickBasePooledTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        concurrencyLimiter = new QuickBaseConcurrencyLimiter(DEFAULT_INITIAL_CONCURRENCY, 1, maxConcurrency);
+        callRateLimiters = new ConcurrentHashMap<QuickBaseAPICall, QuickBaseRateLimiter>();
+        callConcurrencyLimiters = new ConcurrentHashMap<QuickBaseAPICall, QuickBaseConcurrencyLimiter>();
+        throttlingErrorCodes = new CopyOnWriteArraySet<Integer>();
+        pausedUntil = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Gets the realm-wide {@link QuickBaseRateLimiter}.
+     *
+     * @return the {@link QuickBaseRateLimiter}, or <code>null</code> if the rate is not limited
+     */
+    public QuickBaseRateLimiter getRateLimiter()
+    {
+        return rateLimiter;
+    }
+
+    /**
+     * Sets the realm-wide {@link QuickBaseRateLimiter}.
+     *
+     * @param rateLimiter the {@link QuickBaseRateLimiter}, or <code>null</code> for no limit
+     */
+    public void setRateLimiter(QuickBaseRateLimiter rateLimiter)
+    {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Gets the realm-wide {@link QuickBaseConcurrencyLimiter}.
+     *
+     * @return the {@link QuickBaseConcurrencyLimiter}, or <code>null</code> if the number of
+     * concurrent requests is not limited
+     */
+    public QuickBaseConcurrencyLimiter getConcurrencyLimiter()
+    {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Sets the realm-wide {@link QuickBaseConcurrencyLimiter}.
+     *
+     * @param concurrencyLimiter the {@link QuickBaseConcurrencyLimiter}, or <code>null</code> for
+     * no limit
+     */
+    public void setConcurrencyLimiter(QuickBaseConcurrencyLimiter concurrencyLimiter)
+    {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Gets the {@link QuickBaseRateLimiter} of a specific {@link QuickBaseAPICall}.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @return the {@link QuickBaseRateLimiter}, or <code>null</code> if the call has no limit of
+     * its own
+     */
+    public QuickBaseRateLimiter getRateLimiter(QuickBaseAPICall call)
+    {
+        return callRateLimiters.get(call);
+    }
+
+    /**
+     * Sets the {@link QuickBaseRateLimiter} of a specific {@link QuickBaseAPICall}.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @param rateLimiter the {@link QuickBaseRateLimiter}, or <code>null</code> to remove the
+     * call's limit
+     */
+    public void setRateLimiter(QuickBaseAPICall call, QuickBaseRateLimiter rateLimiter)
+    {
+        if (rateLimiter != null)
+        {
+            callRateLimiters.put(call, rateLimiter);
+        }
+        else
+        {
+            callRateLimiters.remove(call);
+        }
+    }
+
+    /**
+     * Gets the {@link QuickBaseConcurrencyLimiter} of a specific {@link QuickBaseAPICall}.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @return the {@link QuickBaseConcurrencyLimiter}, or <code>null</code> if the call has no
+     * limit of its own
+     */
+    public QuickBaseConcurrencyLimiter getConcurrencyLimiter(QuickBaseAPICall call)
+    {
+        return callConcurrencyLimiters.get(call);
+    }
+
+    /**
+     * Sets the {@link QuickBaseConcurrencyLimiter} of a specific {@link QuickBaseAPICall}.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @param concurrencyLimiter the {@link QuickBaseConcurrencyLimiter}, or <code>null</code> to
+     * remove the call's limit
+     */
+    public void setConcurrencyLimiter(QuickBaseAPICall call,
+    QuickBaseConcurrencyLimiter concurrencyLimiter)
+    {
+        if (concurrencyLimiter != null)
+        {
+            callConcurrencyLimiters.put(call, concurrencyLimiter);
+        }
+        else
+        {
+            callConcurrencyLimiters.remove(call);
+        }
+    }
+
+    /**
+     * Declares a QuickBase error code as a throttling error. Requests that fail with this error
+     * code cause the throttle to back off.
+     *
+     * @param errorCode the QuickBase error code
+     */
+    public void addThrottlingErrorCode(int errorCode)
+    {
+        throttlingErrorCodes.add(Integer.valueOf(errorCode));
+    }
+
+    /**
+     * Removes a QuickBase error code from the throttling errors.
+     *
+     * @param errorCode the QuickBase error code
+     */
+    public void removeThrottlingErrorCode(int errorCode)
+    {
+        throttlingErrorCodes.remove(Integer.valueOf(errorCode));
+    }
+
+    /**
+     * Determines whether an exception indicates that the server throttled a request.
+     *
+     * @param exception the {@link QuickBaseException}, or <code>null</code> if the request
+     * succeeded
+     * @return <code>true</code> if the request was throttled
+     */
+    public boolean isThrottled(QuickBaseException exception)
+    {
+        if (exception == null)
+        {
+            return false;
+        }
+        int statusCode = exception.getStatusCode();
+        return statusCode == TOO_MANY_REQUESTS || statusCode == SERVICE_UNAVAILABLE
+            || throttlingErrorCodes.contains(Integer.valueOf(exception.getErrorCode()));
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Waits until a call may be sent according to all applicable limits.
+     *
+     * @param call the {@link QuickBaseAPICall}
+     * @return a {@link Permit} for the call
+     * @throws QuickBaseException if the thread was interrupted while waiting
+     */
+    Permit acquire(QuickBaseAPICall call) throws QuickBaseException
+    {
+        Permit permit = new Permit(concurrencyLimiter, callConcurrencyLimiters.get(call));
+        try
+        {
+            long pause = pausedUntil.get() - System.nanoTime();
+            if (pause > 0)
+            {
+                TimeUnit.NANOSECONDS.sleep(pause);
+            }
+            permit.acquire(rateLimiter, callRateLimiters.get(call));
+        }
+        catch (InterruptedException interruptedException)
+        {
+            Thread.currentThread().interrupt();
+            throw new QuickBaseException(interruptedException);
+        }
+        return permit;
+    }
+
+    /**
+     * Releases the concurrency slots of a call once its response headers were received. A
+     * <code>Retry-After</code> header pauses the throttle.
+     *
+     * @param permit the {@link Permit} of the call
+     * @param statusCode the HTTP status code of the response
+     * @param retryAfter the value of the <code>Retry-After</code> header in seconds, or
+     * <code>0</code> if there was none
+     */
+    void received(Permit permit, int statusCode, long retryAfter)
+    {
+        permit.release(statusCode == TOO_MANY_REQUESTS || statusCode == SERVICE_UNAVAILABLE);
+        if (retryAfter > 0)
+        {
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(retryAfter);
+            long current = pausedUntil.get();
+            while (until - current > 0 && !pausedUntil.compareAndSet(current, until))
+            {
+                current = pausedUntil.get();
+            }
+        }
+    }
+
+    /**
+     * Adapts the concurrency limits to the final outcome of a call. Calls that failed before
+     * their response headers were received release their slots here.
+     *
+     * @param permit the {@link Permit} of the call
+     * @param exception the exception of the call, or <code>null</code> if it succeeded
+     */
+    void completed(Permit permit, QuickBaseException exception)
+    {
+        if (!permit.release(false) && exception != null && exception.getStatusCode() == 0
+        && isThrottled(exception))
+        {
+            permit.backOff();
+        }
+    }
+
+    /**
+     * The class {@link Permit} records which concurrency slots a call occupies.
+     */
+    static class Permit
+    {
+        private QuickBaseConcurrencyLimiter realmLimiter;
+        private QuickBaseConcurrencyLimiter callLimiter;
+        private long realmAdmitted;
+        private long callAdmitted;
+        private boolean released;
+
+        Permit(QuickBaseConcurrencyLimiter realmLimiter, QuickBaseConcurrencyLimiter callLimiter)
+        {
+            this.realmLimiter = realmLimiter;
+            this.callLimiter = callLimiter;
+        }
+
+        void acquire(QuickBaseRateLimiter realmRate, QuickBaseRateLimiter callRate)
+        throws InterruptedException
+        {
+            // Concurrency slots are taken first, so that requests waiting for a slot do not
+            // consume tokens of the rate limiters:
+            //
+            if (callLimiter != null)
+            {
+                callAdmitted = callLimiter.acquire();
+            }
+            try
+            {
+                if (realmLimiter != null)
+                {
+                    realmAdmitted = realmLimiter.acquire();
+                }
+            }
+            catch (InterruptedException interruptedException)
+            {
+                if (callLimiter != null)
+                {
+                    callLimiter.release(callAdmitted, false);
+                }
+                throw interruptedException;
+            }
+            try
+            {
+                if (callRate != null)
+                {
+                    callRate.acquire();
+                }
+                if (realmRate != null)
+                {
+                    realmRate.acquire();
+                }
+            }
+            catch (InterruptedException interruptedException)
+            {
+                release(false);
+                throw interruptedException;
+            }
+        }
+
+        /**
+         * Releases the slots (only once).
+         *
+         * @param throttled <code>true</code> if the server throttled the call
+         * @return <code>true</code> if the slots were released by this invocation
+         */
+        synchronized boolean release(boolean throttled)
+        {
+            if (released)
+            {
+                return false;
+            }
+            released = true;
+            if (realmLimiter != null)
+            {
+                realmLimiter.release(realmAdmitted, throttled);
+            }
+            if (callLimiter != null)
+            {
+                callLimiter.release(callAdmitted, throttled);
+            }
+            return true;
+        }
+
+        void backOff()
+        {
+            if (realmLimiter != null)
+            {
+                realmLimiter.backOff(realmAdmitted);
+            }
+            if (callLimiter != null)
+            {
+                callLimiter.backOff(callAdmitted);
+            }
+        }
+    }
+}
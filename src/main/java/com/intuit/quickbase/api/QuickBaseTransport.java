@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseTransport.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpState;
+
+/**
+ * The interface {@link QuickBaseTransport} describes the HTTP layer underneath a
+ * {@link QuickBaseConnection}. A transport executes prepared {@link HttpMethod}s and owns the
+ * underlying network connections; it does not own any session state. The cookies that make up a
+ * QuickBase "session" are kept in an {@link HttpState} that is supplied by the
+ * {@link QuickBaseConnection} for each request, which allows a single transport (and its
+ * connection pool) to be shared by many {@link QuickBaseConnection}s.
+ * <p/>
+ * The {@link InputStream} returned by {@link #execute(HttpMethod, HttpState)} is the only handle
+ * to the underlying network connection. Implementations must guarantee that the connection is
+ * released as soon as the stream is either read to its end or closed, whichever comes first.
+ *
+ * @see QuickBasePooledTransport
+ */
+public interface QuickBaseTransport
+{
+    /**
+     * Executes an {@link HttpMethod} and returns the response body. When this method returns,
+     * the response headers and status code are available from the {@link HttpMethod}.
+     * If an {@link IOException} is thrown the method's connection has already been released.
+     *
+     * @param method the {@link HttpMethod} to be executed
+     * @param state the {@link HttpState} (i.e., cookies) to be used for the request
+     * @return the response body; the connection is released when the stream is read to its end or
+     * closed
+     * @throws IOException if the request could not be executed
+     */
+    public abstract InputStream execute(HttpMethod method, HttpState state) throws IOException;
+
+    /**
+     * Shuts down the transport and closes all connections that it currently holds.
+     * The transport cannot be used any more after it was shut down.
+     */
+    public abstract void shutdown();
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseWatermark.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The class {@link QuickBaseWatermark} describes how far a {@link QuickBaseSync} has progressed
+ * through the changes of a table. The position is given by the <i>Date Modified</i> (field 2)
+ * and <i>Record ID#</i> (field 3) of the most recently modified record that was seen. In addition,
+ * the watermark remembers which versions of the records that were modified shortly before that
+ * position have already been delivered; because the next synchronization looks back by a
+ * safety margin, this allows it to skip records that it has already seen, while still picking up
+ * records with the same or a slightly earlier modification time that only became visible later.
+ * <p/>
+ * Watermarks are immutable. Their {@link #toString() string form} can be stored and turned back
+ * into a watermark with {@link #valueOf(String)}.
+ *
+ * @see QuickBaseSyncStore
+ */
+public class QuickBaseWatermark
+{
+    private final static char SEPARATOR = ':';
+    private final static char VERSIONS = ';';
+    private final static char VERSION_SEPARATOR = ',';
+    private final static char VERSION = '=';
+
+    private long dateModified;
+    private long recordID;
+    private long reconciled;
+    private Map<Long, Long> versions;
+
+    /**
+     * Creates a new {@link QuickBaseWatermark}.
+     *
+     * @param dateModified the <i>Date Modified</i> of the most recently modified record
+     * @param recordID the ID of the most recently modified record (the highest ID if several
+     * records were modified at the same time)
+     * @param reconciled the time of the last key set reconciliation (as reported by
+     * {@link System#currentTimeMillis()})
+     * @param versions the <i>Date Modified</i> values of the recently modified records, by record
+     * ID
+     */
+    QuickBaseWatermark(long dateModified, long recordID, long reconciled, Map<Long, Long> versions)
+    {
+        this.dateModified = dateModified;
+        this.recordID = recordID;
+        this.reconciled = reconciled;
+        this.versions = Collections.unmodifiableMap(new HashMap<Long, Long>(versions));
+    }
+
+    /**
+     * Gets the <i>Date Modified</i> of the most recently modified record that was seen.
+     *
+     * @return the modification time in milliseconds since the epoch
+     */
+    public long getDateModified()
+    {
+        return dateModified;
+    }
+
+    /**
+     * Gets the ID of the most recently modified record that was seen.
+     *
+     * @return the record ID
+     */
+    public long getRecordID()
+    {
+        return recordID;
+    }
+
+    /**
+     * Gets the time of the last key set reconciliation (which detects deleted records).
+     *
+     * @return the time in milliseconds since the epoch, or <code>0</code> if the key set was
+     * never reconciled
+     */
+    public long getReconciled()
+    {
+        return reconciled;
+    }
+
+    /**
+     * Converts the watermark to a string from which it can be restored via
+     * {@link #valueOf(String)}.
+     *
+     * @return the string form of the watermark
+     */
+    public String toString()
+    {
+        StringBuffer string = new StringBuffer();
+        string.append(dateModified).append(SEPARATOR).append(recordID);
+        string.append(SEPARATOR).append(reconciled).append(VERSIONS);
+        boolean first = true;
+        for (Map.Entry<Long, Long> version: versions.entrySet())
+        {
+            if (!first)
+            {
+                string.append(VERSION_SEPARATOR);
+            }
+            string.append(version.getKey()).append(VERSION).append(version.getValue());
+            first = false;
+        }
+        return string.toString();
+    }
+
+    /**
+     * Restores a watermark from its string form.
+     *
+     * @param string the string that was produced by {@link #toString()}
+     * @return the {@link QuickBaseWatermark}
+     * @throws IllegalArgumentException if the string is not a valid watermark
+     */
+    public static QuickBaseWatermark valueOf(String string)
+    {
+        try
+        {
+            int versionsStart = string.indexOf(VERSIONS);
+            String[] position = string.substring(0, versionsStart).split(String.valueOf(SEPARATOR));
+            Map<Long, Long> versions = new HashMap<Long, Long>();
+            String list = string.substring(versionsStart + 1);
+            String[] entries = list.split(String.valueOf(VERSION_SEPARATOR));
+            for (String version: list.length() == 0? new String[0]:entries)
+            {
+                int separator = version.indexOf(VERSION);
+                versions.put(Long.valueOf(version.substring(0, separator)),
+                    Long.valueOf(version.substring(separator + 1)));
+            }
+            return new QuickBaseWatermark(Long.parseLong(position[0]), Long.parseLong(position[1]),
+                Long.parseLong(position[2]), versions);
+        }
+        catch (RuntimeException exception)
+        {
+            throw new IllegalArgumentException(string, exception);
+        }
+    }
+
+    //-------------------------------------- PACKAGE SECTION -------------------------------------//
+
+    /**
+     * Gets the versions of the recently modified records that were already delivered.
+     *
+     * @return an unmodifiable map from record ID to <i>Date Modified</i>
+     */
+    Map<Long, Long> getVersions()
+    {
+        return versions;
+    }
+}
@@ -50,6 +50,16 @@ public class CList
         this(convertFieldsToIDs(fields));
     }
 
+    /**
+     * Gets the column IDs.
+     *
+     * @return a copy of the column IDs, in the order in which they were specified
+     */
+    public int[] getColumns()
+    {
+        return columns.clone();
+    }
+
     /**
      * Converts the {@link CList} to a string. The result of this method can be directly passed to
      * the QuickBase HTTP API.
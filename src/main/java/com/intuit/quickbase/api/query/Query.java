@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : Query.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.intuit.quickbase.api.QuickBaseException;
+
+/**
+ * The class {@link Query} is the parsed form of a QuickBase query string. A query is either a
+ * single {@link QueryClause} of the form <code>{fid.OP.'value'}</code>, or a {@link QueryJunction}
+ * that combines several queries with <code>AND</code> or <code>OR</code>. Queries can be parsed
+ * from a string with {@link #parse(String)}, and their {@link #toString() string form} can be
+ * passed to QuickBase again.
+ * <p/>
+ * The parser accepts clauses that refer to fields by their numeric ID, the operators listed in
+ * {@link QueryOperator}, and parentheses for grouping. <code>AND</code> takes precedence over
+ * <code>OR</code>. An empty query string (which selects all records) is parsed as
+ * <code>null</code>.
+ */
+public abstract class Query
+{
+    private final static String AND = "AND"; //$NON-NLS-1$
+    private final static String OR = "OR"; //$NON-NLS-1$
+    private final static String POSITION = " at position "; //$NON-NLS-1$
+    private final static String INVALID = "invalid query: "; //$NON-NLS-1$
+
+    Query()
+    {
+        super();
+    }
+
+    /**
+     * Parses a QuickBase query string.
+     *
+     * @param query the query string
+     * @return the parsed {@link Query}, or <code>null</code> if the query string is empty or
+     * <code>null</code>
+     * @throws QuickBaseException if the query string is not a valid query
+     */
+    public static Query parse(String query) throws QuickBaseException
+    {
+        if (query == null || query.trim().length() == 0)
+        {
+            return null;
+        }
+        Parser parser = new Parser(query);
+        Query parsed = parser.disjunction();
+        parser.skipWhitespace();
+        if (parser.position < query.length())
+        {
+            throw parser.error();
+        }
+        return parsed;
+    }
+
+    /**
+     * Converts the query to a QuickBase query string.
+     *
+     * @return the query string
+     */
+    public abstract String toString();
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * A recursive descent parser for query strings.
+     */
+    private static class Parser
+    {
+        private String query;
+        int position;
+
+        Parser(String query)
+        {
+            this.query = query;
+        }
+
+        Query disjunction() throws QuickBaseException
+        {
+            List<Query> operands = new ArrayList<Query>();
+            operands.add(conjunction());
+            while (keyword(OR))
+            {
+                operands.add(conjunction());
+            }
+            return operands.size() == 1? operands.get(0):new QueryJunction(false, operands);
+        }
+
+        Query conjunction() throws QuickBaseException
+        {
+            List<Query> operands = new ArrayList<Query>();
+            operands.add(primary());
+            while (keyword(AND))
+            {
+                operands.add(primary());
+            }
+            return operands.size() == 1? operands.get(0):new QueryJunction(true, operands);
+        }
+
+        Query primary() throws QuickBaseException
+        {
+            skipWhitespace();
+            if (position < query.length() && query.charAt(position) == '(')
+            {
+                position++;
+                Query group = disjunction();
+                skipWhitespace();
+                expect(')');
+                return group;
+            }
+            expect('{');
+            int start = position;
+            while (position < query.length() && Character.isDigit(query.charAt(position)))
+            {
+                position++;
+            }
+            if (position == start)
+            {
+                throw error();
+            }
+            int fieldID = Integer.parseInt(query.substring(start, position));
+            expect('.');
+            start = position;
+            while (position < query.length() && Character.isLetter(query.charAt(position)))
+            {
+                position++;
+            }
+            QueryOperator operator;
+            try
+            {
+                operator = QueryOperator.valueOf(query.substring(start, position).toUpperCase());
+            }
+            catch (IllegalArgumentException illegalArgumentException)
+            {
+                position = start;
+                throw error();
+            }
+            expect('.');
+            String value;
+            if (position < query.length() && query.charAt(position) == '\'')
+            {
+                // Quotes cannot be escaped; a quoted value ends with the first quote that is
+                // followed by the closing brace:
+                //
+                int end = query.indexOf("'}", position + 1); //$NON-NLS-1$
+                if (end == -1)
+                {
+                    throw error();
+                }
+                value = query.substring(position + 1, end);
+                position = end + 1;
+            }
+            else
+            {
+                int end = query.indexOf('}', position);
+                if (end == -1)
+                {
+                    throw error();
+                }
+                value = query.substring(position, end);
+                position = end;
+            }
+            expect('}');
+            return new QueryClause(fieldID, operator, value);
+        }
+
+        /**
+         * Consumes a keyword. The keyword must be followed by whitespace or by the opening brace
+         * or parenthesis of its next operand, so that, for example, <code>ORDER</code> is not
+         * mistaken for <code>OR</code>.
+         */
+        boolean keyword(String keyword)
+        {
+            skipWhitespace();
+            int end = position + keyword.length();
+            if (query.regionMatches(true, position, keyword, 0, keyword.length())
+                && end < query.length() && isOperandStart(query.charAt(end)))
+            {
+                position = end;
+                return true;
+            }
+            return false;
+        }
+
+        private static boolean isOperandStart(char character)
+        {
+            return Character.isWhitespace(character) || character == '{' || character == '(';
+        }
+
+        void expect(char character) throws QuickBaseException
+        {
+            if (position >= query.length() || query.charAt(position) != character)
+            {
+                throw error();
+            }
+            position++;
+        }
+
+        void skipWhitespace()
+        {
+            while (position < query.length() && Character.isWhitespace(query.charAt(position)))
+            {
+                position++;
+            }
+        }
+
+        QuickBaseException error()
+        {
+            return new QuickBaseException(INVALID + query + POSITION + position);
+        }
+    }
+}
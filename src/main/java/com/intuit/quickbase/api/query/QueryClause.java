@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QueryClause.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api.query;
+
+/**
+ * The class {@link QueryClause} represents a single condition of a QuickBase query, for example,
+ * <code>{6.EX.'open'}</code>. {@link QueryClause}s are immutable.
+ */
+public class QueryClause extends Query
+{
+    private final static String OPEN = "{"; //$NON-NLS-1$
+    private final static String CLOSE = "'}"; //$NON-NLS-1$
+
+    private int fieldID;
+    private QueryOperator operator;
+    private String value;
+
+    /**
+     * Creates a new {@link QueryClause}.
+     *
+     * @param fieldID the ID of the field that is compared
+     * @param operator the {@link QueryOperator}
+     * @param value the value that the field is compared with
+     */
+    public QueryClause(int fieldID, QueryOperator operator, String value)
+    {
+        this.fieldID = fieldID;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    /**
+     * Gets the ID of the field that is compared.
+     *
+     * @return the field ID
+     */
+    public int getFieldID()
+    {
+        return fieldID;
+    }
+
+    /**
+     * Gets the comparison operator.
+     *
+     * @return the {@link QueryOperator}
+     */
+    public QueryOperator getOperator()
+    {
+        return operator;
+    }
+
+    /**
+     * Gets the value that the field is compared with.
+     *
+     * @return the value (without quotes)
+     */
+    public String getValue()
+    {
+        return value;
+    }
+
+    /**
+     * @see Query#toString()
+     */
+    public String toString()
+    {
+        return OPEN + fieldID + '.' + operator + '.' + '\'' + value + CLOSE;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QueryJunction.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class {@link QueryJunction} combines several queries with <code>AND</code> (a conjunction)
+ * or <code>OR</code> (a disjunction). {@link QueryJunction}s are immutable.
+ */
+public class QueryJunction extends Query
+{
+    private final static String AND = "AND"; //$NON-NLS-1$
+    private final static String OR = "OR"; //$NON-NLS-1$
+
+    private boolean conjunction;
+    private List<Query> operands;
+
+    /**
+     * Creates a new {@link QueryJunction}.
+     *
+     * @param conjunction <code>true</code> to combine the operands with <code>AND</code>,
+     * <code>false</code> to combine them with <code>OR</code>
+     * @param operands the combined {@link Query} objects
+     */
+    public QueryJunction(boolean conjunction, List<Query> operands)
+    {
+        this.conjunction = conjunction;
+        this.operands = Collections.unmodifiableList(new ArrayList<Query>(operands));
+    }
+
+    /**
+     * Checks whether the operands are combined with <code>AND</code>.
+     *
+     * @return <code>true</code> for <code>AND</code>, <code>false</code> for <code>OR</code>
+     */
+    public boolean isConjunction()
+    {
+        return conjunction;
+    }
+
+    /**
+     * Gets the combined queries.
+     *
+     * @return an unmodifiable list of {@link Query} objects
+     */
+    public List<Query> getOperands()
+    {
+        return operands;
+    }
+
+    /**
+     * @see Query#toString()
+     */
+    public String toString()
+    {
+        StringBuffer string = new StringBuffer();
+        for (Query operand: operands)
+        {
+            if (string.length() > 0)
+            {
+                string.append(conjunction? AND:OR);
+            }
+            if (operand instanceof QueryJunction)
+            {
+                string.append('(').append(operand).append(')');
+            }
+            else
+            {
+                string.append(operand);
+            }
+        }
+        return string.toString();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QueryOperator.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api.query;
+
+/**
+ * The comparison operators of the QuickBase query language. Each negated operator (for example,
+ * {@link #XEX}) matches exactly the records that are not matched by its {@link #positive()}
+ * counterpart.
+ */
+public enum QueryOperator
+{
+    /** Equal to (case-insensitive for text). **/ EX,
+    /** Not equal to. **/ XEX,
+    /** Contains. **/ CT,
+    /** Does not contain. **/ XCT,
+    /** Has (one of the values of a multiple-choice or user list). **/ HAS,
+    /** Does not have. **/ XHAS,
+    /** Starts with. **/ SW,
+    /** Does not start with. **/ XSW,
+    /** Less than. **/ LT,
+    /** Less than or equal to. **/ LTE,
+    /** Greater than. **/ GT,
+    /** Greater than or equal to. **/ GTE,
+    /** Before (a date). **/ BF,
+    /** On or before. **/ OBF,
+    /** After (a date). **/ AF,
+    /** On or after. **/ OAF;
+
+    /**
+     * Checks whether the operator is the negation of another operator.
+     *
+     * @return <code>true</code> for {@link #XEX}, {@link #XCT}, {@link #XHAS} and {@link #XSW}
+     */
+    public boolean isNegated()
+    {
+        return this == XEX || this == XCT || this == XHAS || this == XSW;
+    }
+
+    /**
+     * Gets the operator that this operator negates.
+     *
+     * @return the non-negated operator (or the operator itself if it is not negated)
+     */
+    public QueryOperator positive()
+    {
+        switch (this)
+        {
+            case XEX: return EX;
+            case XCT: return CT;
+            case XHAS: return HAS;
+            case XSW: return SW;
+            default: return this;
+        }
+    }
+
+    /**
+     * Checks whether the operator compares the order of values.
+     *
+     * @return <code>true</code> for the less-than, greater-than, before and after operators
+     */
+    public boolean isRange()
+    {
+        return ordinal() >= LT.ordinal();
+    }
+
+    /**
+     * Checks whether the operator includes values that are equal to the operand.
+     *
+     * @return <code>true</code> for {@link #LTE}, {@link #GTE}, {@link #OBF} and {@link #OAF}
+     */
+    public boolean isInclusive()
+    {
+        return this == LTE || this == GTE || this == OBF || this == OAF;
+    }
+
+    /**
+     * Checks whether the operator selects values that are below the operand.
+     *
+     * @return <code>true</code> for {@link #LT}, {@link #LTE}, {@link #BF} and {@link #OBF}
+     */
+    public boolean isBelow()
+    {
+        return this == LT || this == LTE || this == BF || this == OBF;
+    }
+}
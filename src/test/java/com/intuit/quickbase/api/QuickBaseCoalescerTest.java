@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseCoalescerTest.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.net.PasswordAuthentication;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import com.intuit.quickbase.api.query.CList;
+import com.intuit.quickbase.api.query.QueryExecutionMode;
+
+/**
+ * The class <code>QuickBaseCoalescerTest</code> runs identical queries against a
+ * {@link QuickBaseStandInServer} and checks that they share a request, and that each member of
+ * a shared request can be cancelled or time out on its own.
+ */
+public class QuickBaseCoalescerTest
+{
+    private final static String QUERY = "{3.LTE.'100'}"; //$NON-NLS-1$
+    private final static CList COLUMNS = new CList(3, 6);
+    private final static int RECORDS = 100;
+    private final static long LATENCY = 400;
+    private final static long JOIN_DELAY = 100;
+    private final static String PILOT_THREAD_NAME = "QuickBase coalesced query #"; //$NON-NLS-1$
+
+    private static QuickBaseStandInServer server;
+    private static String tableId;
+
+    private QuickBaseQueryEngine engine;
+    private QuickBaseDatabase database;
+
+    @BeforeClass
+    public static void startServer() throws IOException
+    {
+        server = new QuickBaseStandInServer(0);
+        tableId = server.addTable("Coalescing", "Records", 1000, 10); //$NON-NLS-1$ //$NON-NLS-2$
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer()
+    {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() throws QuickBaseException
+    {
+        QuickBaseAuthenticator authenticator = new QuickBaseAuthenticator()
+        {
+            public PasswordAuthentication login()
+            {
+                return new PasswordAuthentication("user", "password".toCharArray()); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        };
+        QuickBaseConnection connection = QuickBase.getConnection(authenticator,
+            new QuickBasePooledTransport(), server.getBaseURL());
+        engine = new QuickBaseQueryEngine();
+        engine.setCoalescing(true);
+        connection.setQueryEngine(engine);
+        database = new QuickBaseDatabase(connection, tableId);
+        server.setLatency(0, 0, TimeUnit.MILLISECONDS);
+        database.getSchema();
+        server.setLatency(LATENCY, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown()
+    {
+        engine.shutdown();
+    }
+
+    @Test
+    public void testIdenticalQueriesShareRequest() throws Exception
+    {
+        long requests = server.getRequestCount();
+        QuickBaseSimpleResultHandler first = new QuickBaseSimpleResultHandler();
+        QuickBaseFuture<Void> pending = database.doQueryAsync(first, QUERY, COLUMNS);
+        Thread.sleep(JOIN_DELAY);
+        assertTrue(isPilotRunning());
+        QuickBaseSimpleResultHandler second = new QuickBaseSimpleResultHandler();
+        database.doQuery(second, QUERY, COLUMNS, QueryExecutionMode.synchronous);
+        pending.getResult();
+        assertEquals(1, server.getRequestCount() - requests);
+        assertEquals(RECORDS, first.getRecords().size());
+        assertEquals(first.getRecords(), second.getRecords());
+        assertTrue(first.isDone() && second.isDone());
+    }
+
+    @Test
+    public void testCancelledMemberLeavesFlight() throws Exception
+    {
+        QuickBaseSimpleResultHandler first = new QuickBaseSimpleResultHandler();
+        QuickBaseFuture<Void> cancelled = database.doQueryAsync(first, QUERY, COLUMNS);
+        Thread.sleep(JOIN_DELAY);
+        QuickBaseSimpleResultHandler second = new QuickBaseSimpleResultHandler();
+        QuickBaseFuture<Void> remaining = database.doQueryAsync(second, QUERY, COLUMNS);
+        Thread.sleep(JOIN_DELAY);
+        long start = System.currentTimeMillis();
+        cancelled.cancel(true);
+        try
+        {
+            cancelled.getResult();
+            fail();
+        }
+        catch (Exception expected)
+        {
+            // The query was cancelled
+        }
+        assertTrue(System.currentTimeMillis() - start < LATENCY/2);
+        remaining.getResult();
+        assertEquals(RECORDS, second.getRecords().size());
+        assertNull(second.getException());
+        assertTrue(first.getRecords().isEmpty());
+    }
+
+    @Test
+    public void testCancellingAllMembersAbortsPilot() throws Exception
+    {
+        QuickBaseFuture<Void> first = database.doQueryAsync(new QuickBaseSimpleResultHandler(),
+            QUERY, COLUMNS);
+        QuickBaseFuture<Void> second = database.doQueryAsync(new QuickBaseSimpleResultHandler(),
+            QUERY, COLUMNS);
+        Thread.sleep(JOIN_DELAY);
+        first.cancel(true);
+        second.cancel(true);
+
+        // The pilot returns its permit when its aborted request has landed:
+        //
+        Thread.sleep(2*LATENCY);
+        assertEquals(QuickBaseQueryEngine.DEFAULT_MAX_PENDING_QUERIES, engine.getAvailableSlots());
+    }
+
+    @Test
+    public void testMemberTimesOutAlone() throws Exception
+    {
+        final QuickBaseSimpleResultHandler timedOut = new QuickBaseSimpleResultHandler();
+        final long[] elapsed = new long[1];
+        engine.setQueryTimeout(LATENCY/4);
+        Thread member = new Thread()
+        {
+            public void run()
+            {
+                long start = System.currentTimeMillis();
+                try
+                {
+                    database.doQuery(timedOut, QUERY, COLUMNS, QueryExecutionMode.synchronous);
+                }
+                catch (QuickBaseException quickBaseException)
+                {
+                    timedOut.handleException(quickBaseException);
+                }
+                elapsed[0] = System.currentTimeMillis() - start;
+            }
+        };
+        member.start();
+        Thread.sleep(JOIN_DELAY/2);
+        engine.setQueryTimeout(0);
+        long requests = server.getRequestCount();
+        QuickBaseSimpleResultHandler patient = new QuickBaseSimpleResultHandler();
+        database.doQuery(patient, QUERY, COLUMNS, QueryExecutionMode.synchronous);
+        member.join();
+        assertNotNull(timedOut.getException());
+        assertTrue(elapsed[0] < LATENCY);
+        assertEquals(RECORDS, patient.getRecords().size());
+        assertEquals(0, server.getRequestCount() - requests);
+    }
+
+    @Test
+    public void testQueriesAreNotCoalescedWithoutPermits() throws Exception
+    {
+        QuickBaseQueryEngine saturated = new QuickBaseQueryEngine(1, 1);
+        saturated.setCoalescing(true);
+        database.getConnection().setQueryEngine(saturated);
+        try
+        {
+            // The asynchronous query holds the only permit, so neither query can start a flight:
+            //
+            long requests = server.getRequestCount();
+            QuickBaseSimpleResultHandler first = new QuickBaseSimpleResultHandler();
+            QuickBaseFuture<Void> pending = database.doQueryAsync(first, QUERY, COLUMNS);
+            QuickBaseSimpleResultHandler second = new QuickBaseSimpleResultHandler();
+            database.doQuery(second, QUERY, COLUMNS, QueryExecutionMode.synchronous);
+            pending.getResult();
+            assertEquals(2, server.getRequestCount() - requests);
+            assertEquals(RECORDS, first.getRecords().size());
+            assertEquals(RECORDS, second.getRecords().size());
+        }
+        finally
+        {
+            saturated.shutdown();
+        }
+    }
+
+    @Test
+    public void testDisablingCoalescing() throws Exception
+    {
+        engine.setCoalescing(false);
+        assertFalse(engine.isCoalescing());
+        long requests = server.getRequestCount();
+        QuickBaseFuture<Void> pending = database.doQueryAsync(new QuickBaseSimpleResultHandler(),
+            QUERY, COLUMNS);
+        Thread.sleep(JOIN_DELAY);
+        assertFalse(isPilotRunning());
+        database.doQuery(new QuickBaseSimpleResultHandler(), QUERY, COLUMNS,
+            QueryExecutionMode.synchronous);
+        pending.getResult();
+        assertEquals(2, server.getRequestCount() - requests);
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Checks whether a numbered pilot thread is executing a shared request.
+     */
+    private static boolean isPilotRunning()
+    {
+        for (Thread thread: Thread.getAllStackTraces().keySet())
+        {
+            String name = thread.getName();
+            if (name.startsWith(PILOT_THREAD_NAME)
+                && name.substring(PILOT_THREAD_NAME.length()).matches("\\d+") //$NON-NLS-1$
+                && thread.getState() != Thread.State.WAITING
+                && thread.getState() != Thread.State.TIMED_WAITING)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseMirrorTest.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The class <code>QuickBaseMirrorTest</code> writes {@link QuickBaseMirror} files, opens them again
+ * and checks that the values are restored exactly.
+ */
+public class QuickBaseMirrorTest
+{
+    private final static String TABLE_ID = "bqmirror"; //$NON-NLS-1$
+    private final static String INT64 = "int64"; //$NON-NLS-1$
+    private final static String FLOAT = "float"; //$NON-NLS-1$
+    private final static String TEXT = "text"; //$NON-NLS-1$
+    private final static int COUNT = 6;
+    private final static int PRICE = 7;
+    private final static int COLOR = 8;
+    private final static int RATE = 9;
+    private final static int[] COLUMNS = {3, COUNT, PRICE, COLOR, RATE};
+
+    private final static QuickBaseField<Long> COUNT_FIELD =
+        new QuickBaseField<Long>(COUNT, QuickBaseStandardFieldResolvers.LONG_RESOLVER);
+    private final static QuickBaseField<Double> PRICE_FIELD =
+        new QuickBaseField<Double>(PRICE, QuickBaseStandardFieldResolvers.DOUBLE_RESOLVER);
+    private final static QuickBaseField<Double> RATE_FIELD =
+        new QuickBaseField<Double>(RATE, QuickBaseStandardFieldResolvers.DOUBLE_RESOLVER);
+    private final static QuickBaseField<String> COLOR_FIELD =
+        new QuickBaseField<String>(COLOR, QuickBaseStandardFieldResolvers.STRING_RESOLVER);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private QuickBaseTable table;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        List<QuickBaseFieldDefinition> fields = new ArrayList<QuickBaseFieldDefinition>();
+        fields.add(new QuickBaseFieldDefinition(3, "Record ID#", "recordid", INT64)); //$NON-NLS-1$ //$NON-NLS-2$
+        fields.add(new QuickBaseFieldDefinition(COUNT, "Count", "numeric", INT64)); //$NON-NLS-1$ //$NON-NLS-2$
+        fields.add(new QuickBaseFieldDefinition(PRICE, "Price", "currency", FLOAT)); //$NON-NLS-1$ //$NON-NLS-2$
+        fields.add(new QuickBaseFieldDefinition(COLOR, "Color", TEXT, TEXT)); //$NON-NLS-1$
+        fields.add(new QuickBaseFieldDefinition(RATE, "Rate", "percent", FLOAT)); //$NON-NLS-1$ //$NON-NLS-2$
+        table = new QuickBaseTable(null, TABLE_ID, "Items", fields); //$NON-NLS-1$
+        file = new File(folder.getRoot(), "items.qbm"); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testRoundTrip() throws QuickBaseException
+    {
+        QuickBaseMirror mirror = write(records());
+        assertEquals(TABLE_ID, mirror.getTableId());
+        assertEquals(4, mirror.size());
+        int index = mirror.indexOf(5);
+        assertEquals(10L, mirror.getLong(index, COUNT_FIELD));
+        assertEquals(2.5, mirror.getDouble(index, PRICE_FIELD), 0);
+        assertEquals("red", mirror.getField(index, COLOR_FIELD)); //$NON-NLS-1$
+        assertEquals(Long.valueOf(10), mirror.getField(index, COUNT_FIELD));
+        index = mirror.indexOf(9);
+        assertEquals(-3L, mirror.getLong(index, COUNT_FIELD));
+        assertEquals(0.1, mirror.getDouble(index, PRICE_FIELD), 0);
+        assertEquals(Double.valueOf(0.1), mirror.getField(index, PRICE_FIELD));
+    }
+
+    @Test
+    public void testNullAndEmptyValues() throws QuickBaseException
+    {
+        QuickBaseMirror mirror = write(records());
+        int empty = mirror.indexOf(2);
+        int missing = mirror.indexOf(12);
+        for (int fieldID: new int[] {COUNT, PRICE, COLOR})
+        {
+            assertEquals("", mirror.getValue(empty, fieldID)); //$NON-NLS-1$
+            assertNull(mirror.getValue(missing, fieldID));
+            assertNull(mirror.getRecord(missing).getValue(fieldID));
+        }
+        assertNull(mirror.getField(missing, COLOR_FIELD));
+        try
+        {
+            mirror.getLong(missing, COUNT_FIELD);
+            fail();
+        }
+        catch (NumberFormatException expected)
+        {
+            // The field is not set
+        }
+        assertNull(mirror.getValue(empty, 42));
+    }
+
+    @Test
+    public void testDictionaryEncoding() throws QuickBaseException
+    {
+        QuickBaseMirror mirror = write(records());
+
+        // "1.50" cannot be restored from a double, so the rate column falls back to strings:
+        //
+        assertEquals("1.50", mirror.getValue(mirror.indexOf(5), RATE)); //$NON-NLS-1$
+        assertEquals(1.5, mirror.getDouble(mirror.indexOf(5), RATE_FIELD), 0);
+        assertEquals("2", mirror.getValue(mirror.indexOf(9), RATE)); //$NON-NLS-1$
+        assertEquals("", mirror.getValue(mirror.indexOf(2), RATE)); //$NON-NLS-1$
+        assertNull(mirror.getValue(mirror.indexOf(12), RATE));
+        String red = mirror.getField(mirror.indexOf(5), COLOR_FIELD);
+        assertEquals("red", mirror.getField(mirror.indexOf(9), COLOR_FIELD)); //$NON-NLS-1$
+        assertSame(red, mirror.getField(mirror.indexOf(9), COLOR_FIELD));
+    }
+
+    @Test
+    public void testSortedIndexOf() throws QuickBaseException
+    {
+        QuickBaseMirror mirror = write(records());
+        long[] recordIDs = {2, 5, 9, 12};
+        for (int index = 0; index < recordIDs.length; index++)
+        {
+            assertEquals(index, mirror.indexOf(recordIDs[index]));
+            assertEquals(String.valueOf(recordIDs[index]), mirror.getValue(index, 3));
+        }
+        assertEquals(-1, mirror.indexOf(1));
+        assertEquals(-1, mirror.indexOf(6));
+        assertEquals(-1, mirror.indexOf(13));
+    }
+
+    @Test
+    public void testUnsortedIndexOf() throws QuickBaseException
+    {
+        // A record without a record ID prevents sorting, so the records keep their order:
+        //
+        List<QuickBaseRecord> records = records();
+        records.add(record(null, "1", "1", "blue", "1")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        QuickBaseMirror mirror = write(records);
+        assertEquals(0, mirror.indexOf(5));
+        assertEquals(1, mirror.indexOf(9));
+        assertEquals(2, mirror.indexOf(2));
+        assertEquals(3, mirror.indexOf(12));
+        assertEquals(-1, mirror.indexOf(6));
+        assertEquals("blue", mirror.getField(4, COLOR_FIELD)); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testEmptyMirror() throws QuickBaseException
+    {
+        QuickBaseMirror mirror = write(new ArrayList<QuickBaseRecord>());
+        assertEquals(0, mirror.size());
+        assertEquals(-1, mirror.indexOf(1));
+    }
+
+    @Test
+    public void testInvalidMagicNumber() throws Exception
+    {
+        write(records());
+        overwrite(0, 0x12345678);
+        assertInvalid();
+    }
+
+    @Test
+    public void testInvalidVersion() throws Exception
+    {
+        write(records());
+        overwrite(4, 2);
+        assertInvalid();
+    }
+
+    @Test
+    public void testInvalidOffset() throws Exception
+    {
+        write(records());
+
+        // The offset of the first column follows the header and the table ID:
+        //
+        overwrite(32 + 2*TABLE_ID.length() + 8, Integer.MAX_VALUE - 8);
+        assertInvalid();
+    }
+
+    @Test
+    public void testTruncatedFile() throws Exception
+    {
+        QuickBaseMirror complete = write(records());
+        long length = file.length();
+        List<String> expected = new ArrayList<String>();
+        for (int index = 0; index < complete.size(); index++)
+        {
+            expected.add(complete.getRecord(index).toString());
+        }
+        for (long truncated = length - 1; truncated >= 0; truncated--)
+        {
+            File copy = folder.newFile("truncated" + truncated); //$NON-NLS-1$
+            copy(file, copy, truncated);
+            QuickBaseMirror mirror;
+            try
+            {
+                mirror = QuickBaseMirror.open(copy);
+            }
+            catch (QuickBaseException expectedException)
+            {
+                continue;
+            }
+
+            // Only the alignment padding at the end of the file was cut off:
+            //
+            List<String> actual = new ArrayList<String>();
+            for (int index = 0; index < mirror.size(); index++)
+            {
+                actual.add(mirror.getRecord(index).toString());
+            }
+            assertEquals(String.valueOf(truncated), expected, actual);
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private QuickBaseMirror write(List<QuickBaseRecord> records) throws QuickBaseException
+    {
+        QuickBaseMirror.write(table, COLUMNS, records, file);
+        return QuickBaseMirror.open(file);
+    }
+
+    /**
+     * Creates records in the order 5, 9, 2, 12. Record 2 has empty values, and record 12 has
+     * only a record ID.
+     */
+    private static List<QuickBaseRecord> records()
+    {
+        return new ArrayList<QuickBaseRecord>(Arrays.asList(
+            record("5", "10", "2.5", "red", "1.50"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            record("9", "-3", "0.1", "red", "2"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            record("2", "", "", "", ""), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            record("12", null, null, null, null))); //$NON-NLS-1$
+    }
+
+    private static QuickBaseRecord record(String recordID, String count, String price,
+    String color, String rate)
+    {
+        QuickBaseRecord record = new QuickBaseRecord();
+        record.setField(3, recordID);
+        record.setField(COUNT, count);
+        record.setField(PRICE, price);
+        record.setField(COLOR, color);
+        record.setField(RATE, rate);
+        return record;
+    }
+
+    private void overwrite(long position, int value) throws IOException
+    {
+        RandomAccessFile output = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+        try
+        {
+            output.seek(position);
+            output.writeInt(value);
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    private static void copy(File source, File target, long length) throws IOException
+    {
+        byte[] contents = new byte[(int)length];
+        RandomAccessFile input = new RandomAccessFile(source, "r"); //$NON-NLS-1$
+        try
+        {
+            input.readFully(contents);
+        }
+        finally
+        {
+            input.close();
+        }
+        RandomAccessFile output = new RandomAccessFile(target, "rw"); //$NON-NLS-1$
+        try
+        {
+            output.write(contents);
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    private void assertInvalid()
+    {
+        try
+        {
+            QuickBaseMirror.open(file);
+            fail();
+        }
+        catch (QuickBaseException expected)
+        {
+            // The file is rejected
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseQueryCacheTest.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import java.io.IOException;
+import java.net.PasswordAuthentication;
+import java.util.List;
+import org.apache.commons.httpclient.NameValuePair;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import com.intuit.quickbase.api.query.CList;
+
+/**
+ * The class <code>QuickBaseQueryCacheTest</code> checks that cached query results are only
+ * returned for exactly the same query of the same connection.
+ */
+public class QuickBaseQueryCacheTest
+{
+    private final static String TABLE_ID = "bqcache"; //$NON-NLS-1$
+    private final static String OTHER_TABLE_ID = "bqother"; //$NON-NLS-1$
+    private final static String QUERY = "{3.EX.'1'}"; //$NON-NLS-1$
+
+    private static QuickBaseStandInServer server;
+
+    private QuickBaseQueryCache cache;
+    private QuickBaseConnection connection;
+
+    /**
+     * Starts a server for signing in. The queries themselves are never executed; their results
+     * are put into the cache directly.
+     */
+    @BeforeClass
+    public static void startServer() throws IOException
+    {
+        server = new QuickBaseStandInServer(0);
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer()
+    {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() throws QuickBaseException
+    {
+        cache = new QuickBaseQueryCache();
+        connection = connection();
+    }
+
+    @Test
+    public void testSameQueryIsCached()
+    {
+        fill(request(connection, TABLE_ID, QUERY));
+        List<QuickBaseRecord> records = request(connection, TABLE_ID, QUERY).getCacheSlot().get();
+        assertEquals(1, records.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testResultsAreKeyedByConnection() throws QuickBaseException
+    {
+        fill(request(connection, TABLE_ID, QUERY));
+        assertNull(request(connection(), TABLE_ID, QUERY).getCacheSlot().get());
+    }
+
+    @Test
+    public void testResultsAreKeyedByTable()
+    {
+        fill(request(connection, TABLE_ID, QUERY));
+        assertNull(request(connection, OTHER_TABLE_ID, QUERY).getCacheSlot().get());
+    }
+
+    @Test
+    public void testParametersDoNotCollide()
+    {
+        // Without escaping, both parameter lists would read "...&slist=6&options=num-1":
+        //
+        NameValuePair sortAndLimit = new NameValuePair("slist", "6&options=num-1"); //$NON-NLS-1$ //$NON-NLS-2$
+        QuickBaseDatabase database = new QuickBaseDatabase(connection, TABLE_ID);
+        fill(database.doQueryRequest(QUERY, new CList(3), sortAndLimit));
+        QuickBaseRequest request = database.doQueryRequest(QUERY, new CList(3),
+            new NameValuePair("slist", "6"), new NameValuePair("options", "num-1")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        assertNull(request.getCacheSlot().get());
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private QuickBaseConnection connection() throws QuickBaseException
+    {
+        QuickBaseAuthenticator authenticator = new QuickBaseAuthenticator()
+        {
+            public PasswordAuthentication login()
+            {
+                return new PasswordAuthentication("user", "password".toCharArray()); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        };
+        QuickBaseConnection newConnection = QuickBase.getConnection(authenticator,
+            new QuickBasePooledTransport(), server.getBaseURL());
+        newConnection.setQueryCache(cache);
+        return newConnection;
+    }
+
+    private static QuickBaseRequest request(QuickBaseConnection connection, String dbid,
+    String query)
+    {
+        return new QuickBaseDatabase(connection, dbid).doQueryRequest(query, new CList(3, 6));
+    }
+
+    /**
+     * Stores a result with a single record in the slot of a request, as if the request had been
+     * executed.
+     */
+    private static void fill(QuickBaseRequest request)
+    {
+        QuickBaseResultHandler filling = request.getCacheSlot().fill(new QuickBaseSimpleResultHandler());
+        QuickBaseRecord record = new QuickBaseRecord();
+        record.setField(3, "1"); //$NON-NLS-1$
+        record.trim();
+        filling.handleRecord(record);
+        filling.done();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseQueryEvaluatorTest.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import com.intuit.quickbase.api.query.CList;
+import com.intuit.quickbase.api.query.Query;
+import com.intuit.quickbase.api.query.QueryClause;
+import com.intuit.quickbase.api.query.QueryJunction;
+
+/**
+ * The class <code>QuickBaseQueryEvaluatorTest</code> checks that the {@link QuickBaseQueryEvaluator}
+ * selects the same records with its indexes as a full scan of the records.
+ */
+public class QuickBaseQueryEvaluatorTest
+{
+    private final static int RECORDS = 500;
+    private final static int NUMBER = 6;
+    private final static int TEXT = 7;
+    private final static String[] WORDS =
+    {
+        "", "apple", "Apricot", "banana", "cherry", "10", "9" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+    };
+    private final static String[] RANGE_OPERATORS = {"LT", "LTE", "GT", "GTE"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+    private List<QuickBaseRecord> records;
+    private QuickBaseQueryEvaluator evaluator;
+
+    @Before
+    public void setUp()
+    {
+        Random random = new Random(RECORDS);
+        records = new ArrayList<QuickBaseRecord>();
+        for (int recordID = 1; recordID <= RECORDS; recordID++)
+        {
+            QuickBaseRecord record = new QuickBaseRecord();
+            record.setField(3, String.valueOf(recordID));
+            int number = random.nextInt(60) - 5;
+            record.setField(NUMBER, number < 0? "":String.valueOf(number)); //$NON-NLS-1$
+            record.setField(TEXT, random.nextInt(10) == 0? null:WORDS[random.nextInt(WORDS.length)]);
+            records.add(record);
+        }
+        evaluator = new QuickBaseQueryEvaluator(records);
+    }
+
+    @Test
+    public void testHashIndexMatchesScan() throws QuickBaseException
+    {
+        for (int value = -1; value <= 55; value++)
+        {
+            assertSame("{6.EX." + value + "}"); //$NON-NLS-1$ //$NON-NLS-2$
+            assertSame("{6.XEX.'" + value + "'}"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        assertSame("{6.EX.''}"); //$NON-NLS-1$
+        assertSame("{6.EX.10.0}"); //$NON-NLS-1$
+        for (String word: WORDS)
+        {
+            assertSame("{7.EX.'" + word.toUpperCase() + "'}"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    @Test
+    public void testSortedIndexMatchesScan() throws QuickBaseException
+    {
+        for (String operator: RANGE_OPERATORS)
+        {
+            for (int value = -1; value <= 55; value += 4)
+            {
+                assertSame("{6." + operator + "." + value + "}"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+            for (String word: WORDS)
+            {
+                assertSame("{7." + operator + ".'" + word + "'}"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+        }
+        for (String prefix: new String[] {"a", "AP", "b", "1", "z"}) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        {
+            assertSame("{7.SW." + prefix + "}"); //$NON-NLS-1$ //$NON-NLS-2$
+            assertSame("{7.XSW." + prefix + "}"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    @Test
+    public void testJunctions() throws QuickBaseException
+    {
+        assertSame("{6.LT.10}OR{6.GT.40}AND{7.SW.a}"); //$NON-NLS-1$
+        assertSame("({6.LT.10}OR{6.GT.40})AND{7.SW.a}"); //$NON-NLS-1$
+        assertSame("{7.EX.apple} or {7.EX.banana} and {6.GTE.20}"); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testSelectedColumns() throws QuickBaseException
+    {
+        QuickBaseSimpleResultHandler handler = new QuickBaseSimpleResultHandler();
+        evaluator.doQuery(handler, "{3.EX.7}", new CList(3, NUMBER)); //$NON-NLS-1$
+        assertEquals(1, handler.getRecords().size());
+        QuickBaseRecord record = handler.getRecords().get(0);
+        assertEquals("7", record.getValue(3)); //$NON-NLS-1$
+        assertEquals(records.get(6).getValue(NUMBER), record.getValue(NUMBER));
+        assertEquals(null, record.getValue(TEXT));
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Checks that the evaluator selects the records that {@link #scan(String)} selects.
+     */
+    private void assertSame(String query) throws QuickBaseException
+    {
+        QuickBaseSimpleResultHandler handler = new QuickBaseSimpleResultHandler();
+        evaluator.doQuery(handler, query, null);
+        assertEquals(query, scan(query), handler.getRecords());
+        assertEquals(query, handler.getRecords().size(), evaluator.doQueryCount(query));
+    }
+
+    /**
+     * Selects the records that match a query by examining every record, without indexes.
+     */
+    private List<QuickBaseRecord> scan(String query) throws QuickBaseException
+    {
+        List<QuickBaseRecord> matches = new ArrayList<QuickBaseRecord>();
+        for (QuickBaseRecord record: records)
+        {
+            if (matches(Query.parse(query), record))
+            {
+                matches.add(record);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean matches(Query query, QuickBaseRecord record)
+    {
+        if (query instanceof QueryJunction)
+        {
+            QueryJunction junction = (QueryJunction)query;
+            for (Query operand: junction.getOperands())
+            {
+                if (matches(operand, record) != junction.isConjunction())
+                {
+                    return !junction.isConjunction();
+                }
+            }
+            return junction.isConjunction();
+        }
+        QueryClause clause = (QueryClause)query;
+        String operator = clause.getOperator().name();
+        boolean negated = operator.startsWith("X"); //$NON-NLS-1$
+        String actual = record.getValue(clause.getFieldID());
+        actual = actual != null? actual.toLowerCase():""; //$NON-NLS-1$
+        String value = clause.getValue().toLowerCase();
+        Double actualNumber = number(actual);
+        Double valueNumber = number(value);
+        int comparison;
+        if (valueNumber != null)
+        {
+            comparison = actualNumber != null? Double.compare(actualNumber.doubleValue(),
+                valueNumber.doubleValue()):Integer.MIN_VALUE;
+        }
+        else
+        {
+            comparison = actual.compareTo(value);
+        }
+        boolean match;
+        if (operator.endsWith("EX")) //$NON-NLS-1$
+        {
+            match = valueNumber != null? comparison == 0:actual.equals(value);
+        }
+        else if (operator.endsWith("SW")) //$NON-NLS-1$
+        {
+            match = actual.startsWith(value);
+        }
+        else
+        {
+            // Empty values (and text values when comparing numbers) never match a range:
+            //
+            boolean comparable = actual.length() > 0 && comparison != Integer.MIN_VALUE;
+            match = comparable && (operator.equals("LT") && comparison < 0 //$NON-NLS-1$
+                || operator.equals("LTE") && comparison <= 0 //$NON-NLS-1$
+                || operator.equals("GT") && comparison > 0 //$NON-NLS-1$
+                || operator.equals("GTE") && comparison >= 0); //$NON-NLS-1$
+        }
+        return match != negated;
+    }
+
+    private static Double number(String value)
+    {
+        try
+        {
+            return value.length() > 0? Double.valueOf(value):null;
+        }
+        catch (NumberFormatException numberFormatException)
+        {
+            return null;
+        }
+    }
+}
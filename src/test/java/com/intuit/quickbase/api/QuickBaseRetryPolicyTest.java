@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QuickBaseRetryPolicyTest.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+/**
+ * The class <code>QuickBaseRetryPolicyTest</code> checks which failed calls are retried by the
+ * {@link QuickBaseRetryPolicy}.
+ */
+public class QuickBaseRetryPolicyTest
+{
+    private final static String ABORTED = "query was cancelled"; //$NON-NLS-1$
+
+    private QuickBaseRetryPolicy policy = new QuickBaseRetryPolicy();
+
+    @Test
+    public void testIOExceptionIsRetryable()
+    {
+        QuickBaseException exception = new QuickBaseException(new IOException());
+        assertTrue(policy.isRetryable(QuickBaseAPICall.API_DoQuery, exception, 1));
+    }
+
+    @Test
+    public void testSocketTimeoutIsNotRetryable()
+    {
+        QuickBaseException exception = new QuickBaseException(new SocketTimeoutException());
+        assertFalse(policy.isRetryable(QuickBaseAPICall.API_DoQuery, exception, 1));
+    }
+
+    @Test
+    public void testInterruptedIOExceptionIsNotRetryable()
+    {
+        QuickBaseException exception = new QuickBaseException(new InterruptedIOException());
+        assertFalse(policy.isRetryable(QuickBaseAPICall.API_DoQuery, exception, 1));
+    }
+
+    @Test
+    public void testInterruptedThreadIsNotRetried()
+    {
+        QuickBaseException exception = new QuickBaseException(new IOException());
+        Thread.currentThread().interrupt();
+        try
+        {
+            assertFalse(policy.isRetryable(QuickBaseAPICall.API_DoQuery, exception, 1));
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testRunningQueryIsRetried()
+    {
+        assertTrue(retryableWithinQuery(false));
+    }
+
+    @Test
+    public void testAbortedQueryIsNotRetried()
+    {
+        assertFalse(retryableWithinQuery(true));
+    }
+
+    @Test
+    public void testHedgingExecutorIsBounded() throws InterruptedException
+    {
+        policy.setMaxHedgingThreads(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = policy.getHedgingExecutor();
+        executor.execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException interruptedException)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    // Never runs
+                }
+            });
+            fail();
+        }
+        catch (RejectedExecutionException expected)
+        {
+            // The only thread is busy
+        }
+        finally
+        {
+            release.countDown();
+            policy.shutdown();
+        }
+    }
+
+    @Test
+    public void testShutdownReleasesHedgingExecutor()
+    {
+        ExecutorService executor = policy.getHedgingExecutor();
+        policy.shutdown();
+        assertTrue(executor.isShutdown());
+        ExecutorService replacement = policy.getHedgingExecutor();
+        assertNotSame(executor, replacement);
+        assertFalse(replacement.isShutdown());
+        policy.shutdown();
+    }
+
+    @Test
+    public void testReplacedPolicyIsShutDown()
+    {
+        QuickBaseRetryPolicy previous = QuickBase.getRetryPolicy();
+        ExecutorService executor = previous.getHedgingExecutor();
+        QuickBase.setRetryPolicy(policy);
+        try
+        {
+            assertTrue(executor.isShutdown());
+        }
+        finally
+        {
+            QuickBase.setRetryPolicy(null);
+        }
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    /**
+     * Lets a request of a {@link QuickBaseQuery} fail with an {@link IOException} and asks the
+     * {@link QuickBaseRetryPolicy} whether the request would be retried.
+     *
+     * @param abort <code>true</code> to abort the query before the request fails
+     * @return the decision of the {@link QuickBaseRetryPolicy}
+     */
+    private boolean retryableWithinQuery(final boolean abort)
+    {
+        final QuickBaseQuery[] query = new QuickBaseQuery[1];
+        final boolean[] retryable = new boolean[1];
+        QuickBaseRequest request = new QuickBaseRequest()
+        {
+            public InputSource execute() throws QuickBaseException
+            {
+                if (abort)
+                {
+                    query[0].abort(ABORTED);
+                }
+                QuickBaseException exception = new QuickBaseException(new IOException());
+                retryable[0] = policy.isRetryable(QuickBaseAPICall.API_DoQuery, exception, 1);
+                throw exception;
+            }
+
+            public Object getKey()
+            {
+                return null;
+            }
+
+            public QuickBaseQueryCache.Slot getCacheSlot()
+            {
+                return null;
+            }
+        };
+        query[0] = new QuickBaseQuery(request, null, QuickBaseResponseParser.getDefault());
+        try
+        {
+            query[0].call();
+        }
+        catch (QuickBaseException expected)
+        {
+            // The request always fails
+        }
+        return retryable[0];
+    }
+}
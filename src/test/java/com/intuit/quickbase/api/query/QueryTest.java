@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2009 Intuit Inc. All Rights reserved.
+ * -------------------------------------------------------------------------------------------------
+ *
+ * File name  : QueryTest.java
+ * Created on : Oct 18, 2026
+ * -------------------------------------------------------------------------------------------------
+ *
+ *
+ * *************************************************************************************************
+ */
+
+package com.intuit.quickbase.api.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.List;
+import org.junit.Test;
+import com.intuit.quickbase.api.QuickBaseException;
+
+/**
+ * The class <code>QueryTest</code> checks the parsing of query strings by {@link Query}.
+ */
+public class QueryTest
+{
+    @Test
+    public void testEmptyQuery() throws QuickBaseException
+    {
+        assertNull(Query.parse(null));
+        assertNull(Query.parse(" ")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testClause() throws QuickBaseException
+    {
+        QueryClause clause = (QueryClause)Query.parse("{6.gte.'42'}"); //$NON-NLS-1$
+        assertEquals(6, clause.getFieldID());
+        assertEquals(QueryOperator.GTE, clause.getOperator());
+        assertEquals("42", clause.getValue()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testAndBindsTighterThanOr() throws QuickBaseException
+    {
+        QueryJunction disjunction = (QueryJunction)Query.parse("{6.EX.1}OR{6.EX.2}AND{7.EX.3}"); //$NON-NLS-1$
+        assertFalse(disjunction.isConjunction());
+        List<Query> operands = disjunction.getOperands();
+        assertEquals(2, operands.size());
+        assertTrue(operands.get(0) instanceof QueryClause);
+        QueryJunction conjunction = (QueryJunction)operands.get(1);
+        assertTrue(conjunction.isConjunction());
+        assertEquals(2, conjunction.getOperands().size());
+    }
+
+    @Test
+    public void testParentheses() throws QuickBaseException
+    {
+        QueryJunction conjunction = (QueryJunction)Query.parse("({6.EX.1} or {6.EX.2}) and {7.EX.3}"); //$NON-NLS-1$
+        assertTrue(conjunction.isConjunction());
+        QueryJunction disjunction = (QueryJunction)conjunction.getOperands().get(0);
+        assertFalse(disjunction.isConjunction());
+        assertEquals("({6.EX.'1'}OR{6.EX.'2'})AND{7.EX.'3'}", conjunction.toString()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testQuotedValue() throws QuickBaseException
+    {
+        QueryClause clause = (QueryClause)Query.parse("{6.CT.'a} OR {b'}"); //$NON-NLS-1$
+        assertEquals("a} OR {b", clause.getValue()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testUnquotedValue() throws QuickBaseException
+    {
+        QueryClause clause = (QueryClause)Query.parse("{6.CT. a b }"); //$NON-NLS-1$
+        assertEquals(" a b ", clause.getValue()); //$NON-NLS-1$
+        clause = (QueryClause)Query.parse("{6.CT.it's}"); //$NON-NLS-1$
+        assertEquals("it's", clause.getValue()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testKeywordNeedsBoundary()
+    {
+        assertInvalid("{6.EX.1}ORDER{6.EX.2}", 8); //$NON-NLS-1$
+        assertInvalid("{6.EX.1}ANDROID", 8); //$NON-NLS-1$
+        assertInvalid("{6.EX.1} AND", 9); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testInvalidQueries()
+    {
+        assertInvalid("6.EX.1", 0); //$NON-NLS-1$
+        assertInvalid("{.EX.1}", 1); //$NON-NLS-1$
+        assertInvalid("{6.XX.1}", 3); //$NON-NLS-1$
+        assertInvalid("{6.EX.'1}", 6); //$NON-NLS-1$
+        assertInvalid("{6.EX.1", 6); //$NON-NLS-1$
+        assertInvalid("({6.EX.1}", 9); //$NON-NLS-1$
+        assertInvalid("{6.EX.1})", 8); //$NON-NLS-1$
+    }
+
+    //------------------------------------- PRIVATE SECTION --------------------------------------//
+
+    private static void assertInvalid(String query, int position)
+    {
+        try
+        {
+            Query.parse(query);
+            fail(query);
+        }
+        catch (QuickBaseException expected)
+        {
+            assertTrue(expected.getMessage(), expected.getMessage().endsWith(" " + position)); //$NON-NLS-1$
+        }
+    }
+}